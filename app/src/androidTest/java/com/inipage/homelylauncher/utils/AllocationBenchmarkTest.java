@@ -0,0 +1,115 @@
+package com.inipage.homelylauncher.utils;
+
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.inipage.homelylauncher.caches.AppInfoCache;
+import com.inipage.homelylauncher.caches.AppLabelCache;
+import com.inipage.homelylauncher.caches.IconCacheSync;
+import com.inipage.homelylauncher.dock.items.ContextualAppFetcher;
+import com.inipage.homelylauncher.model.ApplicationIconHideable;
+import com.inipage.homelylauncher.persistence.AppExclusionIndex;
+import com.inipage.homelylauncher.persistence.DatabaseEditor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Counts allocations made on the test thread by the cache lookups behind a drawer bind and a
+ * dock load, against the apps installed on the device. Each workload is run once to warm the
+ * caches, then measured; we care about the steady state, not cache misses.
+ * <p>
+ * Results are logged under "AllocationBenchmark":
+ * ./gradlew :app:connectedDebugAndroidTest && adb logcat -s AllocationBenchmark
+ */
+@RunWith(AndroidJUnit4.class)
+@SuppressWarnings("deprecation") // Thread alloc counting still works on ART, just isn't "supported"
+public class AllocationBenchmarkTest {
+
+    private static final String TAG = "AllocationBenchmark";
+
+    @Test
+    public void drawerBindDoesNotAllocatePerApp() {
+        final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        final List<ApplicationIconHideable> apps = AppInfoCache.get().getAllActivities();
+
+        bindDrawer(context, apps);
+        final Measurement drawerBind = measure(() -> bindDrawer(context, apps));
+        Log.i(TAG, String.format(Locale.US, "Drawer bind (%d apps): %s", apps.size(), drawerBind));
+
+        // Warm lookups are keyed by interned ComponentKeys; anything proportional to the number
+        // of apps means a key or wrapper is being built per row again
+        assertTrue(drawerBind.toString(), drawerBind.mAllocCount < Math.max(1, apps.size() / 2));
+    }
+
+    @Test
+    public void measureDockLoad() {
+        final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        final ContextualAppFetcher appFetcher = new ContextualAppFetcher();
+
+        appFetcher.getRecentApps(context);
+        final Measurement dockLoad = measure(() -> appFetcher.getRecentApps(context));
+        Log.i(TAG, "Dock load: " + dockLoad);
+    }
+
+    /**
+     * The lookups AppDrawerAdapter does per app row, plus the exclusion check the dock does per
+     * candidate.
+     */
+    private static void bindDrawer(Context context, List<ApplicationIconHideable> apps) {
+        final IconCacheSync iconCache = IconCacheSync.getInstance(context);
+        final AppLabelCache labelCache = AppLabelCache.getInstance(context);
+        final AppExclusionIndex exclusionIndex = DatabaseEditor.get().getExclusionIndex();
+        for (int i = 0; i < apps.size(); i++) {
+            final ApplicationIconHideable app = apps.get(i);
+            iconCache.getActivityIcon(app.getPackageName(), app.getActivityName());
+            labelCache.getLabel(app.getPackageName(), app.getActivityName());
+            exclusionIndex.isExcluded(app.getPackageName(), app.getActivityName());
+        }
+    }
+
+    private static Measurement measure(Runnable workload) {
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        Debug.resetThreadAllocSize();
+        final long start = System.nanoTime();
+        workload.run();
+        final long durationNs = System.nanoTime() - start;
+        final Measurement measurement =
+            new Measurement(Debug.getThreadAllocCount(), Debug.getThreadAllocSize(), durationNs);
+        Debug.stopAllocCounting();
+        return measurement;
+    }
+
+    private static class Measurement {
+
+        private final int mAllocCount;
+        private final int mAllocBytes;
+        private final long mDurationNs;
+
+        Measurement(int allocCount, int allocBytes, long durationNs) {
+            mAllocCount = allocCount;
+            mAllocBytes = allocBytes;
+            mDurationNs = durationNs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                Locale.US,
+                "%d allocations, %d bytes, %.2fms",
+                mAllocCount,
+                mAllocBytes,
+                mDurationNs / 1_000_000F);
+        }
+    }
+}
@@ -3,18 +3,28 @@ package com.inipage.homelylauncher;
 import android.app.Activity;
 import android.app.Application;
 import android.content.res.Configuration;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.LocaleList;
+import android.os.StrictMode;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.inipage.homelylauncher.caches.AppInfoCache;
+import com.inipage.homelylauncher.caches.CacheRevalidator;
+import com.inipage.homelylauncher.caches.HomeSnapshotCache;
+import com.inipage.homelylauncher.dock.items.LaunchPredictor;
 import com.inipage.homelylauncher.persistence.DatabaseEditor;
 import com.inipage.homelylauncher.persistence.PrefsHelper;
 import com.inipage.homelylauncher.utils.Constants;
+import com.inipage.homelylauncher.utils.DebugLogUtils;
 import com.inipage.homelylauncher.utils.FileUtils;
 import com.inipage.homelylauncher.utils.LifecycleLogUtils;
+import com.inipage.homelylauncher.utils.PerfMetrics;
+
+import org.greenrobot.eventbus.EventBus;
 
 import static com.inipage.homelylauncher.utils.LifecycleLogUtils.LogType.ERROR;
 import static com.inipage.homelylauncher.utils.LifecycleLogUtils.LogType.LIFECYCLE_CHANGE;
@@ -25,13 +35,16 @@ public class ApplicationClass extends Application {
 
     private static final String TAG = "ApplicationClass";
 
+    // The locales cached labels were loaded for
+    @Nullable private LocaleList mLocales;
+
     private final ActivityLifecycleCallbacks mActivityLifecycleCallbacks =
         new ActivityLifecycleCallbacks() {
             @Override
             public void onActivityCreated(
                 @NonNull Activity activity, @Nullable Bundle savedInstanceState) {
                 LifecycleLogUtils.logEvent(
-                    LIFECYCLE_CHANGE, "onActivityCreated " + activity.getClass().getSimpleName());
+                    LIFECYCLE_CHANGE, "onActivityCreated %s", activity.getClass().getSimpleName());
             }
 
             @Override
@@ -59,7 +72,7 @@ public class ApplicationClass extends Application {
             @Override
             public void onActivityDestroyed(@NonNull Activity activity) {
                 LifecycleLogUtils.logEvent(
-                    LIFECYCLE_CHANGE, "onActivityDestroyed " + activity.getClass().getSimpleName());
+                    LIFECYCLE_CHANGE, "onActivityDestroyed %s", activity.getClass().getSimpleName());
             }
         };
     private final UncaughtHandler mUncaughtExceptionHandler =
@@ -87,6 +100,9 @@ public class ApplicationClass extends Application {
     @Override
     public void onCreate() {
         super.onCreate();
+        final long start = PerfMetrics.APPLICATION_CREATE.start();
+        // Must precede any EventBus.getDefault() call
+        EventBus.builder().addIndex(new LauncherEventBusIndex()).installDefaultEventBus();
 
         // This needs to happen before *anything* else can grab a handle to SharedPrefs
         if (FileUtils.existsInFilesDir(this, Constants.SHARED_PREFS_IMPORT_PATH)) {
@@ -107,9 +123,40 @@ public class ApplicationClass extends Application {
 
         // The following objects map 1:1 with the lifecycle of the process, and thus,
         // ApplicationClass
+        PrefsHelper.seed(this);
+        // Decode the cold start snapshot while the heavier caches below are seeded
+        HomeSnapshotCache.getInstance(this).prefetch();
         DatabaseEditor.seed(this);
         AppInfoCache.seed(this);
-        PrefsHelper.seed(this);
+        mLocales = getResources().getConfiguration().getLocales();
+        DebugLogUtils.setCapturing(PrefsHelper.isCapturingTraces());
+        if (PrefsHelper.isDevMode()) {
+            enableStrictMode();
+        }
+        PerfMetrics.APPLICATION_CREATE.stop(start);
+    }
+
+    /**
+     * Flag disk, network and explicitly noted slow calls on the main thread. Violations are
+     * counted in PerfMetrics and written to the lifecycle log, rather than crashing.
+     */
+    private void enableStrictMode() {
+        final StrictMode.ThreadPolicy.Builder policy =
+            new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .detectNetwork()
+                .detectCustomSlowCalls();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            policy.penaltyListener(Runnable::run, violation -> {
+                PerfMetrics.STRICT_MODE_VIOLATIONS.increment();
+                LifecycleLogUtils.logEvent(
+                    ERROR, "StrictMode: %s", Log.getStackTraceString(violation));
+            });
+        } else {
+            policy.penaltyLog();
+        }
+        StrictMode.setThreadPolicy(policy.build());
     }
 
     @Override
@@ -125,7 +172,22 @@ public class ApplicationClass extends Application {
         super.onConfigurationChanged(newConfig);
         LifecycleLogUtils.logEvent(
             LIFECYCLE_CHANGE,
-            "Configuration changed: " + newConfig.screenWidthDp + "x" + newConfig.screenHeightDp);
+            "Configuration changed: %dx%d",
+            newConfig.screenWidthDp,
+            newConfig.screenHeightDp);
+        if (mLocales != null && !mLocales.equals(newConfig.getLocales())) {
+            mLocales = newConfig.getLocales();
+            CacheRevalidator.revalidateLabels(this);
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            // We're on the LRU list and may be killed without further notice
+            LaunchPredictor.getInstance(this).flush();
+        }
     }
 
     private interface UncaughtHandler extends Thread.UncaughtExceptionHandler {
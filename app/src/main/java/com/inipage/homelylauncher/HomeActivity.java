@@ -6,12 +6,10 @@ import static android.view.DragEvent.ACTION_DRAG_ENTERED;
 import static android.view.DragEvent.ACTION_DRAG_LOCATION;
 import static com.inipage.homelylauncher.utils.DebugLogUtils.TAG_ICON_CASCADE;
 import static com.inipage.homelylauncher.utils.DebugLogUtils.TAG_PAGE_SCROLL;
-import static com.inipage.homelylauncher.utils.DebugLogUtils.TAG_WALLPAPER_OFFSET;
 
 import android.annotation.SuppressLint;
 import android.annotation.TargetApi;
 import android.app.Activity;
-import android.app.WallpaperManager;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProviderInfo;
 import android.content.BroadcastReceiver;
@@ -21,6 +19,7 @@ import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.pm.ActivityInfo;
 import android.content.res.Configuration;
+import android.graphics.Bitmap;
 import android.graphics.Rect;
 import android.os.Build;
 import android.os.Bundle;
@@ -36,6 +35,8 @@ import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.widget.ImageView;
 import android.widget.RelativeLayout;
 import android.widget.Toast;
 
@@ -49,9 +50,9 @@ import androidx.viewpager2.widget.ViewPager2.OnPageChangeCallback;
 
 import com.google.common.collect.ImmutableList;
 import com.inipage.homelylauncher.caches.AppInfoCache;
-import com.inipage.homelylauncher.caches.AppLabelCache;
+import com.inipage.homelylauncher.caches.AppResourcesChangedEvent;
 import com.inipage.homelylauncher.caches.FontCacheSync;
-import com.inipage.homelylauncher.caches.IconCacheSync;
+import com.inipage.homelylauncher.caches.HomeSnapshotCache;
 import com.inipage.homelylauncher.dock.DockController;
 import com.inipage.homelylauncher.drawer.HideAppEvent;
 import com.inipage.homelylauncher.folders.FolderController;
@@ -64,7 +65,9 @@ import com.inipage.homelylauncher.pager.BasePageController;
 import com.inipage.homelylauncher.pager.HomePager;
 import com.inipage.homelylauncher.pager.NonTouchInputCoordinator;
 import com.inipage.homelylauncher.pager.PagerIndicatorView;
+import com.inipage.homelylauncher.pager.WallpaperOffsetDispatcher;
 import com.inipage.homelylauncher.persistence.DatabaseEditor;
+import com.inipage.homelylauncher.persistence.DockPreferencesChangedEvent;
 import com.inipage.homelylauncher.persistence.PrefsHelper;
 import com.inipage.homelylauncher.state.EditingEvent;
 import com.inipage.homelylauncher.state.GestureNavContractSingleton;
@@ -73,6 +76,7 @@ import com.inipage.homelylauncher.state.PagesChangedEvent;
 import com.inipage.homelylauncher.utils.AttributeApplier;
 import com.inipage.homelylauncher.utils.Constants;
 import com.inipage.homelylauncher.utils.DebugLogUtils;
+import com.inipage.homelylauncher.utils.PerfMetrics;
 import com.inipage.homelylauncher.utils.SizeDimenAttribute;
 import com.inipage.homelylauncher.utils.StatusBarUtils;
 import com.inipage.homelylauncher.utils.ViewUtils;
@@ -102,7 +106,6 @@ import kotlin.jvm.functions.Function0;
 public class HomeActivity extends AppCompatActivity implements
     FolderController.Host,
     HomePager.Host,
-    DockController.Host,
     NonTouchInputCoordinator.Host,
     WidgetHost,
     ProvidesOverallDimensions
@@ -176,7 +179,7 @@ public class HomeActivity extends AppCompatActivity implements
         public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
             DebugLogUtils.needle(
                 TAG_PAGE_SCROLL,
-                "position=" + position + "; offset=" + positionOffset + "; px=" +
+                () -> "position=" + position + "; offset=" + positionOffset + "; px=" +
                     positionOffsetPixels);
             if (position == 0) {
                 updateBackgroundAlpha(1 - positionOffset);
@@ -217,13 +220,16 @@ public class HomeActivity extends AppCompatActivity implements
             }
 
             DecorViewDragger.get(HomeActivity.this).update();
+            mPager.updateNearVisiblePages(position);
             updateWallpaperOffset(position, positionOffset);
         }
 
         @Override
         public void onPageSelected(int position) {
-            DebugLogUtils.needle(TAG_PAGE_SCROLL, "onPageSelected: " + position);
+            DebugLogUtils.needle(TAG_PAGE_SCROLL, () -> "onPageSelected: " + position);
             pagerIndicatorView.updateActiveItem(position);
+            // Jumps from setCurrentItem() may not scroll through every page in between
+            mPager.updateNearVisiblePages(position);
             for (int i = 0; i < mPager.getItemCount(); i++) {
                 if (position == i) {
                     mPager.getPageController(position).onResume();
@@ -235,7 +241,7 @@ public class HomeActivity extends AppCompatActivity implements
 
         @Override
         public void onPageScrollStateChanged(int state) {
-            DebugLogUtils.needle(TAG_PAGE_SCROLL, "Scroll state = " + state);
+            DebugLogUtils.needle(TAG_PAGE_SCROLL, () -> "Scroll state = " + state);
             switch (state) {
                 case ViewPager2.SCROLL_STATE_DRAGGING:
                 case ViewPager2.SCROLL_STATE_SETTLING:
@@ -291,9 +297,11 @@ public class HomeActivity extends AppCompatActivity implements
 
     private DockController mDockController;
     private FolderController mFolderController;
+    private WallpaperOffsetDispatcher mWallpaperOffsetDispatcher;
     private View.OnLayoutChangeListener mFirstLayoutListener;
     private boolean mHasSetPage = false;
     private boolean mSyntheticScrolling = false;
+    @Nullable private ImageView mColdStartSnapshotView;
 
     @Nullable private WidgetHost.SourceData mPendingWidgetActionRoutingData;
 
@@ -304,6 +312,7 @@ public class HomeActivity extends AppCompatActivity implements
     @SuppressLint("UnspecifiedRegisterReceiverFlag")
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        final long start = PerfMetrics.HOME_CREATE.start();
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_home);
         ButterKnife.bind(this, this.findViewById(R.id.rootView));
@@ -319,6 +328,7 @@ public class HomeActivity extends AppCompatActivity implements
         registerReceiver(new BroadcastReceiver() {
             @Override
             public void onReceive(Context context, Intent intent) {
+                HomeSnapshotCache.getInstance(context).invalidate();
                 recreate();
             }
         }, new IntentFilter(Constants.INTENT_ACTION_RESTART));
@@ -328,11 +338,20 @@ public class HomeActivity extends AppCompatActivity implements
         mPager = new HomePager(this, rootView);
         mNonTouchInputCoordinator = new NonTouchInputCoordinator(this, this);
         FasterPagerSnapHelper.Companion.apply(pagerView);
-        pagerView.setAdapter(mPager);
+        @Nullable final Bitmap coldStartSnapshot =
+            savedInstanceState == null ?
+            HomeSnapshotCache.getInstance(this).takePrefetched() :
+            null;
+        if (coldStartSnapshot != null) {
+            showColdStartSnapshot(coldStartSnapshot);
+        } else {
+            pagerView.setAdapter(mPager);
+        }
         pagerView.registerOnPageChangeCallback(mOnPageChangeCallback);
         pagerView.setOffscreenPageLimit(100);
         pagerIndicatorView.setup(mPager.getItemCount() - 1);
         folderVeil.setOnClickListener(v -> mFolderController.closeFolder());
+        mWallpaperOffsetDispatcher = new WallpaperOffsetDispatcher(pagerView);
         updateWallpaperOffsetSteps();
         pagerView.post(() -> updateWallpaperOffset(pagerView.getCurrentItem(), 0));
 
@@ -346,12 +365,20 @@ public class HomeActivity extends AppCompatActivity implements
         }
         rootView.setFitsSystemWindows(false);
         mFirstLayoutListener = (v, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) -> {
+            if (pagerView.getAdapter() == null) {
+                // Pages are still deferred behind the cold start snapshot
+                return;
+            }
             if (!mHasSetPage) {
                 pagerView.setCurrentItem(1, false);
                 mOnPageChangeCallback.onPageScrolled(1, 0, 0);
                 mHasSetPage = true;
             }
             rootView.removeOnLayoutChangeListener(mFirstLayoutListener);
+            if (mColdStartSnapshotView != null) {
+                // Let the live pages draw once underneath before revealing them
+                pagerView.post(this::hideColdStartSnapshot);
+            }
         };
         ViewCompat.setOnApplyWindowInsetsListener(rootView, (v, insets) -> {
             int topScrim = insets.getSystemWindowInsetTop();
@@ -376,8 +403,9 @@ public class HomeActivity extends AppCompatActivity implements
             .get(this)
             .registerBackgroundDragAwareComponent(mBackgroundDragAwareComponent);
 
-        mDockController = new DockController(dockView, this);
+        mDockController = new DockController(dockView);
         mFolderController = new FolderController(getContext(), this, folderContainer);
+        PerfMetrics.HOME_CREATE.stop(start);
     }
 
     @Override
@@ -386,13 +414,14 @@ public class HomeActivity extends AppCompatActivity implements
         DecorViewDragger
             .get(this)
             .unregisterBackgroundDragAwareComponent(mBackgroundDragAwareComponent);
+        mWallpaperOffsetDispatcher.destroy();
     }
 
     @Override
     public void onConfigurationChanged(@NotNull Configuration newConfig) {
         super.onConfigurationChanged(newConfig);
-        IconCacheSync.getInstance(this).clearCache();
-        AppLabelCache.getInstance(this).clearCache();
+        // Icons and labels are revalidated in the background (see CacheRevalidator) when the
+        // locale or icon pack actually changes
         mPager.getAppDrawerController().reloadAppList();
     }
 
@@ -400,6 +429,8 @@ public class HomeActivity extends AppCompatActivity implements
     protected void onStart() {
         super.onStart();
         AppInfoCache.get().getAppWidgetHost().startListening();
+        // We may be coming back from a wallpaper picker
+        mWallpaperOffsetDispatcher.invalidateWallpaperInfo();
         // Dock has its own animation
         mDockController.loadDock();
 
@@ -429,7 +460,17 @@ public class HomeActivity extends AppCompatActivity implements
     @Override
     protected void onStop() {
         super.onStop();
-        AppInfoCache.get().getAppWidgetHost().stopListening();
+        // After the launch animation, not during it, and only if something changed
+        if (mHasSetPage &&
+            mColdStartSnapshotView == null &&
+            pagerView.getCurrentItem() == 1 &&
+            !mFolderController.isFolderOpen() &&
+            !LayoutEditingSingleton.getInstance().isEditing()) {
+            HomeSnapshotCache.getInstance(this).captureIfDirty(rootView);
+        }
+        if (!PrefsHelper.keepWidgetsUpdatingInBackground()) {
+            AppInfoCache.get().getAppWidgetHost().stopListening();
+        }
         mDockController.destroyDock();
         if (EventBus.getDefault().isRegistered(this)) {
             EventBus.getDefault().unregister(this);
@@ -738,6 +779,65 @@ public class HomeActivity extends AppCompatActivity implements
     @Subscribe(threadMode = ThreadMode.MAIN)
     public void onEditingEvent(EditingEvent event) {
         backgroundTint.animate().alpha(event.isEditing() ? 1 : 0);
+        if (event.isEditing()) {
+            // The layout is about to change; a fresh snapshot is taken on the next stop
+            HomeSnapshotCache.getInstance(this).invalidate();
+        }
+    }
+
+    /**
+     * Cover the window with the last home screen snapshot and defer binding the pages until it has
+     * drawn, so the first frame isn't held up by grid layout and widget binding.
+     */
+    private void showColdStartSnapshot(Bitmap snapshot) {
+        mColdStartSnapshotView = new ImageView(this);
+        mColdStartSnapshotView.setScaleType(ImageView.ScaleType.FIT_XY);
+        mColdStartSnapshotView.setImageBitmap(snapshot);
+        ((ViewGroup) rootView.getParent()).addView(
+            mColdStartSnapshotView,
+            new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT));
+        final ViewTreeObserver.OnDrawListener onFirstDraw = new ViewTreeObserver.OnDrawListener() {
+            private boolean mPosted = false;
+
+            @Override
+            public void onDraw() {
+                if (mPosted) {
+                    return;
+                }
+                mPosted = true;
+                // Listeners can't be removed mid-draw, and we want to run after this frame anyway
+                rootView.post(() -> {
+                    rootView.getViewTreeObserver().removeOnDrawListener(this);
+                    pagerView.setAdapter(mPager);
+                    rootView.requestLayout();
+                });
+            }
+        };
+        rootView.getViewTreeObserver().addOnDrawListener(onFirstDraw);
+    }
+
+    private void hideColdStartSnapshot() {
+        @Nullable final ImageView snapshotView = mColdStartSnapshotView;
+        if (snapshotView == null) {
+            return;
+        }
+        mColdStartSnapshotView = null;
+        snapshotView.animate()
+            .alpha(0F)
+            .withEndAction(() -> ((ViewGroup) snapshotView.getParent()).removeView(snapshotView))
+            .start();
+    }
+
+    @Subscribe(threadMode = ThreadMode.MAIN)
+    public void onAppResourcesChangedEvent(AppResourcesChangedEvent event) {
+        mDockController.refreshDock();
+    }
+
+    @Subscribe(threadMode = ThreadMode.MAIN)
+    public void onDockPreferencesChangedEvent(DockPreferencesChangedEvent event) {
+        mDockController.onDockPreferencesChanged();
     }
 
     @Subscribe(threadMode = ThreadMode.MAIN)
@@ -857,36 +957,18 @@ public class HomeActivity extends AppCompatActivity implements
     }
 
     private void updateWallpaperOffsetSteps() {
-        final WallpaperManager wm = WallpaperManager.getInstance(this);
-        if (wm.getWallpaperInfo() == null) {
-            return;
-        }
         if (DISABLE_WALLPAPER_OFFSET_CHANGING) {
             return;
         }
-        wm.setWallpaperOffsetSteps(mPager.getWallpaperOffsetSteps(), 0);
-        DebugLogUtils.needle(
-            TAG_WALLPAPER_OFFSET,
-            "Offset steps:",
-            String.valueOf(mPager.getWallpaperOffsetSteps()));
+        mWallpaperOffsetDispatcher.setOffsetSteps(mPager.getWallpaperOffsetSteps());
     }
 
     private void updateWallpaperOffset(int currentItem, float marginalOffset) {
-        final WallpaperManager wm = WallpaperManager.getInstance(HomeActivity.this);
-        if (wm.getWallpaperInfo() == null) {
-            return;
-        }
         if (DISABLE_WALLPAPER_OFFSET_CHANGING) {
             return;
         }
-        wm.setWallpaperOffsets(
-            pagerView.getWindowToken(),
-            mPager.getWallpaperOffset(currentItem, marginalOffset),
-            0);
-        DebugLogUtils.needle(
-            TAG_WALLPAPER_OFFSET,
-            "Update wallpaper offset:",
-            String.valueOf(mPager.getWallpaperOffset(currentItem, marginalOffset)));
+        mWallpaperOffsetDispatcher.setOffset(
+            mPager.getWallpaperOffset(currentItem, marginalOffset));
     }
 
     private void updateBackgroundAlpha(float newAlpha) {
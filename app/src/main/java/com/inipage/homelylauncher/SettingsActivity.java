@@ -9,9 +9,9 @@ import android.content.SharedPreferences;
 import android.graphics.Color;
 import android.graphics.Rect;
 import android.graphics.Typeface;
-import android.net.Uri;
 import android.os.Bundle;
-import android.os.ParcelFileDescriptor;
+import android.os.Handler;
+import android.os.Looper;
 import android.preference.CheckBoxPreference;
 import android.preference.ListPreference;
 import android.preference.Preference;
@@ -20,7 +20,9 @@ import android.preference.PreferenceManager;
 import android.util.Pair;
 import android.view.MenuItem;
 import android.view.View;
-import android.widget.ScrollView;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.ListView;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -30,7 +32,9 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.NavUtils;
 
 import com.inipage.homelylauncher.caches.AppInfoCache;
+import com.inipage.homelylauncher.caches.CacheRevalidator;
 import com.inipage.homelylauncher.caches.FontCacheSync;
+import com.inipage.homelylauncher.caches.HomeSnapshotCache;
 import com.inipage.homelylauncher.caches.IconCacheSync;
 import com.inipage.homelylauncher.dock.ActivityPickerBottomSheet;
 import com.inipage.homelylauncher.dock.HiddenRecentAppsBottomSheet;
@@ -38,33 +42,27 @@ import com.inipage.homelylauncher.dock.items.HiddenCalendarsPickerBottomSheet;
 import com.inipage.homelylauncher.icons.IconPackLoader;
 import com.inipage.homelylauncher.icons.IconPickerBottomSheet;
 import com.inipage.homelylauncher.model.ApplicationIconHideable;
+import com.inipage.homelylauncher.persistence.BackupEngine;
 import com.inipage.homelylauncher.persistence.DatabaseEditor;
-import com.inipage.homelylauncher.persistence.DatabaseHelper;
 import com.inipage.homelylauncher.persistence.PrefsHelper;
 import com.inipage.homelylauncher.utils.Constants;
+import com.inipage.homelylauncher.utils.DebugLogUtils;
 import com.inipage.homelylauncher.utils.FileUtils;
 import com.inipage.homelylauncher.utils.LifecycleLogUtils;
+import com.inipage.homelylauncher.utils.PerfMetrics;
+import com.inipage.homelylauncher.utils.TraceBuffer;
 import com.inipage.homelylauncher.utils.ViewUtils;
 import com.inipage.homelylauncher.views.ProvidesOverallDimensions;
 import com.jakewharton.processphoenix.ProcessPhoenix;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
 public class SettingsActivity extends AppCompatActivity implements ProvidesOverallDimensions {
 
@@ -78,6 +76,7 @@ public class SettingsActivity extends AppCompatActivity implements ProvidesOvera
     private static final int IMPORT_DOCK_FONT_REQUEST_CODE = 1008;
     private static final int EXPORT_FULL_REQUEST_CODE = 1009;
     private static final int IMPORT_FULL_REQUEST_CODE = 1010;
+    private static final int EXPORT_METRICS_REQUEST_CODE = 1011;
 
     private static final SimpleDateFormat DATABASE_TITLE_FORMAT =
         new SimpleDateFormat("hhmma_MM_dd_yyyy", Locale.US);
@@ -118,182 +117,83 @@ public class SettingsActivity extends AppCompatActivity implements ProvidesOvera
         }
         switch (requestCode) {
             case EXPORT_DATABASE_REQUEST_CODE:
-            case EXPORT_LOG_REQUEST_CODE:
+                BackupEngine.exportFile(
+                    this,
+                    data.getData(),
+                    BackupEngine.Source.DATABASE,
+                    createBackupListener("Exporting database", "File exported.", null));
+                break;
             case EXPORT_SHARED_PREFS_REQUEST_CODE:
-                try {
-                    final ParcelFileDescriptor fd =
-                        getContentResolver().openFileDescriptor(data.getData(), "rw");
-                    String path = null;
-                    switch (requestCode) {
-                        case EXPORT_DATABASE_REQUEST_CODE:
-                            path = DatabaseEditor.get().getPath();
-                            break;
-                        case EXPORT_LOG_REQUEST_CODE:
-                            path = LifecycleLogUtils.getLogfilePath(this);
-                            break;
-                        case EXPORT_SHARED_PREFS_REQUEST_CODE:
-                            path = PrefsHelper.getSharedPrefsPath(this);
-                            break;
-                    }
-                    final FileOutputStream fos = new FileOutputStream(fd.getFileDescriptor());
-                    copyFromPathToOutputStream(path, fos);
-                    fos.close();
-                    fd.close();
-                    Toast.makeText(this, "File exported.", Toast.LENGTH_SHORT).show();
-                } catch (Exception ignored) {
-                }
+                BackupEngine.exportFile(
+                    this,
+                    data.getData(),
+                    BackupEngine.Source.SETTINGS,
+                    createBackupListener("Exporting settings", "File exported.", null));
+                break;
+            case EXPORT_LOG_REQUEST_CODE:
+                BackupEngine.exportLog(
+                    this,
+                    data.getData(),
+                    createBackupListener("Exporting log", "File exported.", null));
+                break;
+            case EXPORT_METRICS_REQUEST_CODE:
+                BackupEngine.exportMetrics(
+                    this,
+                    data.getData(),
+                    createBackupListener("Exporting metrics", "File exported.", null));
                 break;
             case EXPORT_FULL_REQUEST_CODE:
-                try {
-                    final ParcelFileDescriptor fd =
-                        getContentResolver().openFileDescriptor(data.getData(), "rw");
-                    final FileOutputStream fos = new FileOutputStream(fd.getFileDescriptor());
-                    final ZipOutputStream zipOut = new ZipOutputStream(fos);
-
-                    // SharedPrefs
-                    zipOut.putNextEntry(new ZipEntry("settings.xml"));
-                    copyFromPathToOutputStream(PrefsHelper.getSharedPrefsPath(this), zipOut);
-                    zipOut.closeEntry();
-                    // Fonts
-                    File fontOverrides = new File(getFilesDir(), Constants.FONT_OVERRIDES_PATH);
-                    if (fontOverrides.exists()) {
-                        @Nullable File[] contents = fontOverrides.listFiles();
-                        if (contents != null) {
-                            // These are copied with their individual names
-                            for (File fontOverride : contents) {
-                                String fontOverrideName = fontOverride.getName();
-                                zipOut.putNextEntry(new ZipEntry(fontOverrideName));
-                                copyFromPathToOutputStream(fontOverride.toString(), zipOut);
-                                zipOut.closeEntry();
-                            }
-                        }
-                    }
-                    // DB
-                    zipOut.putNextEntry(new ZipEntry("database.db"));
-                    copyFromPathToOutputStream(DatabaseEditor.get().getPath(), zipOut);
-                    zipOut.closeEntry();
-
-                    zipOut.close();
-                    Toast.makeText(this, "All settings exported.", Toast.LENGTH_SHORT).show();
-                } catch (Exception ignored) {
-
-                }
+                BackupEngine.exportFull(
+                    this,
+                    data.getData(),
+                    createBackupListener("Exporting", "All settings exported.", null));
                 break;
             case IMPORT_FULL_REQUEST_CODE:
-                final String tmpZipFileName = "tmp.zip";
-                if (handleImportActivityResult(this, data, tmpZipFileName)) {
-                    try {
-                        File tmpZipFile = new File(getFilesDir(), tmpZipFileName);
-                        ZipInputStream zis = new ZipInputStream(new FileInputStream(tmpZipFile));
-                        @Nullable ZipEntry zipEntry;
-                        while ((zipEntry = zis.getNextEntry()) != null) {
-                            String entryName = zipEntry.getName();
-                            switch (entryName) {
-                                case "database.db":
-                                    FileUtils.copyFromInputStreamToPath(
-                                        zis, DatabaseEditor.get().getPath());
-                                    break;
-                                case "settings.xml":
-                                    FileUtils.copyFromInputStreamToPath(
-                                        zis,
-                                        FileUtils.filesDirPath(
-                                            this, Constants.SHARED_PREFS_IMPORT_PATH));
-                                    break;
-                                case Constants.GRID_FONT_PATH:
-                                case Constants.LIST_FONT_PATH:
-                                case Constants.DOCK_FONT_PATH:
-                                    File fontOverrides = new File(getFilesDir(), Constants.FONT_OVERRIDES_PATH);
-                                    if (!fontOverrides.exists()) {
-                                        fontOverrides.mkdir();
-                                    }
-                                    Path fontDst =
-                                        Paths.get(getFilesDir().toString(),
-                                                  Constants.FONT_OVERRIDES_PATH,
-                                                  entryName);
-                                    FileUtils.copyFromInputStreamToPath(zis, fontDst.toString());
-                                    break;
-                            }
-                        }
-                        zis.close();
-                        tmpZipFile.delete();
-                    } catch (Exception ignored) {}
-                }
-                ProcessPhoenix.triggerRebirth(this);
+                BackupEngine.importFull(
+                    this,
+                    data.getData(),
+                    createBackupListener("Importing", "All settings imported.", () -> {
+                        FontCacheSync.Companion.get().clear();
+                        onDatabaseImported();
+                    }));
+                break;
+            case IMPORT_SETTINGS_REQUEST_CODE:
+                // Overwrite will happen in Application create
+                BackupEngine.importSettings(
+                    this,
+                    data.getData(),
+                    createBackupListener("Importing settings", "Settings imported.", null));
                 break;
-            case IMPORT_SETTINGS_REQUEST_CODE: {
-                if (handleImportActivityResult(this, data, Constants.SHARED_PREFS_IMPORT_PATH)) {
-                    // Overwrite will happen in Application create
-                    ProcessPhoenix.triggerRebirth(this);
-                } else {
-                    Toast.makeText(
-                        this, "Couldn't import this settings file.", Toast.LENGTH_SHORT).show();
-                }
-            }
             case IMPORT_DATABASE_REQUEST_CODE:
-                final String tmpDbFileName = "tmp.db";
-                if (handleImportActivityResult(this, data, tmpDbFileName)) {
-                    File tmpDbFile = new File(getFilesDir(), tmpDbFileName);
-                    // Check if the database file is actually readable by us
-                    try (final DatabaseHelper testHelper =
-                             new DatabaseHelper(this, tmpDbFile.getPath())) {
-                        @Nullable final String problem = testHelper.findProblemsWithDatabase();
-                        if (problem != null) {
-                            throw new Exception(problem);
-                        }
-                    } catch (Exception cantRead) {
-                        Toast.makeText(
-                                this,
-                                cantRead.getMessage(),
-                                Toast.LENGTH_SHORT)
-                            .show();
-                        return;
-                    }
-                    FileUtils.copy(tmpDbFile.getPath(), DatabaseEditor.get().getPath());
-                    tmpDbFile.delete();
-                    ProcessPhoenix.triggerRebirth(this);
-                } else {
-                    Toast.makeText(
-                        this, "Couldn't import this database file.", Toast.LENGTH_SHORT).show();
-                }
+                BackupEngine.importDatabase(
+                    this,
+                    data.getData(),
+                    createBackupListener(
+                        "Importing database", "Database imported.", this::onDatabaseImported));
                 break;
             case IMPORT_GRID_FONT_REQUEST_CODE:
             case IMPORT_APP_LIST_FONT_REQUEST_CODE:
             case IMPORT_DOCK_FONT_REQUEST_CODE:
-                final String tmpFontFile = "tmp_font.ttf";
-                try {
-                    if (!handleImportActivityResult(this, data, tmpFontFile)) {
-                        throw new Exception();
-                    }
-                    File fontFile = new File(getFilesDir(), tmpFontFile);
-                    Typeface.createFromFile(fontFile);
-
-                    String fontSubPath = "";
-                    switch (requestCode) {
-                        case IMPORT_GRID_FONT_REQUEST_CODE:
-                            fontSubPath = Constants.GRID_FONT_PATH;
-                            break;
-                        case IMPORT_APP_LIST_FONT_REQUEST_CODE:
-                            fontSubPath = Constants.LIST_FONT_PATH;
-                            break;
-                        case IMPORT_DOCK_FONT_REQUEST_CODE:
-                            fontSubPath = Constants.DOCK_FONT_PATH;
-                            break;
-                    }
-                    File fontOverrides = new File(getFilesDir(), Constants.FONT_OVERRIDES_PATH);
-                    if (!fontOverrides.exists()) {
-                        fontOverrides.mkdir();
-                    }
-                    File fontDstPath = new File(fontOverrides, fontSubPath);
-                    if (fontDstPath.exists()) {
-                        fontDstPath.delete();
-                    }
-                    FileUtils.copy(fontFile.toString(), fontDstPath.toString());
-                    fontFile.delete();
-                    FontCacheSync.Companion.get().clear();
-                    restartHomeActivity();
-                } catch (Exception e) {
-                    Toast.makeText(this, "Failed to open font file.", Toast.LENGTH_SHORT).show();
+                String fontSubPath = "";
+                switch (requestCode) {
+                    case IMPORT_GRID_FONT_REQUEST_CODE:
+                        fontSubPath = Constants.GRID_FONT_PATH;
+                        break;
+                    case IMPORT_APP_LIST_FONT_REQUEST_CODE:
+                        fontSubPath = Constants.LIST_FONT_PATH;
+                        break;
+                    case IMPORT_DOCK_FONT_REQUEST_CODE:
+                        fontSubPath = Constants.DOCK_FONT_PATH;
+                        break;
                 }
+                BackupEngine.importFont(
+                    this,
+                    data.getData(),
+                    fontSubPath,
+                    createBackupListener("Importing font", "Font imported.", () -> {
+                        FontCacheSync.Companion.get().clear();
+                        restartHomeActivity();
+                    }));
                 break;
         }
     }
@@ -315,53 +215,61 @@ public class SettingsActivity extends AppCompatActivity implements ProvidesOvera
         return new Rect(view.getLeft(), view.getTop(), view.getRight(), view.getBottom());
     }
 
-    private boolean handleImportActivityResult(Context context, Intent data, String dstFilesPath) {
-        try {
-            @Nullable Uri dataUri = data.getData();
-            if (dataUri == null) {
-                return false;
-            }
-            @Nullable
-            final ParcelFileDescriptor fd =
-                context.getContentResolver().openFileDescriptor(dataUri, "r");
-            if (fd == null) {
-                return false;
+    /**
+     * Shows a progress dialog until the task finishes, then reports how it went.
+     *
+     * @param onApplied Run on success when no process restart is needed to apply the result.
+     */
+    private BackupEngine.Listener createBackupListener(
+        String title, String successMessage, @Nullable Runnable onApplied) {
+        final AlertDialog progressDialog = new AlertDialog.Builder(this)
+            .setTitle(title)
+            .setMessage("0%")
+            .setCancelable(false)
+            .show();
+        return new BackupEngine.Listener() {
+            @Override
+            public void onProgress(int percent) {
+                progressDialog.setMessage(percent + "%");
             }
-            final FileInputStream fis = new FileInputStream(fd.getFileDescriptor());
-            final String tempFile = new File(context.getFilesDir(), dstFilesPath).toString();
-            final FileOutputStream tmpFileFos = new FileOutputStream(tempFile);
-            byte[] chunk = new byte[1024];
-            while (fis.read(chunk) != -1) {
-                tmpFileFos.write(chunk);
+
+            @Override
+            public void onSuccess(boolean needsProcessRestart) {
+                progressDialog.dismiss();
+                Toast.makeText(
+                    SettingsActivity.this, successMessage, Toast.LENGTH_SHORT).show();
+                if (needsProcessRestart) {
+                    // Imported settings are applied in Application create
+                    restartProcess(SettingsActivity.this);
+                } else if (onApplied != null) {
+                    onApplied.run();
+                }
             }
-            fis.close();
-            tmpFileFos.close();
-            fd.close();
-        } catch (IOException ignored) {
-            return false;
-        }
-        return true;
-    }
 
-    /**
-     * Callers MUST close the output stream themselves.
-     */
-    private void copyFromPathToOutputStream(String path, OutputStream os) {
-        try {
-            final FileInputStream fis = new FileInputStream(path);
-            final byte[] chunk = new byte[1024];
-            while (fis.read(chunk) != -1) {
-                os.write(chunk);
+            @Override
+            public void onFailure(String message) {
+                progressDialog.dismiss();
+                Toast.makeText(SettingsActivity.this, message, Toast.LENGTH_SHORT).show();
             }
-            fis.close();
-        } catch (Exception ignored) {}
+        };
     }
 
+    private void onDatabaseImported() {
+        // Hidden apps may have changed; the grid and dock are reloaded when home restarts
+        AppInfoCache.get().reloadVisibleActivities();
+        restartHomeActivity();
+    }
 
     private void restartHomeActivity() {
         sendBroadcast(new Intent(Constants.INTENT_ACTION_RESTART));
     }
 
+    private static void restartProcess(Context context) {
+        // Settings and the layout are reloaded from scratch, so the old snapshot can't be trusted
+        HomeSnapshotCache.getInstance(context).invalidateAndWait();
+        ProcessPhoenix.triggerRebirth(context);
+    }
+
     public static class MainFragment extends PreferenceFragment {
 
         private String mMissingIconPackage = "unset";
@@ -378,11 +286,18 @@ public class SettingsActivity extends AppCompatActivity implements ProvidesOvera
             setupIconPackPrefs();
 
             // Dock
-            bindCheckboxPreference("mono_dock", Constants.MONOCHROME_DOCK_PREF);
+            bindCheckboxPreference(
+                "mono_dock",
+                Constants.MONOCHROME_DOCK_PREF,
+                false,
+                context -> HomeSnapshotCache.getInstance(context).invalidate());
             bindPreference("manage_cals", ctx -> HiddenCalendarsPickerBottomSheet.show(ctx, null));
             bindPreference("manage_hidden_apps",
                HiddenRecentAppsBottomSheet.INSTANCE::showHiddenRecentAppsBottomSheet);
 
+            // Widgets
+            bindCheckboxPreference("keep_widgets_updating", Constants.KEEP_WIDGETS_UPDATING_PREF);
+
             // Backups
             bindPreference("full_backup", context -> {
                 launchExportIntent(context, "_curveball_full_backup.zip", EXPORT_FULL_REQUEST_CODE);
@@ -433,24 +348,51 @@ public class SettingsActivity extends AppCompatActivity implements ProvidesOvera
                     listener.run(getContext());
                 }
                 if (triggerRestart) {
-                    ProcessPhoenix.triggerRebirth(preference.getContext());
+                    restartProcess(preference.getContext());
                 }
                 return true;
             });
         }
 
         private void showLogs(Context context) {
-            ScrollView wrapper = new ScrollView(context);
-            TextView view = new TextView(context);
-            view.setText(LifecycleLogUtils.dumpLog());
-            view.setTextSize(context.getResources().getDimensionPixelSize(R.dimen.log_text_size));
-            view.setTextColor(Color.WHITE);
-            view.setTypeface(Typeface.MONOSPACE);
-            wrapper.addView(view);
+            final LifecycleLogUtils.LogSnapshot snapshot = LifecycleLogUtils.snapshot();
+            final float textSize =
+                context.getResources().getDimensionPixelSize(R.dimen.log_text_size);
+            final ListView listView = new ListView(context);
+            // Records are only decoded as they scroll into view, newest first
+            listView.setAdapter(new BaseAdapter() {
+                @Override
+                public int getCount() {
+                    return snapshot.size();
+                }
+
+                @Override
+                public String getItem(int position) {
+                    return snapshot.getLine(snapshot.size() - 1 - position);
+                }
+
+                @Override
+                public long getItemId(int position) {
+                    return position;
+                }
+
+                @Override
+                public View getView(int position, View convertView, ViewGroup parent) {
+                    TextView view = (TextView) convertView;
+                    if (view == null) {
+                        view = new TextView(context);
+                        view.setTextSize(textSize);
+                        view.setTextColor(Color.WHITE);
+                        view.setTypeface(Typeface.MONOSPACE);
+                    }
+                    view.setText(getItem(position));
+                    return view;
+                }
+            });
 
             new AlertDialog.Builder(context)
                 .setTitle(R.string.show_debug_log)
-                .setView(wrapper)
+                .setView(listView)
                 .setPositiveButton(R.string.export_log, (dialog, which) -> {
                     ClipboardManager cm =
                         (ClipboardManager) getActivity().getSystemService(Context.CLIPBOARD_SERVICE);
@@ -461,6 +403,39 @@ public class SettingsActivity extends AppCompatActivity implements ProvidesOvera
                 }).show();
         }
 
+        private void showPerfMetrics(Context context) {
+            new AlertDialog.Builder(context)
+                .setTitle(R.string.perf_metrics)
+                .setMessage(PerfMetrics.dump())
+                .setPositiveButton(
+                    "Export JSON",
+                    (dialog, which) -> launchExportIntent(
+                        context, "_metrics.json", EXPORT_METRICS_REQUEST_CODE))
+                .setNeutralButton("Reset", (dialog, which) -> PerfMetrics.reset())
+                .setNegativeButton(R.string.close, null)
+                .show();
+        }
+
+        /**
+         * Compute a (slow) diagnostic off the main thread and show the result in a dialog.
+         */
+        private void showComputedResult(Context context, String title, Supplier<String> result) {
+            final Handler mainHandler = new Handler(Looper.getMainLooper());
+            new Thread(() -> {
+                final String message = result.get();
+                mainHandler.post(() -> {
+                    if (getActivity() == null) {
+                        return;
+                    }
+                    new AlertDialog.Builder(context)
+                        .setTitle(title)
+                        .setMessage(message)
+                        .setNegativeButton(R.string.close, null)
+                        .show();
+                });
+            }).start();
+        }
+
         private void setupAppearancePrefs() {
             bindPreference("import_grid_font", context -> launchImportIntent(context, IMPORT_GRID_FONT_REQUEST_CODE));
             bindPreference("import_list_font", context -> launchImportIntent(context, IMPORT_APP_LIST_FONT_REQUEST_CODE));
@@ -500,11 +475,19 @@ public class SettingsActivity extends AppCompatActivity implements ProvidesOvera
             bindPreference("log_show", this::showLogs);
             bindPreference("log_export", context -> launchExportIntent(context, "_logfile.txt", EXPORT_LOG_REQUEST_CODE));
             bindPreference("log_clear", __ -> LifecycleLogUtils.clearLog());
+            bindCheckboxPreference(
+                "capture_traces",
+                Constants.CAPTURE_TRACES_PREF,
+                false,
+                __ -> DebugLogUtils.setCapturing(PrefsHelper.isCapturingTraces()));
+            bindPreference("show_traces", context -> showComputedResult(
+                context, "Captured traces", TraceBuffer::dump));
+            bindPreference("perf_metrics", this::showPerfMetrics);
 
             // Dangerous DB options
             bindPreference("reset_database", context -> {
                 DatabaseEditor.get().dropAllTables();
-                ProcessPhoenix.triggerRebirth(context);
+                restartProcess(context);
             });
             bindPreference("move_database_to_b", context -> {
                 FileUtils.copy(
@@ -518,10 +501,11 @@ public class SettingsActivity extends AppCompatActivity implements ProvidesOvera
                     Toast.makeText(context, "No database in B slot.", Toast.LENGTH_SHORT).show();
                     return;
                 }
+                DatabaseEditor.get().invalidateLayoutSnapshot();
                 FileUtils.copy(
                     bPath,
                     DatabaseEditor.get().getPath());
-                ProcessPhoenix.triggerRebirth(context);
+                restartProcess(context);
             });
             bindPreference("import_database", context -> {
                 launchImportIntent(context, IMPORT_DATABASE_REQUEST_CODE);
@@ -540,6 +524,7 @@ public class SettingsActivity extends AppCompatActivity implements ProvidesOvera
             findPreference("export_database").setEnabled(isDevModeEnabled);
             findPreference("import_settings").setEnabled(isDevModeEnabled);
             findPreference("export_settings").setEnabled(isDevModeEnabled);
+            findPreference("perf_metrics").setEnabled(isDevModeEnabled);
             findPreference("reset_database").setEnabled(isDevModeEnabled);
             findPreference("move_database_to_b").setEnabled(isDevModeEnabled);
             findPreference("overwrite_from_b").setEnabled(isDevModeEnabled);
@@ -576,7 +561,7 @@ public class SettingsActivity extends AppCompatActivity implements ProvidesOvera
                 } else {
                     PrefsHelper.setIconPack((String) newValue);
                 }
-                restartHomeActivity();
+                revalidateIcons();
                 return true;
             });
 
@@ -598,7 +583,7 @@ public class SettingsActivity extends AppCompatActivity implements ProvidesOvera
             clearStandIns.setEnabled(currentPack != null && !currentPack.equals(defaultPack));
             clearStandIns.setOnPreferenceClickListener(preference -> {
                 PrefsHelper.clearStandIns();
-                restartHomeActivity();
+                revalidateIcons();
                 return true;
             });
         }
@@ -622,10 +607,12 @@ public class SettingsActivity extends AppCompatActivity implements ProvidesOvera
             parent.startActivityForResult(exportIntent, requestCode);
         }
 
-        private void restartHomeActivity() {
-            IconCacheSync.getInstance(getContext()).clearCache();
+        /**
+         * Icons change in place as they're reloaded; the home screen doesn't need to restart.
+         */
+        private void revalidateIcons() {
+            CacheRevalidator.revalidateIcons(getContext());
             setupIconPackPrefs();
-            getContext().sendBroadcast(new Intent(Constants.INTENT_ACTION_RESTART));
         }
 
         private void runMissingIconReplacement() {
@@ -650,7 +637,7 @@ public class SettingsActivity extends AppCompatActivity implements ProvidesOvera
 
         private void runMissingIconReplacementAtCurrentIdx() {
             if (mMissingIconsIdx >= mMissingIcons.size()) {
-                restartHomeActivity();
+                revalidateIcons();
                 return;
             }
             ApplicationIconHideable app = mMissingIcons.get(mMissingIconsIdx);
@@ -1,7 +1,6 @@
 package com.inipage.homelylauncher.caches;
 
 import android.annotation.SuppressLint;
-import android.appwidget.AppWidgetHost;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProviderInfo;
 import android.content.Context;
@@ -9,23 +8,27 @@ import android.content.pm.LauncherActivityInfo;
 import android.content.pm.LauncherApps;
 import android.content.pm.ShortcutInfo;
 import android.os.UserHandle;
-import android.util.Pair;
 
 import androidx.annotation.NonNull;
 
 import com.inipage.homelylauncher.drawer.FastScrollable;
 import com.inipage.homelylauncher.model.ApplicationIconCheckable;
 import com.inipage.homelylauncher.model.ApplicationIconHideable;
+import com.inipage.homelylauncher.model.ComponentKey;
 import com.inipage.homelylauncher.persistence.DatabaseEditor;
 import com.inipage.homelylauncher.utils.LifecycleLogUtils;
+import com.inipage.homelylauncher.utils.PerfMetrics;
+import com.inipage.homelylauncher.widgets.LauncherAppWidgetHost;
 
 import org.greenrobot.eventbus.EventBus;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -44,11 +47,13 @@ public class AppInfoCache {
     @SuppressLint("StaticFieldLeak")
     private static AppInfoCache s_INSTANCE;
     private final Context mContext;
-    private final AppWidgetHost mAppWidgetHost;
+    private final LauncherAppWidgetHost mAppWidgetHost;
     private final Map<String, List<ShortcutWrapper>> mPackageToShortcutInfos;
     private final Map<String, List<ApplicationIconHideable>> mPackageToApps;
     private Map<String, Map<String, AppWidgetProviderInfo>> mPackageToClassToAppWidgetProvider;
     private List<ApplicationIconHideable> mInstalledApps;
+    // Mirrors the hidden apps table; dropped whenever the launcher hides or unhides apps
+    @Nullable private Set<ComponentKey> mHiddenApps;
     private final LauncherApps.Callback mCallback = new LauncherApps.Callback() {
 
         // Called when an app is uninstalled
@@ -64,6 +69,8 @@ public class AppInfoCache {
             mPackageToClassToAppWidgetProvider.remove(packageName);
             IconCacheSync.getInstance(mContext).clearCacheForPackage(packageName);
             AppLabelCache.getInstance(mContext).clearCacheForPackage(packageName);
+            // Don't show its icon in the next cold start snapshot
+            HomeSnapshotCache.getInstance(mContext).invalidate();
             publishEvent(packageName, PackageModifiedEvent.Modification.REMOVED);
         }
 
@@ -72,9 +79,7 @@ public class AppInfoCache {
         public void onPackageAdded(String packageName, UserHandle user) {
             List<ApplicationIconHideable> activitiesForPackage =
                 getActivitiesForPackage(packageName);
-            mInstalledApps.addAll(activitiesForPackage);
-            mInstalledApps.sort(FastScrollable.getComparator());
-            mPackageToApps.put(packageName, activitiesForPackage);
+            spliceInstalledApps(packageName, activitiesForPackage);
             final AppWidgetManager appWidgetManager = getAppWidgetManager();
             for (AppWidgetProviderInfo awpi : appWidgetManager.getInstalledProviders()) {
                 final String providerPackageName = awpi.provider.getPackageName();
@@ -91,14 +96,7 @@ public class AppInfoCache {
         public void onPackageChanged(String packageName, UserHandle user) {
             List<ApplicationIconHideable> activitiesForPackage =
                 getActivitiesForPackage(packageName);
-            mInstalledApps = mInstalledApps.stream()
-                .filter(applicationIconHideable ->
-                            !applicationIconHideable.getPackageName()
-                                .equals(packageName))
-                .collect(Collectors.toList());
-            mInstalledApps.addAll(activitiesForPackage);
-            mInstalledApps.sort(FastScrollable.getComparator());
-            mPackageToApps.put(packageName, activitiesForPackage);
+            spliceInstalledApps(packageName, activitiesForPackage);
             mPackageToClassToAppWidgetProvider.remove(packageName);
             final AppWidgetManager appWidgetManager = getAppWidgetManager();
             for (AppWidgetProviderInfo awpi : appWidgetManager.getInstalledProviders()) {
@@ -110,6 +108,7 @@ public class AppInfoCache {
             }
             IconCacheSync.getInstance(mContext).clearCacheForPackage(packageName);
             AppLabelCache.getInstance(mContext).clearCacheForPackage(packageName);
+            HomeSnapshotCache.getInstance(mContext).invalidate();
             publishEvent(packageName, PackageModifiedEvent.Modification.UPDATED);
         }
 
@@ -128,6 +127,7 @@ public class AppInfoCache {
         public void onPackagesUnavailable(String[] packageNames, UserHandle user, boolean replacing) {
             log("Packages unavailable = " + Arrays.toString(packageNames));
             reloadAppsAndWidgets();
+            HomeSnapshotCache.getInstance(mContext).invalidate();
             EventBus.getDefault().post(new PackagesBulkModifiedEvent(
                 packageNames, PackagesBulkModifiedEvent.Availability.UNAVAILABLE));
         }
@@ -170,7 +170,7 @@ public class AppInfoCache {
 
     private AppInfoCache(Context context) {
         mContext = context;
-        mAppWidgetHost = new AppWidgetHost(context, APP_HOST_ID);
+        mAppWidgetHost = new LauncherAppWidgetHost(context, APP_HOST_ID);
         mPackageToShortcutInfos = new HashMap<>();
         mPackageToApps = new HashMap<>();
 
@@ -200,7 +200,10 @@ public class AppInfoCache {
 
     private void reloadAppsAndWidgets() {
         final AppWidgetManager appWidgetManager = getAppWidgetManager();
-        mInstalledApps = getInstalledAppsImpl(null);
+        final Map<String, List<ApplicationIconHideable>> packageToApps = new HashMap<>();
+        mInstalledApps = buildModels(getAppsFromSystem(null), packageToApps);
+        mPackageToApps.clear();
+        mPackageToApps.putAll(packageToApps);
         mPackageToClassToAppWidgetProvider = new HashMap<>();
         if (appWidgetManager == null) {
             return;
@@ -214,34 +217,74 @@ public class AppInfoCache {
         return (AppWidgetManager) mContext.getSystemService(Context.APPWIDGET_SERVICE);
     }
 
-    private List<ApplicationIconHideable> getInstalledAppsImpl(@Nullable String packageName) {
-        final List<LauncherActivityInfo> launcherApps = getAppsFromSystem(packageName);
-        final Map<Pair<String, String>, Boolean> hiddenAppsMap =
-            DatabaseEditor.get().getHiddenAppsAsMap(true);
-        final List<ApplicationIconHideable> result = new ArrayList<>();
-        for (LauncherActivityInfo app : launcherApps) {
+    /**
+     * Build sorted models for a batch of activities from one LauncherApps query. Labels come from
+     * the activity infos themselves (through AppLabelCache, which only recomputes sort keys for
+     * apps that changed), and hidden state from a cached set, so no further IPC or database reads
+     * happen per activity.
+     *
+     * @param packageToApps If non-null, filled with the models grouped by package.
+     */
+    private List<ApplicationIconHideable> buildModels(
+        List<LauncherActivityInfo> activities,
+        @Nullable Map<String, List<ApplicationIconHideable>> packageToApps) {
+        final long start = PerfMetrics.APP_MODEL_BUILD.start();
+        final AppLabelCache labelCache = AppLabelCache.getInstance(mContext);
+        final Set<ComponentKey> hiddenApps = getHiddenApps();
+        final List<ApplicationIconHideable> result = new ArrayList<>(activities.size());
+        for (LauncherActivityInfo app : activities) {
             final String appPackageName = app.getComponentName().getPackageName();
+            final String appClassName = app.getComponentName().getClassName();
             final ApplicationIconHideable applicationIconHideable = new ApplicationIconHideable(
                 app,
-                mContext,
-                hiddenAppsMap.containsKey(
-                    new Pair<>(
-                        appPackageName,
-                        app.getComponentName().getClassName())));
+                labelCache.getEntry(app),
+                hiddenApps.contains(ComponentKey.of(appPackageName, appClassName)));
             result.add(applicationIconHideable);
-
-            if (mPackageToApps.containsKey(appPackageName)) {
-                mPackageToApps.get(appPackageName).add(applicationIconHideable);
-            } else {
-                List<ApplicationIconHideable> activities = new ArrayList<>();
-                activities.add(applicationIconHideable);
-                mPackageToApps.put(appPackageName, activities);
+            if (packageToApps != null) {
+                packageToApps
+                    .computeIfAbsent(appPackageName, key -> new ArrayList<>())
+                    .add(applicationIconHideable);
             }
         }
-        result.sort((lhs, rhs) -> FastScrollable.getComparator().compare(lhs, rhs));
+        result.sort(FastScrollable.getComparator());
+        PerfMetrics.APP_MODEL_BUILD.stop(start);
         return result;
     }
 
+    /**
+     * Replace a package's activities in the sorted app list. |activitiesForPackage| is already
+     * sorted, so it's merged in rather than sorting everything again.
+     */
+    private void spliceInstalledApps(
+        String packageName, List<ApplicationIconHideable> activitiesForPackage) {
+        final Comparator<FastScrollable> comparator = FastScrollable.getComparator();
+        final List<ApplicationIconHideable> result =
+            new ArrayList<>(mInstalledApps.size() + activitiesForPackage.size());
+        int newIdx = 0;
+        for (ApplicationIconHideable app : mInstalledApps) {
+            if (app.getPackageName().equals(packageName)) {
+                continue;
+            }
+            while (newIdx < activitiesForPackage.size() &&
+                comparator.compare(activitiesForPackage.get(newIdx), app) < 0) {
+                result.add(activitiesForPackage.get(newIdx++));
+            }
+            result.add(app);
+        }
+        while (newIdx < activitiesForPackage.size()) {
+            result.add(activitiesForPackage.get(newIdx++));
+        }
+        mInstalledApps = result;
+        mPackageToApps.put(packageName, activitiesForPackage);
+    }
+
+    private Set<ComponentKey> getHiddenApps() {
+        if (mHiddenApps == null) {
+            mHiddenApps = DatabaseEditor.get().getHiddenApps(true);
+        }
+        return mHiddenApps;
+    }
+
     private void insertWidgetProviderInfo(AppWidgetProviderInfo awpi) {
         final String packageName = awpi.provider.getPackageName();
         if (!mPackageToClassToAppWidgetProvider.containsKey(packageName)) {
@@ -252,15 +295,29 @@ public class AppInfoCache {
             .put(awpi.provider.getClassName(), awpi);
     }
 
-    private List<LauncherActivityInfo> getAppsFromSystem(@Nullable String packageName) {
+    /**
+     * Rebuild the app models after {@link CacheRevalidator} has reloaded labels, e.g. for a new
+     * locale. Every label is already cached, so this only sorts by the new collation keys.
+     */
+    void rebuildModels(List<LauncherActivityInfo> activities) {
+        final Map<String, List<ApplicationIconHideable>> packageToApps = new HashMap<>();
+        mInstalledApps = buildModels(activities, packageToApps);
+        mPackageToApps.clear();
+        mPackageToApps.putAll(packageToApps);
+    }
+
+    List<LauncherActivityInfo> getAppsFromSystem(@Nullable String packageName) {
         final LauncherApps appService =
             (LauncherApps) mContext.getSystemService(Context.LAUNCHER_APPS_SERVICE);
+        PerfMetrics.ACTIVITY_LIST_QUERIES.increment();
         return appService.getActivityList(packageName, myUserHandle());
     }
 
     public static void seed(Context context) {
         if (s_INSTANCE == null) {
+            final long start = PerfMetrics.APP_INFO_CACHE_INIT.start();
             s_INSTANCE = new AppInfoCache(context);
+            PerfMetrics.APP_INFO_CACHE_INIT.stop(start);
         }
     }
 
@@ -268,15 +325,29 @@ public class AppInfoCache {
         return s_INSTANCE;
     }
 
-    public AppWidgetHost getAppWidgetHost() {
+    public LauncherAppWidgetHost getAppWidgetHost() {
         return mAppWidgetHost;
     }
 
     /**
-     * Call when an app is hidden locally.
+     * Call when an app is hidden locally. Only hidden state can have changed, so the existing
+     * models are copied with fresh hidden flags; order and labels are kept as they are.
      */
     public void reloadVisibleActivities() {
-        mInstalledApps = getInstalledAppsImpl(null);
+        mHiddenApps = null;
+        final Set<ComponentKey> hiddenApps = getHiddenApps();
+        final List<ApplicationIconHideable> result = new ArrayList<>(mInstalledApps.size());
+        mPackageToApps.clear();
+        for (ApplicationIconHideable app : mInstalledApps) {
+            final ApplicationIconHideable copy = new ApplicationIconHideable(
+                app,
+                hiddenApps.contains(ComponentKey.of(app.getPackageName(), app.getActivityName())));
+            result.add(copy);
+            mPackageToApps
+                .computeIfAbsent(app.getPackageName(), key -> new ArrayList<>())
+                .add(copy);
+        }
+        mInstalledApps = result;
     }
 
     public List<ApplicationIconHideable> getAllActivities() {
@@ -296,14 +367,14 @@ public class AppInfoCache {
     }
 
     public List<ApplicationIconHideable> getActivitiesForPackage(String packageName) {
-        return getInstalledAppsImpl(packageName);
+        return buildModels(getAppsFromSystem(packageName), null);
     }
 
     public List<ApplicationIconHideable> getActivitiesForPackageFast(String packageName) {
         if (mPackageToApps.containsKey(packageName)) {
             return mPackageToApps.get(packageName);
         }
-        return getInstalledAppsImpl(packageName);
+        return getActivitiesForPackage(packageName);
     }
 
     public List<AppWidgetProviderInfo> getWidgets() {
@@ -324,7 +395,11 @@ public class AppInfoCache {
 
     private void publishEvent(String packageName, PackageModifiedEvent.Modification modification) {
         EventBus.getDefault().post(new PackageModifiedEvent(packageName, modification));
-        log("Package " + packageName + " " + modification.name());
+        LifecycleLogUtils.logEvent(
+            LifecycleLogUtils.LogType.LIFECYCLE_CHANGE,
+            "Package %s %s",
+            packageName,
+            modification.name());
     }
 
     private void log(String message) {
@@ -3,33 +3,86 @@ package com.inipage.homelylauncher.caches;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.pm.ActivityInfo;
+import android.content.pm.LauncherActivityInfo;
 import android.content.pm.PackageManager;
-import android.util.Pair;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AtomicFile;
+import android.util.Log;
+import android.util.SparseArray;
 
+import com.inipage.homelylauncher.drawer.SortKeys;
 import com.inipage.homelylauncher.model.ApplicationIcon;
+import com.inipage.homelylauncher.model.ComponentKey;
+import com.inipage.homelylauncher.utils.PerfMetrics;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.annotation.Nullable;
 
 /**
- * Label cache for applications.
+ * Label cache for applications. Alongside each label we keep its collation key and drawer section,
+ * so sorting never has to derive them again.
+ * <p>
+ * The cache is persisted, so labels survive process death without a PackageManager call each.
+ * Entries loaded through {@link #getEntry(LauncherActivityInfo)} are checked against the app's
+ * install path, which changes on every update; the whole file is dropped when the locale or system
+ * build changes.
+ * <p>
+ * Lookups may come from any thread, so the maps are guarded by one lock; PackageManager calls and
+ * disk writes happen outside it. The file is read on the disk thread; until it has been, lookups
+ * fall back to PackageManager, and those fresher labels win over the persisted ones.
  */
 public class AppLabelCache {
+
+    private static final String TAG = "AppLabelCache";
+    private static final String LABELS_FILE = "app_labels.bin";
+    private static final int FILE_VERSION = 1;
+    // Batch up writes while many labels are being loaded at once
+    private static final long SAVE_DELAY_MS = 2000;
+
     private static AppLabelCache s_INSTANCE;
 
-    private final Map<Pair<String, String>, String> mLabelMap;
-    private final Map<String, Set<Pair<String, String>>> mPackageNameToLabelKeyMap;
+    private final Object mLock = new Object();
+    // Keyed by ComponentKey id; guarded by mLock
+    private final SparseArray<Entry> mLabelMap;
+    // Guarded by mLock
+    private final Map<String, Set<ComponentKey>> mPackageNameToLabelKeyMap;
     private final WeakReference<PackageManager> mPackageManagerRef;
+    private final AtomicFile mLabelsFile;
+    private final ExecutorService mDiskExecutor;
+    private final Handler mMainHandler;
+    private final Runnable mSaveRunnable = this::save;
+    private boolean mSaveScheduled;
+    // Guarded by mLock; null once the persisted labels have been merged in
+    @Nullable private Set<String> mPackagesClearedWhileLoading = new HashSet<>();
+    // Guarded by mLock; the whole cache was dropped or replaced before the persisted labels arrived
+    private boolean mClearedWhileLoading;
 
     private AppLabelCache(Context c) {
-        mLabelMap = new HashMap<>();
+        mLabelMap = new SparseArray<>();
         mPackageNameToLabelKeyMap = new HashMap<>();
         mPackageManagerRef = new WeakReference<>(c.getPackageManager());
+        mLabelsFile = new AtomicFile(new File(c.getFilesDir(), LABELS_FILE));
+        mDiskExecutor = Executors.newSingleThreadExecutor();
+        mMainHandler = new Handler(Looper.getMainLooper());
+        mDiskExecutor.execute(this::load);
     }
 
     public static AppLabelCache getInstance(Context c) {
@@ -44,46 +97,323 @@ public class AppLabelCache {
     }
 
     public String getLabel(String packageName, String activityName) {
-        return getLabel(new Pair<>(packageName, activityName));
+        return getLabel(ComponentKey.of(packageName, activityName));
+    }
+
+    public String getLabel(ComponentKey component) {
+        return getEntry(component).getLabel();
     }
 
-    public String getLabel(Pair<String, String> component) {
-        if (mLabelMap.containsKey(component)) {
-            return mLabelMap.get(component);
+    public Entry getEntry(ComponentKey component) {
+        @Nullable final Entry cachedEntry;
+        synchronized (mLock) {
+            cachedEntry = mLabelMap.get(component.getId());
         }
+        if (cachedEntry != null) {
+            return cachedEntry;
+        }
+
+        return putEntry(component, loadEntry(component));
+    }
 
+    /**
+     * Look the label up without touching the cache; safe from any thread.
+     */
+    Entry loadEntry(ComponentKey component) {
         @Nullable PackageManager pm = mPackageManagerRef.get();
         if (pm == null) {
-            return component.first;
+            return new Entry(component.getPackageName(), "");
         }
-        final ComponentName cm = new ComponentName(component.first, component.second);
+        PerfMetrics.LABEL_PM_LOOKUPS.increment();
+        final ComponentName cm =
+            new ComponentName(component.getPackageName(), component.getActivityName());
+        String label;
+        String versionStamp;
         try {
             ActivityInfo info = pm.getActivityInfo(cm, 0);
-            mLabelMap.put(component, info.loadLabel(pm).toString());
+            label = info.loadLabel(pm).toString();
+            versionStamp = getVersionStamp(info);
         } catch (PackageManager.NameNotFoundException e) {
-            mLabelMap.put(component, component.first);
+            label = component.getPackageName();
+            versionStamp = "";
         }
-        if (mPackageNameToLabelKeyMap.containsKey(component.first)) {
-            mPackageNameToLabelKeyMap.get(component.first).add(component);
-        } else {
-            Set<Pair<String, String>> componentSet = new HashSet<>();
-            componentSet.add(component);
-            mPackageNameToLabelKeyMap.put(component.first, componentSet);
+        return new Entry(label, versionStamp);
+    }
+
+    /**
+     * Like {@link #getEntry(ComponentKey)}, but uses the already-loaded activity info instead of
+     * querying PackageManager, and replaces the cached entry if the app has been updated since.
+     */
+    public Entry getEntry(LauncherActivityInfo activityInfo) {
+        final ComponentKey component = ComponentKey.of(
+            activityInfo.getComponentName().getPackageName(),
+            activityInfo.getComponentName().getClassName());
+        final String versionStamp = getVersionStamp(activityInfo.getActivityInfo());
+        @Nullable final Entry cachedEntry;
+        synchronized (mLock) {
+            cachedEntry = mLabelMap.get(component.getId());
+        }
+        if (cachedEntry != null && cachedEntry.mVersionStamp.equals(versionStamp)) {
+            return cachedEntry;
         }
-        return mLabelMap.get(component);
+        return putEntry(component, loadEntry(activityInfo));
+    }
+
+    /**
+     * Like {@link #loadEntry(ComponentKey)}, from already-loaded activity info.
+     */
+    static Entry loadEntry(LauncherActivityInfo activityInfo) {
+        return new Entry(
+            activityInfo.getLabel().toString(), getVersionStamp(activityInfo.getActivityInfo()));
+    }
+
+    /**
+     * @return Every component with a cached label.
+     */
+    List<ComponentKey> getCachedComponents() {
+        synchronized (mLock) {
+            final List<ComponentKey> components = new ArrayList<>(mLabelMap.size());
+            for (Set<ComponentKey> packageComponents : mPackageNameToLabelKeyMap.values()) {
+                components.addAll(packageComponents);
+            }
+            return components;
+        }
+    }
+
+    /**
+     * Replace every cached label at once, e.g. with labels reloaded for a new locale.
+     *
+     * @return The components whose label text changed.
+     */
+    Set<ComponentKey> replaceAll(Map<ComponentKey, Entry> entries) {
+        final Set<ComponentKey> changed = new HashSet<>();
+        synchronized (mLock) {
+            for (Map.Entry<ComponentKey, Entry> entry : entries.entrySet()) {
+                @Nullable final Entry previous = mLabelMap.get(entry.getKey().getId());
+                if (previous == null || !previous.mLabel.equals(entry.getValue().mLabel)) {
+                    changed.add(entry.getKey());
+                }
+            }
+            mLabelMap.clear();
+            mPackageNameToLabelKeyMap.clear();
+            for (Map.Entry<ComponentKey, Entry> entry : entries.entrySet()) {
+                putEntryLocked(entry.getKey(), entry.getValue());
+            }
+            mClearedWhileLoading = true;
+        }
+        scheduleSave();
+        return changed;
     }
 
     public void clearCache() {
-        mLabelMap.clear();
-        mPackageNameToLabelKeyMap.clear();
+        synchronized (mLock) {
+            mLabelMap.clear();
+            mPackageNameToLabelKeyMap.clear();
+            mClearedWhileLoading = true;
+        }
+        scheduleSave();
     }
 
     public void clearCacheForPackage(String changedPackage) {
-        if (!mPackageNameToLabelKeyMap.containsKey(changedPackage)) {
+        synchronized (mLock) {
+            if (mPackagesClearedWhileLoading != null) {
+                mPackagesClearedWhileLoading.add(changedPackage);
+            }
+            @Nullable final Set<ComponentKey> removed =
+                mPackageNameToLabelKeyMap.remove(changedPackage);
+            if (removed == null) {
+                return;
+            }
+            for (ComponentKey key : removed) {
+                mLabelMap.remove(key.getId());
+            }
+        }
+        scheduleSave();
+    }
+
+    private Entry putEntry(ComponentKey component, Entry entry) {
+        synchronized (mLock) {
+            putEntryLocked(component, entry);
+        }
+        scheduleSave();
+        return entry;
+    }
+
+    // Must hold mLock
+    private void putEntryLocked(ComponentKey component, Entry entry) {
+        mLabelMap.put(component.getId(), entry);
+        if (mPackageNameToLabelKeyMap.containsKey(component.getPackageName())) {
+            mPackageNameToLabelKeyMap.get(component.getPackageName()).add(component);
+        } else {
+            Set<ComponentKey> componentSet = new HashSet<>();
+            componentSet.add(component);
+            mPackageNameToLabelKeyMap.put(component.getPackageName(), componentSet);
+        }
+    }
+
+    /**
+     * Apps are installed to a freshly named directory on every update (since O), so the install
+     * path works as a version stamp without an extra PackageManager call.
+     */
+    private static String getVersionStamp(ActivityInfo info) {
+        return info.applicationInfo == null || info.applicationInfo.sourceDir == null ?
+               "" :
+               info.applicationInfo.sourceDir;
+    }
+
+    private static String getFileFingerprint() {
+        return Locale.getDefault().toLanguageTag() + "|" + Build.FINGERPRINT;
+    }
+
+    private void scheduleSave() {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mMainHandler.post(this::scheduleSave);
             return;
         }
-        for (Pair<String, String> key : mPackageNameToLabelKeyMap.get(changedPackage)) {
-            mLabelMap.remove(key);
+        if (mSaveScheduled) {
+            return;
+        }
+        mSaveScheduled = true;
+        mMainHandler.postDelayed(mSaveRunnable, SAVE_DELAY_MS);
+    }
+
+    /**
+     * Read the persisted labels on the disk thread, then merge them in under anything looked up,
+     * cleared or replaced in the meantime.
+     */
+    private void load() {
+        final Map<ComponentKey, Entry> loaded = new HashMap<>();
+        try (DataInputStream dis = new DataInputStream(mLabelsFile.openRead())) {
+            if (dis.readInt() == FILE_VERSION && dis.readUTF().equals(getFileFingerprint())) {
+                final int count = dis.readInt();
+                for (int i = 0; i < count; i++) {
+                    final ComponentKey component = ComponentKey.of(dis.readUTF(), dis.readUTF());
+                    final String versionStamp = dis.readUTF();
+                    final String label = dis.readUTF();
+                    final char section = dis.readChar();
+                    final byte[] sortKey = new byte[dis.readUnsignedShort()];
+                    dis.readFully(sortKey);
+                    loaded.put(component, new Entry(label, versionStamp, section, sortKey));
+                }
+            }
+        } catch (FileNotFoundException noLabelsYet) {
+            // First run; labels are filled in as they're requested
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read labels; rebuilding", e);
+            loaded.clear();
+        }
+        synchronized (mLock) {
+            if (!mClearedWhileLoading) {
+                for (Map.Entry<ComponentKey, Entry> entry : loaded.entrySet()) {
+                    final ComponentKey component = entry.getKey();
+                    if (mLabelMap.get(component.getId()) == null &&
+                        !mPackagesClearedWhileLoading.contains(component.getPackageName())) {
+                        putEntryLocked(component, entry.getValue());
+                    }
+                }
+            }
+            mPackagesClearedWhileLoading = null;
+        }
+    }
+
+    /**
+     * Snapshot the cache, sort keys included, on the main thread, and write it out on the disk
+     * thread.
+     */
+    private void save() {
+        mSaveScheduled = false;
+        final List<ComponentKey> components = new ArrayList<>();
+        final List<Entry> entries = new ArrayList<>();
+        synchronized (mLock) {
+            if (mPackagesClearedWhileLoading != null) {
+                // Writing now would replace the file with only what's been looked up so far
+                scheduleSave();
+                return;
+            }
+            for (Set<ComponentKey> packageComponents : mPackageNameToLabelKeyMap.values()) {
+                for (ComponentKey component : packageComponents) {
+                    @Nullable final Entry entry = mLabelMap.get(component.getId());
+                    if (entry != null) {
+                        components.add(component);
+                        entries.add(entry);
+                    }
+                }
+            }
+        }
+        final List<byte[]> sortKeys = new ArrayList<>(entries.size());
+        final List<Character> sections = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            sortKeys.add(entry.getSortKey());
+            sections.add(entry.getSection());
+        }
+        mDiskExecutor.execute(() -> {
+            @Nullable FileOutputStream fos = null;
+            try {
+                fos = mLabelsFile.startWrite();
+                final DataOutputStream dos = new DataOutputStream(fos);
+                dos.writeInt(FILE_VERSION);
+                dos.writeUTF(getFileFingerprint());
+                dos.writeInt(entries.size());
+                for (int i = 0; i < entries.size(); i++) {
+                    final Entry entry = entries.get(i);
+                    final byte[] sortKey = sortKeys.get(i);
+                    dos.writeUTF(components.get(i).getPackageName());
+                    dos.writeUTF(components.get(i).getActivityName());
+                    dos.writeUTF(entry.mVersionStamp);
+                    dos.writeUTF(entry.mLabel);
+                    dos.writeChar(sections.get(i));
+                    dos.writeShort(sortKey.length);
+                    dos.write(sortKey);
+                }
+                dos.flush();
+                mLabelsFile.finishWrite(fos);
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to write labels", e);
+                if (fos != null) {
+                    mLabelsFile.failWrite(fos);
+                }
+            }
+        });
+    }
+
+    /**
+     * A label, plus the section and collation key derived from it. The derived fields are computed
+     * on first use if they weren't loaded from disk.
+     */
+    public static class Entry {
+
+        private final String mLabel;
+        private final String mVersionStamp;
+        private char mSection;
+        @Nullable private byte[] mSortKey;
+
+        Entry(String label, String versionStamp) {
+            mLabel = label;
+            mVersionStamp = versionStamp;
+        }
+
+        Entry(String label, String versionStamp, char section, byte[] sortKey) {
+            this(label, versionStamp);
+            mSection = section;
+            mSortKey = sortKey;
+        }
+
+        public String getLabel() {
+            return mLabel;
+        }
+
+        public synchronized char getSection() {
+            if (mSection == 0) {
+                mSection = SortKeys.computeSection(mLabel);
+            }
+            return mSection;
+        }
+
+        public synchronized byte[] getSortKey() {
+            if (mSortKey == null) {
+                mSortKey = SortKeys.computeSortKey(mLabel);
+            }
+            return mSortKey;
         }
     }
 }
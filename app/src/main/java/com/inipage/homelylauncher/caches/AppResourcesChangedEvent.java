@@ -0,0 +1,38 @@
+package com.inipage.homelylauncher.caches;
+
+import com.inipage.homelylauncher.model.ComponentKey;
+
+import java.util.Set;
+
+/**
+ * Icons or labels for some apps were replaced in place, after an icon pack or locale change. Views
+ * showing those apps should rebind; nothing was installed or removed.
+ */
+public class AppResourcesChangedEvent {
+
+    final private Resource mResource;
+    final private Set<ComponentKey> mChangedComponents;
+
+    AppResourcesChangedEvent(Resource resource, Set<ComponentKey> changedComponents) {
+        mResource = resource;
+        mChangedComponents = changedComponents;
+    }
+
+    public Resource getResource() {
+        return mResource;
+    }
+
+    public Set<ComponentKey> getChangedComponents() {
+        return mChangedComponents;
+    }
+
+    public boolean affects(String packageName, String activityName) {
+        return mChangedComponents.contains(ComponentKey.of(packageName, activityName));
+    }
+
+    public enum Resource {
+        ICONS,
+        // Labels, along with sections and sort order, which depend on the locale
+        LABELS
+    }
+}
@@ -0,0 +1,103 @@
+package com.inipage.homelylauncher.caches;
+
+import android.content.Context;
+import android.content.pm.LauncherActivityInfo;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.inipage.homelylauncher.model.ComponentKey;
+import com.inipage.homelylauncher.utils.PerfMetrics;
+
+import org.greenrobot.eventbus.EventBus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reloads cached icons or labels in the background after an icon pack or locale change, instead of
+ * clearing the caches and leaving every visible view to reload them synchronously.
+ * <p>
+ * Only affected entries are reloaded, in parallel. The results replace the old ones in a single
+ * step, after which an {@link AppResourcesChangedEvent} names the components that changed so views
+ * can rebind just those; until then, the old icons and labels stay up. Jobs run one at a time, in
+ * the order they were requested.
+ */
+public class CacheRevalidator {
+
+    private static final ExecutorService s_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final Handler s_MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    /**
+     * Call after the icon pack, or its stand-ins, change.
+     */
+    public static void revalidateIcons(Context context) {
+        final IconCacheSync iconCache = IconCacheSync.getInstance(context);
+        final Context appContext = context.getApplicationContext();
+        s_EXECUTOR.execute(() -> {
+            final long start = PerfMetrics.CACHE_REVALIDATION.start();
+            final IconCacheSync.Revalidation revalidation = iconCache.beginRevalidation();
+            final Map<ComponentKey, Bitmap> icons = revalidation.getCachedKeys()
+                .parallelStream()
+                .filter(revalidation::isAffected)
+                .collect(Collectors.toMap(Function.identity(), revalidation::load));
+            final Set<ComponentKey> changed = revalidation.apply(icons);
+            PerfMetrics.CACHE_REVALIDATION.stop(start);
+            s_MAIN_HANDLER.post(() -> publish(
+                appContext, AppResourcesChangedEvent.Resource.ICONS, changed));
+        });
+    }
+
+    /**
+     * Call on the main thread after the locale changes.
+     */
+    public static void revalidateLabels(Context context) {
+        final AppLabelCache labelCache = AppLabelCache.getInstance(context);
+        final List<ComponentKey> cachedComponents = labelCache.getCachedComponents();
+        final Context appContext = context.getApplicationContext();
+        s_EXECUTOR.execute(() -> {
+            final long start = PerfMetrics.CACHE_REVALIDATION.start();
+            final List<LauncherActivityInfo> activities =
+                AppInfoCache.get().getAppsFromSystem(null);
+            final Map<ComponentKey, AppLabelCache.Entry> entries = new ConcurrentHashMap<>();
+            activities.parallelStream().forEach(activity -> entries.put(
+                ComponentKey.of(
+                    activity.getComponentName().getPackageName(),
+                    activity.getComponentName().getClassName()),
+                prepare(AppLabelCache.loadEntry(activity))));
+            // Anything else with a cached label, like grid items for apps that were since hidden
+            cachedComponents.parallelStream()
+                .filter(component -> !entries.containsKey(component))
+                .forEach(component ->
+                    entries.put(component, prepare(labelCache.loadEntry(component))));
+            PerfMetrics.CACHE_REVALIDATION.stop(start);
+            s_MAIN_HANDLER.post(() -> {
+                final Set<ComponentKey> changed = labelCache.replaceAll(entries);
+                // Sort order depends on the locale even where the text didn't change
+                AppInfoCache.get().rebuildModels(activities);
+                publish(appContext, AppResourcesChangedEvent.Resource.LABELS, changed);
+            });
+        });
+    }
+
+    /**
+     * Derive the section and sort key here, rather than on the main thread while sorting.
+     */
+    private static AppLabelCache.Entry prepare(AppLabelCache.Entry entry) {
+        entry.getSection();
+        entry.getSortKey();
+        return entry;
+    }
+
+    private static void publish(
+        Context context, AppResourcesChangedEvent.Resource resource, Set<ComponentKey> changed) {
+        HomeSnapshotCache.getInstance(context).invalidate();
+        EventBus.getDefault().post(new AppResourcesChangedEvent(resource, changed));
+    }
+}
@@ -35,6 +35,12 @@ class FontCacheSync {
         paint.typeface = tf
     }
 
+    /**
+     * @return The override typeface for this path, or null if the default font is in use.
+     */
+    @Synchronized
+    fun getTypeface(fontOverridePath: String): Typeface? = fontOverrideToTypeface[fontOverridePath]
+
     private fun maybeLoadTypeface(ctx: Context, path: String) {
         val fontOverrides = File(ctx.filesDir, Constants.FONT_OVERRIDES_PATH)
         if (!fontOverrides.exists()) {
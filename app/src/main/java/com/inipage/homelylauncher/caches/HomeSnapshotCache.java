@@ -0,0 +1,190 @@
+package com.inipage.homelylauncher.caches;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.view.View;
+
+import com.inipage.homelylauncher.BuildConfig;
+import com.inipage.homelylauncher.persistence.PrefsHelper;
+import com.inipage.homelylauncher.utils.Constants;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nullable;
+
+/**
+ * A downscaled picture of the home screen as it last looked, shown on cold start while the real
+ * pages are still being bound.
+ * <p>
+ * Snapshots are stored under a fingerprint of everything that changes how the home screen looks
+ * but isn't captured by the layout itself (icon pack, fonts, display size, app version), so a
+ * stale one is never shown. Layout, icon and label changes, and removed or updated packages,
+ * invalidate the snapshot; the home screen is only drawn again, when it next stops, if something
+ * was invalidated since the last capture. All disk access happens on a single background thread.
+ */
+public class HomeSnapshotCache {
+
+    private static final String TAG = "HomeSnapshotCache";
+    private static final String SNAPSHOT_DIR = "home_snapshot";
+    private static final float SCALE = 0.5F;
+    // Shown briefly at half resolution, so lossy is fine and far cheaper to encode than PNG
+    private static final int WEBP_QUALITY = 75;
+
+    private static HomeSnapshotCache s_INSTANCE;
+
+    private final Context mContext;
+    private final File mSnapshotDir;
+    private final ExecutorService mDiskExecutor;
+    @Nullable
+    private Future<Bitmap> mPrefetched;
+    // Nothing has been captured by this process yet, so start out dirty
+    private volatile boolean mDirty = true;
+
+    private HomeSnapshotCache(Context context) {
+        mContext = context.getApplicationContext();
+        mSnapshotDir = new File(mContext.getCacheDir(), SNAPSHOT_DIR);
+        mDiskExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    public static HomeSnapshotCache getInstance(Context context) {
+        if (s_INSTANCE == null) {
+            s_INSTANCE = new HomeSnapshotCache(context);
+        }
+        return s_INSTANCE;
+    }
+
+    /**
+     * Start decoding the stored snapshot, if there's a valid one. Call as early as possible in
+     * process start, after PrefsHelper is seeded.
+     */
+    public void prefetch() {
+        mPrefetched = mDiskExecutor.submit(() -> {
+            final File file = getSnapshotFile();
+            if (!file.exists()) {
+                return null;
+            }
+            return BitmapFactory.decodeFile(file.getPath());
+        });
+    }
+
+    /**
+     * @return The prefetched snapshot, if it has already finished decoding. Never waits on the
+     * decode, so the main thread isn't held up for a picture that's only a stand-in. Only returns
+     * a snapshot once per process.
+     */
+    @Nullable
+    public Bitmap takePrefetched() {
+        @Nullable final Future<Bitmap> prefetched = mPrefetched;
+        mPrefetched = null;
+        if (prefetched == null) {
+            return null;
+        }
+        if (!prefetched.isDone()) {
+            prefetched.cancel(false);
+            return null;
+        }
+        try {
+            return prefetched.get();
+        } catch (InterruptedException | ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * If the home screen changed since the last capture, render |root| at reduced scale and persist
+     * it, replacing any earlier snapshot. Must be called on the main thread; only the encoding and
+     * write happen in the background.
+     */
+    public void captureIfDirty(View root) {
+        if (!mDirty || root.getWidth() == 0 || root.getHeight() == 0) {
+            return;
+        }
+        mDirty = false;
+        final Bitmap snapshot = Bitmap.createBitmap(
+            Math.max(1, (int) (root.getWidth() * SCALE)),
+            Math.max(1, (int) (root.getHeight() * SCALE)),
+            Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(snapshot);
+        canvas.scale(SCALE, SCALE);
+        root.draw(canvas);
+        mDiskExecutor.execute(() -> {
+            deleteSnapshots();
+            if (!mSnapshotDir.exists() && !mSnapshotDir.mkdirs()) {
+                return;
+            }
+            final File target = getSnapshotFile();
+            final File temp = new File(mSnapshotDir, target.getName() + ".tmp");
+            try (FileOutputStream fos = new FileOutputStream(temp)) {
+                snapshot.compress(
+                    Build.VERSION.SDK_INT >= Build.VERSION_CODES.R ?
+                    Bitmap.CompressFormat.WEBP_LOSSY :
+                    Bitmap.CompressFormat.WEBP,
+                    WEBP_QUALITY,
+                    fos);
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to persist home snapshot", e);
+                temp.delete();
+                return;
+            }
+            if (!temp.renameTo(target)) {
+                temp.delete();
+            }
+            snapshot.recycle();
+        });
+    }
+
+    /**
+     * Drop the stored snapshot; call whenever the home screen is about to change in a way the
+     * fingerprint doesn't cover.
+     */
+    public void invalidate() {
+        mDirty = true;
+        mDiskExecutor.execute(this::deleteSnapshots);
+    }
+
+    /**
+     * Like {@link #invalidate()}, but waits for the stored snapshot to be deleted. Use before
+     * restarting the process, which would otherwise show the stale snapshot on the way back up.
+     */
+    public void invalidateAndWait() {
+        mDirty = true;
+        try {
+            mDiskExecutor.submit(this::deleteSnapshots).get();
+        } catch (InterruptedException | ExecutionException e) {
+            Log.w(TAG, "Failed to delete home snapshot", e);
+        }
+    }
+
+    private void deleteSnapshots() {
+        @Nullable final File[] contents = mSnapshotDir.listFiles();
+        if (contents == null) {
+            return;
+        }
+        for (File snapshot : contents) {
+            snapshot.delete();
+        }
+    }
+
+    private File getSnapshotFile() {
+        final DisplayMetrics metrics = mContext.getResources().getDisplayMetrics();
+        final File fontOverrides = new File(mContext.getFilesDir(), Constants.FONT_OVERRIDES_PATH);
+        final String fingerprint =
+            BuildConfig.VERSION_CODE + ":" +
+                PrefsHelper.getIconPack() + ":" +
+                fontOverrides.lastModified() + ":" +
+                metrics.widthPixels + "x" + metrics.heightPixels + "@" + metrics.densityDpi;
+        return new File(
+            mSnapshotDir, "snapshot_" + Integer.toHexString(fingerprint.hashCode()) + ".webp");
+    }
+}
@@ -12,21 +12,25 @@ import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.util.Log;
 import android.util.Pair;
+import android.util.SparseArray;
 
 import com.inipage.homelylauncher.icons.IconPackLoader;
+import com.inipage.homelylauncher.model.ComponentKey;
 import com.inipage.homelylauncher.persistence.PrefsHelper;
 import com.inipage.homelylauncher.utils.AttributeApplier;
+import com.inipage.homelylauncher.utils.PerfMetrics;
 import com.inipage.homelylauncher.utils.SizeValAttribute;
 
-import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
-import static com.inipage.homelylauncher.utils.AttributeApplier.intValue;
 
 /**
  * Blocking IconCache.
@@ -41,15 +45,18 @@ public class IconCacheSync {
     private final Resources mBaseResources;
     private final PackageManager mPackageManager;
     private final String mPackageName;
-    private final Map<IconKey, Bitmap> mAppIconMap;
-    private final Map<IconKey, Bitmap> mRemoteResourceMap;
-    private final Map<String, Set<IconKey>> mPackageToIconKeyMap;
+    // Both keyed by ComponentKey id; resource keys use the resource name as the "activity"
+    private final SparseArray<Bitmap> mAppIconMap;
+    private final SparseArray<Bitmap> mRemoteResourceMap;
+    private final Map<String, Set<ComponentKey>> mPackageToIconKeyMap;
     private final Map<String, Resources> mRemoteApplicationResourcesMap;
     private final Map<String, IconPackLoader> mPackageToIPL;
+    // Bumped whenever icons are dropped, so a revalidation can tell which of its reloads are stale
+    private final Map<String, Integer> mPackageGenerations;
+    private int mGeneration;
     private final Bitmap mDummyBitmap;
-    private final IconKey mTempKey;
     @SizeValAttribute(64)
-    private final int mDefaultSize = intValue();
+    int mDefaultSize;
 
     private boolean mIsUsingIconPack;
     @Nullable private String mIconPackPackage;
@@ -61,12 +68,12 @@ public class IconCacheSync {
         mBaseResources = context.getResources();
         mPackageManager = context.getPackageManager();
         mPackageName = context.getPackageName();
-        mAppIconMap = new HashMap<>();
-        mRemoteResourceMap = new HashMap<>();
+        mAppIconMap = new SparseArray<>();
+        mRemoteResourceMap = new SparseArray<>();
         mPackageToIconKeyMap = new HashMap<>();
         mRemoteApplicationResourcesMap = new HashMap<>();
         mPackageToIPL = new HashMap<>();
-        mTempKey = new IconKey();
+        mPackageGenerations = new HashMap<>();
 
         loadIconPackAttrs();
         mIsUsingIconPack = PrefsHelper.isUsingIconPack();
@@ -95,22 +102,37 @@ public class IconCacheSync {
     }
 
     public synchronized Bitmap getActivityIcon(String packageName, String activityName) {
-        mTempKey.first = packageName;
-        mTempKey.second = activityName;
-        @Nullable final Bitmap value = mAppIconMap.get(mTempKey);
+        final ComponentKey key = ComponentKey.of(packageName, activityName);
+        @Nullable final Bitmap value = mAppIconMap.get(key.getId());
         if (value != null) {
-            Log.v(TAG, "Cache hit for app icon=" + packageName);
+            PerfMetrics.ICON_CACHE_HITS.increment();
             return value;
         }
+        PerfMetrics.ICON_CACHE_MISSES.increment();
         Log.v(TAG, "Cache miss for app icon=" + packageName + ";" + activityName);
-        final IconKey key = mTempKey.clone();
+        final Bitmap bitmap =
+            loadActivityIcon(key, getCurrentIconPackLoader(), mIconPackStandIns);
+        mAppIconMap.put(key.getId(), bitmap);
+        trackKeyForPackage(key);
+        return bitmap;
+    }
+
+    /**
+     * Doesn't touch the cache, so revalidation can call it from several threads at once.
+     */
+    private Bitmap loadActivityIcon(
+        ComponentKey key,
+        @Nullable IconPackLoader iconLoader,
+        Map<Pair<String, String>, String> standIns) {
+        final String packageName = key.getPackageName();
+        final String activityName = key.getActivityName();
+        final long start = PerfMetrics.ICON_LOAD.start();
         Bitmap bitmap;
         try {
             Drawable d = null;
-            if (mIsUsingIconPack) {
-                IconPackLoader iconLoader = getIconPackLoader(mIconPackPackage);
+            if (iconLoader != null) {
                 @Nullable String altDrawableName =
-                    mIconPackStandIns.get(Pair.create(packageName, activityName));
+                    standIns.get(Pair.create(packageName, activityName));
                 if (altDrawableName != null) {
                     d = iconLoader.loadDrawableByName(altDrawableName);
                 } else {
@@ -123,22 +145,19 @@ public class IconCacheSync {
             if (d == null) {
                 d = mPackageManager.getActivityIcon(new ComponentName(packageName, activityName));
             }
-            bitmap = getBitmapFromDrawable(d);
+            bitmap = drawToBitmap(d);
         } catch (OutOfMemoryError | PackageManager.NameNotFoundException e) {
             bitmap = mDummyBitmap;
         }
-        mAppIconMap.put(key, bitmap);
-        if (mPackageToIconKeyMap.containsKey(packageName)) {
-            mPackageToIconKeyMap.get(packageName).add(key);
-        } else {
-            final Set<IconKey> keySet = new HashSet<>();
-            keySet.add(key);
-            mPackageToIconKeyMap.put(packageName, keySet);
-        }
+        PerfMetrics.ICON_LOAD.stop(start);
         return bitmap;
     }
 
     public synchronized Bitmap getBitmapFromDrawable(Drawable d) {
+        return drawToBitmap(d);
+    }
+
+    private Bitmap drawToBitmap(Drawable d) {
         if (d instanceof BitmapDrawable) {
             return ((BitmapDrawable) d).getBitmap();
         }
@@ -151,15 +170,12 @@ public class IconCacheSync {
     }
 
     public synchronized Bitmap getNamedResource(String packageName, String resourceName) {
-        mTempKey.first = packageName;
-        mTempKey.second = resourceName;
-        @Nullable final Bitmap value = mRemoteResourceMap.get(mTempKey);
+        final ComponentKey key = ComponentKey.of(packageName, resourceName);
+        @Nullable final Bitmap value = mRemoteResourceMap.get(key.getId());
         if (value != null) {
-            Log.v(TAG, "Cache hit for named resource=" + resourceName);
             return value;
         }
         Log.v(TAG, "Cache miss for named resource=" + resourceName);
-        final IconKey key = mTempKey.clone();
         Bitmap bitmap;
         try {
             Resources resources = mRemoteApplicationResourcesMap.get(packageName);
@@ -179,18 +195,13 @@ public class IconCacheSync {
             PackageManager.NameNotFoundException outOfMemoryError) {
             bitmap = mDummyBitmap;
         }
-        mRemoteResourceMap.put(key, bitmap);
-        if (mPackageToIconKeyMap.containsKey(packageName)) {
-            mPackageToIconKeyMap.get(packageName).add(key);
-        } else {
-            final Set<IconKey> keySet = new HashSet<>();
-            keySet.add(key);
-            mPackageToIconKeyMap.put(packageName, keySet);
-        }
+        mRemoteResourceMap.put(key.getId(), bitmap);
+        trackKeyForPackage(key);
         return bitmap;
     }
 
     public synchronized void clearCache() {
+        mGeneration++;
         mAppIconMap.clear();
         mRemoteResourceMap.clear();
         mPackageToIconKeyMap.clear();
@@ -200,14 +211,61 @@ public class IconCacheSync {
     }
 
     public synchronized void clearCacheForPackage(String packageName) {
+        mPackageGenerations.merge(packageName, 1, Integer::sum);
         mRemoteApplicationResourcesMap.remove(packageName);
         if (!mPackageToIconKeyMap.containsKey(packageName)) {
             return;
         }
-        for (IconKey key : mPackageToIconKeyMap.get(packageName)) {
-            mAppIconMap.remove(key);
-            mRemoteResourceMap.remove(key);
+        for (ComponentKey key : mPackageToIconKeyMap.get(packageName)) {
+            mAppIconMap.remove(key.getId());
+            mRemoteResourceMap.remove(key.getId());
+        }
+    }
+
+    /**
+     * Switch to the current icon pack settings without dropping cached icons; they keep being
+     * served until {@link Revalidation#apply(Map)} replaces the ones the switch affects. May parse
+     * icon packs, so call it off the main thread.
+     */
+    Revalidation beginRevalidation() {
+        // Build the new loader without holding the lock, so icon lookups aren't held up while the
+        // pack is parsed; loaders hold their own copy of the stand-ins, which may be what changed
+        final boolean isUsingIconPack = PrefsHelper.isUsingIconPack();
+        @Nullable final String iconPackPackage = PrefsHelper.getIconPack();
+        final boolean hasIconPack = isUsingIconPack && iconPackPackage != null;
+        final Map<Pair<String, String>, String> standIns =
+            hasIconPack ? PrefsHelper.loadStandIns(iconPackPackage) : new HashMap<>();
+        @Nullable final IconPackLoader newLoader =
+            hasIconPack ? new IconPackLoader(mAppContext, iconPackPackage) : null;
+
+        final Revalidation revalidation = new Revalidation();
+        synchronized (this) {
+            // Any icon cached from the old pack was loaded through its loader, so it's already here
+            revalidation.mOldLoader =
+                mIsUsingIconPack && mIconPackPackage != null ?
+                mPackageToIPL.get(mIconPackPackage) :
+                null;
+            revalidation.mOldStandIns = mIconPackStandIns;
+            mPackageToIPL.clear();
+            if (newLoader != null) {
+                mPackageToIPL.put(iconPackPackage, newLoader);
+            }
+            mIsUsingIconPack = isUsingIconPack;
+            mIconPackPackage = iconPackPackage;
+            mIconPackStandIns = standIns;
+            revalidation.mNewLoader = newLoader;
+            revalidation.mNewStandIns = standIns;
+            revalidation.mGeneration = mGeneration;
+            revalidation.mPackageGenerations.putAll(mPackageGenerations);
+            for (Set<ComponentKey> keys : mPackageToIconKeyMap.values()) {
+                for (ComponentKey key : keys) {
+                    if (mAppIconMap.get(key.getId()) != null) {
+                        revalidation.mCachedKeys.add(key);
+                    }
+                }
+            }
         }
+        return revalidation;
     }
 
     public synchronized IconPackLoader getIconPackLoader(String packageName) {
@@ -217,49 +275,104 @@ public class IconCacheSync {
         return mPackageToIPL.get(packageName);
     }
 
+    @Nullable
+    private IconPackLoader getCurrentIconPackLoader() {
+        return mIsUsingIconPack && mIconPackPackage != null ?
+               getIconPackLoader(mIconPackPackage) :
+               null;
+    }
+
     public synchronized Bitmap getDummyBitmap() {
         return mDummyBitmap;
     }
 
-    private void loadIconPackAttrs() {
-        mIsUsingIconPack = PrefsHelper.isUsingIconPack();
-        mIconPackPackage = PrefsHelper.getIconPack();
-        if (mIsUsingIconPack && mIconPackPackage != null) {
-            mIconPackStandIns = PrefsHelper.loadStandIns(mIconPackPackage);
-        } else {
-            mIconPackStandIns = new HashMap<>();
+    private void trackKeyForPackage(ComponentKey key) {
+        @Nullable Set<ComponentKey> keySet = mPackageToIconKeyMap.get(key.getPackageName());
+        if (keySet == null) {
+            keySet = new HashSet<>();
+            mPackageToIconKeyMap.put(key.getPackageName(), keySet);
         }
+        keySet.add(key);
     }
 
-    private static class IconKey {
-        public String first;
-        public String second;
+    /**
+     * The cached icons an icon pack switch may have changed, and how to load their replacements.
+     * Only icons either pack (or its stand-ins) covers are affected; the rest come from the app
+     * either way.
+     */
+    class Revalidation {
 
-        public IconKey() {
-            first = second = "";
+        private final List<ComponentKey> mCachedKeys = new ArrayList<>();
+        @Nullable private IconPackLoader mOldLoader;
+        @Nullable private IconPackLoader mNewLoader;
+        private Map<Pair<String, String>, String> mOldStandIns;
+        private Map<Pair<String, String>, String> mNewStandIns;
+        private int mGeneration;
+        private final Map<String, Integer> mPackageGenerations = new HashMap<>();
+
+        List<ComponentKey> getCachedKeys() {
+            return mCachedKeys;
         }
 
-        @Override
-        public int hashCode() {
-            return (first + second).hashCode();
+        boolean isAffected(ComponentKey key) {
+            if (mOldLoader == null && mNewLoader == null) {
+                return false;
+            }
+            return isCovered(key, mOldLoader, mOldStandIns) ||
+                isCovered(key, mNewLoader, mNewStandIns);
         }
 
-        @Override
-        public boolean equals(@Nullable Object obj) {
-            if (!(obj instanceof IconKey)) {
+        Bitmap load(ComponentKey key) {
+            return loadActivityIcon(key, mNewLoader, mNewStandIns);
+        }
+
+        /**
+         * Swap the reloaded icons in, all at once. Icons dropped from the cache since
+         * {@link #beginRevalidation()}, say because their package was updated or removed, stay
+         * dropped; they're loaded again on demand.
+         *
+         * @return The components whose icons were replaced.
+         */
+        Set<ComponentKey> apply(Map<ComponentKey, Bitmap> icons) {
+            final Set<ComponentKey> applied = new HashSet<>();
+            synchronized (IconCacheSync.this) {
+                if (mGeneration != IconCacheSync.this.mGeneration) {
+                    return applied;
+                }
+                for (Map.Entry<ComponentKey, Bitmap> entry : icons.entrySet()) {
+                    final String packageName = entry.getKey().getPackageName();
+                    if (!Objects.equals(
+                        mPackageGenerations.get(packageName),
+                        IconCacheSync.this.mPackageGenerations.get(packageName))) {
+                        continue;
+                    }
+                    mAppIconMap.put(entry.getKey().getId(), entry.getValue());
+                    trackKeyForPackage(entry.getKey());
+                    applied.add(entry.getKey());
+                }
+            }
+            return applied;
+        }
+
+        private boolean isCovered(
+            ComponentKey key,
+            @Nullable IconPackLoader loader,
+            Map<Pair<String, String>, String> standIns) {
+            if (loader == null) {
                 return false;
             }
-            IconKey other = (IconKey) obj;
-            return first.equals(other.first) && second.equals(other.second);
+            return standIns.containsKey(Pair.create(key.getPackageName(), key.getActivityName())) ||
+                loader.probablyHasIconForComponent(key.getPackageName(), key.getActivityName());
         }
+    }
 
-        @NotNull
-        @Override
-        public IconKey clone() {
-            IconKey copy = new IconKey();
-            copy.first = first;
-            copy.second = second;
-            return copy;
+    private void loadIconPackAttrs() {
+        mIsUsingIconPack = PrefsHelper.isUsingIconPack();
+        mIconPackPackage = PrefsHelper.getIconPack();
+        if (mIsUsingIconPack && mIconPackPackage != null) {
+            mIconPackStandIns = PrefsHelper.loadStandIns(mIconPackPackage);
+        } else {
+            mIconPackStandIns = new HashMap<>();
         }
     }
 }
@@ -1,5 +1,7 @@
 package com.inipage.homelylauncher.caches;
 
+import android.os.SystemClock;
+
 /**
  * These modifications are *persistent* changes. Transient changes -- an add and remove _during_
  * an upgrade -- aren't sent.
@@ -8,6 +10,7 @@ public class PackageModifiedEvent {
 
     final private String mPackageName;
     final private Modification mModification;
+    final private long mPostedAtNs = SystemClock.elapsedRealtimeNanos();
 
     PackageModifiedEvent(String packageName, Modification modification) {
         mPackageName = packageName;
@@ -22,6 +25,13 @@ public class PackageModifiedEvent {
         return mModification;
     }
 
+    /**
+     * @return When the event was created, in SystemClock.elapsedRealtimeNanos() time.
+     */
+    public long getPostedAtNs() {
+        return mPostedAtNs;
+    }
+
     public enum Modification {
         ADDED,
         REMOVED,
@@ -1,5 +1,7 @@
 package com.inipage.homelylauncher.caches;
 
+import android.os.SystemClock;
+
 /**
  * These modifications reflect the availability of packages installed on removable media.
  */
@@ -7,6 +9,7 @@ public class PackagesBulkModifiedEvent {
 
     final private String[] mPackageNames;
     final private Availability mAvailability;
+    final private long mPostedAtNs = SystemClock.elapsedRealtimeNanos();
 
     PackagesBulkModifiedEvent(String[] packageName, Availability availability) {
         mPackageNames = packageName;
@@ -21,6 +24,13 @@ public class PackagesBulkModifiedEvent {
         return mAvailability;
     }
 
+    /**
+     * @return When the event was created, in SystemClock.elapsedRealtimeNanos() time.
+     */
+    public long getPostedAtNs() {
+        return mPostedAtNs;
+    }
+
     public enum Availability {
         AVAILABLE,
         UNAVAILABLE
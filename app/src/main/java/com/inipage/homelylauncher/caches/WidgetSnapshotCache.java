@@ -0,0 +1,137 @@
+package com.inipage.homelylauncher.caches;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+/**
+ * Cache of rendered widget bitmaps, keyed by appWidgetId. Stands in for live AppWidgetHostViews on
+ * pages that aren't close to being visible, so we don't have to apply RemoteViews for them.
+ * <p>
+ * Snapshots are kept in memory and mirrored to the cache dir so they survive process death; all
+ * disk access happens on a single background thread.
+ */
+public class WidgetSnapshotCache {
+
+    private static final String TAG = "WidgetSnapshotCache";
+    private static final String SNAPSHOT_DIR = "widget_snapshots";
+    private static final int MEMORY_FRACTION = 16;
+    // Shown at full size and often holds text, so kept higher than the home snapshot's
+    private static final int WEBP_QUALITY = 90;
+
+    private static WidgetSnapshotCache s_INSTANCE;
+
+    private final File mSnapshotDir;
+    private final LruCache<Integer, Bitmap> mSnapshots;
+    private final ExecutorService mDiskExecutor;
+    private final Handler mMainHandler;
+
+    private WidgetSnapshotCache(Context context) {
+        mSnapshotDir = new File(context.getApplicationContext().getCacheDir(), SNAPSHOT_DIR);
+        mSnapshots = new LruCache<Integer, Bitmap>(
+            (int) (Runtime.getRuntime().maxMemory() / MEMORY_FRACTION)) {
+            @Override
+            protected int sizeOf(Integer key, Bitmap value) {
+                return value.getAllocationByteCount();
+            }
+        };
+        mDiskExecutor = Executors.newSingleThreadExecutor();
+        mMainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    public static WidgetSnapshotCache getInstance(Context context) {
+        if (s_INSTANCE == null) {
+            s_INSTANCE = new WidgetSnapshotCache(context);
+        }
+        return s_INSTANCE;
+    }
+
+    @Nullable
+    public Bitmap getSnapshot(int appWidgetId) {
+        return mSnapshots.get(appWidgetId);
+    }
+
+    /**
+     * Fetch a snapshot from memory, or failing that, from disk. The callback is always invoked on
+     * the main thread, and only if a snapshot was found.
+     */
+    public void loadSnapshot(int appWidgetId, Consumer<Bitmap> callback) {
+        @Nullable final Bitmap inMemory = mSnapshots.get(appWidgetId);
+        if (inMemory != null) {
+            callback.accept(inMemory);
+            return;
+        }
+        mDiskExecutor.execute(() -> {
+            final File file = getSnapshotFile(appWidgetId);
+            if (!file.exists()) {
+                return;
+            }
+            @Nullable final Bitmap decoded = BitmapFactory.decodeFile(file.getPath());
+            if (decoded == null) {
+                return;
+            }
+            mMainHandler.post(() -> {
+                // A fresher snapshot might have arrived while we were decoding
+                if (mSnapshots.get(appWidgetId) == null) {
+                    mSnapshots.put(appWidgetId, decoded);
+                }
+                callback.accept(mSnapshots.get(appWidgetId));
+            });
+        });
+    }
+
+    public void putSnapshot(int appWidgetId, Bitmap snapshot) {
+        mSnapshots.put(appWidgetId, snapshot);
+        mDiskExecutor.execute(() -> {
+            if (!mSnapshotDir.exists() && !mSnapshotDir.mkdirs()) {
+                return;
+            }
+            try (FileOutputStream fos = new FileOutputStream(getSnapshotFile(appWidgetId))) {
+                snapshot.compress(
+                    Build.VERSION.SDK_INT >= Build.VERSION_CODES.R ?
+                    Bitmap.CompressFormat.WEBP_LOSSY :
+                    Bitmap.CompressFormat.WEBP,
+                    WEBP_QUALITY,
+                    fos);
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to persist snapshot for widget " + appWidgetId, e);
+            }
+        });
+    }
+
+    public void removeSnapshot(int appWidgetId) {
+        mSnapshots.remove(appWidgetId);
+        mDiskExecutor.execute(() -> getSnapshotFile(appWidgetId).delete());
+    }
+
+    public void clearCache() {
+        mSnapshots.evictAll();
+        mDiskExecutor.execute(() -> {
+            @Nullable final File[] contents = mSnapshotDir.listFiles();
+            if (contents == null) {
+                return;
+            }
+            for (File snapshot : contents) {
+                snapshot.delete();
+            }
+        });
+    }
+
+    private File getSnapshotFile(int appWidgetId) {
+        return new File(mSnapshotDir, appWidgetId + ".webp");
+    }
+}
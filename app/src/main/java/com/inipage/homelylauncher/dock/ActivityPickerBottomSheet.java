@@ -1,7 +1,6 @@
 package com.inipage.homelylauncher.dock;
 
 import android.content.Context;
-import android.util.Pair;
 
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -9,12 +8,13 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.inipage.homelylauncher.R;
 import com.inipage.homelylauncher.caches.AppInfoCache;
 import com.inipage.homelylauncher.model.ApplicationIconHideable;
+import com.inipage.homelylauncher.model.ComponentKey;
 import com.inipage.homelylauncher.persistence.DatabaseEditor;
 import com.inipage.homelylauncher.views.BottomSheetHelper;
 import com.inipage.homelylauncher.views.DecorViewManager;
 
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -23,12 +23,11 @@ public class ActivityPickerBottomSheet {
     private String mDecorViewKey;
 
     public ActivityPickerBottomSheet(Context context, Callback callback, String label) {
-        final Map<Pair<String, String>, Boolean> hiddenAppsMap =
-            DatabaseEditor.get().getHiddenAppsAsMap(true);
+        final Set<ComponentKey> hiddenAppsSet = DatabaseEditor.get().getHiddenApps(true);
         final Stream<ApplicationIconHideable> visibleAppsStream =
             AppInfoCache.get().getAllActivities()
                 .parallelStream()
-                .filter(applicationIconHideable -> !hiddenAppsMap.containsKey(new Pair<>(
+                .filter(applicationIconHideable -> !hiddenAppsSet.contains(ComponentKey.of(
                     applicationIconHideable.getPackageName(),
                     applicationIconHideable.getActivityName())));
         final List<ApplicationIconHideable> allApps =
@@ -11,6 +11,7 @@ import com.inipage.homelylauncher.persistence.DatabaseEditor;
 import com.inipage.homelylauncher.utils.InstalledAppUtils;
 
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Base class for dock items that show some app (which can be configured) when clicked.
@@ -29,6 +30,16 @@ public abstract class ConfigurableAppBackedDockItem extends DockControllerItem {
 
     protected abstract int getDatabaseField();
 
+    @Override
+    public boolean isEquivalentTo(DockControllerItem other) {
+        if (!super.isEquivalentTo(other)) {
+            return false;
+        }
+        final DockItem otherBackingItem = ((ConfigurableAppBackedDockItem) other).mBackingItem;
+        return Objects.equals(mBackingItem.getPackageName(), otherBackingItem.getPackageName()) &&
+            Objects.equals(mBackingItem.getActivityName(), otherBackingItem.getActivityName());
+    }
+
     @Override
     public Runnable getAction(View view) {
         @Nullable final Context context = getContext();
@@ -6,33 +6,71 @@ import android.graphics.ColorMatrix
 import android.graphics.ColorMatrixColorFilter
 import android.graphics.PorterDuff
 import android.graphics.PorterDuffColorFilter
-import android.view.LayoutInflater
 import android.view.View
 import androidx.recyclerview.widget.RecyclerView
 import android.view.ViewGroup
 import android.widget.ImageView
 import android.widget.TextView
 import androidx.core.view.ViewCompat
+import androidx.recyclerview.widget.DiffUtil
 import com.inipage.homelylauncher.R
 import com.inipage.homelylauncher.caches.FontCacheSync
 import com.inipage.homelylauncher.utils.Constants
+import com.inipage.homelylauncher.utils.ViewHolderPrewarmer
 import com.inipage.homelylauncher.utils.ViewUtils
 
 /**
- * Renders dock items with padding on the left and right.
+ * Renders dock items with padding on the left and right. Items keep their identity across reloads,
+ * so new lists are diffed in rather than replacing everything.
  */
 class DockAdapter(
     context: Context,
-    private val items: List<DockControllerItem>,
-    private val isMonoDock: Boolean
+    private var isMonoDock: Boolean
 ) : RecyclerView.Adapter<DockAdapter.DockItemViewHolder>() {
 
     private val isSquarish: Boolean = ViewUtils.isSquarishDevice(context)
+    private var items: List<DockControllerItem> = emptyList()
+
+    init {
+        setHasStableIds(true)
+    }
+
+    fun submitItems(newItems: List<DockControllerItem>) {
+        val oldItems = items
+        items = ArrayList(newItems)
+        DiffUtil.calculateDiff(object : DiffUtil.Callback() {
+            override fun getOldListSize() = oldItems.size
+
+            override fun getNewListSize() = newItems.size
+
+            override fun areItemsTheSame(oldPosition: Int, newPosition: Int) =
+                oldItems[oldPosition].stableId == newItems[newPosition].stableId
+
+            // Items report their own content changes through their host
+            override fun areContentsTheSame(oldPosition: Int, newPosition: Int) =
+                oldItems[oldPosition] === newItems[newPosition]
+        }).dispatchUpdatesTo(this)
+    }
+
+    fun notifyItemChanged(item: DockControllerItem) {
+        val index = items.indexOf(item)
+        if (index != -1) {
+            notifyItemChanged(index)
+        }
+    }
+
+    fun setMonoDock(isMonoDock: Boolean) {
+        if (this.isMonoDock == isMonoDock) {
+            return
+        }
+        this.isMonoDock = isMonoDock
+        notifyItemRangeChanged(0, items.size)
+    }
+
+    fun getItem(position: Int): DockControllerItem? = items.getOrNull(position)
 
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): DockItemViewHolder {
-        val divh = DockItemViewHolder(
-            LayoutInflater.from(parent.context).inflate(
-                R.layout.dock_item, parent, false))
+        val divh = DockItemViewHolder(ViewHolderPrewarmer.inflate(R.layout.dock_item, parent))
         FontCacheSync.get().applyTypefaceToTextView(divh.primaryLabel, Constants.DOCK_FONT_PATH)
         FontCacheSync.get().applyTypefaceToTextView(divh.secondaryLabel, Constants.DOCK_FONT_PATH)
         return divh
@@ -99,6 +137,8 @@ class DockAdapter(
 
     override fun getItemCount() = items.size
 
+    override fun getItemId(position: Int) = items[position].stableId
+
     private fun createMonoColorFilter(): ColorMatrixColorFilter {
         val colorMatrix = ColorMatrix()
         colorMatrix.setSaturation(0F)
@@ -13,47 +13,93 @@ import com.inipage.homelylauncher.dock.items.CalendarMappedDockItem
 import com.inipage.homelylauncher.dock.items.PhoneMappedDockItem
 import com.inipage.homelylauncher.dock.items.PowerMappedDockItem
 import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.SimpleItemAnimator
+import com.inipage.homelylauncher.dock.items.RecentAppDockItem
 import com.inipage.homelylauncher.R
-import com.inipage.homelylauncher.model.ClassicGridPage
 import com.inipage.homelylauncher.persistence.PrefsHelper
-import java.util.ArrayList
-import java.util.HashMap
+import com.inipage.homelylauncher.utils.PerfMetrics
+import com.inipage.homelylauncher.utils.ViewHolderPrewarmer
 import java.util.concurrent.Executors
 import java.util.function.Function
 import java.util.stream.Collectors
 
 /**
  * Manages dock items at the bottom of the home screen.
+ *
+ * The fixed items (alarm, calendar, call, power) are created on the first load and kept; they're
+ * attached (registering their receivers) while the home screen is started, and detached when it
+ * stops. Reloads only recompute the app suggestions. When the dock preferences change, the fixed
+ * items are rebuilt too, and only the ones whose mapped app changed are replaced. Changes are
+ * diffed into the adapter, so the dock never blanks out.
  */
-class DockController(private val container: RecyclerView, private val host: Host) {
-
-    interface Host : ContextualAppFetcher.Host
+class DockController(private val container: RecyclerView) {
 
     private val foregroundHandler = Handler(Looper.getMainLooper())
-    private val backgroundExecutor = Executors.newFixedThreadPool(4)
-    private val appFetcher = ContextualAppFetcher(host)
-
-    private var adapter: DockAdapter? = null
-    private var activeDockItems: MutableList<DockControllerItem> = ArrayList()
-    private var appBackedItemsCache: MutableMap<Int, DockItem> = HashMap()
-    private var isMono: Boolean = false
-    
+    // One thread, so overlapping reloads apply in order
+    private val backgroundExecutor = Executors.newSingleThreadExecutor()
+    private val appFetcher = ContextualAppFetcher()
+    private val adapter = DockAdapter(container.context, PrefsHelper.usingMonochromeDock())
+
+    // Only touched on the main thread
+    private var fixedDockItems: List<DockControllerItem> = emptyList()
+    private var activeDockItems: List<DockControllerItem> = emptyList()
+    private var isStarted = false
+    private var hasShownDock = false
+
     fun loadDock() {
-        destroyDockImpl()
+        isStarted = true
+        adapter.setMonoDock(PrefsHelper.usingMonochromeDock())
+        attachItems(fixedDockItems, refreshAttached = true)
+        val needsFixedItems = fixedDockItems.isEmpty()
         backgroundExecutor.submit {
-            loadDockItemsImpl()
+            val start = PerfMetrics.DOCK_LOAD.start()
+            try {
+                loadDockItemsImpl(needsFixedItems)
+            } finally {
+                PerfMetrics.DOCK_LOAD.stop(start)
+            }
         }
     }
 
     fun destroyDock() {
-        destroyDockImpl()
+        isStarted = false
+        val items = activeDockItems
+        backgroundExecutor.submit {
+            for (item in items) {
+                if (item.isAttached) {
+                    item.detach()
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuild the fixed items from the changed dock preferences, and recompute the suggestions,
+     * which may now exclude newly hidden apps.
+     */
+    fun onDockPreferencesChanged() {
+        backgroundExecutor.submit { loadDockItemsImpl(needsFixedItems = true) }
     }
 
-    private fun loadDockItemsImpl() {
-        // Setup the dock controller supporting fields
-        appFetcher.reloadPrefs()
-        isMono = PrefsHelper.usingMonochromeDock()
-        appBackedItemsCache = DatabaseEditor.get().dockPreferences
+    /**
+     * Rebind every item, e.g. after icons or labels were replaced in the caches.
+     */
+    fun refreshDock() {
+        if (isStarted) {
+            attachItems(activeDockItems, refreshAttached = true)
+        }
+    }
+
+    private fun loadDockItemsImpl(needsFixedItems: Boolean) {
+        val newFixedItems = if (needsFixedItems) createFixedItems() else null
+        // Only reads usage events since the last load, so this is a few ms after the first run
+        val suggestions = appFetcher.getRecentApps(container.context)
+            .filterIsInstance<RecentAppDockItem>()
+        foregroundHandler.post { applyDockItems(newFixedItems, suggestions) }
+    }
+
+    private fun createFixedItems(): List<DockControllerItem> {
+        val appBackedItemsCache = DatabaseEditor.get().dockPreferences
             .parallelStream()
             .filter { dockItem: DockItem -> dockItem.whenToShow != DockItem.DOCK_SHOW_NEVER }
             .collect(
@@ -62,71 +108,110 @@ class DockController(private val container: RecyclerView, private val host: Host
                     Function.identity()
                 )
             )
+        return listOf(
+            AlarmMappedDockItem(),
+            CalendarMappedDockItem(),
+            PhoneMappedDockItem(appBackedItemsCache),
+            PowerMappedDockItem(appBackedItemsCache))
+    }
+
+    /**
+     * Merge a fresh set of suggestions into the dock, reusing existing items for apps that are
+     * still suggested.
+     */
+    private fun applyDockItems(
+        newFixedItems: List<DockControllerItem>?,
+        suggestions: List<RecentAppDockItem>
+    ) {
+        val droppedFixedItems = if (newFixedItems != null) {
+            val previousFixedItems = fixedDockItems
+            fixedDockItems = newFixedItems.map { newItem ->
+                previousFixedItems.firstOrNull { it.isEquivalentTo(newItem) } ?: newItem
+            }
+            previousFixedItems.filter { previous -> fixedDockItems.none { it === previous } }
+        } else {
+            emptyList()
+        }
+        val existingSuggestions = activeDockItems
+            .filterIsInstance<RecentAppDockItem>()
+            .associateBy { it.stableId }
+        val mergedSuggestions = suggestions.map { suggestion ->
+            existingSuggestions[suggestion.stableId]?.also { it.adoptSuggestion(suggestion) }
+                ?: suggestion
+        }
+        val keptIds = mergedSuggestions.map { it.stableId }.toSet()
+        val droppedSuggestions = existingSuggestions.values.filter { it.stableId !in keptIds }
 
-        // Add all the dock items
-        activeDockItems.add(AlarmMappedDockItem())
-        activeDockItems.add(CalendarMappedDockItem())
-        activeDockItems.add(PhoneMappedDockItem(appBackedItemsCache))
-        activeDockItems.add(PowerMappedDockItem(appBackedItemsCache))
-        // This takes about ~150-200ms on a fast-ish device; the rest of the init takes about
-        // 40-50ms
-        activeDockItems.addAll(appFetcher.getRecentApps(container.context, true))
-        activeDockItems = activeDockItems
-            .stream()
-            .sorted { left, right ->
+        activeDockItems = (fixedDockItems + mergedSuggestions)
+            .sortedWith { left, right ->
                 val basePriority = right.basePriority - left.basePriority
-                return@sorted (if (basePriority == 0) {
-                    right.subPriority - left.subPriority
-                } else basePriority)
+                if (basePriority == 0) right.subPriority - left.subPriority else basePriority
             }
-            .collect(Collectors.toList())
+        adapter.submitItems(activeDockItems)
+        backgroundExecutor.submit {
+            for (item in droppedFixedItems + droppedSuggestions) {
+                if (item.isAttached) {
+                    item.detach()
+                }
+            }
+        }
+        if (isStarted) {
+            attachItems(activeDockItems, refreshAttached = false)
+        }
 
-        foregroundHandler.post { attachDockItemsToView() }
+        if (!hasShownDock) {
+            hasShownDock = true
+            container.alpha = 0f
+            container.animate()
+                .alpha(1f)
+                .withStartAction { container.visibility = View.VISIBLE }
+                .setDuration(150L)
+                .start()
+        }
     }
 
-    private fun destroyDockImpl() {
-        container.adapter = null
-        for (item in activeDockItems) {
-            item.detach()
+    /**
+     * Attach any detached items, and optionally refresh attached ones, in one pass on the
+     * background thread.
+     */
+    private fun attachItems(items: List<DockControllerItem>, refreshAttached: Boolean) {
+        if (items.isEmpty()) {
+            return
+        }
+        backgroundExecutor.submit {
+            for (item in items) {
+                if (!item.isAttached) {
+                    item.attach(createHost(item))
+                } else if (refreshAttached) {
+                    item.onRefresh()
+                }
+            }
+            // Labels can change without an item being shown or hidden (e.g. battery level)
+            foregroundHandler.post {
+                items.forEach { adapter.notifyItemChanged(it) }
+            }
         }
-        activeDockItems.clear()
-        appBackedItemsCache.clear()
     }
 
-    private fun attachDockItemsToView() {
-        container.adapter = DockAdapter(container.context, activeDockItems, isMono)
-        activeDockItems.forEachIndexed { index, item ->
-            backgroundExecutor.submit {
-                item.attach(object : DockControllerItem.Host {
-
-                    override fun getContext() = container.context
-
-                    override fun showHostedItem() {
-                        foregroundHandler.post {
-                            adapter?.notifyItemChanged(index)
-                        }
-                    }
-
-                    override fun hideHostedItem() {
-                        foregroundHandler.post {
-                            adapter?.notifyItemChanged(index) ?: Unit
-                        }
-                    }
-
-                    override fun tintLoaded(color: Int) {
-                        foregroundHandler.post {
-                            adapter?.notifyItemChanged(index) ?: Unit
-                        }
-                    }
-                })
-            }
+    private fun createHost(item: DockControllerItem) = object : DockControllerItem.Host {
+
+        override fun getContext() = container.context
+
+        override fun showHostedItem() {
+            foregroundHandler.post { adapter.notifyItemChanged(item) }
+        }
+
+        override fun hideHostedItem() {
+            foregroundHandler.post { adapter.notifyItemChanged(item) }
+        }
+
+        override fun updateHostedItem() {
+            foregroundHandler.post { adapter.notifyItemChanged(item) }
+        }
+
+        override fun tintLoaded(color: Int) {
+            foregroundHandler.post { adapter.notifyItemChanged(item) }
         }
-        container.alpha = 0f
-        container.animate()
-            .alpha(1f)
-            .withStartAction { container.visibility = View.VISIBLE }
-            .setDuration(150L)
-            .start()
     }
 
     init {
@@ -134,6 +219,18 @@ class DockController(private val container: RecyclerView, private val host: Host
         val betweenItemSpacePx = context.resources.getDimensionPixelSize(R.dimen.contextual_dock_internal_padding)
         container.layoutManager =
             LinearLayoutManager(context, LinearLayoutManager.HORIZONTAL, false)
+        // Rebinding an item in place shouldn't cross-fade it
+        (container.itemAnimator as? SimpleItemAnimator)?.supportsChangeAnimations = false
+        container.adapter = adapter
+        // Items are created as soon as the first load lands, so have their views inflated in the
+        // background while it runs
+        ViewHolderPrewarmer.prewarm(
+            container,
+            0,
+            ViewHolderPrewarmer.getCapacity(
+                context.resources.displayMetrics.widthPixels.toFloat(),
+                context.resources.getDimension(R.dimen.contextual_dock_height)),
+            R.layout.dock_item)
         container.addItemDecoration(object : RecyclerView.ItemDecoration() {
             override fun getItemOffsets(
                 outRect: Rect,
@@ -146,8 +243,8 @@ class DockController(private val container: RecyclerView, private val host: Host
                     return
                 }
                 val isFirstItem = idx == 0
-                val isLastItem = idx == ((adapter?.itemCount ?: 0) - 1)
-                val isHidden = !(activeDockItems.getOrNull(idx)?.isLoaded ?: false)
+                val isLastItem = idx == adapter.itemCount - 1
+                val isHidden = !(adapter.getItem(idx)?.isLoaded ?: false)
                 outRect.set(
                     if (isFirstItem) (betweenItemSpacePx * 1.5).toInt() else 0,
                     0,
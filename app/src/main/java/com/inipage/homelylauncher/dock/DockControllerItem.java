@@ -11,6 +11,10 @@ import androidx.annotation.Nullable;
 
 import java.util.Objects;
 
+/**
+ * Something shown in the dock. Items are long-lived: the DockController keeps the same instance
+ * across reloads, attaching it while the home screen is started and detaching it when stopped.
+ */
 public abstract class DockControllerItem {
 
     public interface Host {
@@ -21,10 +25,12 @@ public abstract class DockControllerItem {
 
         void hideHostedItem();
 
+        void updateHostedItem();
+
         void tintLoaded(int color);
     }
 
-    private Host mHost;
+    private volatile Host mHost;
     private boolean mIsLoaded;
 
     public void attach(Host host) {
@@ -34,6 +40,12 @@ public abstract class DockControllerItem {
 
     public void onAttach() {}
 
+    /**
+     * Called when the dock reloads while this item is attached. Re-read any state that isn't
+     * already kept current by a receiver or listener. Called off the main thread.
+     */
+    public void onRefresh() {}
+
     public void detach() {
         this.onDetach();
         mHost = null;
@@ -45,6 +57,14 @@ public abstract class DockControllerItem {
      */
     public void onDetach() {}
 
+    /**
+     * @return Whether |other|, freshly built from the dock preferences, would show the same thing
+     * as this item, so this one can be kept. By default any item of the same class does.
+     */
+    public boolean isEquivalentTo(DockControllerItem other) {
+        return getClass() == other.getClass();
+    }
+
     protected synchronized void showSelf() {
         if (mHost == null || mIsLoaded) {
             return;
@@ -61,6 +81,16 @@ public abstract class DockControllerItem {
         mHost.hideHostedItem();
     }
 
+    /**
+     * Rebind a shown item whose label or icon changed without it being hidden or shown.
+     */
+    protected synchronized void updateSelf() {
+        if (mHost == null || !mIsLoaded) {
+            return;
+        }
+        mHost.updateHostedItem();
+    }
+
     protected void tintLoaded(int color) {
         if (mHost == null || !mIsLoaded) {
             return;
@@ -72,6 +102,18 @@ public abstract class DockControllerItem {
         return mIsLoaded;
     }
 
+    public boolean isAttached() {
+        return mHost != null;
+    }
+
+    /**
+     * @return An identifier that's the same for this item across reloads. By default, items are
+     * one per type.
+     */
+    public long getStableId() {
+        return getClass().getName().hashCode();
+    }
+
     public int getIcon() {
         return 0;
     }
@@ -1,13 +1,14 @@
 package com.inipage.homelylauncher.dock
 
 import android.content.Context
-import android.util.Pair
 import androidx.recyclerview.widget.LinearLayoutManager
 import androidx.recyclerview.widget.RecyclerView
 import com.inipage.homelylauncher.R
 import com.inipage.homelylauncher.caches.AppInfoCache
+import com.inipage.homelylauncher.caches.HomeSnapshotCache
 import com.inipage.homelylauncher.drawer.HiddenAppsAdapter
 import com.inipage.homelylauncher.model.ApplicationIconHideable
+import com.inipage.homelylauncher.model.ComponentKey
 import com.inipage.homelylauncher.model.DockItem
 import com.inipage.homelylauncher.persistence.DatabaseEditor
 import com.inipage.homelylauncher.views.BottomSheetHelper
@@ -23,9 +24,9 @@ object HiddenRecentAppsBottomSheet {
                 // Don't create hidden items so the map lookup with app list items will succeed
                 .map { it.buildAppItem(context, false) }
                 .associateWith { true }
-        val hiddenAppsMap = DatabaseEditor.get().getHiddenAppsAsMap(true)
+        val hiddenAppsSet = DatabaseEditor.get().getHiddenApps(true)
         val appList = AppInfoCache.get().allActivities
-            .filter { !hiddenAppsMap.containsKey(Pair(it.packageName, it.activityName)) }
+            .filter { !hiddenAppsSet.contains(ComponentKey.of(it.packageName, it.activityName)) }
             .map {
                 ApplicationIconHideable(
                     context,
@@ -41,6 +42,7 @@ object HiddenRecentAppsBottomSheet {
                 apps
                     .filter { it != null && it.isHidden }
                     .map { DockItem.createHiddenItem(it?.packageName, it?.activityName) })
+            HomeSnapshotCache.getInstance(context).invalidate()
         }
         val recyclerView = RecyclerView(context)
         recyclerView.adapter = adapter
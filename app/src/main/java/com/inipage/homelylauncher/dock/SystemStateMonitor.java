@@ -0,0 +1,396 @@
+package com.inipage.homelylauncher.dock;
+
+import android.app.AlarmManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.BatteryManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
+import android.provider.CalendarContract;
+import android.telephony.TelephonyManager;
+
+import androidx.annotation.Nullable;
+
+import com.inipage.homelylauncher.utils.AlarmUtils;
+import com.inipage.homelylauncher.utils.CalendarUtils;
+import com.inipage.homelylauncher.utils.PhoneUtils;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * One place that watches the system state dock items display: battery, the next alarm, the next
+ * calendar event and call state. It owns the receivers and the calendar ContentObserver, caches
+ * the latest values, and only tells listeners about a topic when that topic's value changes.
+ * <p>
+ * Bursts of updates (ACTION_BATTERY_CHANGED fires every few seconds while charging; calendar syncs
+ * touch many rows) are coalesced, so listeners hear about a topic at most once per
+ * {@link #THROTTLE_MS}. Subscriptions to the system are only held while a topic has listeners.
+ * Listeners are called on a background thread.
+ */
+public class SystemStateMonitor {
+
+    public enum Topic {
+        POWER,
+        ALARM,
+        CALENDAR,
+        CALL
+    }
+
+    public interface Listener {
+        void onStateChanged();
+    }
+
+    private static final long THROTTLE_MS = 1000;
+    // Which calendar event is relevant moves with the clock, even if the provider doesn't change
+    private static final long CALENDAR_MAX_AGE_MS = 5 * 60 * 1000;
+
+    private static SystemStateMonitor s_INSTANCE;
+
+    private final Context mContext;
+    private final Handler mHandler;
+    private final Map<Topic, List<Listener>> mListeners = new EnumMap<>(Topic.class);
+    private final long[] mLastDeliveredAt = new long[Topic.values().length];
+
+    @Nullable private BroadcastReceiver mPowerReceiver;
+    @Nullable private BroadcastReceiver mAlarmReceiver;
+    @Nullable private BroadcastReceiver mCallReceiver;
+    @Nullable private ContentObserver mCalendarObserver;
+
+    @Nullable private PowerState mPowerState;
+    @Nullable private AlarmUtils.AlarmHandle mAlarmHandle;
+    @Nullable private CalendarUtils.Event mCalendarEvent;
+    private boolean mCalendarLoaded;
+    private long mCalendarLoadedAt;
+    @Nullable private Boolean mIsInCall;
+
+    private SystemStateMonitor(Context context) {
+        mContext = context.getApplicationContext();
+        final HandlerThread thread =
+            new HandlerThread("SystemStateMonitor", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        mHandler = new Handler(thread.getLooper(), msg -> {
+            deliver(Topic.values()[msg.what]);
+            return true;
+        });
+        for (Topic topic : Topic.values()) {
+            mListeners.put(topic, new ArrayList<>());
+        }
+    }
+
+    public static synchronized SystemStateMonitor getInstance(Context context) {
+        if (s_INSTANCE == null) {
+            s_INSTANCE = new SystemStateMonitor(context);
+        }
+        return s_INSTANCE;
+    }
+
+    public synchronized void subscribe(Topic topic, Listener listener) {
+        final List<Listener> listeners = mListeners.get(topic);
+        listeners.add(listener);
+        if (listeners.size() == 1) {
+            startWatching(topic);
+        }
+    }
+
+    public synchronized void unsubscribe(Topic topic, Listener listener) {
+        final List<Listener> listeners = mListeners.get(topic);
+        if (listeners.remove(listener) && listeners.isEmpty()) {
+            stopWatching(topic);
+        }
+    }
+
+    public synchronized PowerState getPowerState() {
+        if (mPowerState == null || mPowerReceiver == null) {
+            // Not watching, so the cached value can't be trusted; read the sticky broadcast
+            mPowerState = readPowerState(
+                mContext.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED)));
+        }
+        return mPowerState;
+    }
+
+    public synchronized AlarmUtils.AlarmHandle getAlarmHandle() {
+        if (mAlarmHandle == null || mAlarmReceiver == null) {
+            mAlarmHandle = AlarmUtils.getAlarmHandle(mContext);
+        }
+        return mAlarmHandle;
+    }
+
+    @Nullable
+    public synchronized CalendarUtils.Event getCalendarEvent() {
+        if (!mCalendarLoaded ||
+            mCalendarObserver == null ||
+            SystemClock.elapsedRealtime() - mCalendarLoadedAt > CALENDAR_MAX_AGE_MS ||
+            (mCalendarEvent != null && mCalendarEvent.getEnd() < System.currentTimeMillis())) {
+            loadCalendarEvent();
+        }
+        return mCalendarEvent;
+    }
+
+    public synchronized boolean isInCall() {
+        if (mIsInCall == null || mCallReceiver == null) {
+            mIsInCall = PhoneUtils.isInCall(mContext);
+        }
+        return mIsInCall;
+    }
+
+    /**
+     * Re-read the calendar, e.g. after calendars are hidden, and notify if the event changed.
+     */
+    public void invalidateCalendar() {
+        mHandler.post(() -> {
+            final boolean changed;
+            synchronized (this) {
+                changed = loadCalendarEvent();
+            }
+            if (changed) {
+                scheduleDelivery(Topic.CALENDAR);
+            }
+        });
+    }
+
+    private void startWatching(Topic topic) {
+        switch (topic) {
+            case POWER: {
+                mPowerReceiver = new BroadcastReceiver() {
+                    @Override
+                    public void onReceive(Context context, Intent intent) {
+                        final PowerState newState =
+                            Intent.ACTION_BATTERY_CHANGED.equals(intent.getAction()) ?
+                            readPowerState(intent) :
+                            readPowerState(context.registerReceiver(
+                                null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED)));
+                        updatePowerState(newState);
+                    }
+                };
+                final IntentFilter filter = new IntentFilter();
+                filter.addAction(Intent.ACTION_BATTERY_CHANGED);
+                filter.addAction(Intent.ACTION_POWER_CONNECTED);
+                filter.addAction(Intent.ACTION_POWER_DISCONNECTED);
+                filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+                mPowerState = readPowerState(
+                    mContext.registerReceiver(mPowerReceiver, filter, null, mHandler));
+                break;
+            }
+            case ALARM:
+                mAlarmReceiver = new BroadcastReceiver() {
+                    @Override
+                    public void onReceive(Context context, Intent intent) {
+                        updateAlarmHandle(AlarmUtils.getAlarmHandle(context));
+                    }
+                };
+                mContext.registerReceiver(
+                    mAlarmReceiver,
+                    new IntentFilter(AlarmManager.ACTION_NEXT_ALARM_CLOCK_CHANGED),
+                    null,
+                    mHandler);
+                mAlarmHandle = null;
+                break;
+            case CALENDAR:
+                mCalendarObserver = new ContentObserver(mHandler) {
+                    @Override
+                    public void onChange(boolean selfChange, @Nullable Uri uri) {
+                        // A sync can fire dozens of these; query once when they settle
+                        mHandler.removeCallbacks(mCalendarRequery);
+                        mHandler.postDelayed(mCalendarRequery, THROTTLE_MS);
+                    }
+                };
+                try {
+                    mContext.getContentResolver().registerContentObserver(
+                        CalendarContract.CONTENT_URI, true, mCalendarObserver);
+                } catch (SecurityException noCalendarPermission) {
+                    mCalendarObserver = null;
+                }
+                mCalendarLoaded = false;
+                break;
+            case CALL: {
+                mCallReceiver = new BroadcastReceiver() {
+                    @Override
+                    public void onReceive(Context context, Intent intent) {
+                        updateInCall(PhoneUtils.isInCall(context));
+                    }
+                };
+                final IntentFilter filter = new IntentFilter();
+                filter.addAction(Intent.ACTION_NEW_OUTGOING_CALL);
+                filter.addAction(TelephonyManager.ACTION_PHONE_STATE_CHANGED);
+                mContext.registerReceiver(mCallReceiver, filter, null, mHandler);
+                mIsInCall = null;
+                break;
+            }
+        }
+    }
+
+    private void stopWatching(Topic topic) {
+        switch (topic) {
+            case POWER:
+                if (mPowerReceiver != null) {
+                    mContext.unregisterReceiver(mPowerReceiver);
+                    mPowerReceiver = null;
+                }
+                break;
+            case ALARM:
+                if (mAlarmReceiver != null) {
+                    mContext.unregisterReceiver(mAlarmReceiver);
+                    mAlarmReceiver = null;
+                }
+                break;
+            case CALENDAR:
+                if (mCalendarObserver != null) {
+                    mContext.getContentResolver().unregisterContentObserver(mCalendarObserver);
+                    mCalendarObserver = null;
+                }
+                mHandler.removeCallbacks(mCalendarRequery);
+                break;
+            case CALL:
+                if (mCallReceiver != null) {
+                    mContext.unregisterReceiver(mCallReceiver);
+                    mCallReceiver = null;
+                }
+                break;
+        }
+        mHandler.removeMessages(topic.ordinal());
+    }
+
+    private final Runnable mCalendarRequery = () -> {
+        final boolean changed;
+        synchronized (this) {
+            changed = loadCalendarEvent();
+        }
+        if (changed) {
+            scheduleDelivery(Topic.CALENDAR);
+        }
+    };
+
+    /**
+     * @return Whether the relevant event changed.
+     */
+    private boolean loadCalendarEvent() {
+        @Nullable final CalendarUtils.Event event = CalendarUtils.findRelevantEvent(mContext);
+        final boolean changed = !mCalendarLoaded || !Objects.equals(event, mCalendarEvent);
+        mCalendarEvent = event;
+        mCalendarLoaded = true;
+        mCalendarLoadedAt = SystemClock.elapsedRealtime();
+        return changed;
+    }
+
+    private void updatePowerState(PowerState newState) {
+        synchronized (this) {
+            if (newState.equals(mPowerState)) {
+                return;
+            }
+            mPowerState = newState;
+        }
+        scheduleDelivery(Topic.POWER);
+    }
+
+    private void updateAlarmHandle(AlarmUtils.AlarmHandle newHandle) {
+        synchronized (this) {
+            if (mAlarmHandle != null &&
+                mAlarmHandle.hasAlarm() == newHandle.hasAlarm() &&
+                mAlarmHandle.getNextAlarmTimeMs() == newHandle.getNextAlarmTimeMs()) {
+                return;
+            }
+            mAlarmHandle = newHandle;
+        }
+        scheduleDelivery(Topic.ALARM);
+    }
+
+    private void updateInCall(boolean isInCall) {
+        synchronized (this) {
+            if (mIsInCall != null && mIsInCall == isInCall) {
+                return;
+            }
+            mIsInCall = isInCall;
+        }
+        scheduleDelivery(Topic.CALL);
+    }
+
+    /**
+     * Deliver a topic now, or if it was delivered recently, once the throttle window has passed.
+     * Further changes in the meantime fold into that one delivery.
+     */
+    private void scheduleDelivery(Topic topic) {
+        if (mHandler.hasMessages(topic.ordinal())) {
+            return;
+        }
+        final long sinceLast = SystemClock.uptimeMillis() - mLastDeliveredAt[topic.ordinal()];
+        mHandler.sendEmptyMessageDelayed(topic.ordinal(), Math.max(0, THROTTLE_MS - sinceLast));
+    }
+
+    private void deliver(Topic topic) {
+        mLastDeliveredAt[topic.ordinal()] = SystemClock.uptimeMillis();
+        final List<Listener> listeners;
+        synchronized (this) {
+            listeners = new ArrayList<>(mListeners.get(topic));
+        }
+        for (Listener listener : listeners) {
+            listener.onStateChanged();
+        }
+    }
+
+    private PowerState readPowerState(@Nullable Intent batteryStatus) {
+        if (batteryStatus == null) {
+            return new PowerState(0, false, false);
+        }
+        final int level = batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, 50);
+        final int status = batteryStatus.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+        @Nullable final PowerManager pm =
+            (PowerManager) mContext.getSystemService(Context.POWER_SERVICE);
+        return new PowerState(
+            level,
+            (pm != null && pm.isPowerSaveMode()) || level < 20,
+            status == BatteryManager.BATTERY_STATUS_CHARGING ||
+                status == BatteryManager.BATTERY_STATUS_FULL);
+    }
+
+    public static class PowerState {
+
+        private final int mLevel;
+        private final boolean mIsLowPower;
+        private final boolean mIsCharging;
+
+        PowerState(int level, boolean isLowPower, boolean isCharging) {
+            mLevel = level;
+            mIsLowPower = isLowPower;
+            mIsCharging = isCharging;
+        }
+
+        public int getLevel() {
+            return mLevel;
+        }
+
+        public boolean isLowPower() {
+            return mIsLowPower;
+        }
+
+        public boolean isCharging() {
+            return mIsCharging;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (!(obj instanceof PowerState)) {
+                return false;
+            }
+            final PowerState other = (PowerState) obj;
+            return mLevel == other.mLevel &&
+                mIsLowPower == other.mIsLowPower &&
+                mIsCharging == other.mIsCharging;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mLevel, mIsLowPower, mIsCharging);
+        }
+    }
+}
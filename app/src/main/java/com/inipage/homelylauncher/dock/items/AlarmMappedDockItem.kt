@@ -7,6 +7,7 @@ import com.inipage.homelylauncher.R
 import android.app.PendingIntent.CanceledException
 import android.view.View
 import com.inipage.homelylauncher.dock.DockItemPriorities
+import com.inipage.homelylauncher.dock.SystemStateMonitor
 import kotlin.math.abs
 
 /**
@@ -16,11 +17,34 @@ class AlarmMappedDockItem : DockControllerItem() {
 
     private var alarmHandle: AlarmUtils.AlarmHandle? = null
 
+    private val listener = SystemStateMonitor.Listener { loadAlarm() }
+
     override fun onAttach() {
-        context ?: return
-        alarmHandle = AlarmUtils.getAlarmHandle(context)
+        val context = context ?: return
+        SystemStateMonitor.getInstance(context).subscribe(SystemStateMonitor.Topic.ALARM, listener)
+        loadAlarm()
+    }
+
+    override fun onRefresh() {
+        loadAlarm()
+    }
+
+    override fun onDetach() {
+        val context = context ?: return
+        SystemStateMonitor.getInstance(context).unsubscribe(SystemStateMonitor.Topic.ALARM, listener)
+    }
+
+    private fun loadAlarm() {
+        val context = context ?: return
+        val previousHandle = alarmHandle
+        alarmHandle = SystemStateMonitor.getInstance(context).alarmHandle
         if (alarmHandle?.hasAlarm() == true) {
             showSelf()
+            if (previousHandle?.nextAlarmTimeMs != alarmHandle?.nextAlarmTimeMs) {
+                updateSelf()
+            }
+        } else {
+            hideSelf()
         }
     }
 
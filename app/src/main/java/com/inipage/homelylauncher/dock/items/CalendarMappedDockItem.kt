@@ -5,6 +5,7 @@ import com.inipage.homelylauncher.dock.DockControllerItem
 import com.inipage.homelylauncher.R
 import com.inipage.homelylauncher.persistence.PrefsHelper
 import com.inipage.homelylauncher.dock.DockItemPriorities
+import com.inipage.homelylauncher.dock.SystemStateMonitor
 import com.inipage.homelylauncher.utils.CalendarUtils
 import java.text.SimpleDateFormat
 import java.util.*
@@ -15,8 +16,36 @@ class CalendarMappedDockItem : DockControllerItem() {
 
     private var event: CalendarUtils.Event? = null
 
+    private val listener = SystemStateMonitor.Listener { loadEvent() }
+
     override fun onAttach() {
-        this.event = CalendarUtils.findRelevantEvent(requireContext())?.also { showSelf() }
+        SystemStateMonitor.getInstance(requireContext())
+            .subscribe(SystemStateMonitor.Topic.CALENDAR, listener)
+        loadEvent()
+    }
+
+    override fun onRefresh() {
+        loadEvent()
+    }
+
+    override fun onDetach() {
+        val context = context ?: return
+        SystemStateMonitor.getInstance(context)
+            .unsubscribe(SystemStateMonitor.Topic.CALENDAR, listener)
+    }
+
+    private fun loadEvent() {
+        val context = context ?: return
+        val previousEvent = event
+        this.event = SystemStateMonitor.getInstance(context).calendarEvent
+        if (event != null) {
+            showSelf()
+            if (event != previousEvent) {
+                updateSelf()
+            }
+        } else {
+            hideSelf()
+        }
     }
 
     override fun getIcon(): Int {
@@ -67,6 +96,8 @@ class CalendarMappedDockItem : DockControllerItem() {
                 val event = event ?: return@show
                 if (PrefsHelper.get().disabledCalendars.containsKey(event.calendarId)) {
                     hideSelf()
+                    // Another calendar may have a relevant event
+                    SystemStateMonitor.getInstance(context).invalidateCalendar()
                 }
             }
         }
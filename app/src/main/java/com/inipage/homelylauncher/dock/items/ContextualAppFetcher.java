@@ -1,221 +1,88 @@
 package com.inipage.homelylauncher.dock.items;
 
-import android.app.usage.UsageStats;
-import android.app.usage.UsageStatsManager;
 import android.content.Context;
 
-import com.google.common.collect.ImmutableList;
 import com.inipage.homelylauncher.caches.AppInfoCache;
-import com.inipage.homelylauncher.dock.DockController;
 import com.inipage.homelylauncher.dock.DockControllerItem;
+import com.inipage.homelylauncher.dock.SystemStateMonitor;
 import com.inipage.homelylauncher.model.ApplicationIconHideable;
-import com.inipage.homelylauncher.model.DockItem;
-import com.inipage.homelylauncher.model.ClassicGridItem;
-import com.inipage.homelylauncher.model.ClassicGridPage;
 import com.inipage.homelylauncher.persistence.DatabaseEditor;
 import com.inipage.homelylauncher.utils.Constants;
 
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Fetches apps from the UsageStatsService.
  */
 public class ContextualAppFetcher {
 
-    public interface Host {
-        List<ClassicGridPage> getGridPages();
-    }
-
     private static final int TARGET_COUNT = 10;
 
-    private Host mHost;
-    private Map<String, Boolean> mHiddenApps;
-
-    public ContextualAppFetcher(Host host) {
-        mHost = host;
-        reloadPrefs();
-    }
-
-    public void reloadPrefs() {
-        final List<DockItem> dockItems = DatabaseEditor.get().getDockPreferences();
-
-        Stream<String> hiddenBySuggestion =
-            dockItems.stream()
-                .filter(DockItem::isHidden)
-                .map(item -> lookupKey(item.getPackageName(), item.getActivityName()));
-
-        // This mostly works
-        Stream<String> hiddenByDrawer =
-            DatabaseEditor.get().getHiddenAppsAsMap(true).keySet()
-                .stream()
-                .map(key -> lookupKey(key.first, key.second));
-
-        // Yeesh.
-        Stream<String> hiddenFromPages = mHost
-            .getGridPages()
-            .parallelStream()
-            .flatMap(
-                (Function<ClassicGridPage, Stream<ClassicGridItem>>) gridPage ->
-                    gridPage.getItems().parallelStream())
-            .filter(gridItem -> gridItem.getType() ==
-                ClassicGridItem.GRID_TYPE_APP)
-            .map(gridItem -> lookupKey(gridItem.getPackageName(), gridItem.getActivityName()));
-
-        mHiddenApps =
-            Stream.concat(Stream.concat(
-                hiddenBySuggestion, hiddenByDrawer), hiddenFromPages)
-                    .collect(
-                        Collectors.toMap(
-                            item -> item,
-                            item -> true,
-                            (keyA, keyB) -> keyA // Same item can be hidden in multiple places
-                    ));
-    }
-
-    public List<DockControllerItem> getRecentApps(Context context, boolean runQuick) {
-        final List<DockControllerItem> suggestions = new ArrayList<>();
-        final Map<String, Boolean> packagesSeen = new HashMap<>();
-
-        @SuppressWarnings("ResourceType")
-        final UsageStatsManager usm =
-            (UsageStatsManager) context.getSystemService(Context.USAGE_STATS_SERVICE);
-        if (usm == null) {
-            return ImmutableList.of();
-        }
-
-        final List<SuggestionApp> recentApps = new ArrayList<>();
-        final Map<String, Long> useTimeMap = new HashMap<>();
-
-        // Look at the past 4 hours
-        final Calendar workingCalendar = new GregorianCalendar();
-        workingCalendar.roll(Calendar.HOUR_OF_DAY, -4);
-        long end = System.currentTimeMillis();
-        long start = workingCalendar.getTimeInMillis();
-        List<UsageStats> granularOptions =
-            usm.queryUsageStats(UsageStatsManager.INTERVAL_BEST, start, end);
-        for (UsageStats entry : granularOptions) {
-            // Weighed quite heavily; 2x past day and 3x past week
-            long timeUsed = entry.getTotalTimeInForeground() * 6 * 3;
-            if (useTimeMap.containsKey(entry.getPackageName())) {
-                useTimeMap.put(
-                    entry.getPackageName(),
-                    useTimeMap.get(entry.getPackageName()) + timeUsed);
-            } else {
-                useTimeMap.put(entry.getPackageName(), timeUsed);
-            }
-        }
-
-        long previousEndPoint = workingCalendar.getTimeInMillis();
-        if (runQuick && useTimeMap.entrySet().size() < TARGET_COUNT) {
-            // Look at past day
-            workingCalendar.roll(Calendar.DAY_OF_WEEK, -1);
-            start = workingCalendar.getTimeInMillis();
-            end = previousEndPoint;
-            granularOptions =
-                usm.queryUsageStats(UsageStatsManager.INTERVAL_BEST, start, end);
-            for (UsageStats entry : granularOptions) {
-                // Weighed a little more heavily than week
-                long timeUsed = (long) (entry.getTotalTimeInForeground() * 1.5);
-                if (useTimeMap.containsKey(entry.getPackageName())) {
-                    useTimeMap.put(
-                        entry.getPackageName(),
-                        useTimeMap.get(entry.getPackageName()) + timeUsed);
-                } else {
-                    useTimeMap.put(entry.getPackageName(), timeUsed);
-                }
+    /**
+     * Suggest apps for right now. Apps the LaunchPredictor expects (given the time of week and
+     * charging state) come first; remaining slots are filled by decayed foreground time from the
+     * UsageScoreAggregator, which only reads usage events since its last checkpoint. Does disk and
+     * binder I/O, so keep it off the main thread.
+     */
+    public List<DockControllerItem> getRecentApps(Context context) {
+        final UsageScoreAggregator aggregator = UsageScoreAggregator.getInstance(context);
+        aggregator.update(context);
+        final List<String> predictedPackages =
+            LaunchPredictor.getInstance(context).predict(
+                TARGET_COUNT,
+                System.currentTimeMillis(),
+                SystemStateMonitor.getInstance(context).getPowerState().isCharging(),
+                this::isSuggestable);
+        final List<UsageScoreAggregator.PackageScore> topPackages =
+            aggregator.getTopPackages(TARGET_COUNT, this::isSuggestable);
+
+        final List<String> rankedPackages = new ArrayList<>(predictedPackages);
+        for (UsageScoreAggregator.PackageScore packageScore : topPackages) {
+            if (rankedPackages.size() < TARGET_COUNT &&
+                !rankedPackages.contains(packageScore.getPackageName())) {
+                rankedPackages.add(packageScore.getPackageName());
             }
         }
 
-
-        //  Look at past week
-        if (runQuick && useTimeMap.entrySet().size() < TARGET_COUNT) {
-
-            previousEndPoint = workingCalendar.getTimeInMillis();
-            workingCalendar.roll(Calendar.WEEK_OF_YEAR, -1);
-            start = workingCalendar.getTimeInMillis();
-            end = previousEndPoint;
-            List<UsageStats> leastGranularOptions = usm.queryUsageStats(
-                UsageStatsManager.INTERVAL_BEST,
-                start,
-                end);
-            for (UsageStats entry : leastGranularOptions) {
-                // Unweighted hours/day
-                long timeUsed = entry.getTotalTimeInForeground() / 7;
-                if (useTimeMap.containsKey(entry.getPackageName())) {
-                    useTimeMap.put(
-                        entry.getPackageName(),
-                        useTimeMap.get(entry.getPackageName()) + timeUsed);
-                } else {
-                    useTimeMap.put(entry.getPackageName(), timeUsed);
-                }
-            }
-        }
-
-        for (Map.Entry<String, Long> entry : useTimeMap.entrySet()) {
-            if (packagesSeen.containsKey(entry.getKey())) {
-                continue;
-            }
-
+        final List<DockControllerItem> suggestions = new ArrayList<>(rankedPackages.size());
+        for (int i = 0; i < rankedPackages.size(); i++) {
             final List<ApplicationIconHideable> apps =
-                AppInfoCache.get().getActivitiesForPackageFast(entry.getKey());
+                AppInfoCache.get().getActivitiesForPackageFast(rankedPackages.get(i));
             if (apps.isEmpty()) {
                 continue;
             }
-
             final ApplicationIconHideable targetApp = apps.get(0);
-            if (mHiddenApps.containsKey(targetApp.getPackageName() + "|" + targetApp.getActivityName())) {
-                continue;
-            }
-            recentApps.add(
-                new SuggestionApp(targetApp.getPackageName(), targetApp.getActivityName(), entry.getValue()));
+            suggestions.add(new RecentAppDockItem(
+                new SuggestionApp(targetApp.getPackageName(), targetApp.getActivityName(), i)));
         }
-        recentApps.sort((lhs, rhs) -> (int) (rhs.getDurationUsed() - lhs.getDurationUsed()));
-        recentApps.forEach(suggestionApp -> updateWorkingSet(
-            suggestions,
-            packagesSeen,
-            suggestionApp));
-        return suggestions.subList(0, suggestions.size() > TARGET_COUNT ? TARGET_COUNT - 1 : suggestions.size());
+        return suggestions;
     }
 
-    private void updateWorkingSet(
-        List<DockControllerItem> suggestions,
-        Map<String, Boolean> packagesSeen,
-        SuggestionApp recentApp) {
-        if (recentApp == null) {
-            return;
+    private boolean isSuggestable(String packageName) {
+        if (packageName.equals(Constants.PACKAGE)) {
+            return false;
         }
-        String lookupKey = recentApp.getPackageName() + "|" + recentApp.getActivityName();
-        if (packagesSeen.containsKey(lookupKey) ||
-            mHiddenApps.containsKey(lookupKey) ||
-            recentApp.getPackageName().equals(Constants.PACKAGE)) {
-            return;
+        final List<ApplicationIconHideable> apps =
+            AppInfoCache.get().getActivitiesForPackageFast(packageName);
+        if (apps.isEmpty()) {
+            return false;
         }
-        packagesSeen.put(lookupKey, true);
-        suggestions.add(new RecentAppDockItem(recentApp));
-    }
-
-    private String lookupKey(String packageName, String activityName) {
-        return packageName + "|" + activityName;
+        final ApplicationIconHideable targetApp = apps.get(0);
+        return !DatabaseEditor.get().getExclusionIndex().isExcluded(
+            targetApp.getPackageName(), targetApp.getActivityName());
     }
 
     static class SuggestionApp {
 
         private final String mPackageName;
         private final String mActivityName;
-        private final long mDurationUsed;
+        private final int mRank;
 
-        SuggestionApp(String packageName, String activityName, long mDurationUsed) {
+        SuggestionApp(String packageName, String activityName, int rank) {
             this.mPackageName = packageName;
             this.mActivityName = activityName;
-            this.mDurationUsed = mDurationUsed;
+            this.mRank = rank;
         }
 
         String getPackageName() {
@@ -226,8 +93,11 @@ public class ContextualAppFetcher {
             return mActivityName;
         }
 
-        long getDurationUsed() {
-            return mDurationUsed;
+        /**
+         * @return Position in the suggestion list; 0 is the strongest suggestion.
+         */
+        int getRank() {
+            return mRank;
         }
     }
 }
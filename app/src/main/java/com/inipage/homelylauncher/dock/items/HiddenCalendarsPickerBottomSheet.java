@@ -6,6 +6,7 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.inipage.homelylauncher.R;
+import com.inipage.homelylauncher.caches.HomeSnapshotCache;
 import com.inipage.homelylauncher.persistence.PrefsHelper;
 import com.inipage.homelylauncher.utils.CalendarUtils;
 import com.inipage.homelylauncher.views.BottomSheetHelper;
@@ -32,6 +33,7 @@ public class HiddenCalendarsPickerBottomSheet {
                 systemCalendars,
                 modifiedList -> {
                     PrefsHelper.get().saveDisabledCalendars(modifiedList);
+                    HomeSnapshotCache.getInstance(context).invalidate();
                     if (callback != null) {
                         callback.onCalendarsUpdated();
                     }
@@ -0,0 +1,127 @@
+package com.inipage.homelylauncher.dock.items;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only record of launches made through the launcher. Kept around so the LaunchPredictor
+ * can be evaluated against real history; pull the file from a device and replay it with
+ * LaunchPredictionEvaluatorTest.
+ */
+public class LaunchLog {
+
+    private static final String TAG = "LaunchLog";
+    private static final String LOG_FILE = "launch_log.bin";
+    // Roughly 10k launches; once we pass this the older half is dropped
+    private static final long MAX_LOG_BYTES = 256 * 1024;
+
+    private static LaunchLog s_INSTANCE;
+
+    private final File mLogFile;
+
+    private LaunchLog(Context context) {
+        mLogFile = new File(context.getApplicationContext().getFilesDir(), LOG_FILE);
+    }
+
+    public static synchronized LaunchLog getInstance(Context context) {
+        if (s_INSTANCE == null) {
+            s_INSTANCE = new LaunchLog(context);
+        }
+        return s_INSTANCE;
+    }
+
+    public synchronized void append(long timestamp, boolean charging, String packageName) {
+        if (mLogFile.length() > MAX_LOG_BYTES) {
+            final List<Entry> entries = readAll();
+            rewrite(entries.subList(entries.size() / 2, entries.size()));
+        }
+        try (DataOutputStream dos = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(mLogFile, true))))
+        {
+            new Entry(timestamp, charging, packageName).writeTo(dos);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to append to launch log", e);
+        }
+    }
+
+    /**
+     * @return Every logged launch, oldest first.
+     */
+    public synchronized List<Entry> readAll() {
+        final List<Entry> entries = new ArrayList<>();
+        if (!mLogFile.exists()) {
+            return entries;
+        }
+        try (DataInputStream dis = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(mLogFile))))
+        {
+            while (true) {
+                entries.add(Entry.readFrom(dis));
+            }
+        } catch (EOFException endOfLog) {
+            // Done; a partially written trailing entry is dropped
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read launch log", e);
+        }
+        return entries;
+    }
+
+    private void rewrite(List<Entry> entries) {
+        try (DataOutputStream dos = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(mLogFile, false))))
+        {
+            for (Entry entry : entries) {
+                entry.writeTo(dos);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to trim launch log", e);
+        }
+    }
+
+    public static class Entry {
+
+        private final long mTimestamp;
+        private final boolean mCharging;
+        private final String mPackageName;
+
+        public Entry(long timestamp, boolean charging, String packageName) {
+            mTimestamp = timestamp;
+            mCharging = charging;
+            mPackageName = packageName;
+        }
+
+        public long getTimestamp() {
+            return mTimestamp;
+        }
+
+        public boolean isCharging() {
+            return mCharging;
+        }
+
+        public String getPackageName() {
+            return mPackageName;
+        }
+
+        void writeTo(DataOutputStream dos) throws IOException {
+            dos.writeLong(mTimestamp);
+            dos.writeBoolean(mCharging);
+            dos.writeUTF(mPackageName);
+        }
+
+        static Entry readFrom(DataInputStream dis) throws IOException {
+            return new Entry(dis.readLong(), dis.readBoolean(), dis.readUTF());
+        }
+    }
+}
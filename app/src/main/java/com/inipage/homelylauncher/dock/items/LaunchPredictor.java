@@ -0,0 +1,188 @@
+package com.inipage.homelylauncher.dock.items;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.inipage.homelylauncher.dock.SystemStateMonitor;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+
+/**
+ * Predicts which apps are likely to be opened next, based on when (hour of the week), in what
+ * state (charging or not), and how recently each app has been opened before. The model itself is
+ * {@link LaunchModel}; this feeds it, guards it and keeps it on disk.
+ * <p>
+ * Training and scoring are cheap enough to run on every launch and dock load. Observations come
+ * from launches through the launcher (strong signal) and from activity resumes seen in usage
+ * events (weaker signal, since they include switching back to an app).
+ */
+public class LaunchPredictor {
+
+    private static final String TAG = "LaunchPredictor";
+    private static final String MODEL_FILE = "launch_model.bin";
+    // Launches in quick succession are written out together
+    private static final long SAVE_DELAY_MS = TimeUnit.MINUTES.toMillis(1);
+
+    // Created up front so recording a launch from the main thread never waits on a lock
+    private static final ScheduledExecutorService s_EXECUTOR =
+        Executors.newSingleThreadScheduledExecutor();
+
+    private static LaunchPredictor s_INSTANCE;
+
+    @Nullable private final AtomicFile mModelFile;
+    private final LaunchModel mModel;
+    @Nullable private ScheduledFuture<?> mPendingSave;
+    private boolean mLoaded;
+    private boolean mDirty;
+
+    private LaunchPredictor(@Nullable AtomicFile modelFile) {
+        mModelFile = modelFile;
+        mModel = new LaunchModel();
+    }
+
+    public static synchronized LaunchPredictor getInstance(Context context) {
+        if (s_INSTANCE == null) {
+            s_INSTANCE = new LaunchPredictor(
+                new AtomicFile(new File(context.getApplicationContext().getFilesDir(), MODEL_FILE)));
+        }
+        return s_INSTANCE;
+    }
+
+    /**
+     * @return A model that isn't backed by disk. Used for replaying launch logs.
+     */
+    static LaunchPredictor createInMemory() {
+        final LaunchPredictor predictor = new LaunchPredictor(null);
+        predictor.mLoaded = true;
+        return predictor;
+    }
+
+    /**
+     * Record a launch made through the launcher. Safe to call from the main thread; this only
+     * posts to the background executor, where the charging state is read and the model updated.
+     */
+    public void recordLaunch(Context context, String packageName) {
+        final Context appContext = context.getApplicationContext();
+        final long timestamp = System.currentTimeMillis();
+        s_EXECUTOR.execute(() -> {
+            final boolean charging = SystemStateMonitor.getInstance(appContext).getPowerState().isCharging();
+            LaunchLog.getInstance(appContext).append(timestamp, charging, packageName);
+            synchronized (this) {
+                observe(packageName, timestamp, charging, LaunchModel.LAUNCHER_LAUNCH_WEIGHT);
+                scheduleSave();
+            }
+        });
+    }
+
+    /**
+     * Write out launches recorded since the last save now, rather than after the usual delay.
+     * Call when the process may be killed soon.
+     */
+    public void flush() {
+        s_EXECUTOR.execute(() -> {
+            synchronized (this) {
+                if (mPendingSave != null) {
+                    mPendingSave.cancel(false);
+                    mPendingSave = null;
+                }
+                save();
+            }
+        });
+    }
+
+    /**
+     * Record an activity resume seen in usage events. We don't know the charging state at that
+     * time, so these only feed the hour-of-week and recency signals.
+     */
+    synchronized void recordUsageEvent(String packageName, long timestamp) {
+        maybeLoad();
+        if (mModel.isLauncherLaunch(packageName, timestamp)) {
+            return;
+        }
+        observe(packageName, timestamp, null, LaunchModel.USAGE_EVENT_WEIGHT);
+    }
+
+    synchronized void observe(
+        String packageName, long timestamp, @Nullable Boolean charging, float weight) {
+        maybeLoad();
+        mModel.observe(packageName, timestamp, charging, weight);
+        mDirty = true;
+    }
+
+    /**
+     * Rank packages for the given moment.
+     *
+     * @param count  Max number of results.
+     * @param filter Only packages passing this are considered.
+     * @return Up to |count| packages, most likely first.
+     */
+    public synchronized List<String> predict(
+        int count, long timestamp, boolean charging, Predicate<String> filter) {
+        maybeLoad();
+        return mModel.predict(count, timestamp, charging, filter);
+    }
+
+    /**
+     * Persist any observations folded in since the last save. Called after usage event syncs.
+     */
+    synchronized void save() {
+        if (!mDirty || mModelFile == null) {
+            return;
+        }
+        mModel.prune(System.currentTimeMillis());
+        @Nullable FileOutputStream fos = null;
+        try {
+            fos = mModelFile.startWrite();
+            final DataOutputStream dos = new DataOutputStream(fos);
+            mModel.writeTo(dos);
+            dos.flush();
+            mModelFile.finishWrite(fos);
+            mDirty = false;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write launch model", e);
+            if (fos != null) {
+                mModelFile.failWrite(fos);
+            }
+        }
+    }
+
+    private synchronized void scheduleSave() {
+        if (mPendingSave != null) {
+            return;
+        }
+        mPendingSave = s_EXECUTOR.schedule(() -> {
+            synchronized (this) {
+                mPendingSave = null;
+                save();
+            }
+        }, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void maybeLoad() {
+        if (mLoaded || mModelFile == null) {
+            return;
+        }
+        mLoaded = true;
+        try (DataInputStream dis = new DataInputStream(mModelFile.openRead())) {
+            mModel.readFrom(dis);
+        } catch (FileNotFoundException noModelYet) {
+            // Nothing learned yet
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read launch model; starting over", e);
+        }
+    }
+}
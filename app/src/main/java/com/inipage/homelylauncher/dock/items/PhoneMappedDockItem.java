@@ -1,24 +1,20 @@
 package com.inipage.homelylauncher.dock.items;
 
-import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
 
 import androidx.annotation.Nullable;
 
 import com.inipage.homelylauncher.R;
 import com.inipage.homelylauncher.dock.ConfigurableAppBackedDockItem;
 import com.inipage.homelylauncher.dock.DockItemPriorities;
+import com.inipage.homelylauncher.dock.SystemStateMonitor;
 import com.inipage.homelylauncher.model.DockItem;
-import com.inipage.homelylauncher.utils.BatteryUtils;
-import com.inipage.homelylauncher.utils.PhoneUtils;
 
 import java.util.Map;
 
 public class PhoneMappedDockItem extends ConfigurableAppBackedDockItem {
 
-    @Nullable private BroadcastReceiver mBroadcastReceiver;
+    private final SystemStateMonitor.Listener mListener = this::onCallStatusChanged;
 
     public PhoneMappedDockItem(Map<Integer, DockItem> appMap) {
         super(appMap);
@@ -30,15 +26,13 @@ public class PhoneMappedDockItem extends ConfigurableAppBackedDockItem {
         if (context == null) {
             return;
         }
-        mBroadcastReceiver = new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context context, Intent intent) {
-                onCallStatusChanged();
-            }
-        };
-        final IntentFilter filter = new IntentFilter();
-        filter.addAction(Intent.ACTION_NEW_OUTGOING_CALL);
-        context.registerReceiver(mBroadcastReceiver, filter);
+        SystemStateMonitor.getInstance(context)
+            .subscribe(SystemStateMonitor.Topic.CALL, mListener);
+        onCallStatusChanged();
+    }
+
+    @Override
+    public void onRefresh() {
         onCallStatusChanged();
     }
 
@@ -47,7 +41,7 @@ public class PhoneMappedDockItem extends ConfigurableAppBackedDockItem {
         if (context == null) {
             return;
         }
-        if (PhoneUtils.isInCall(context)) {
+        if (SystemStateMonitor.getInstance(context).isInCall()) {
             showSelf();
         } else {
             hideSelf();
@@ -57,10 +51,11 @@ public class PhoneMappedDockItem extends ConfigurableAppBackedDockItem {
     @Override
     public void onDetach() {
         @Nullable final Context context = getContext();
-        if (context == null || mBroadcastReceiver == null) {
+        if (context == null) {
             return;
         }
-        context.unregisterReceiver(mBroadcastReceiver);
+        SystemStateMonitor.getInstance(context)
+            .unsubscribe(SystemStateMonitor.Topic.CALL, mListener);
     }
 
     @Override
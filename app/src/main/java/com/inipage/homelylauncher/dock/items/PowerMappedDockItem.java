@@ -1,23 +1,20 @@
 package com.inipage.homelylauncher.dock.items;
 
-import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
 
 import androidx.annotation.Nullable;
 
 import com.inipage.homelylauncher.R;
 import com.inipage.homelylauncher.dock.ConfigurableAppBackedDockItem;
 import com.inipage.homelylauncher.dock.DockItemPriorities;
+import com.inipage.homelylauncher.dock.SystemStateMonitor;
 import com.inipage.homelylauncher.model.DockItem;
-import com.inipage.homelylauncher.utils.BatteryUtils;
 
 import java.util.Map;
 
 public class PowerMappedDockItem extends ConfigurableAppBackedDockItem {
 
-    @Nullable private BroadcastReceiver mBroadcastReceiver;
+    private final SystemStateMonitor.Listener mListener = this::powerValuesChanged;
 
     private int mPowerLevel;
     private boolean mIsLowPower;
@@ -33,27 +30,24 @@ public class PowerMappedDockItem extends ConfigurableAppBackedDockItem {
         if (context == null) {
             return;
         }
-        mBroadcastReceiver = new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context context, Intent intent) {
-                powerValuesChanged();
-            }
-        };
-        final IntentFilter filter = new IntentFilter();
-        filter.addAction(Intent.ACTION_POWER_CONNECTED);
-        filter.addAction(Intent.ACTION_POWER_DISCONNECTED);
-        filter.addAction(Intent.ACTION_BATTERY_CHANGED);
-        context.registerReceiver(mBroadcastReceiver, filter);
+        SystemStateMonitor.getInstance(context)
+            .subscribe(SystemStateMonitor.Topic.POWER, mListener);
+        powerValuesChanged();
+    }
+
+    @Override
+    public void onRefresh() {
         powerValuesChanged();
     }
 
     @Override
     public void onDetach() {
         @Nullable final Context context = getContext();
-        if (context == null || mBroadcastReceiver == null) {
+        if (context == null) {
             return;
         }
-        context.unregisterReceiver(mBroadcastReceiver);
+        SystemStateMonitor.getInstance(context)
+            .unsubscribe(SystemStateMonitor.Topic.POWER, mListener);
     }
 
     @Override
@@ -102,11 +96,17 @@ public class PowerMappedDockItem extends ConfigurableAppBackedDockItem {
         if (context == null) {
             return;
         }
-        mPowerLevel = BatteryUtils.getBatteryLevel(context);
-        mIsLowPower = BatteryUtils.isLowCharge(context, mPowerLevel);
-        mIsCharging = BatteryUtils.isCharging(context);
+        final SystemStateMonitor.PowerState state =
+            SystemStateMonitor.getInstance(context).getPowerState();
+        final boolean levelChanged = mPowerLevel != state.getLevel();
+        mPowerLevel = state.getLevel();
+        mIsLowPower = state.isLowPower();
+        mIsCharging = state.isCharging();
         if (mIsLowPower || mIsCharging) {
             showSelf();
+            if (levelChanged) {
+                updateSelf();
+            }
         } else {
             hideSelf();
         }
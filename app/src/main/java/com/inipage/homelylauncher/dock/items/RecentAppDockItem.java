@@ -12,6 +12,7 @@ import com.inipage.homelylauncher.caches.IconColorCache;
 import com.inipage.homelylauncher.dock.DockControllerItem;
 import com.inipage.homelylauncher.dock.DockItemPriorities;
 import com.inipage.homelylauncher.model.ApplicationIcon;
+import com.inipage.homelylauncher.model.ComponentKey;
 import com.inipage.homelylauncher.model.DockItem;
 import com.inipage.homelylauncher.persistence.DatabaseEditor;
 import com.inipage.homelylauncher.utils.InstalledAppUtils;
@@ -22,7 +23,10 @@ import com.inipage.homelylauncher.views.AppPopupMenu;
  */
 public class RecentAppDockItem extends DockControllerItem {
 
-    private final ContextualAppFetcher.SuggestionApp mSuggestionApp;
+    // Identifies recent apps apart from the one-per-type items
+    private static final long STABLE_ID_BASE = 1L << 32;
+
+    private ContextualAppFetcher.SuggestionApp mSuggestionApp;
     private int mTintColor = Color.WHITE;
 
     public RecentAppDockItem(ContextualAppFetcher.SuggestionApp suggestionApp) {
@@ -34,6 +38,21 @@ public class RecentAppDockItem extends DockControllerItem {
         showSelf();
     }
 
+    @Override
+    public long getStableId() {
+        return STABLE_ID_BASE +
+            ComponentKey.of(mSuggestionApp.getPackageName(), mSuggestionApp.getActivityName())
+                .getId();
+    }
+
+    /**
+     * Take on the rank of a fresh suggestion for the same app, so this instance (and its loaded
+     * tint) can stay in the dock.
+     */
+    public void adoptSuggestion(RecentAppDockItem replacement) {
+        mSuggestionApp = replacement.mSuggestionApp;
+    }
+
     @Nullable
     @Override
     public Bitmap getBitmap() {
@@ -118,6 +137,7 @@ public class RecentAppDockItem extends DockControllerItem {
 
     @Override
     public int getSubPriority() {
-        return (int) (mSuggestionApp.getDurationUsed() / 1000);
+        // Higher sub-priorities sort first
+        return -mSuggestionApp.getRank();
     }
 }
@@ -0,0 +1,304 @@
+package com.inipage.homelylauncher.dock.items;
+
+import android.app.usage.UsageEvents;
+import android.app.usage.UsageStatsManager;
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.inipage.homelylauncher.utils.Constants;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps a persisted table of exponentially decayed foreground time per package. Rather than
+ * re-querying whole windows of UsageStats on every dock load, this only reads the UsageEvents that
+ * arrived since the last checkpoint and folds them into the table.
+ */
+public class UsageScoreAggregator {
+
+    private static final String TAG = "UsageScoreAggregator";
+    private static final String SCORES_FILE = "usage_scores.bin";
+    private static final int FILE_VERSION = 1;
+
+    // Foreground time from 2 days ago counts half as much as foreground time right now
+    private static final long HALF_LIFE_MS = TimeUnit.DAYS.toMillis(2);
+    // How far back to look when there's no checkpoint (first run, or the file was lost)
+    private static final long BOOTSTRAP_WINDOW_MS = TimeUnit.DAYS.toMillis(7);
+    // Entries that decay below this (in ms of foreground time) are dropped from the table
+    private static final double PRUNE_THRESHOLD = TimeUnit.SECONDS.toMillis(1);
+    // Ignore foreground sessions longer than this; they're almost always missed pause events
+    private static final long MAX_SESSION_MS = TimeUnit.HOURS.toMillis(6);
+
+    private static UsageScoreAggregator s_INSTANCE;
+
+    private final AtomicFile mScoresFile;
+    private final Map<String, ScoreEntry> mScores;
+    private final UsageEvents.Event mReusableEvent;
+    private boolean mLoaded;
+    private long mCheckpoint;
+    @Nullable private String mForegroundPackage;
+    private long mForegroundSince;
+
+    private UsageScoreAggregator(Context context) {
+        mScoresFile = new AtomicFile(new File(context.getFilesDir(), SCORES_FILE));
+        mScores = new HashMap<>();
+        mReusableEvent = new UsageEvents.Event();
+    }
+
+    public static synchronized UsageScoreAggregator getInstance(Context context) {
+        if (s_INSTANCE == null) {
+            s_INSTANCE = new UsageScoreAggregator(context.getApplicationContext());
+        }
+        return s_INSTANCE;
+    }
+
+    /**
+     * Fold in any usage events since the last checkpoint. Does disk and binder I/O, so don't call
+     * this from the main thread.
+     */
+    public synchronized void update(Context context) {
+        maybeLoad();
+        @Nullable final UsageStatsManager usm =
+            (UsageStatsManager) context.getSystemService(Context.USAGE_STATS_SERVICE);
+        if (usm == null) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        final long start = Math.max(mCheckpoint, now - BOOTSTRAP_WINDOW_MS);
+        if (start >= now) {
+            return;
+        }
+        @Nullable final UsageEvents events = usm.queryEvents(start, now);
+        if (events == null) {
+            return;
+        }
+        final LaunchPredictor predictor = LaunchPredictor.getInstance(context);
+        while (events.hasNextEvent()) {
+            events.getNextEvent(mReusableEvent);
+            onEvent(mReusableEvent, predictor);
+        }
+        mCheckpoint = now;
+        prune(now);
+        save();
+        predictor.save();
+    }
+
+    /**
+     * Rank packages by decayed foreground time, using a bounded min-heap so we only ever hold
+     * |count| candidates.
+     *
+     * @param count  Max number of results.
+     * @param filter Only packages passing this are considered.
+     * @return Up to |count| packages, highest score first.
+     */
+    public synchronized List<PackageScore> getTopPackages(int count, Predicate<String> filter) {
+        maybeLoad();
+        if (count <= 0) {
+            return Collections.emptyList();
+        }
+        final long now = System.currentTimeMillis();
+        final PriorityQueue<ScoreEntry> heap =
+            new PriorityQueue<>(count + 1, (lhs, rhs) -> Double.compare(lhs.mRankScore, rhs.mRankScore));
+        for (ScoreEntry entry : mScores.values()) {
+            entry.mRankScore = entry.getScoreAt(now);
+            if (heap.size() >= count && entry.mRankScore <= heap.peek().mRankScore) {
+                continue;
+            }
+            if (!filter.test(entry.mPackageName)) {
+                continue;
+            }
+            heap.offer(entry);
+            if (heap.size() > count) {
+                heap.poll();
+            }
+        }
+        final List<PackageScore> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            final ScoreEntry entry = heap.poll();
+            result.add(new PackageScore(entry.mPackageName, (long) entry.mRankScore));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private void onEvent(UsageEvents.Event event, LaunchPredictor predictor) {
+        final String packageName = event.getPackageName();
+        final long timestamp = event.getTimeStamp();
+        switch (event.getEventType()) {
+            case UsageEvents.Event.ACTIVITY_RESUMED:
+                if (packageName.equals(mForegroundPackage)) {
+                    // Moving between activities of the same app
+                    return;
+                }
+                if (mForegroundPackage != null) {
+                    endForegroundSession(timestamp);
+                }
+                mForegroundPackage = packageName;
+                mForegroundSince = timestamp;
+                if (!packageName.equals(Constants.PACKAGE)) {
+                    predictor.recordUsageEvent(packageName, timestamp);
+                }
+                break;
+            case UsageEvents.Event.ACTIVITY_PAUSED:
+            case UsageEvents.Event.ACTIVITY_STOPPED:
+                if (packageName.equals(mForegroundPackage)) {
+                    endForegroundSession(timestamp);
+                }
+                break;
+        }
+    }
+
+    private void endForegroundSession(long timestamp) {
+        final long duration = timestamp - mForegroundSince;
+        if (mForegroundPackage != null && duration > 0 && duration < MAX_SESSION_MS) {
+            @Nullable ScoreEntry entry = mScores.get(mForegroundPackage);
+            if (entry == null) {
+                entry = new ScoreEntry(mForegroundPackage, 0, timestamp);
+                mScores.put(mForegroundPackage, entry);
+            }
+            entry.add(duration, timestamp);
+        }
+        mForegroundPackage = null;
+        mForegroundSince = 0;
+    }
+
+    private void prune(long now) {
+        final Iterator<ScoreEntry> entries = mScores.values().iterator();
+        while (entries.hasNext()) {
+            if (entries.next().getScoreAt(now) < PRUNE_THRESHOLD) {
+                entries.remove();
+            }
+        }
+    }
+
+    private void maybeLoad() {
+        if (mLoaded) {
+            return;
+        }
+        mLoaded = true;
+        try (DataInputStream dis = new DataInputStream(mScoresFile.openRead())) {
+            if (dis.readInt() != FILE_VERSION) {
+                return;
+            }
+            mCheckpoint = dis.readLong();
+            final String foregroundPackage = dis.readUTF();
+            mForegroundPackage = foregroundPackage.isEmpty() ? null : foregroundPackage;
+            mForegroundSince = dis.readLong();
+            final int count = dis.readInt();
+            for (int i = 0; i < count; i++) {
+                final String packageName = dis.readUTF();
+                mScores.put(
+                    packageName, new ScoreEntry(packageName, dis.readDouble(), dis.readLong()));
+            }
+        } catch (FileNotFoundException noScoresYet) {
+            // First run; update() bootstraps from the last week of events
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read usage scores; rebuilding", e);
+            mScores.clear();
+            mCheckpoint = 0;
+            mForegroundPackage = null;
+        }
+    }
+
+    private void save() {
+        @Nullable FileOutputStream fos = null;
+        try {
+            fos = mScoresFile.startWrite();
+            final DataOutputStream dos = new DataOutputStream(fos);
+            dos.writeInt(FILE_VERSION);
+            dos.writeLong(mCheckpoint);
+            dos.writeUTF(mForegroundPackage == null ? "" : mForegroundPackage);
+            dos.writeLong(mForegroundSince);
+            dos.writeInt(mScores.size());
+            for (ScoreEntry entry : mScores.values()) {
+                dos.writeUTF(entry.mPackageName);
+                dos.writeDouble(entry.mScore);
+                dos.writeLong(entry.mLastUpdated);
+            }
+            dos.flush();
+            mScoresFile.finishWrite(fos);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write usage scores", e);
+            if (fos != null) {
+                mScoresFile.failWrite(fos);
+            }
+        }
+    }
+
+    private static double decay(long elapsedMs) {
+        if (elapsedMs <= 0) {
+            return 1;
+        }
+        return Math.pow(0.5, (double) elapsedMs / HALF_LIFE_MS);
+    }
+
+    public static class PackageScore {
+
+        private final String mPackageName;
+        private final long mScore;
+
+        PackageScore(String packageName, long score) {
+            mPackageName = packageName;
+            mScore = score;
+        }
+
+        public String getPackageName() {
+            return mPackageName;
+        }
+
+        /**
+         * @return Decayed foreground time, in milliseconds.
+         */
+        public long getScore() {
+            return mScore;
+        }
+    }
+
+    private static class ScoreEntry {
+
+        private final String mPackageName;
+        // Score as of mLastUpdated; decays from there
+        private double mScore;
+        private long mLastUpdated;
+        // Scratch space for ranking
+        private double mRankScore;
+
+        ScoreEntry(String packageName, double score, long lastUpdated) {
+            mPackageName = packageName;
+            mScore = score;
+            mLastUpdated = lastUpdated;
+        }
+
+        void add(long durationMs, long timestamp) {
+            if (timestamp > mLastUpdated) {
+                mScore = mScore * decay(timestamp - mLastUpdated);
+                mLastUpdated = timestamp;
+                mScore += durationMs;
+            } else {
+                // Out of order event; decay the contribution back to our reference time
+                mScore += durationMs * decay(mLastUpdated - timestamp);
+            }
+        }
+
+        double getScoreAt(long time) {
+            return mScore * decay(time - mLastUpdated);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.common.base.Preconditions;
 import com.inipage.homelylauncher.R;
 import com.inipage.homelylauncher.caches.AppInfoCache;
+import com.inipage.homelylauncher.caches.AppResourcesChangedEvent;
 import com.inipage.homelylauncher.caches.FontCacheSync;
 import com.inipage.homelylauncher.caches.IconCacheSync;
 import com.inipage.homelylauncher.model.ApplicationIcon;
@@ -29,12 +30,13 @@ import com.inipage.homelylauncher.utils.Constants;
 import com.inipage.homelylauncher.utils.InstalledAppUtils;
 import com.inipage.homelylauncher.utils.InstalledAppUtils.AppLaunchSource;
 import com.inipage.homelylauncher.utils.LifecycleLogUtils;
+import com.inipage.homelylauncher.utils.PerfMetrics;
 import com.inipage.homelylauncher.utils.Prewarmer;
+import com.inipage.homelylauncher.utils.ViewHolderPrewarmer;
 import com.inipage.homelylauncher.utils.ViewUtils;
 import com.inipage.homelylauncher.views.AppPopupMenu;
 import com.inipage.homelylauncher.views.ProvidesOverallDimensions;
 
-import org.apache.commons.collections4.trie.PatriciaTrie;
 import org.greenrobot.eventbus.EventBus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -45,14 +47,12 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.stream.Collectors;
 
 /**
- * Renders application icons and performs searches for the app list.
+ * Renders application icons and search results for the app list.
  */
 public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
@@ -237,9 +237,9 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
         SEARCH_RESULTS
     }
 
-    private static final int ITEM_VIEW_TYPE_APP = 1;
+    static final int ITEM_VIEW_TYPE_APP = 1;
     private static final int ITEM_VIEW_TYPE_TOP = 2;
-    private static final int ITEM_VIEW_TYPE_HEADER = 3;
+    static final int ITEM_VIEW_TYPE_HEADER = 3;
     private static final int ITEM_VIEW_TYPE_SPACER = 4;
     private static final char TOP_HEADER_BACKING_CHAR = '?';
 
@@ -251,7 +251,6 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
 
     private final Delegate mDelegate;
     private final List<ApplicationIconHideable> mApps;
-    private final PatriciaTrie<ApplicationIconHideable> mAppsTree = new PatriciaTrie<>();
     private final Map<String, Integer> mHeaderToCount = new HashMap<>();
     private final Context mContext;
     private final int mColumnCount;
@@ -259,12 +258,14 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
     private List<AdapterElement> mElements;
     @Nullable
     private List<ApplicationIconHideable> mLastSearchResult;
+    // Taken from mApps when first searched, and dropped whenever mApps changes
+    @Nullable
+    private AppSearchPipeline.Index mSearchIndex;
     private Mode mMode;
 
     public AppDrawerAdapter(Delegate delegate, Context context, int columnCount) {
         this.mApps = AppInfoCache.get().getAppDrawerActivities();
         for (ApplicationIconHideable icon : mApps) {
-            mAppsTree.put(icon.getName().toLowerCase(Locale.getDefault()), icon);
             Prewarmer.getInstance().prewarm(() ->
                 IconCacheSync.getInstance(context).getActivityIcon(
                     icon.getPackageName(), icon.getActivityName()));
@@ -273,18 +274,49 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
         this.mContext = context;
         this.mColumnCount = columnCount;
         this.mMode = Mode.SHOWING_ALL;
-        rebuild(null);
+        rebuild();
+    }
+
+    /**
+     * @return An immutable copy of the searchable apps, for {@link AppSearchPipeline}.
+     */
+    synchronized AppSearchPipeline.Index getSearchIndex() {
+        if (mSearchIndex == null) {
+            mSearchIndex = new AppSearchPipeline.Index(mApps);
+        }
+        return mSearchIndex;
+    }
+
+    /**
+     * @return The search results being shown, to diff the next ones against; null if the adapter
+     * isn't showing any.
+     */
+    @Nullable
+    synchronized List<ApplicationIconHideable> getShownSearchResults() {
+        return mMode == Mode.SEARCH_RESULTS ? mLastSearchResult : null;
     }
 
     /**
-     * Filter the adapter to only show relevant search results.
-     * @param query The search.
-     * @return Whether the search returns results.
+     * Filter the adapter to only show the given search results.
+     * @return Whether the search returned results.
      */
     @SuppressLint("NotifyDataSetChanged")
-    public synchronized boolean performSearch(String query) {
+    synchronized boolean applySearchResult(AppSearchPipeline.Result result) {
+        final boolean diffApplies =
+            result.getBasis() != null && result.getBasis() == getShownSearchResults();
+        if (diffApplies && result.getDiff() == null) {
+            // Same results as before
+            return !mElements.isEmpty();
+        }
         mMode = Mode.SEARCH_RESULTS;
-        if (rebuild(query)) {
+        mLastSearchResult = result.getApps();
+        mElements = result.getApps()
+            .stream()
+            .map(AdapterElement::createAppElement)
+            .collect(Collectors.toList());
+        if (diffApplies) {
+            result.getDiff().dispatchUpdatesTo(this);
+        } else {
             notifyDataSetChanged();
         }
         return !mElements.isEmpty();
@@ -297,10 +329,26 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
         }
         mMode = Mode.SHOWING_ALL;
         mLastSearchResult = null;
-        rebuild(null);
+        rebuild();
         notifyDataSetChanged();
     }
 
+    /**
+     * Rebind the apps whose icons were replaced in place.
+     */
+    public synchronized void notifyAppsChanged(AppResourcesChangedEvent event) {
+        for (int i = 0; i < mElements.size(); i++) {
+            final AdapterElement element = mElements.get(i);
+            if (element.getElementType() != ITEM_VIEW_TYPE_APP) {
+                continue;
+            }
+            final ApplicationIconHideable app = element.getUnderlyingApp();
+            if (event.affects(app.getPackageName(), app.getActivityName())) {
+                notifyItemChanged(i);
+            }
+        }
+    }
+
     public synchronized void spliceInPackageChanges(
         String changedPackage,
         List<ApplicationIconHideable> activities) {
@@ -332,7 +380,6 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
             final int realIdx = idx - removedCount;
             final ApplicationIconHideable removedApp = mApps.get(realIdx);
             final String headerMapKey = String.valueOf(removedApp.getScrollableField());
-            mAppsTree.remove(removedApp.getName().toLowerCase(Locale.getDefault()));
             if (mHeaderToCount.containsKey(headerMapKey)) {
                 int newCount = mHeaderToCount.get(headerMapKey) - 1;
                 mHeaderToCount.put(headerMapKey, newCount);
@@ -344,7 +391,8 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
         for (Integer idx : toRemoveFromElements) {
             final int realIdx = idx - removedElementCount;
             AdapterElement removedElement = mElements.remove(realIdx);
-            LifecycleLogUtils.logEvent(LifecycleLogUtils.LogType.LOG, "Spliced out " + removedElement.toString() + " at " + realIdx);
+            LifecycleLogUtils.logEvent(
+                LifecycleLogUtils.LogType.LOG, "Spliced out %s at %d", removedElement, realIdx);
             notifyItemRemoved(realIdx);
             removedElementCount++;
         }
@@ -359,7 +407,6 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
             } else {
                 mApps.add(appsInsertionIdx, activity);
             }
-            mAppsTree.put(activity.getName().toLowerCase(Locale.getDefault()), activity);
             final String headerMapKey = String.valueOf(activity.getScrollableField());
             if (mHeaderToCount.containsKey(headerMapKey)) {
                 int newCount = mHeaderToCount.get(headerMapKey) + 1;
@@ -379,7 +426,9 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
             }
             LifecycleLogUtils.logEvent(
                 LifecycleLogUtils.LogType.LOG,
-                "Spliced in " + newAppElement.toString() + " at " + elementsInsertionIdx);
+                "Spliced in %s at %d",
+                newAppElement,
+                elementsInsertionIdx);
         }
 
         // Iterates through mElements, add any headers we need, and remove any we don't
@@ -422,16 +471,23 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
         for (Pair<Integer, Character> change : changeIndices) {
             if (change.second == removeCharacter) {
                 AdapterElement removedElement = mElements.remove((int) change.first);
-                LifecycleLogUtils.logEvent(LifecycleLogUtils.LogType.LOG, "Spliced out " + removedElement.toString() + " at " + change.first);
+                LifecycleLogUtils.logEvent(
+                    LifecycleLogUtils.LogType.LOG,
+                    "Spliced out %s at %d",
+                    removedElement,
+                    change.first);
                 notifyItemRemoved(change.second);
             } else {
                 final AdapterElement newElement = AdapterElement.createHeaderElement(change.second);
                 mElements.add(change.first, newElement);
-                LifecycleLogUtils.logEvent(LifecycleLogUtils.LogType.LOG, "Spliced in " + newElement.toString() + " at " + change.first);
+                LifecycleLogUtils.logEvent(
+                    LifecycleLogUtils.LogType.LOG, "Spliced in %s at %d", newElement, change.first);
                 notifyItemInserted(change.first);
             }
         }
 
+        mSearchIndex = null;
+
         // Refresh the top-most header
         notifyItemChanged(0);
     }
@@ -439,10 +495,13 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
     public synchronized void hideApp(ApplicationIcon ai) {
         // We both remove the relevant app from mElements and mApps
         int position = -1;
-        ApplicationIconHideable searchKey =
-            new ApplicationIconHideable(mContext, ai.getPackageName(), ai.getActivityName(), false);
         for (int i = 0; i < mElements.size(); i++) {
-            if (mElements.get(i).getElementType() == ITEM_VIEW_TYPE_APP && mElements.get(i).getUnderlyingApp().equals(searchKey)) {
+            if (mElements.get(i).getElementType() != ITEM_VIEW_TYPE_APP) {
+                continue;
+            }
+            final ApplicationIconHideable app = mElements.get(i).getUnderlyingApp();
+            if (app.getPackageName().equals(ai.getPackageName()) &&
+                app.getActivityName().equals(ai.getActivityName())) {
                 position = i;
                 break;
             }
@@ -450,14 +509,14 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
         if (position == -1) {
             return;
         }
+        final ApplicationIconHideable removedApp = mElements.get(position).getUnderlyingApp();
         final boolean hasHeaderAbove = mElements.get(position - 1).getElementType() ==
             ITEM_VIEW_TYPE_HEADER;
         final boolean lastItemInSection = position == mElements.size() - 1 ?
           hasHeaderAbove :
           mElements.get(position + 1).getElementType() == ITEM_VIEW_TYPE_HEADER;
         mElements.remove(position);
-        mAppsTree.remove(searchKey.getName().toLowerCase(Locale.getDefault()));
-        String headerMapKey = String.valueOf(searchKey.getScrollableField());
+        String headerMapKey = String.valueOf(removedApp.getScrollableField());
         if (mHeaderToCount.containsKey(headerMapKey)) {
             int newCount = mHeaderToCount.get(headerMapKey) - 1;
             mHeaderToCount.put(headerMapKey, newCount);
@@ -468,10 +527,15 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
             mElements.remove(position - 1);
             notifyItemRemoved(position - 1);
         }
-        final int appsIndex = mApps.indexOf(searchKey);
+        final int appsIndex = mApps.indexOf(removedApp);
         if (appsIndex != -1) {
             mApps.remove(appsIndex);
         }
+        mSearchIndex = null;
+        if (mMode == Mode.SEARCH_RESULTS) {
+            // What's shown no longer matches the last results, so don't diff against them
+            mLastSearchResult = null;
+        }
     }
 
     public ApplicationIcon getFirstApp() {
@@ -486,7 +550,7 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
      */
     public boolean isConsistent_USE_FOR_DEBUGGING_ONLY() {
         final List<AdapterElement> old = new ArrayList<>(mElements);
-        rebuild(null);
+        rebuild();
         notifyDataSetChanged();
         return old.equals(mElements);
     }
@@ -496,19 +560,15 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
     public RecyclerView.ViewHolder onCreateViewHolder(@NotNull ViewGroup viewGroup, int type) {
         switch (type) {
             case ITEM_VIEW_TYPE_APP: {
-                final AppDrawerIconViewGroup rootView =
-                    (AppDrawerIconViewGroup)
-                        LayoutInflater.from(viewGroup.getContext())
-                            .inflate(R.layout.app_drawer_app_row, viewGroup, false);
-                final AppIconHolder holder = new AppIconHolder(rootView);
-                FontCacheSync.Companion.get().applyTypefaceToTextView(
-                    holder.title, Constants.LIST_FONT_PATH);
-                return holder;
+                final AppDrawerIconView rootView = new AppDrawerIconView(viewGroup.getContext());
+                rootView.setLayoutParams(
+                    new RecyclerView.LayoutParams(
+                        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+                return new AppIconHolder(rootView);
             }
             case ITEM_VIEW_TYPE_HEADER: {
                 final View rootView =
-                        LayoutInflater.from(viewGroup.getContext())
-                            .inflate(R.layout.letter_header_row, viewGroup, false);
+                    ViewHolderPrewarmer.inflate(R.layout.letter_header_row, viewGroup);
                 final LetterHolder lh = new LetterHolder(rootView);
                 return new LetterHolder(rootView);
             }
@@ -566,17 +626,21 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
 
         final AppIconHolder viewHolder = (AppIconHolder) holder;
         final ApplicationIcon ai = mElements.get(i).getUnderlyingApp();
-        final View mainView = viewHolder.mainView;
-        viewHolder.title.setText(ai.getName());
-        viewHolder.icon.setBitmap(
+        final AppDrawerIconView mainView = viewHolder.mainView;
+        mainView.setLabel(ai.getName());
+        mainView.setIcon(
             IconCacheSync.getInstance(mContext).getActivityIcon(
                 ai.getPackageName(), ai.getActivityName()));
         viewHolder.mainView.setClickable(true);
         viewHolder.mainView.setAlpha(1F);
         viewHolder.mainView.setOnClickListener(
             v -> InstalledAppUtils.launchApp(
-                viewHolder.icon, ai.getPackageName(), ai.getActivityName(), AppLaunchSource.APP_LIST));
-        viewHolder.mainView.attachListener(new AppDrawerIconViewGroup.Listener() {
+                mainView,
+                mainView.getIconBounds(),
+                ai.getPackageName(),
+                ai.getActivityName(),
+                AppLaunchSource.APP_LIST));
+        viewHolder.mainView.attachListener(new AppDrawerIconView.Listener() {
 
             @Override
             public void onLongPress(final int startX, final int startY) {
@@ -623,11 +687,6 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
             public ApplicationIcon getHostedApp() {
                 return ai;
             }
-
-            @Override
-            public View getAppIconView() {
-                return viewHolder.icon;
-            }
         });
     }
 
@@ -692,80 +751,60 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
     }
 
     /**
-     * Use mode and search query to rebuild the elements that'll be rendered.
-     * @param query The search query. Pass {@code null} to reload the list.
-     * @return True if mElements has been updated.
+     * Rebuild the full app list, with headers, that'll be rendered outside of search.
      */
-    private boolean rebuild(@Nullable String query) {
-        if (query == null) {
-            mLastSearchResult = null;
-            mElements = new ArrayList<>();
-            mElements.add(AdapterElement.createTopElement());
-            if (usingGridLayout()) {
-                for (int i = 0; i < mColumnCount - 1; i++) {
-                    mElements.add(AdapterElement.createSpacerElement(TOP_HEADER_BACKING_CHAR, i));
-                }
-            }
-            mHeaderToCount.clear();
-            char currentScrollableField = '@'; // Never a scrollable field?
-            for (ApplicationIconHideable app : mApps) {
-                if (app.getScrollableField() != currentScrollableField) {
-                    if (usingGridLayout() && mElements.size() % mColumnCount != 0) {
-                        int startingIndex = mColumnCount;
-                        while (mElements.size() % mColumnCount != 0) {
-                            mElements.add(
-                                AdapterElement.createSpacerElement(
-                                    app.getScrollableField(), startingIndex));
-                            startingIndex++;
-                        }
-                    }
-                    mElements.add(AdapterElement.createHeaderElement(app.getScrollableField()));
-                    if (usingGridLayout() && mElements.size() % mColumnCount != 0) {
-                        int startingIndex = 0;
-                        while (mElements.size() % mColumnCount != 0) {
-                            mElements.add(
-                                AdapterElement.createSpacerElement(
-                                    app.getScrollableField(), startingIndex));
-                            startingIndex++;
-                        }
+    private void rebuild() {
+        final long start = PerfMetrics.DRAWER_REBUILD.start();
+        try {
+            rebuildImpl();
+        } finally {
+            PerfMetrics.DRAWER_REBUILD.stop(start);
+        }
+    }
+
+    private void rebuildImpl() {
+        mLastSearchResult = null;
+        mElements = new ArrayList<>();
+        mElements.add(AdapterElement.createTopElement());
+        if (usingGridLayout()) {
+            for (int i = 0; i < mColumnCount - 1; i++) {
+                mElements.add(AdapterElement.createSpacerElement(TOP_HEADER_BACKING_CHAR, i));
+            }
+        }
+        mHeaderToCount.clear();
+        char currentScrollableField = '@'; // Never a scrollable field?
+        for (ApplicationIconHideable app : mApps) {
+            if (app.getScrollableField() != currentScrollableField) {
+                if (usingGridLayout() && mElements.size() % mColumnCount != 0) {
+                    int startingIndex = mColumnCount;
+                    while (mElements.size() % mColumnCount != 0) {
+                        mElements.add(
+                            AdapterElement.createSpacerElement(
+                                app.getScrollableField(), startingIndex));
+                        startingIndex++;
                     }
-                    currentScrollableField = app.getScrollableField();
                 }
-                mElements.add(AdapterElement.createAppElement(app));
-                final String headerKey = String.valueOf(currentScrollableField);
-                if (mHeaderToCount.get(headerKey) == null) {
-                    mHeaderToCount.put(headerKey, 0);
-
+                mElements.add(AdapterElement.createHeaderElement(app.getScrollableField()));
+                if (usingGridLayout() && mElements.size() % mColumnCount != 0) {
+                    int startingIndex = 0;
+                    while (mElements.size() % mColumnCount != 0) {
+                        mElements.add(
+                            AdapterElement.createSpacerElement(
+                                app.getScrollableField(), startingIndex));
+                        startingIndex++;
+                    }
                 }
-                int newValue = mHeaderToCount.get(headerKey) + 1;
-                mHeaderToCount.put(headerKey, newValue);
+                currentScrollableField = app.getScrollableField();
             }
-            return true;
-        }
+            mElements.add(AdapterElement.createAppElement(app));
+            final String headerKey = String.valueOf(currentScrollableField);
+            if (mHeaderToCount.get(headerKey) == null) {
+                mHeaderToCount.put(headerKey, 0);
 
-        final String netQuery = query.toLowerCase(Locale.getDefault());
-        // 1 - Get the matching apps by first few characters
-        final SortedMap<String, ApplicationIconHideable> searchMap = mAppsTree.prefixMap(netQuery);
-        final List<ApplicationIconHideable> result = new ArrayList<>(searchMap.values());
-        // 2 - Search through everything else by checking contains()
-        for (ApplicationIconHideable icon : mApps) {
-            if (icon.isHidden() || searchMap.containsValue(icon)) {
-                continue;
-            }
-            if (icon.getName().toLowerCase(Locale.getDefault()).contains(netQuery)) {
-                result.add(icon);
             }
+            int newValue = mHeaderToCount.get(headerKey) + 1;
+            mHeaderToCount.put(headerKey, newValue);
         }
-        if (mLastSearchResult != null && mLastSearchResult.equals(result)) {
-            return false;
-        }
-        mLastSearchResult = result;
-        // 3 - Map these all to elements
-        mElements = result
-            .parallelStream()
-            .map(AdapterElement::createAppElement)
-            .collect(Collectors.toList());
-        return true;
     }
 
     private boolean usingGridLayout() {
@@ -799,15 +838,11 @@ public class AppDrawerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
     }
 
     public static class AppIconHolder extends AnimatableViewHolder {
-        AppDrawerIconViewGroup mainView;
-        BitmapView icon;
-        TextView title;
+        AppDrawerIconView mainView;
 
-        public AppIconHolder(AppDrawerIconViewGroup mainView) {
+        public AppIconHolder(AppDrawerIconView mainView) {
             super(mainView);
             this.mainView = mainView;
-            this.title = mainView.findViewById(R.id.app_icon_label);
-            this.icon = mainView.findViewById(R.id.app_icon_image);
         }
     }
 
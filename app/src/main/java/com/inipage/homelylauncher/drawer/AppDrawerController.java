@@ -9,7 +9,9 @@ import android.content.ClipData;
 import android.content.ClipboardManager;
 import android.content.Context;
 import android.content.Intent;
+import android.graphics.Rect;
 import android.net.Uri;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.Log;
 import android.view.DragEvent;
@@ -30,6 +32,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.core.graphics.drawable.DrawableCompat;
+import androidx.core.view.OneShotPreDrawListener;
 import androidx.recyclerview.widget.DefaultItemAnimator;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -41,6 +44,7 @@ import com.inipage.homelylauncher.NewUserBottomSheet;
 import com.inipage.homelylauncher.R;
 import com.inipage.homelylauncher.SettingsActivity;
 import com.inipage.homelylauncher.caches.AppInfoCache;
+import com.inipage.homelylauncher.caches.AppResourcesChangedEvent;
 import com.inipage.homelylauncher.caches.FontCacheSync;
 import com.inipage.homelylauncher.caches.PackageModifiedEvent;
 import com.inipage.homelylauncher.caches.PackagesBulkModifiedEvent;
@@ -53,6 +57,8 @@ import com.inipage.homelylauncher.persistence.PrefsHelper;
 import com.inipage.homelylauncher.utils.Constants;
 import com.inipage.homelylauncher.utils.InstalledAppUtils;
 import com.inipage.homelylauncher.utils.InstalledAppUtils.AppLaunchSource;
+import com.inipage.homelylauncher.utils.PerfMetrics;
+import com.inipage.homelylauncher.utils.ViewHolderPrewarmer;
 import com.inipage.homelylauncher.utils.ViewUtils;
 import com.inipage.homelylauncher.views.BottomSheetHelper;
 import com.inipage.homelylauncher.views.DecorViewDragger;
@@ -79,6 +85,8 @@ import butterknife.OnTextChanged;
 public class AppDrawerController implements BasePageController, FastScrollController.Host {
 
     private static final int GRID_LAYOUT_COLUMN_COUNT = 4;
+    // Rough density of letter headers in an alphabetical list
+    private static final int EXPECTED_APPS_PER_HEADER = 4;
 
     private final Host mHost;
     private final Context mContext;
@@ -110,10 +118,13 @@ public class AppDrawerController implements BasePageController, FastScrollContro
     SwipeRefreshLayout searchPullLayout;
 
     private AppDrawerAdapter mAdapter;
+    private final AppSearchPipeline mSearchPipeline = new AppSearchPipeline();
     // This flag isn't necessarily synced with mMode == SEARCH_RESULTS in the adapter; this flag
     // indicates a visible search box but not per se text entered and search results displayed
     private boolean mIsSearching = false;
     private boolean mInDrag = false;
+    // Set when the search action comes in before the results for the query that's been typed
+    private boolean mLaunchFirstAppOnResult = false;
     private final DecorViewDragger.TargetedDragAwareComponent mDragAwareComponent =
         new DecorViewDragger.TargetedDragAwareComponent() {
 
@@ -273,6 +284,7 @@ public class AppDrawerController implements BasePageController, FastScrollContro
         });
         setSearchDrawable();
         reloadAppList();
+        prewarmViewHolders();
     }
 
     @Override
@@ -289,7 +301,27 @@ public class AppDrawerController implements BasePageController, FastScrollContro
             mContext,
             mUsingGridLayoutByDefault ? GRID_LAYOUT_COLUMN_COUNT : 1);
         mAdapter.setHasStableIds(true);
-        appRecyclerView.setAdapter(mAdapter);
+        // Every adapter has the same view types, so keep the pool (and prewarmed holders) across
+        // reloads
+        appRecyclerView.swapAdapter(mAdapter, true);
+    }
+
+    /**
+     * Parks a screenful of app rows, and the letter headers between them, in the pool, so the
+     * first swipe into the drawer doesn't create them all in one frame.
+     */
+    private void prewarmViewHolders() {
+        final int columns = mUsingGridLayoutByDefault ? GRID_LAYOUT_COLUMN_COUNT : 1;
+        final int rows = ViewHolderPrewarmer.getCapacity(
+            mContext.getResources().getDisplayMetrics().heightPixels,
+            mContext.getResources().getDimension(R.dimen.app_drawer_app_expected_height));
+        ViewHolderPrewarmer.prewarm(
+            appRecyclerView, AppDrawerAdapter.ITEM_VIEW_TYPE_APP, rows * columns);
+        ViewHolderPrewarmer.prewarm(
+            appRecyclerView,
+            AppDrawerAdapter.ITEM_VIEW_TYPE_HEADER,
+            rows / EXPECTED_APPS_PER_HEADER + 1,
+            R.layout.letter_header_row);
     }
 
     public void quitSearch() {
@@ -302,6 +334,8 @@ public class AppDrawerController implements BasePageController, FastScrollContro
         searchBox.setFocusableInTouchMode(false);
         hideKeyboard();
         mIsSearching = false;
+        mSearchPipeline.cancel();
+        mLaunchFirstAppOnResult = false;
         actionBar.setVisibility(GONE);
         storeSearchButton.setVisibility(GONE);
         searchBoxButton.setVisibility(VISIBLE);
@@ -463,6 +497,8 @@ public class AppDrawerController implements BasePageController, FastScrollContro
 
     @Subscribe(threadMode = ThreadMode.MAIN)
     public void onPackageModifiedEvent(PackageModifiedEvent event) {
+        PerfMetrics.PACKAGE_EVENT_LATENCY.record(
+            SystemClock.elapsedRealtimeNanos() - event.getPostedAtNs());
         refetchAppIconsForPackage(event.getPackageName());
     }
 
@@ -473,23 +509,65 @@ public class AppDrawerController implements BasePageController, FastScrollContro
         if (mAdapter == null) {
             return;
         }
+        final long start = PerfMetrics.PACKAGE_UPDATE.start();
         final List<ApplicationIconHideable> newApps =
             AppInfoCache.get().getActivitiesForPackage(changedPackage);
         mAdapter.spliceInPackageChanges(changedPackage, newApps);
+        PerfMetrics.PACKAGE_UPDATE.stop(start);
+    }
+
+    @Subscribe(threadMode = ThreadMode.MAIN)
+    public void onAppResourcesChangedEvent(AppResourcesChangedEvent event) {
+        if (mAdapter == null) {
+            return;
+        }
+        if (event.getResource() == AppResourcesChangedEvent.Resource.LABELS) {
+            // Sections and order may have changed along with the labels
+            reloadAppList();
+            return;
+        }
+        mAdapter.notifyAppsChanged(event);
     }
 
     @Subscribe(threadMode = ThreadMode.MAIN)
     public void onPackageBulkModifiedEvent(PackagesBulkModifiedEvent event) {
+        PerfMetrics.PACKAGE_EVENT_LATENCY.record(
+            SystemClock.elapsedRealtimeNanos() - event.getPostedAtNs());
+        final long start = PerfMetrics.PACKAGE_UPDATE.start();
         reloadAppList();
+        PerfMetrics.PACKAGE_UPDATE.stop(start);
     }
 
     @OnTextChanged(value = R.id.search_box, callback = OnTextChanged.Callback.TEXT_CHANGED)
     public void onSearchChanged(CharSequence s, int start, int before, int count) {
+        final long searchStart = PerfMetrics.SEARCH_KEYSTROKE.start();
         if (!TextUtils.isEmpty(s) && !mIsSearching) {
             enterSearch();
         }
-        storeSearchButton.setVisibility(mAdapter.performSearch(s.toString()) ? GONE : VISIBLE);
+        final AppDrawerAdapter adapter = mAdapter;
+        mSearchPipeline.submit(
+            adapter.getSearchIndex(),
+            s.toString(),
+            adapter.getShownSearchResults(),
+            result -> onSearchResult(adapter, result));
         mLinearLayoutManager.setReverseLayout(true);
+        PerfMetrics.SEARCH_KEYSTROKE.stop(searchStart);
+    }
+
+    private void onSearchResult(AppDrawerAdapter adapter, AppSearchPipeline.Result result) {
+        if (adapter != mAdapter || !mIsSearching) {
+            return;
+        }
+        storeSearchButton.setVisibility(adapter.applySearchResult(result) ? GONE : VISIBLE);
+        if (mLaunchFirstAppOnResult) {
+            mLaunchFirstAppOnResult = false;
+            // Once the results are laid out, so the launch animates from the right row
+            OneShotPreDrawListener.add(appRecyclerView, () -> {
+                if (mIsSearching) {
+                    launchFirstApp();
+                }
+            });
+        }
     }
 
     @OnEditorAction(R.id.search_box)
@@ -502,18 +580,28 @@ public class AppDrawerController implements BasePageController, FastScrollContro
     }
 
     private boolean launchFirstApp() {
+        if (mSearchPipeline.hasPendingQuery()) {
+            // Launch from the results for everything that's been typed, once they're in
+            mLaunchFirstAppOnResult = true;
+            return true;
+        }
         if (mAdapter.getItemCount() < 1) {
             searchMarketClicked();
             return true;
         }
         View child = appRecyclerView.getChildAt(0);
+        Rect anchorBounds = new Rect(0, 0, child.getWidth(), child.getHeight());
         RecyclerView.ViewHolder vh = appRecyclerView.getChildViewHolder(appRecyclerView.getChildAt(0));
         if (vh instanceof AppDrawerAdapter.AppIconHolder) {
-            child = ((AppDrawerAdapter.AppIconHolder) vh).icon;
+            anchorBounds = ((AppDrawerAdapter.AppIconHolder) vh).mainView.getIconBounds();
         }
         ApplicationIcon app = mAdapter.getFirstApp();
         InstalledAppUtils.launchApp(
-            child, app.getPackageName(), app.getActivityName(), AppLaunchSource.APP_LIST);
+            child,
+            anchorBounds,
+            app.getPackageName(),
+            app.getActivityName(),
+            AppLaunchSource.APP_LIST);
         return true;
     }
 
@@ -6,14 +6,12 @@ import static com.inipage.homelylauncher.utils.ViewUtils.requireActivityOf;
 
 import android.app.Activity;
 import android.content.Context;
+import android.content.res.TypedArray;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
-import android.util.AttributeSet;
 import android.view.MotionEvent;
-import android.view.View;
 import android.view.ViewConfiguration;
-import android.widget.LinearLayout;
 
 import androidx.annotation.Nullable;
 
@@ -23,6 +21,7 @@ import com.inipage.homelylauncher.model.ClassicGridItem;
 import com.inipage.homelylauncher.state.LayoutEditingSingleton;
 import com.inipage.homelylauncher.utils.DebugLogUtils;
 import com.inipage.homelylauncher.utils.ViewUtils;
+import com.inipage.homelylauncher.views.AppIconView;
 import com.inipage.homelylauncher.views.DecorViewDragger;
 import com.inipage.homelylauncher.views.DecorViewManager;
 
@@ -30,19 +29,18 @@ import org.jetbrains.annotations.NotNull;
 
 import java.lang.ref.WeakReference;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
- * The ViewGroup holds icons in the app drawer. It's just a standard LinearLayout with some special
- * touch handling logic to support drag-and-drop to home screen pages.
+ * A row in the app drawer. It's a flat AppIconView with some special touch handling logic to
+ * support drag-and-drop to home screen pages.
  */
-public class AppDrawerIconViewGroup extends LinearLayout {
+public class AppDrawerIconView extends AppIconView {
 
     public interface Listener {
         void onLongPress(int startX, int startY);
 
         ApplicationIcon getHostedApp();
-
-        View getAppIconView();
     }
 
     private static final int MESSAGE_LONG_PRESS = 1;
@@ -73,18 +71,12 @@ public class AppDrawerIconViewGroup extends LinearLayout {
     // Whether drag has been triggered (long press triggered + moved beyond slop)
     private boolean mHasTriggeredDrag;
 
-    public AppDrawerIconViewGroup(Context context) {
-        this(context, null);
-    }
-
-    public AppDrawerIconViewGroup(Context context, @Nullable AttributeSet attrs) {
-        this(context, attrs, 0);
-    }
-
-    public AppDrawerIconViewGroup(
-        Context context, @Nullable AttributeSet attrs, int defStyleAttr
-    ) {
-        super(context, attrs, defStyleAttr);
+    public AppDrawerIconView(Context context) {
+        super(context, Style.LIST);
+        final TypedArray attrs =
+            context.obtainStyledAttributes(new int[]{ android.R.attr.selectableItemBackground });
+        setBackground(attrs.getDrawable(0));
+        attrs.recycle();
         mLongPressHandler = new LongPressHandler(this);
         resetContainerStateExceptHasDroppedEvent();
         mHasDroppedEvent = false;
@@ -107,7 +99,7 @@ public class AppDrawerIconViewGroup extends LinearLayout {
                 // Theoretically multiple pointers could go down at once, but we just pick the
                 // one at pointerIdx = 0
                 mFirstPointerId = event.getPointerId(event.getActionIndex());
-                log("ACTION_DOWN with " + mFirstPointerId);
+                log(() -> "ACTION_DOWN with " + mFirstPointerId);
                 mStartX = event.getX();
                 mStartY = event.getY();
                 mStartRawX = event.getRawX();
@@ -116,7 +108,7 @@ public class AppDrawerIconViewGroup extends LinearLayout {
                 setPressed(true);
                 break;
             case MotionEvent.ACTION_POINTER_DOWN:
-                log("ACTION_POINTER_DOWN with "
+                log(() -> "ACTION_POINTER_DOWN with "
                         + event.getPointerId(event.getActionIndex())
                         + " (first pointer down was " + mFirstPointerId + ")");
                 break;
@@ -146,7 +138,7 @@ public class AppDrawerIconViewGroup extends LinearLayout {
                         float rawY = getRawYWithPointerId(this, event, mFirstPointerId);
                         DebugLogUtils.needle(
                             DebugLogUtils.TAG_DRAG_OFFSET,
-                            "Starting drag on app icon (rawX=" + rawX + "; rawY=" + rawY + ")");
+                            () -> "Starting drag on app icon (rawX=" + rawX + "; rawY=" + rawY + ")");
 
                         @Nullable
                         final Activity activity = requireActivityOf(getContext());
@@ -159,11 +151,13 @@ public class AppDrawerIconViewGroup extends LinearLayout {
                                 activity,
                                 ClassicGridItem.getNewAppItem(listener.getHostedApp()));
 
-                        requestDisallowInterceptTouchEvent(true);
+                        if (getParent() != null) {
+                            getParent().requestDisallowInterceptTouchEvent(true);
+                        }
                         LayoutEditingSingleton.getInstance().setEditing(true);
                         DecorViewManager.get(activity).detachAllViews();
                         DecorViewDragger.get(activity).startDrag(
-                            listener.getAppIconView(), appViewHolder, true, (int) rawX, (int) rawY);
+                            createIconDragView(), appViewHolder, true, (int) rawX, (int) rawY);
                         mHasTriggeredDrag = true;
                     }
                 } else {
@@ -188,7 +182,7 @@ public class AppDrawerIconViewGroup extends LinearLayout {
                 int pointerUpId = event.getPointerId(event.getActionIndex());
                 if (pointerUpId != mFirstPointerId) {
                     // Secondary pointer is up; we don't care
-                    log("ACTION_POINTER_UP irrelevant because " + pointerUpId + " does not match " + mFirstPointerId);
+                    log(() -> "ACTION_POINTER_UP irrelevant because " + pointerUpId + " does not match " + mFirstPointerId);
                     break;
                 }
 
@@ -252,15 +246,19 @@ public class AppDrawerIconViewGroup extends LinearLayout {
         mHasTriggeredDrag = false;
     }
 
-    private void log(String... vals) {
-        DebugLogUtils.needle(DebugLogUtils.TAG_CUSTOM_TOUCHEVENTS, vals);
+    private void log(String message) {
+        DebugLogUtils.needle(DebugLogUtils.TAG_CUSTOM_TOUCHEVENTS, message);
+    }
+
+    private void log(Supplier<String> message) {
+        DebugLogUtils.needle(DebugLogUtils.TAG_CUSTOM_TOUCHEVENTS, message);
     }
 
     private static class LongPressHandler extends Handler {
 
-        WeakReference<AppDrawerIconViewGroup> mParent;
+        WeakReference<AppDrawerIconView> mParent;
 
-        LongPressHandler(AppDrawerIconViewGroup parent) {
+        LongPressHandler(AppDrawerIconView parent) {
             super(Looper.getMainLooper());
             mParent = new WeakReference<>(parent);
         }
@@ -268,7 +266,7 @@ public class AppDrawerIconViewGroup extends LinearLayout {
         @Override
         public void handleMessage(@NotNull Message msg) {
             @Nullable
-            AppDrawerIconViewGroup parent = mParent.get();
+            AppDrawerIconView parent = mParent.get();
             if (parent == null) {
                 return;
             }
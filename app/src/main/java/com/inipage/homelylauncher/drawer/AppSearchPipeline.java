@@ -0,0 +1,251 @@
+package com.inipage.homelylauncher.drawer;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.inipage.homelylauncher.model.ApplicationIconHideable;
+import com.inipage.homelylauncher.utils.PerfMetrics;
+
+import org.apache.commons.collections4.trie.PatriciaTrie;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Matches app drawer search queries on a background thread, so typing never waits on matching.
+ * <p>
+ * Queries run against an {@link Index}, an immutable copy of the drawer's apps, so package changes
+ * and hidden apps can update the adapter while a search is running. Each keystroke supersedes the
+ * query before it: a stale query is dropped before it starts, stops partway through matching, or
+ * is discarded when it finishes. Only the result of the latest query reaches the callback, on the
+ * main thread, along with its diff against the results shown when it was submitted.
+ */
+class AppSearchPipeline {
+
+    // How many apps to match between checks for a newer query
+    private static final int CANCELLATION_CHECK_INTERVAL = 32;
+
+    private static final ExecutorService s_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final Handler s_MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private final AtomicLong mGeneration = new AtomicLong();
+
+    // Main thread only
+    @Nullable private Future<?> mPending;
+
+    interface Callback {
+
+        void onResult(Result result);
+    }
+
+    /**
+     * Match a query, replacing any query still in flight. Call on the main thread.
+     *
+     * @param index The apps to search.
+     * @param shownResults The results on screen now, to diff against; null if there are none.
+     */
+    void submit(
+        Index index,
+        String query,
+        @Nullable List<ApplicationIconHideable> shownResults,
+        Callback callback) {
+        cancel();
+        final long generation = mGeneration.get();
+        final BooleanSupplier isStale = () -> generation != mGeneration.get();
+        mPending = s_EXECUTOR.submit(() -> {
+            if (isStale.getAsBoolean()) {
+                return;
+            }
+            final long start = PerfMetrics.SEARCH_MATCH.start();
+            @Nullable final Result result = match(index, query, shownResults, isStale);
+            PerfMetrics.SEARCH_MATCH.stop(start);
+            if (result == null) {
+                return;
+            }
+            s_MAIN_HANDLER.post(() -> {
+                if (isStale.getAsBoolean()) {
+                    return;
+                }
+                mPending = null;
+                callback.onResult(result);
+            });
+        });
+    }
+
+    /**
+     * Drop the query in flight, if any; its callback won't be called. Call on the main thread.
+     */
+    void cancel() {
+        mGeneration.incrementAndGet();
+        if (mPending != null) {
+            mPending.cancel(false);
+            mPending = null;
+        }
+    }
+
+    /**
+     * @return Whether a query has been submitted and its result hasn't been delivered yet.
+     */
+    boolean hasPendingQuery() {
+        return mPending != null;
+    }
+
+    @Nullable
+    private static Result match(
+        Index index,
+        String query,
+        @Nullable List<ApplicationIconHideable> shownResults,
+        BooleanSupplier isStale) {
+        @Nullable final List<ApplicationIconHideable> apps = index.match(query, isStale);
+        if (apps == null) {
+            return null;
+        }
+        if (shownResults == null) {
+            return new Result(apps, null, null);
+        }
+        if (shownResults.equals(apps)) {
+            return new Result(shownResults, shownResults, null);
+        }
+        final DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return shownResults.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return apps.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return shownResults.get(oldPosition).equals(apps.get(newPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return shownResults.get(oldPosition) == apps.get(newPosition);
+            }
+        }, false);
+        if (isStale.getAsBoolean()) {
+            return null;
+        }
+        return new Result(apps, shownResults, diff);
+    }
+
+    /**
+     * A snapshot of the apps to search. Taking one only copies the list; lowercased names and the
+     * prefix tree are built on the search thread, the first time it's searched.
+     */
+    static class Index {
+
+        private final List<ApplicationIconHideable> mApps;
+        // Built lazily on the search thread
+        @Nullable private String[] mLowercaseNames;
+        // Apps can share a name, so each name maps to all of them, in drawer order
+        @Nullable private PatriciaTrie<List<ApplicationIconHideable>> mTree;
+
+        Index(List<ApplicationIconHideable> apps) {
+            mApps = new ArrayList<>(apps);
+        }
+
+        /**
+         * Apps whose names start with the query come first, in name order, followed by apps whose
+         * names contain it, in drawer order.
+         * @return The matches, or null if the query went stale before it finished.
+         */
+        @Nullable
+        private synchronized List<ApplicationIconHideable> match(
+            String query, BooleanSupplier isStale) {
+            if (mTree == null) {
+                final String[] lowercaseNames = new String[mApps.size()];
+                final PatriciaTrie<List<ApplicationIconHideable>> tree = new PatriciaTrie<>();
+                for (int i = 0; i < mApps.size(); i++) {
+                    lowercaseNames[i] = mApps.get(i).getName().toLowerCase(Locale.getDefault());
+                    tree.computeIfAbsent(lowercaseNames[i], key -> new ArrayList<>())
+                        .add(mApps.get(i));
+                }
+                mLowercaseNames = lowercaseNames;
+                mTree = tree;
+            }
+
+            final String netQuery = query.toLowerCase(Locale.getDefault());
+            // 1 - Get the matching apps by first few characters
+            final SortedMap<String, List<ApplicationIconHideable>> searchMap =
+                mTree.prefixMap(netQuery);
+            final List<ApplicationIconHideable> result = new ArrayList<>();
+            for (List<ApplicationIconHideable> namesakes : searchMap.values()) {
+                for (ApplicationIconHideable icon : namesakes) {
+                    if (!icon.isHidden()) {
+                        result.add(icon);
+                    }
+                }
+            }
+            final Set<ApplicationIconHideable> prefixMatches = new HashSet<>(result);
+            // 2 - Search through everything else by checking contains()
+            for (int i = 0; i < mApps.size(); i++) {
+                if (i % CANCELLATION_CHECK_INTERVAL == 0 && isStale.getAsBoolean()) {
+                    return null;
+                }
+                final ApplicationIconHideable icon = mApps.get(i);
+                if (icon.isHidden() || prefixMatches.contains(icon)) {
+                    continue;
+                }
+                if (mLowercaseNames[i].contains(netQuery)) {
+                    result.add(icon);
+                }
+            }
+            return Collections.unmodifiableList(result);
+        }
+    }
+
+    static class Result {
+
+        private final List<ApplicationIconHideable> mApps;
+        @Nullable private final List<ApplicationIconHideable> mBasis;
+        @Nullable private final DiffUtil.DiffResult mDiff;
+
+        private Result(
+            List<ApplicationIconHideable> apps,
+            @Nullable List<ApplicationIconHideable> basis,
+            @Nullable DiffUtil.DiffResult diff) {
+            mApps = apps;
+            mBasis = basis;
+            mDiff = diff;
+        }
+
+        List<ApplicationIconHideable> getApps() {
+            return mApps;
+        }
+
+        /**
+         * @return The results this was diffed against, or null if there was nothing to diff.
+         */
+        @Nullable
+        List<ApplicationIconHideable> getBasis() {
+            return mBasis;
+        }
+
+        /**
+         * @return Updates from {@link #getBasis()} to these results; null if there was nothing to
+         * diff, or the results didn't change.
+         */
+        @Nullable
+        DiffUtil.DiffResult getDiff() {
+            return mDiff;
+        }
+    }
+}
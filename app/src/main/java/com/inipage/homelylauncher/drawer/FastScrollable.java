@@ -1,45 +1,25 @@
 package com.inipage.homelylauncher.drawer;
 
-import android.text.TextUtils;
-
 import androidx.annotation.Nullable;
 
 import java.util.Comparator;
-import java.util.Locale;
 
+/**
+ * Something that can be sorted into the app drawer's lettered sections. Ordering is defined by
+ * {@link SortKeys}; the section and sort key are computed once per item and kept.
+ */
 public abstract class FastScrollable {
 
-    public final static char NUMERIC = '#';
-    private static final Comparator<Character> CHAR_COMPARATOR = (o1c, o2c) -> {
-        if (o1c == o2c) {
-            return 0;
-        }
-        if (o1c == NUMERIC) {
-            return -1;
-        }
-        if (o2c == NUMERIC) {
-            return 1;
-        }
-        return o1c - o2c;
-    };
-    private static final Comparator<FastScrollable> COMPARATOR = (o1, o2) -> {
-        final char o1c = o1.getScrollableField();
-        final char o2c = o2.getScrollableField();
-        if (o1c == NUMERIC && o2c != NUMERIC) {
-            return -1;
-        } else if (o1c != NUMERIC && o2c == NUMERIC) {
-            return 1;
-        }
-        final int rVal = CHAR_COMPARATOR.compare(o1c, o2c);
-        if (rVal == 0) {
-            return o1.getName().compareToIgnoreCase(o2.getName());
-        }
-        return rVal;
-    };
+    public final static char NUMERIC = SortKeys.NUMERIC;
+    private static final Comparator<FastScrollable> COMPARATOR = (o1, o2) ->
+        SortKeys.compare(
+            o1.getScrollableField(), o1.getSortKey(), o2.getScrollableField(), o2.getSortKey());
+
     private char mScrollableField = 0;
+    @Nullable private byte[] mSortKey;
 
     public static Comparator<Character> getCharComparator() {
-        return CHAR_COMPARATOR;
+        return SortKeys.getSectionComparator();
     }
 
     public static Comparator<FastScrollable> getComparator() {
@@ -50,19 +30,14 @@ public abstract class FastScrollable {
         if (mScrollableField != 0) {
             return mScrollableField;
         }
+        return (mScrollableField = SortKeys.computeSection(getName()));
+    }
 
-        @Nullable final String assignedName = getName();
-        if (TextUtils.isEmpty(assignedName)) {
-            return (mScrollableField = NUMERIC);
-        }
-        final char firstChar = assignedName.toUpperCase(Locale.US).charAt(0);
-        if (Character.isDigit(firstChar)) {
-            return (mScrollableField = NUMERIC);
-        }
-        if (Character.isAlphabetic(firstChar) || Character.isIdeographic(firstChar)) {
-            return (mScrollableField = firstChar);
+    public byte[] getSortKey() {
+        if (mSortKey != null) {
+            return mSortKey;
         }
-        return (mScrollableField = NUMERIC); // Symbols, etc.
+        return (mSortKey = SortKeys.computeSortKey(getName()));
     }
 
     public abstract String getName();
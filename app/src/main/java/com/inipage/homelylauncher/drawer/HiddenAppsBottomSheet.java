@@ -1,7 +1,6 @@
 package com.inipage.homelylauncher.drawer;
 
 import android.content.Context;
-import android.util.Pair;
 
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -9,32 +8,31 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.inipage.homelylauncher.R;
 import com.inipage.homelylauncher.caches.AppInfoCache;
 import com.inipage.homelylauncher.model.ApplicationIconHideable;
+import com.inipage.homelylauncher.model.ComponentKey;
 import com.inipage.homelylauncher.persistence.DatabaseEditor;
 import com.inipage.homelylauncher.utils.Constants;
 import com.inipage.homelylauncher.views.BottomSheetHelper;
 
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class HiddenAppsBottomSheet {
 
     public static void show(Context context, Callback callback) {
-        final Map<Pair<String, String>, Boolean> hiddenAppsMap =
-            DatabaseEditor.get().getHiddenAppsAsMap(false);
-        final Stream<ApplicationIconHideable> hiddenAppsStream = hiddenAppsMap
-            .entrySet()
+        final Set<ComponentKey> hiddenAppsSet = DatabaseEditor.get().getHiddenApps(false);
+        final Stream<ApplicationIconHideable> hiddenAppsStream = hiddenAppsSet
             .parallelStream()
-            .map(entry ->
+            .map(key ->
                      new ApplicationIconHideable(
-                         context, entry.getKey().first, entry.getKey().second, entry.getValue()));
+                         context, key.getPackageName(), key.getActivityName(), true));
         final Stream<ApplicationIconHideable> visibleAppsStream =
             AppInfoCache.get().getAllActivities()
                 .parallelStream()
                 .filter(applicationIconHideable -> !applicationIconHideable.getPackageName().equals(
                     Constants.PACKAGE))
-                .filter(applicationIconHideable -> !hiddenAppsMap.containsKey(new Pair<>(
+                .filter(applicationIconHideable -> !hiddenAppsSet.contains(ComponentKey.of(
                     applicationIconHideable.getPackageName(),
                     applicationIconHideable.getActivityName())));
         final List<ApplicationIconHideable> hiddenApps =
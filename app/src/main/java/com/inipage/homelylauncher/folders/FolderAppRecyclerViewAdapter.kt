@@ -1,6 +1,5 @@
 package com.inipage.homelylauncher.folders
 
-import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import android.widget.TextView
@@ -11,17 +10,14 @@ import com.inipage.homelylauncher.caches.IconCacheSync
 import com.inipage.homelylauncher.drawer.BitmapView
 import com.inipage.homelylauncher.model.GridFolderApp
 import com.inipage.homelylauncher.utils.InstalledAppUtils
+import com.inipage.homelylauncher.utils.ViewHolderPrewarmer
 
 class FolderAppRecyclerViewAdapter(val data: List<GridFolderApp>) :
     RecyclerView.Adapter<FolderAppRecyclerViewAdapter.ApplicationViewHolder>()
 {
 
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): ApplicationViewHolder {
-        return ApplicationViewHolder(
-            LayoutInflater.from(parent.context).inflate(
-                R.layout.folder_app_icon, parent, false
-            )
-        )
+        return ApplicationViewHolder(ViewHolderPrewarmer.inflate(R.layout.folder_app_icon, parent))
     }
 
     override fun onBindViewHolder(holder: ApplicationViewHolder, position: Int) {
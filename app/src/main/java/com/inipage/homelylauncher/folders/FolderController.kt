@@ -31,6 +31,7 @@ import com.inipage.homelylauncher.model.GridItem
 import com.inipage.homelylauncher.model.ModelUtils
 import com.inipage.homelylauncher.model.ModelUtils.isValueSet
 import com.inipage.homelylauncher.persistence.DatabaseEditor
+import com.inipage.homelylauncher.utils.ViewHolderPrewarmer
 import com.inipage.homelylauncher.utils.ViewUtils
 import com.inipage.homelylauncher.utils.ViewUtils.getRawYForViewAndId
 import com.inipage.homelylauncher.views.DraggableLayout
@@ -218,7 +219,9 @@ class FolderController(
         rootView.visibility = VISIBLE
         newFolderSuggestionContainer.visibility = if (newFolderRequest) VISIBLE else GONE
         openFolderContainer.visibility  = if (newFolderRequest) GONE else VISIBLE
-        appsRecyclerView.adapter = FolderAppRecyclerViewAdapter(gridFolder?.apps ?: listOf())
+        // Every folder's adapter has the same view type, so keep the pool across folders
+        appsRecyclerView.swapAdapter(
+            FolderAppRecyclerViewAdapter(gridFolder?.apps ?: listOf()), true)
         folderIdToWidgetView.entries.forEach {
             it.value.visibility = GONE
         }
@@ -488,6 +491,18 @@ class FolderController(
         rootView.findViewById<ImageView>(R.id.show_folder_menu).setOnClickListener {
             showMenu(it)
         }
-        appsRecyclerView.layoutManager = GridLayoutManager(context, 5, RecyclerView.VERTICAL, false)
+        appsRecyclerView.layoutManager =
+            GridLayoutManager(context, FOLDER_COLUMN_COUNT, RecyclerView.VERTICAL, false)
+        appsRecyclerView.adapter = FolderAppRecyclerViewAdapter(listOf())
+        // The apps list is capped at 30% of the screen's height; see bindFolderView
+        val visibleRows = ViewHolderPrewarmer.getCapacity(
+            context.resources.displayMetrics.heightPixels * 0.3F,
+            context.resources.getDimension(R.dimen.grid_app_icon_size) * 2)
+        ViewHolderPrewarmer.prewarm(
+            appsRecyclerView, 0, visibleRows * FOLDER_COLUMN_COUNT, R.layout.folder_app_icon)
     }
-}
\ No newline at end of file
+
+    companion object {
+        private const val FOLDER_COLUMN_COUNT = 5
+    }
+}
@@ -7,6 +7,7 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Picture;
 import android.view.View;
 import android.view.animation.AccelerateDecelerateInterpolator;
 
@@ -16,22 +17,30 @@ import com.inipage.homelylauncher.BuildConfig;
 import com.inipage.homelylauncher.utils.AttributeApplier;
 import com.inipage.homelylauncher.utils.SizeValAttribute;
 
-import static com.inipage.homelylauncher.utils.AttributeApplier.intValue;
 
+/**
+ * The lattice and empty-cell markers shown behind a grid page in edit mode.
+ * <p>
+ * The lattice only changes when occupancy or metrics do, so it's recorded once into a Picture and
+ * replayed; the show/hide animation is just view alpha plus a clip on that recording, and the drop
+ * highlight is drawn on top each frame.
+ */
 @SuppressLint("ViewConstructor")
 public class AnimatedBackgroundGrid
     extends View
     implements ValueAnimator.AnimatorUpdateListener, ValueAnimator.AnimatorListener {
 
     private static final boolean RENDER_DEBUG_ATTRS = BuildConfig.DEBUG && false;
+    private static final float MAX_ALPHA = 0.8F;
 
     private final AccelerateDecelerateInterpolator INTERPOLATOR =
         new AccelerateDecelerateInterpolator();
-    private final Paint mPaint;
+    private final Paint mLinePaint;
+    private final Paint mHighlightPaint;
     private final GridMetrics mGridMetrics;
     private final GridViewHolderMap mItemMap;
     @SizeValAttribute(2)
-    private final int mLineWidth = intValue();
+    int mLineWidth;
     private float mAnimatedPercent;
     private boolean mHiding;
     private boolean mHighlighting;
@@ -39,6 +48,12 @@ public class AnimatedBackgroundGrid
     @Nullable
     private ValueAnimator mAnimator;
 
+    // The cached lattice, and what it was recorded against
+    @Nullable private Picture mLattice;
+    private int mLatticeOccupancyVersion;
+    private int mLatticeColumnCount, mLatticeRowCount;
+    private float mLatticeCellWidth, mLatticeCellHeight;
+
     public AnimatedBackgroundGrid(
         Context context,
         GridMetrics gridMetrics,
@@ -49,11 +64,15 @@ public class AnimatedBackgroundGrid
         mGridMetrics = gridMetrics;
         mItemMap = itemMap;
         mHiding = true;
-        mPaint = new Paint();
-        mPaint.setAntiAlias(true);
-        mPaint.setColor(Color.WHITE);
-        mPaint.setStrokeWidth(mLineWidth);
-        mPaint.setTextSize(20);
+        mLinePaint = new Paint();
+        mLinePaint.setAntiAlias(true);
+        mLinePaint.setColor(Color.WHITE);
+        mLinePaint.setStrokeWidth(mLineWidth);
+        mLinePaint.setTextSize(20);
+        mLinePaint.setAlpha((int) (255 * MAX_ALPHA));
+        mHighlightPaint = new Paint(mLinePaint);
+        mHighlightPaint.setStyle(Paint.Style.STROKE);
+        setAlpha(0F);
     }
 
     @Override
@@ -61,19 +80,51 @@ public class AnimatedBackgroundGrid
         if (Float.compare(mAnimatedPercent, 0F) == 0 || mItemMap == null) {
             return;
         }
+        final Picture lattice = getLattice();
+        final int saveCount = canvas.save();
+        canvas.clipRect(
+            0,
+            0,
+            mAnimatedPercent * lattice.getWidth(),
+            mAnimatedPercent * lattice.getHeight());
+        canvas.drawPicture(lattice);
+        canvas.restoreToCount(saveCount);
+
+        if (mHighlighting) {
+            drawHighlight(canvas);
+        }
+    }
 
+    @Override
+    public boolean hasOverlappingRendering() {
+        // Overlapping lines were always drawn with individually translucent paint, so fading the
+        // view as a whole (without an offscreen layer) looks the same
+        return false;
+    }
+
+    private Picture getLattice() {
         final float cellWidth = mGridMetrics.getCellWidthPx();
         final float cellHeight = mGridMetrics.getCellHeightPx();
         final int columnCount = mGridMetrics.getColumnCount();
         final int rowCount = mGridMetrics.getRowCount();
-        final int totalWidth = (int) (cellWidth * columnCount);
-        final int totalHeight = (int) (cellHeight * rowCount);
-        mPaint.setAlpha((int) (mAnimatedPercent * 255 * 0.8));
+        if (mLattice != null &&
+            mLatticeOccupancyVersion == mItemMap.getOccupancyVersion() &&
+            mLatticeColumnCount == columnCount &&
+            mLatticeRowCount == rowCount &&
+            Float.compare(mLatticeCellWidth, cellWidth) == 0 &&
+            Float.compare(mLatticeCellHeight, cellHeight) == 0) {
+            return mLattice;
+        }
+
+        final int totalWidth = Math.max(1, (int) (cellWidth * columnCount));
+        final int totalHeight = Math.max(1, (int) (cellHeight * rowCount));
+        final Picture lattice = new Picture();
+        final Canvas canvas = lattice.beginRecording(totalWidth, totalHeight);
 
         // Vertical lines
-        for (int i = 0; i < mGridMetrics.getColumnCount() - 1; i++) {
+        for (int i = 0; i < columnCount - 1; i++) {
             final float x = cellWidth * (i + 1);
-            canvas.drawLine(x, 0, x, mAnimatedPercent * totalHeight, mPaint);
+            canvas.drawLine(x, 0, x, totalHeight, mLinePaint);
         }
 
         // Horizontal lines and pluses
@@ -85,46 +136,66 @@ public class AnimatedBackgroundGrid
 
             // Horizontal lines
             if (i < rowCount - 1) {
-                canvas.drawLine(0, yEnd, mAnimatedPercent * totalWidth, yEnd, mPaint);
+                canvas.drawLine(0, yEnd, totalWidth, yEnd, mLinePaint);
             }
 
-            // Pluses/circle symbols
-            for (int j = 0; j < mGridMetrics.getColumnCount(); j++) {
+            // Pluses for empty cells
+            for (int j = 0; j < columnCount; j++) {
                 final int xStart = (int) (j * cellWidth);
                 final int xEnd = (int) (xStart + cellWidth);
                 if (RENDER_DEBUG_ATTRS) {
-                    canvas.drawText(j + " " + i, xStart, yStart + 20, mPaint);
+                    canvas.drawText(j + " " + i, xStart, yStart + 20, mLinePaint);
+                }
+                if (mItemMap.hasItemAtIdx(i, j)) {
+                    continue;
                 }
+                // horizontal
+                canvas.drawLine(
+                    xStart + innerPaddingDelta,
+                    yCenter,
+                    xEnd - innerPaddingDelta,
+                    yCenter,
+                    mLinePaint);
+                // vertical
+                canvas.drawLine(
+                    xEnd - (cellWidth / 2),
+                    yCenter - (cellWidth / 2) + innerPaddingDelta,
+                    xEnd - (cellWidth / 2),
+                    yCenter + (cellWidth / 2) - innerPaddingDelta,
+                    mLinePaint);
+            }
+        }
+        lattice.endRecording();
 
-                final boolean slotFilled = mItemMap.hasItemAtIdx(i, j);
-                if (mHighlighting &&
-                    i >= mHighlightRow && i < mHighlightRow + mHighlightHeight &&
-                    j >= mHighlightColumn && j < mHighlightColumn + mHighlightWidth &&
-                    !slotFilled) {
-                    mPaint.setStyle(Paint.Style.STROKE);
-                    canvas.drawCircle(
-                        xStart + (cellWidth / 2),
-                        yCenter,
-                        (cellWidth / 2) - innerPaddingDelta,
-                        mPaint);
-                } else if (!slotFilled) {
-                    // Cross
-                    // horizontal
-                    canvas.drawLine(
-                        xStart + innerPaddingDelta,
-                        yCenter,
-                        xEnd - innerPaddingDelta,
-                        yCenter,
-                        mPaint);
-
-                    // vertical
-                    canvas.drawLine(
-                        xEnd - (cellWidth / 2),
-                        yCenter - (cellWidth / 2) + innerPaddingDelta,
-                        xEnd - (cellWidth / 2),
-                        yCenter + (cellWidth / 2) - innerPaddingDelta,
-                        mPaint);
+        mLattice = lattice;
+        mLatticeOccupancyVersion = mItemMap.getOccupancyVersion();
+        mLatticeColumnCount = columnCount;
+        mLatticeRowCount = rowCount;
+        mLatticeCellWidth = cellWidth;
+        mLatticeCellHeight = cellHeight;
+        return lattice;
+    }
+
+    /**
+     * Ring the empty cells the dragged item would land in.
+     */
+    private void drawHighlight(Canvas canvas) {
+        final float cellWidth = mGridMetrics.getCellWidthPx();
+        final float cellHeight = mGridMetrics.getCellHeightPx();
+        final float radius = (cellWidth / 2) - (cellWidth * 0.2F);
+        final int rowEnd = Math.min(mHighlightRow + mHighlightHeight, mGridMetrics.getRowCount());
+        final int columnEnd =
+            Math.min(mHighlightColumn + mHighlightWidth, mGridMetrics.getColumnCount());
+        for (int i = Math.max(0, mHighlightRow); i < rowEnd; i++) {
+            for (int j = Math.max(0, mHighlightColumn); j < columnEnd; j++) {
+                if (mItemMap.hasItemAtIdx(i, j)) {
+                    continue;
                 }
+                canvas.drawCircle(
+                    (int) (j * cellWidth) + (cellWidth / 2),
+                    cellHeight * i + (cellHeight / 2),
+                    radius,
+                    mHighlightPaint);
             }
         }
     }
@@ -179,6 +250,7 @@ public class AnimatedBackgroundGrid
         mAnimatedPercent = mHiding ?
                            1 - animation.getAnimatedFraction() :
                            animation.getAnimatedFraction();
+        setAlpha(mAnimatedPercent);
         invalidate();
     }
 
@@ -193,6 +265,7 @@ public class AnimatedBackgroundGrid
         } else {
             mAnimatedPercent = 1F;
         }
+        setAlpha(mAnimatedPercent);
         invalidate();
     }
 
@@ -1,70 +1,83 @@
 package com.inipage.homelylauncher.grid;
 
+import android.animation.AnimatorInflater;
 import android.content.Context;
-import android.util.Pair;
-import android.view.LayoutInflater;
+import android.content.res.TypedArray;
+import android.graphics.Rect;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.FrameLayout;
-import android.widget.TextView;
 
 import com.inipage.homelylauncher.R;
 import com.inipage.homelylauncher.caches.AppLabelCache;
-import com.inipage.homelylauncher.caches.FontCacheSync;
 import com.inipage.homelylauncher.caches.IconCacheSync;
-import com.inipage.homelylauncher.drawer.BitmapView;
 import com.inipage.homelylauncher.model.ApplicationIcon;
 import com.inipage.homelylauncher.model.GridItem;
-import com.inipage.homelylauncher.utils.Constants;
 import com.inipage.homelylauncher.utils.InstalledAppUtils;
+import com.inipage.homelylauncher.views.AppIconView;
 
 public class AppViewHolder extends GridViewHolder {
 
-    private final BitmapView mBitmapView;
-    private final TextView mLabelView;
+    private final AppIconView mIconView;
 
     public AppViewHolder(Context context, GridItem gridItem) {
         super(context, gridItem);
 
-        final LayoutInflater inflater = LayoutInflater.from(context);
-        final View gridIcon = inflater.inflate(R.layout.app_grid_icon, null);
-        mBitmapView = gridIcon.findViewById(R.id.grid_icon_image);
-        mLabelView = gridIcon.findViewById(R.id.grid_icon_label);
-        mBitmapView.setBitmap(
-            IconCacheSync
-                .getInstance(context)
-                .getActivityIcon(
-                    gridItem.getPackageName(),
-                    gridItem.getActivityName()));
-        FontCacheSync.Companion.get().applyTypefaceToTextView(
-            mLabelView, Constants.GRID_FONT_PATH);
-        mLabelView.setText(AppLabelCache.getInstance(context).getLabel(
-            gridItem.getPackageName(), gridItem.getActivityName()));
-        gridIcon.setOnClickListener(v ->
+        mIconView = new AppIconView(context, AppIconView.Style.GRID);
+        final TypedArray attrs = context.obtainStyledAttributes(
+            new int[]{ android.R.attr.selectableItemBackgroundBorderless });
+        mIconView.setBackground(attrs.getDrawable(0));
+        attrs.recycle();
+        mIconView.setStateListAnimator(
+            AnimatorInflater.loadStateListAnimator(context, R.xml.touch_animate_scale));
+        rebind();
+        mIconView.setOnClickListener(v ->
             InstalledAppUtils.launchApp(
                 v,
+                mIconView.getIconBounds(),
                 gridItem.getPackageName(),
                 gridItem.getActivityName(),
                 InstalledAppUtils.AppLaunchSource.GRID_PAGE));
         mRootView.addView(
-            gridIcon,
+            mIconView,
             0,
             new FrameLayout.LayoutParams(
                 ViewGroup.LayoutParams.MATCH_PARENT,
                 ViewGroup.LayoutParams.MATCH_PARENT));
     }
 
+    /**
+     * Show the cached icon and label again, after they were replaced.
+     */
+    public void rebind() {
+        final Context context = mIconView.getContext();
+        final GridItem gridItem = getItem();
+        mIconView.setIcon(
+            IconCacheSync
+                .getInstance(context)
+                .getActivityIcon(
+                    gridItem.getPackageName(),
+                    gridItem.getActivityName()));
+        mIconView.setLabel(AppLabelCache.getInstance(context).getLabel(
+            gridItem.getPackageName(), gridItem.getActivityName()));
+    }
+
     public ApplicationIcon getAppIcon() {
         return new ApplicationIcon(
             getItem().getPackageName(),
             getItem().getActivityName(),
-            AppLabelCache.getInstance(getRootContainer().getContext()).getLabel(
-                new Pair<>(getItem().getPackageName(), getItem().getActivityName()))
-        );
+            getRootContainer().getContext());
+    }
+
+    /**
+     * @return Where the icon is drawn, relative to {@link #getDragView()}.
+     */
+    public Rect getIconBounds() {
+        return mIconView.getIconBounds();
     }
 
     @Override
     public View getDragView() {
-        return mBitmapView;
+        return mIconView;
     }
-}
\ No newline at end of file
+}
@@ -25,11 +25,11 @@ import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.app.AlertDialog;
 import android.app.WallpaperManager;
-import android.appwidget.AppWidgetHostView;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProviderInfo;
 import android.content.Context;
 import android.graphics.Point;
+import android.graphics.Rect;
 import android.graphics.RectF;
 import android.util.Pair;
 import android.view.Gravity;
@@ -46,7 +46,9 @@ import androidx.annotation.Nullable;
 
 import com.inipage.homelylauncher.R;
 import com.inipage.homelylauncher.caches.AppInfoCache;
+import com.inipage.homelylauncher.caches.AppResourcesChangedEvent;
 import com.inipage.homelylauncher.caches.PackageModifiedEvent;
+import com.inipage.homelylauncher.caches.WidgetSnapshotCache;
 import com.inipage.homelylauncher.model.ApplicationIconHideable;
 import com.inipage.homelylauncher.model.GridItem;
 import com.inipage.homelylauncher.model.GridPage;
@@ -80,6 +82,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * The glue between the Views in the grid (GridViewHolder) and the underlying data
@@ -97,6 +100,7 @@ public abstract class BaseGridPageController implements BasePageController {
     private GridPageLayout mRootContainer;
     private RelativeLayout mContainer;
     private AnimatedBackgroundGrid mAnimatedBackgroundGrid;
+    private boolean mIsNearVisible;
 
     // Widget addition
     private int mAdditionX;
@@ -226,21 +230,36 @@ public abstract class BaseGridPageController implements BasePageController {
 
     private void addWidgetItem(GridItem gridItem) {
         final int appWidgetId = gridItem.getDI();
-        final int spanWidthPx = mMetrics.getWidthOfColumnSpanPx(gridItem.getWidth());
-        final int spanHeightPx = mMetrics.getHeightOfRowSpanPx(gridItem.getHeight());
-        @Nullable AppWidgetHostView hostView =
-            WidgetLifecycleUtils.buildAppWidgetHostView(
-                mHost.getContext(), appWidgetId, spanWidthPx, spanHeightPx);
-        @Nullable GridViewHolder gridViewHolder;
-        if (hostView != null) {
-            gridViewHolder = new WidgetViewHolder(
-                hostView,
-                hostView.getAppWidgetInfo(),
-                gridItem);
-        } else {
-            gridViewHolder = new MissingViewHolder(mContainer.getContext(), gridItem);
+        @Nullable final AppWidgetProviderInfo awpi =
+            WidgetLifecycleUtils.getAppWidgetProviderInfo(mHost.getContext(), appWidgetId);
+        if (awpi == null) {
+            addViewHolder(new MissingViewHolder(mContainer.getContext(), gridItem));
+            return;
+        }
+        // The AppWidgetHostView itself is only created once this page is close to the screen
+        final WidgetViewHolder widgetViewHolder =
+            new WidgetViewHolder(mHost.getContext(), awpi, gridItem);
+        addViewHolder(widgetViewHolder);
+        widgetViewHolder.setLive(mIsNearVisible);
+    }
+
+    /**
+     * Pages on or next to the screen host live widgets; the rest show cached snapshots and defer
+     * RemoteViews updates until they come back into range.
+     */
+    public void setNearVisible(boolean nearVisible) {
+        if (mIsNearVisible == nearVisible) {
+            return;
+        }
+        mIsNearVisible = nearVisible;
+        if (mHolderMap == null) {
+            return;
+        }
+        for (GridViewHolder holder : mHolderMap.getHolders()) {
+            if (holder instanceof WidgetViewHolder) {
+                ((WidgetViewHolder) holder).setLive(nearVisible);
+            }
         }
-        addViewHolder(gridViewHolder);
     }
 
     private void validateInternal(String event) {
@@ -381,6 +400,19 @@ public abstract class BaseGridPageController implements BasePageController {
         onGridMakeupChanged();
     }
 
+    @Subscribe(threadMode = ThreadMode.MAIN)
+    public void onAppResourcesChangedEvent(AppResourcesChangedEvent event) {
+        for (GridViewHolder holder : mHolderMap.getHolders()) {
+            if (!(holder instanceof AppViewHolder)) {
+                continue;
+            }
+            final GridItem item = holder.getItem();
+            if (event.affects(item.getPackageName(), item.getActivityName())) {
+                ((AppViewHolder) holder).rebind();
+            }
+        }
+    }
+
     @Subscribe(threadMode = ThreadMode.MAIN)
     public void onPackageModifiedEvent(PackageModifiedEvent event) {
         if (event.getModification() == ADDED) {
@@ -448,6 +480,10 @@ public abstract class BaseGridPageController implements BasePageController {
     }
 
     private void removeViewHolder(GridViewHolder gridViewHolder) {
+        if (gridViewHolder instanceof WidgetViewHolder) {
+            WidgetSnapshotCache.getInstance(mHost.getContext()).removeSnapshot(
+                ((WidgetViewHolder) gridViewHolder).getAppWidgetId());
+        }
         mPage.getItems().remove(gridViewHolder.getItem());
         mHolderMap.removeHolder(gridViewHolder);
         mAnimatedBackgroundGrid.invalidate();
@@ -540,7 +576,11 @@ public abstract class BaseGridPageController implements BasePageController {
     }
 
     private void log(String tag, String contents) {
-        DebugLogUtils.needle(tag, "page=" + getPageId(), contents);
+        DebugLogUtils.needle(tag, () -> "page=" + getPageId() + " " + contents);
+    }
+
+    private void log(String tag, Supplier<String> contents) {
+        DebugLogUtils.needle(tag, () -> "page=" + getPageId() + " " + contents.get());
     }
 
     public interface Host extends WidgetHost {
@@ -674,7 +714,7 @@ public abstract class BaseGridPageController implements BasePageController {
                     }
 
                     // Try and free up the space
-                    log(TAG_ICON_CASCADE, "New position data found: " + columnCell + "x" + rowCell);
+                    log(TAG_ICON_CASCADE, () -> "New position data found: " + columnCell + "x" + rowCell);
                     final boolean areaOccupied = mHolderMap.isAreaOccupied(
                         columnCell, rowCell, gridItem.getWidth(), gridItem.getHeight());
                     if (areaOccupied) {
@@ -688,7 +728,7 @@ public abstract class BaseGridPageController implements BasePageController {
                                     mLastCellDraggedOver,
                                     gridItem);
                         } catch (Exception solvedFailure) {
-                            log(TAG_DRAG_OFFSET, "Failed to solve for movement: " + solvedFailure);
+                            log(TAG_DRAG_OFFSET, () -> "Failed to solve for movement: " + solvedFailure);
                         }
                         if (naiveSolution != null) {
                             mChoreographer.queueSolve(naiveSolution, targetCell);
@@ -701,7 +741,7 @@ public abstract class BaseGridPageController implements BasePageController {
                     break;
                 case ACTION_DROP:
                     final Point dropDragPoint = findPointFromDragEvent(event);
-                    log(TAG_ICON_CASCADE, "Drag drop point=" + dropDragPoint);
+                    log(TAG_ICON_CASCADE, () -> "Drag drop point=" + dropDragPoint);
                     maybeCommitDragChanges(dropDragPoint.x, dropDragPoint.y, viewHolder);
                     mChoreographer.clear();
                     mAnimatedBackgroundGrid.quitDragMode();
@@ -736,7 +776,7 @@ public abstract class BaseGridPageController implements BasePageController {
             final int cellWidth = mMetrics.getCellWidthPx();
             final int cellHeight = mMetrics.getCellHeightPx();
 
-            log(TAG_DRAG_OFFSET, "event.getRawXOffsetByView()/Y():" + event.getRawX() + ", " + event.getRawY());
+            log(TAG_DRAG_OFFSET, () -> "event.getRawXOffsetByView()/Y():" + event.getRawX() + ", " + event.getRawY());
 
             float topLeftCellCenterX =
                 event.getRawXOffsetByView(mContainer) + event.getOffsetX() + (cellWidth / 2F);
@@ -841,12 +881,11 @@ public abstract class BaseGridPageController implements BasePageController {
                 // Center on the menu on center of the app icon
                 final int[] out = new int[2];
                 appViewHolder.getDragView().getLocationOnScreen(out);
-                int viewWidth = appViewHolder.getDragView().getMeasuredWidth();
-                int viewHeight = appViewHolder.getDragView().getMeasuredHeight();
+                final Rect iconBounds = appViewHolder.getIconBounds();
 
                 new AppPopupMenu().show(
-                    out[0] + (viewWidth / 2),
-                    out[1] + (viewHeight / 2),
+                    out[0] + iconBounds.centerX(),
+                    out[1] + iconBounds.centerY(),
                     true,
                     mRootContainer.getContext(),
                     appViewHolder.getAppIcon(),
@@ -29,7 +29,6 @@ import static android.view.MotionEvent.ACTION_MOVE;
 import static android.view.MotionEvent.ACTION_UP;
 import static android.widget.LinearLayout.HORIZONTAL;
 import static android.widget.LinearLayout.VERTICAL;
-import static com.inipage.homelylauncher.utils.AttributeApplier.intValue;
 
 public class GridItemHandleView extends FrameLayout {
 
@@ -50,7 +49,7 @@ public class GridItemHandleView extends FrameLayout {
     private final int mOrientation;
 
     @SizeDimenAttribute(R.dimen.scale_button_size)
-    private final int mHandleSize = intValue();
+    int mHandleSize;
 
     @Nullable
     private Listener mListener;
@@ -133,8 +132,8 @@ public class GridItemHandleView extends FrameLayout {
         }
     }
 
-    private void log(String... vals) {
-        DebugLogUtils.needle(DebugLogUtils.TAG_GRID_HANDLE, vals);
+    private void log(String message) {
+        DebugLogUtils.needle(DebugLogUtils.TAG_GRID_HANDLE, message);
     }
 
     private View addArrowButton(int arrowDrawableId, int gravity) {
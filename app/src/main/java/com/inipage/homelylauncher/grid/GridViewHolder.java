@@ -1,6 +1,5 @@
 package com.inipage.homelylauncher.grid;
 
-import android.annotation.SuppressLint;
 import android.content.Context;
 import android.graphics.Point;
 import android.util.Log;
@@ -79,26 +78,19 @@ public abstract class GridViewHolder {
     protected final GridItem mItem;
     protected final FrameLayout mRootView;
 
-    // These are purely imp. details; listener results are sent down to the subclasses
-    private final ImageView mRemovalView;
-    private final GridItemHandleView mLeftHandle, mRightHandle, mUpHandle, mDownHandle;
+    // These are purely imp. details; listener results are sent down to the subclasses. They're
+    // only inflated the first time the item is shown in edit mode, since most items never are
+    @Nullable private ImageView mRemovalView;
+    @Nullable private GridItemHandleView mLeftHandle, mRightHandle, mUpHandle, mDownHandle;
 
     @Nullable
     private Host mHost;
     private Point mQueuedPoint, mQueuedPointPx;
 
-    @SuppressLint("InflateParams")
     public GridViewHolder(Context context, GridItem item) {
         mItem = item;
-        mRootView =
-            (FrameLayout) LayoutInflater.from(context).inflate(
-                R.layout.grid_item_view, null);
+        mRootView = new FrameLayout(context);
         mRootView.setTag(this); // Used for validation later on
-        mRemovalView = mRootView.findViewById(R.id.widget_remove_button);
-        mLeftHandle = mRootView.findViewById(R.id.left_handle);
-        mRightHandle = mRootView.findViewById(R.id.right_handle);
-        mUpHandle = mRootView.findViewById(R.id.up_handle);
-        mDownHandle = mRootView.findViewById(R.id.down_handle);
         final boolean isEditing = LayoutEditingSingleton.getInstance().isEditing();
         mRootView.setScaleY(isEditing ? SCALE_AMOUNT : 1F);
         mRootView.setScaleX(isEditing ? SCALE_AMOUNT : 1F);
@@ -107,6 +99,11 @@ public abstract class GridViewHolder {
 
     public void invalidateEditControls() {
         final boolean isEditing = LayoutEditingSingleton.getInstance().isEditing();
+        if (isEditing) {
+            ensureEditControls();
+        } else if (mRemovalView == null) {
+            return;
+        }
         mRemovalView.setScaleY(isEditing ? SCALE_AMOUNT : 0);
         mRemovalView.setScaleX(isEditing ? SCALE_AMOUNT : 0);
         mRemovalView.setVisibility(isEditing ? View.VISIBLE : View.GONE);
@@ -157,6 +154,23 @@ public abstract class GridViewHolder {
 
     public void attachHost(final Host host) {
         mHost = host;
+        if (mRemovalView != null) {
+            attachEditControlListeners(host);
+        }
+        invalidateEditControls();
+        final int spanWidthPx = host.getGridMetrics().getWidthOfColumnSpanPx(mItem.getWidth());
+        final int spanHeightPx = host.getGridMetrics().getHeightOfRowSpanPx(mItem.getHeight());
+        FrameLayout.LayoutParams params =
+            new FrameLayout.LayoutParams(
+                spanWidthPx,
+                spanHeightPx,
+                Gravity.CENTER);
+        resetTranslation();
+        host.getGridContainer().addView(mRootView, params);
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    private void attachEditControlListeners(final Host host) {
         mRemovalView.setOnClickListener(v -> {
             host.onRemove(this);
             detachHost();
@@ -193,16 +207,29 @@ public abstract class GridViewHolder {
             }
             onResized();
         });
-        invalidateEditControls();
-        final int spanWidthPx = host.getGridMetrics().getWidthOfColumnSpanPx(mItem.getWidth());
-        final int spanHeightPx = host.getGridMetrics().getHeightOfRowSpanPx(mItem.getHeight());
-        FrameLayout.LayoutParams params =
-            new FrameLayout.LayoutParams(
-                spanWidthPx,
-                spanHeightPx,
-                Gravity.CENTER);
-        resetTranslation();
-        host.getGridContainer().addView(mRootView, params);
+    }
+
+    /**
+     * Inflates the removal button and resize handles over the item's content, if that hasn't
+     * happened yet.
+     *
+     * @return Whether the controls were just inflated.
+     */
+    private boolean ensureEditControls() {
+        if (mRemovalView != null) {
+            return false;
+        }
+        LayoutInflater.from(mRootView.getContext())
+            .inflate(R.layout.grid_item_edit_controls, mRootView, true);
+        mRemovalView = mRootView.findViewById(R.id.widget_remove_button);
+        mLeftHandle = mRootView.findViewById(R.id.left_handle);
+        mRightHandle = mRootView.findViewById(R.id.right_handle);
+        mUpHandle = mRootView.findViewById(R.id.up_handle);
+        mDownHandle = mRootView.findViewById(R.id.down_handle);
+        if (mHost != null) {
+            attachEditControlListeners(mHost);
+        }
+        return true;
     }
 
     public void resetTranslation() {
@@ -224,6 +251,9 @@ public abstract class GridViewHolder {
     }
 
     public void enterEditMode() {
+        if (ensureEditControls()) {
+            hideViews(mRemovalView, mUpHandle, mDownHandle, mLeftHandle, mRightHandle);
+        }
         invalidateEditControls();
         mRootView.animate()
             .scaleX(SCALE_AMOUNT)
@@ -241,6 +271,9 @@ public abstract class GridViewHolder {
             .scaleY(1F)
             .setInterpolator(OVERSHOOT_INTERPOLATOR)
             .start();
+        if (mRemovalView == null) {
+            return;
+        }
         animateAlphaOut(
             mRemovalView, mUpHandle, mDownHandle, mLeftHandle, mRightHandle);
     }
@@ -30,6 +30,8 @@ public class GridViewHolderMap {
     // Rows -> Columns -> ViewHolders
     private final Map<Integer, Map<Integer, GridViewHolder>> mGrid;
     private final Set<GridViewHolder> mItems;
+    // Bumped whenever which cells are filled might have changed
+    private int mOccupancyVersion;
 
     public GridViewHolderMap(GridMetrics metrics) {
         mMetrics = metrics;
@@ -49,6 +51,7 @@ public class GridViewHolderMap {
     public void addHolder(GridViewHolder viewHolder) {
         mItems.add(viewHolder);
         addHolderToGrid(viewHolder);
+        mOccupancyVersion++;
     }
 
     private void addHolderToGrid(GridViewHolder viewHolder) {
@@ -76,6 +79,7 @@ public class GridViewHolderMap {
                 mGrid.get(row).remove(column);
             }
         }
+        mOccupancyVersion++;
         gridViewHolder.detachHost();
     }
 
@@ -88,6 +92,7 @@ public class GridViewHolderMap {
         for (GridViewHolder item : mItems) {
             addHolderToGrid(item);
         }
+        mOccupancyVersion++;
     }
 
     // Getters
@@ -96,6 +101,10 @@ public class GridViewHolderMap {
         return mItems;
     }
 
+    public int getOccupancyVersion() {
+        return mOccupancyVersion;
+    }
+
     public boolean canItemExpandOutInDirection(
         GridViewHolder viewHolder, GridViewHolder.ResizeDirection direction) {
         GridItem item = viewHolder.getItem();
@@ -198,31 +207,36 @@ public class GridViewHolderMap {
     public void dumpGridContents_SLOW() {
         DebugLogUtils.needle(
             TAG_ICON_CASCADE,
-            "Grid of " + mItems.size() + " items; " + mMetrics.getColumnCount() + "x" +
+            () -> "Grid of " + mItems.size() + " items; " + mMetrics.getColumnCount() + "x" +
                 mMetrics.getRowCount());
-        StringBuilder header = new StringBuilder();
-        header.append(" x=");
-        for (int i = 0; i < mMetrics.getColumnCount(); i++) {
-            header.append("[");
-            header.append(i);
-            header.append("]");
-        }
-        DebugLogUtils.needle(TAG_ICON_CASCADE, header.toString());
-        for (int i = 0; i < mMetrics.getRowCount(); i++) {
-            StringBuilder out = new StringBuilder();
-            out.append(String.format("%2d", i));
-            out.append("=");
-            for (int j = 0; j < mMetrics.getColumnCount(); j++) {
-                out
-                    .append("[")
-                    .append(hasItemAtIdx(i, j)
-                            ? String.valueOf(getItemAtIndex(
-                        i,
-                        j).mItem.getType())
-                            : "x")
-                    .append("]");
+        DebugLogUtils.needle(TAG_ICON_CASCADE, () -> {
+            StringBuilder header = new StringBuilder();
+            header.append(" x=");
+            for (int i = 0; i < mMetrics.getColumnCount(); i++) {
+                header.append("[");
+                header.append(i);
+                header.append("]");
             }
-            DebugLogUtils.needle(TAG_ICON_CASCADE, out.toString());
+            return header.toString();
+        });
+        for (int i = 0; i < mMetrics.getRowCount(); i++) {
+            final int row = i;
+            DebugLogUtils.needle(TAG_ICON_CASCADE, () -> {
+                StringBuilder out = new StringBuilder();
+                out.append(String.format("%2d", row));
+                out.append("=");
+                for (int j = 0; j < mMetrics.getColumnCount(); j++) {
+                    out
+                        .append("[")
+                        .append(hasItemAtIdx(row, j)
+                                ? String.valueOf(getItemAtIndex(
+                            row,
+                            j).mItem.getType())
+                                : "x")
+                        .append("]");
+                }
+                return out.toString();
+            });
         }
     }
 
@@ -259,7 +273,7 @@ public class GridViewHolderMap {
         final int width = draggedItem.getWidth();
         DebugLogUtils.needle(
             TAG_ICON_CASCADE,
-            "Asked to solve for " + targetCell + " w/ width=" + width + ", height=" + height +
+            () -> "Asked to solve for " + targetCell + " w/ width=" + width + ", height=" + height +
                 "; lastCell=" + lastTargetCell);
         if (targetCell.x + width > mMetrics.getColumnCount()) {
             return null;
@@ -274,7 +288,7 @@ public class GridViewHolderMap {
             ChangeDirection.RIGHT;
         DebugLogUtils.needle(
             TAG_ICON_CASCADE,
-            "Preferred direction = " + preferredDirection.name());
+            () -> "Preferred direction = " + preferredDirection.name());
         ChangeDirection secondaryDirection = preferredDirection.opposite();
         ChangeDirection[] directionsToProbe = ChangeDirection.values();
         int preferredDirectionIdx = 0;
@@ -294,14 +308,14 @@ public class GridViewHolderMap {
         directionsToProbe[secondaryDirectionIdx] = secondarySwap;
         DebugLogUtils.needle(
             TAG_ICON_CASCADE,
-            "Probing translation-based solution starting with directions in array=" +
+            () -> "Probing translation-based solution starting with directions in array=" +
                 Arrays.toString(directionsToProbe));
 
         // Probe for solution by a translation solution
         for (ChangeDirection direction : directionsToProbe) {
             DirectionCheck:
             {
-                DebugLogUtils.needle(TAG_ICON_CASCADE, "Checking " + direction.name());
+                DebugLogUtils.needle(TAG_ICON_CASCADE, () -> "Checking " + direction.name());
 
                 // Elements move from holdersToMove -> movedHolders; when holdersToMove is
                 // empty (or we expressly continue, because we found something that couldn't be moved)
@@ -319,7 +333,7 @@ public class GridViewHolderMap {
                                 if (holder != null && !holdersToMove.contains(holder)) {
                                     DebugLogUtils.needle(
                                         TAG_ICON_CASCADE,
-                                        "Initially queueing " + holder.getItem() +
+                                        () -> "Initially queueing " + holder.getItem() +
                                             " for displacement");
                                     holdersToMove.add(holder);
                                 }
@@ -337,27 +351,28 @@ public class GridViewHolderMap {
                             GridViewHolder holder = holdersToMove.pop();
                             GridItem item = holder.getItem();
                             final int targetX = item.getX();
-                            int targetY = Integer.MAX_VALUE;
+                            int workingY = Integer.MAX_VALUE;
                             for (
                                 int col = item.getX();
                                 col < item.getX() + item.getWidth();
                                 col++) {
-                                targetY = Math.min(
-                                    targetY,
+                                workingY = Math.min(
+                                    workingY,
                                     colToWorkingRowIndex[col] - (item.getHeight() - 1));
                             }
+                            final int targetY = workingY;
                             if (targetY < 0) {
                                 // Without changing column too, we can't accommodate this movement
                                 DebugLogUtils.needle(
                                     TAG_ICON_CASCADE,
-                                    "Couldn't find an up solution b/c " + item.toString() +
+                                    () -> "Couldn't find an up solution b/c " + item.toString() +
                                         " was pushed to " + targetX + "x" + targetY);
                                 break DirectionCheck;
                             }
                             // Queue movements
                             DebugLogUtils.needle(
                                 TAG_ICON_CASCADE,
-                                "Queue translation to " + targetX + ", " + targetY + " for " +
+                                () -> "Queue translation to " + targetX + ", " + targetY + " for " +
                                     holder.getItem());
                             holder.queueTranslation(targetX, targetY);
                             // Mark all the things it's covering up now for later processing
@@ -371,7 +386,7 @@ public class GridViewHolderMap {
                                         displacedHolder != holder) {
                                         DebugLogUtils.needle(
                                             TAG_ICON_CASCADE,
-                                            "Secondary[+] order move queued for " +
+                                            () -> "Secondary[+] order move queued for " +
                                                 displacedHolder.getItem());
                                         holdersToMove.add(displacedHolder);
                                     }
@@ -393,7 +408,7 @@ public class GridViewHolderMap {
                                 if (holder != null && !holdersToMove.contains(holder)) {
                                     DebugLogUtils.needle(
                                         TAG_ICON_CASCADE,
-                                        "Initially queueing " + holder.getItem() +
+                                        () -> "Initially queueing " + holder.getItem() +
                                             " for displacement");
                                     holdersToMove.add(holder);
                                 }
@@ -411,20 +426,21 @@ public class GridViewHolderMap {
                             GridViewHolder holder = holdersToMove.pop();
                             GridItem item = holder.getItem();
                             final int targetX = item.getX();
-                            int targetY = Integer.MIN_VALUE;
+                            int workingY = Integer.MIN_VALUE;
                             for (
                                 int col = item.getX();
                                 col < item.getX() + item.getWidth();
                                 col++) {
-                                targetY = Math.max(
-                                    targetY,
+                                workingY = Math.max(
+                                    workingY,
                                     colToWorkingRowIndex[col]);
                             }
+                            final int targetY = workingY;
                             if (targetY + item.getHeight() > mMetrics.getRowCount()) {
                                 // Without changing column too, we can't accommodate this movement
                                 DebugLogUtils.needle(
                                     TAG_ICON_CASCADE,
-                                    "Couldn't find a down solution b/c " + item.toString() +
+                                    () -> "Couldn't find a down solution b/c " + item.toString() +
                                         " was pushed to " + targetX + "x" + targetY);
                                 break DirectionCheck;
                             }
@@ -459,7 +475,7 @@ public class GridViewHolderMap {
                                 if (holder != null && !holdersToMove.contains(holder)) {
                                     DebugLogUtils.needle(
                                         TAG_ICON_CASCADE,
-                                        "Initially queueing " + holder.getItem() +
+                                        () -> "Initially queueing " + holder.getItem() +
                                             " for displacement");
                                     holdersToMove.add(holder);
                                 }
@@ -477,27 +493,28 @@ public class GridViewHolderMap {
                             GridViewHolder holder = holdersToMove.pop();
                             GridItem item = holder.getItem();
                             final int targetY = item.getY();
-                            int targetX = Integer.MAX_VALUE;
+                            int workingX = Integer.MAX_VALUE;
                             for (
                                 int row = item.getY();
                                 row < item.getY() + item.getHeight();
                                 row++) {
-                                targetX = Math.min(
-                                    targetX,
+                                workingX = Math.min(
+                                    workingX,
                                     rowToWorkingColIndex[row] - (item.getWidth() - 1));
                             }
+                            final int targetX = workingX;
                             if (targetX < 0) {
                                 // Without changing row too, we can't accommodate this movement
                                 DebugLogUtils.needle(
                                     TAG_ICON_CASCADE,
-                                    "Couldn't find an up solution b/c " + item.toString() +
+                                    () -> "Couldn't find an up solution b/c " + item.toString() +
                                         " was pushed to " + targetX + "x" + targetY);
                                 break DirectionCheck;
                             }
                             // Queue movements
                             DebugLogUtils.needle(
                                 TAG_ICON_CASCADE,
-                                "Queue translation to " + targetX + ", " + targetY + " for " +
+                                () -> "Queue translation to " + targetX + ", " + targetY + " for " +
                                     holder.getItem());
                             holder.queueTranslation(targetX, targetY);
                             // Mark all the things it's covering up now for later processing
@@ -512,7 +529,7 @@ public class GridViewHolderMap {
                                         displacedHolder != holder) {
                                         DebugLogUtils.needle(
                                             TAG_ICON_CASCADE,
-                                            "Secondary[+] order move queued for " +
+                                            () -> "Secondary[+] order move queued for " +
                                                 displacedHolder.getItem());
                                         holdersToMove.add(displacedHolder);
                                     }
@@ -534,7 +551,7 @@ public class GridViewHolderMap {
                                 if (holder != null && !holdersToMove.contains(holder)) {
                                     DebugLogUtils.needle(
                                         TAG_ICON_CASCADE,
-                                        "Initially queueing " + holder.getItem() +
+                                        () -> "Initially queueing " + holder.getItem() +
                                             " for displacement");
                                     holdersToMove.add(holder);
                                 }
@@ -552,27 +569,28 @@ public class GridViewHolderMap {
                             GridViewHolder holder = holdersToMove.pop();
                             GridItem item = holder.getItem();
                             final int targetY = item.getY();
-                            int targetX = Integer.MIN_VALUE;
+                            int workingX = Integer.MIN_VALUE;
                             for (
                                 int row = item.getY();
                                 row < item.getY() + item.getHeight();
                                 row++) {
-                                targetX = Math.max(
-                                    targetX,
+                                workingX = Math.max(
+                                    workingX,
                                     rowToWorkingColIndex[row]);
                             }
+                            final int targetX = workingX;
                             if (targetX + item.getWidth() > mMetrics.getColumnCount()) {
                                 // Without changing row too, we can't accommodate this movement
                                 DebugLogUtils.needle(
                                     TAG_ICON_CASCADE,
-                                    "Couldn't find an up solution b/c " + item.toString() +
+                                    () -> "Couldn't find an up solution b/c " + item.toString() +
                                         " was pushed to " + targetX + "x" + targetY);
                                 break DirectionCheck;
                             }
                             // Queue movements
                             DebugLogUtils.needle(
                                 TAG_ICON_CASCADE,
-                                "Queue translation to " + targetX + ", " + targetY + " for " +
+                                () -> "Queue translation to " + targetX + ", " + targetY + " for " +
                                     holder.getItem());
                             holder.queueTranslation(targetX, targetY);
                             // Mark all the things it's covering up now for later processing
@@ -587,7 +605,7 @@ public class GridViewHolderMap {
                                         displacedHolder != holder) {
                                         DebugLogUtils.needle(
                                             TAG_ICON_CASCADE,
-                                            "Secondary[+] order move queued for " +
+                                            () -> "Secondary[+] order move queued for " +
                                                 displacedHolder.getItem());
                                         holdersToMove.add(displacedHolder);
                                     }
@@ -655,13 +673,13 @@ public class GridViewHolderMap {
             targetCell.y,
             targetCell.x + draggedItem.getWidth(),
             targetCell.y + draggedItem.getHeight());
-        DebugLogUtils.needle(TAG_ICON_CASCADE, "oldArea: " + oldArea + ", newArea: " + newArea);
+        DebugLogUtils.needle(TAG_ICON_CASCADE, () -> "oldArea: " + oldArea + ", newArea: " + newArea);
         final boolean doTargetCellAndLastTargetCellBoundsOverlap = oldArea.intersect(newArea);
         if (displacedItemsStretchBeyondTargetBounds || doTargetCellAndLastTargetCellBoundsOverlap) {
             DebugLogUtils.needle(TAG_ICON_CASCADE, "Could find NO solution :(");
             DebugLogUtils.needle(
                 TAG_ICON_CASCADE,
-                "beyond target bounds = " +
+                () -> "beyond target bounds = " +
                     displacedItemsStretchBeyondTargetBounds +
                     " & bounds overlap = " +
                     doTargetCellAndLastTargetCellBoundsOverlap);
@@ -690,11 +708,11 @@ public class GridViewHolderMap {
     }
 
     private void dumpQueuedChanges(Set<GridViewHolder> queuedHolders) {
-        DebugLogUtils.needle(TAG_ICON_CASCADE, queuedHolders.size() + " queued changes");
+        DebugLogUtils.needle(TAG_ICON_CASCADE, () -> queuedHolders.size() + " queued changes");
         for (GridViewHolder holder : queuedHolders) {
             DebugLogUtils.needle(
                 TAG_ICON_CASCADE,
-                holder.getItem().toString() + " -> " + holder.getQueuedTranslation());
+                () -> holder.getItem().toString() + " -> " + holder.getQueuedTranslation());
         }
     }
 
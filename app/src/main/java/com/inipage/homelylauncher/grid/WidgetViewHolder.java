@@ -2,38 +2,114 @@ package com.inipage.homelylauncher.grid;
 
 import android.appwidget.AppWidgetHostView;
 import android.appwidget.AppWidgetProviderInfo;
+import android.content.Context;
+import android.graphics.Bitmap;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.FrameLayout;
+import android.widget.ImageView;
 
-import com.inipage.homelylauncher.model.ClassicGridItem;
+import com.inipage.homelylauncher.caches.WidgetSnapshotCache;
 import com.inipage.homelylauncher.model.GridItem;
+import com.inipage.homelylauncher.widgets.DeferrableAppWidgetHostView;
 import com.inipage.homelylauncher.widgets.WidgetLifecycleUtils;
 
+import javax.annotation.Nullable;
+
+/**
+ * Holds a widget on the grid. The live AppWidgetHostView is only created once the page gets close
+ * to being visible; until then (and after the page scrolls away) a cached snapshot is shown.
+ */
 public class WidgetViewHolder extends GridViewHolder {
 
+    private final Context mContext;
     private final AppWidgetProviderInfo mAppWidgetProviderInfo;
-    private final AppWidgetHostView mWidgetHostView;
+    private final ImageView mSnapshotView;
+    @Nullable private AppWidgetHostView mWidgetHostView;
+    private boolean mIsLive;
 
     public WidgetViewHolder(
-        AppWidgetHostView hostView,
+        Context context,
         AppWidgetProviderInfo widgetProviderInfo,
         GridItem gridItem)
     {
-        super(hostView.getContext(), gridItem);
-        mWidgetHostView = hostView;
+        // The host view itself is created with the application Context, in WidgetLifecycleUtils;
+        // the edit controls around it keep the activity's theme
+        super(context, gridItem);
+        mContext = context;
         mAppWidgetProviderInfo = widgetProviderInfo;
+        mSnapshotView = new ImageView(mRootView.getContext());
+        mSnapshotView.setScaleType(ImageView.ScaleType.FIT_XY);
         mRootView.addView(
-            mWidgetHostView,
+            mSnapshotView,
             0,
             new FrameLayout.LayoutParams(
                 ViewGroup.LayoutParams.MATCH_PARENT,
                 ViewGroup.LayoutParams.MATCH_PARENT));
+        WidgetSnapshotCache.getInstance(mContext).loadSnapshot(
+            getAppWidgetId(),
+            snapshot -> {
+                if (!mIsLive) {
+                    mSnapshotView.setImageBitmap(snapshot);
+                }
+            });
+    }
+
+    /**
+     * Swap between the live widget and its snapshot. Live widgets have RemoteViews applied as they
+     * arrive; non-live widgets defer them until they become live again.
+     */
+    public void setLive(boolean live) {
+        if (mIsLive == live) {
+            return;
+        }
+        if (live) {
+            if (mWidgetHostView == null) {
+                mWidgetHostView = WidgetLifecycleUtils.buildAppWidgetHostView(
+                    mContext,
+                    getAppWidgetId(),
+                    mAppWidgetProviderInfo,
+                    getGridMetrics().getWidthOfColumnSpanPx(mItem.getWidth()),
+                    getGridMetrics().getHeightOfRowSpanPx(mItem.getHeight()));
+                mRootView.addView(
+                    mWidgetHostView,
+                    0,
+                    new FrameLayout.LayoutParams(
+                        ViewGroup.LayoutParams.MATCH_PARENT,
+                        ViewGroup.LayoutParams.MATCH_PARENT));
+            }
+            if (mWidgetHostView instanceof DeferrableAppWidgetHostView) {
+                ((DeferrableAppWidgetHostView) mWidgetHostView).setDeferUpdates(false);
+            }
+            mWidgetHostView.setVisibility(View.VISIBLE);
+            mSnapshotView.setVisibility(View.GONE);
+            mSnapshotView.setImageBitmap(null);
+        } else {
+            if (mWidgetHostView instanceof DeferrableAppWidgetHostView) {
+                final DeferrableAppWidgetHostView hostView =
+                    (DeferrableAppWidgetHostView) mWidgetHostView;
+                @Nullable final Bitmap snapshot = hostView.captureSnapshot();
+                if (snapshot != null) {
+                    WidgetSnapshotCache.getInstance(mContext).putSnapshot(getAppWidgetId(), snapshot);
+                }
+                mSnapshotView.setImageBitmap(
+                    WidgetSnapshotCache.getInstance(mContext).getSnapshot(getAppWidgetId()));
+                hostView.setDeferUpdates(true);
+            }
+            if (mWidgetHostView != null) {
+                mWidgetHostView.setVisibility(View.GONE);
+            }
+            mSnapshotView.setVisibility(View.VISIBLE);
+        }
+        mIsLive = live;
     }
 
     @Override
     public void onResized() {
         super.onResized();
+        if (mWidgetHostView == null) {
+            return;
+        }
         final int width = getGridMetrics().getWidthOfColumnSpanPx(mItem.getWidth());
         final int height = getGridMetrics().getHeightOfRowSpanPx(mItem.getHeight());
         WidgetLifecycleUtils.updateAppWidgetSize(mWidgetHostView, width, height);
@@ -41,10 +117,14 @@ public class WidgetViewHolder extends GridViewHolder {
 
     @Override
     public View getDragView() {
-        return mWidgetHostView;
+        return mIsLive && mWidgetHostView != null ? mWidgetHostView : mSnapshotView;
     }
 
     public AppWidgetProviderInfo getProviderInfo() {
         return mAppWidgetProviderInfo;
     }
+
+    public int getAppWidgetId() {
+        return mItem.getWidgetID();
+    }
 }
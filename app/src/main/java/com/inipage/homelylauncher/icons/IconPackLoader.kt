@@ -8,6 +8,8 @@ import android.content.res.XmlResourceParser
 import android.graphics.drawable.Drawable
 import com.inipage.homelylauncher.persistence.PrefsHelper
 import org.xmlpull.v1.XmlPullParser
+import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
 import android.util.Pair as APair
 
 class IconPackLoader(context: Context, private val packageName: String) {
@@ -15,10 +17,11 @@ class IconPackLoader(context: Context, private val packageName: String) {
     val resources = context.packageManager.getResourcesForApplication(packageName)
 
     private val standIns = PrefsHelper.loadStandIns(packageName)
-    private val knownDrawables = ArrayList<String>()
-    val iconPackDrawables: List<String> = knownDrawables
-    private val drawableNameToResId = HashMap<String, Int>()
-    private val componentToDrawableName = HashMap<APair<String, String>, String>()
+    // Both are read from several threads during icon revalidation, so neither changes once parsed
+    val iconPackDrawables: List<String> = loadKnownDrawables()
+    private val componentToDrawableName = loadComponentLookupMap()
+    // Filled lazily, possibly from several threads during icon revalidation
+    private val drawableNameToResId = ConcurrentHashMap<String, Int>()
 
     @SuppressLint("UseCompatLoadingForDrawables")
     fun loadDrawableByName(drawableName: String): Drawable? {
@@ -58,8 +61,9 @@ class IconPackLoader(context: Context, private val packageName: String) {
      * time.
      */
     @SuppressLint("DiscouragedApi")
-    private fun loadKnownDrawables() {
-        val xmlParser = getXmlForName("drawable") ?: return
+    private fun loadKnownDrawables(): List<String> {
+        val knownDrawables = ArrayList<String>()
+        val xmlParser = getXmlForName("drawable") ?: return knownDrawables
 
         // Go through and grab drawable="" components
         var eventType = xmlParser.eventType
@@ -75,40 +79,21 @@ class IconPackLoader(context: Context, private val packageName: String) {
             eventType = xmlParser.next()
         }
         xmlParser.close()
+        return Collections.unmodifiableList(knownDrawables)
     }
 
-    private fun loadComponentLookupMap() {
-        val xmlParser = getXmlForName("appfilter") ?: return
-
-        var eventType = xmlParser.eventType
-        while (eventType != XmlPullParser.END_DOCUMENT) {
-            if (eventType != XmlPullParser.START_TAG) {
-                eventType = xmlParser.next()
-                continue
-            }
-            val componentValue = xmlParser.getAttributeValue(null, "component")
-            val drawableValue = xmlParser.getAttributeValue(null, "drawable")
-            eventType = xmlParser.next()
-            if (componentValue != null && drawableValue != null) {
-                // ComponentInfo{packageName/activity}
-                val startIdx = componentValue.indexOf("{") + 1
-                val endIdx = componentValue.indexOf("}")
-                val midPoint = componentValue.indexOf("/")
-                if (startIdx >= componentValue.length|| endIdx < 0 || midPoint < 0 ||
-                    midPoint > endIdx || midPoint <= startIdx) {
-                    continue
-                }
-                val packageName = componentValue.substring(startIdx, midPoint)
-                val activityName = componentValue.substring(midPoint + 1, endIdx)
-                componentToDrawableName[APair.create(packageName, activityName)] = drawableValue
-            }
+    private fun loadComponentLookupMap(): Map<APair<String, String>, String> {
+        val componentToDrawableName = HashMap<APair<String, String>, String>()
+        val xmlParser = getXmlForName("appfilter") ?: return componentToDrawableName
+        AppFilterParser.parse(xmlParser) { pkg, activity, drawableName ->
+            componentToDrawableName[APair.create(pkg, activity)] = drawableName
         }
-
         xmlParser.close()
+        return Collections.unmodifiableMap(componentToDrawableName)
     }
 
     private fun getResIdFromDrawableName(name: String): Int? {
-        if (drawableNameToResId.contains(name)) {
+        if (drawableNameToResId.containsKey(name)) {
             return drawableNameToResId[name]
         }
         val resId = resources.getIdentifier(
@@ -134,11 +119,6 @@ class IconPackLoader(context: Context, private val packageName: String) {
         return resources.getXml(id)
     }
 
-    init {
-        loadKnownDrawables()
-        loadComponentLookupMap()
-    }
-
     companion object {
         fun resolveIconPacks(context: Context): List<APair<String, String>> {
             val list = ArrayList<APair<String, String>>()
@@ -3,6 +3,7 @@ package com.inipage.homelylauncher.model;
 import android.content.Context;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.inipage.homelylauncher.caches.AppLabelCache;
 import com.inipage.homelylauncher.drawer.FastScrollable;
@@ -12,21 +13,46 @@ public class ApplicationIcon extends FastScrollable {
     private final String packageName;
     private final String activityName;
     private final int hashCode;
+    // Shares the cached section and sort key, when the label came from AppLabelCache
+    @Nullable private final AppLabelCache.Entry labelEntry;
 
     public ApplicationIcon(String packageName, String activityName, Context labelContext) {
         this(
             packageName,
             activityName,
-            AppLabelCache.getInstance(labelContext).getLabel(packageName, activityName));
+            AppLabelCache
+                .getInstance(labelContext)
+                .getEntry(ComponentKey.of(packageName, activityName)));
+    }
+
+    public ApplicationIcon(
+        String packageName, String activityName, AppLabelCache.Entry labelEntry) {
+        this(packageName, activityName, labelEntry.getLabel(), labelEntry);
     }
 
     public ApplicationIcon(String packageName, String activityName, String label) {
+        this(packageName, activityName, label, null);
+    }
+
+    private ApplicationIcon(
+        String packageName,
+        String activityName,
+        String label,
+        @Nullable AppLabelCache.Entry labelEntry) {
         this.label = label;
         this.packageName = packageName;
         this.activityName = activityName;
+        this.labelEntry = labelEntry;
         this.hashCode = (packageName.hashCode() * 37) + activityName.hashCode();
     }
 
+    /**
+     * Copy |source|, sharing its label entry.
+     */
+    protected ApplicationIcon(ApplicationIcon source) {
+        this(source.packageName, source.activityName, source.label, source.labelEntry);
+    }
+
     public ApplicationIcon(String name) {
         this(name, name, name);
     }
@@ -36,6 +62,16 @@ public class ApplicationIcon extends FastScrollable {
         return label;
     }
 
+    @Override
+    public char getScrollableField() {
+        return labelEntry != null ? labelEntry.getSection() : super.getScrollableField();
+    }
+
+    @Override
+    public byte[] getSortKey() {
+        return labelEntry != null ? labelEntry.getSortKey() : super.getSortKey();
+    }
+
     public String getPackageName() {
         return packageName;
     }
@@ -6,19 +6,29 @@ import android.content.pm.LauncherActivityInfo;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.inipage.homelylauncher.caches.AppLabelCache;
+
 public class ApplicationIconHideable extends ApplicationIcon {
 
     private boolean mIsHidden;
 
     public ApplicationIconHideable(
         LauncherActivityInfo app,
-        Context context,
+        AppLabelCache.Entry labelEntry,
         boolean hiddenLocally) {
-        this(
-            context,
+        super(
             app.getComponentName().getPackageName(),
             app.getComponentName().getClassName(),
-            hiddenLocally);
+            labelEntry);
+        this.mIsHidden = hiddenLocally;
+    }
+
+    /**
+     * Copy |source| with a new hidden state, without looking anything up again.
+     */
+    public ApplicationIconHideable(ApplicationIcon source, boolean hiddenLocally) {
+        super(source);
+        this.mIsHidden = hiddenLocally;
     }
 
     public ApplicationIconHideable(
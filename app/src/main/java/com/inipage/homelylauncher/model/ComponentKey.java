@@ -0,0 +1,79 @@
+package com.inipage.homelylauncher.model;
+
+import androidx.annotation.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Canonical identity for an activity (package name + activity name). Keys are interned, so there's
+ * exactly one instance per component: equality is identity, the hash is precomputed, and each key
+ * gets a small int id that can be used with SparseArrays and int[]s in hot paths.
+ * <p>
+ * Looking up a key that already exists doesn't allocate.
+ */
+public final class ComponentKey {
+
+    private static final Map<String, Map<String, ComponentKey>> s_REGISTRY =
+        new ConcurrentHashMap<>();
+    private static final AtomicInteger s_NEXT_ID = new AtomicInteger();
+
+    private final String mPackageName;
+    private final String mActivityName;
+    private final int mId;
+    private final int mHashCode;
+
+    private ComponentKey(String packageName, String activityName, int id) {
+        mPackageName = packageName;
+        mActivityName = activityName;
+        mId = id;
+        mHashCode = packageName.hashCode() * 31 + activityName.hashCode();
+    }
+
+    public static ComponentKey of(String packageName, String activityName) {
+        Map<String, ComponentKey> activities = s_REGISTRY.get(packageName);
+        if (activities == null) {
+            activities = s_REGISTRY.computeIfAbsent(packageName, __ -> new ConcurrentHashMap<>());
+        }
+        final ComponentKey key = activities.get(activityName);
+        if (key != null) {
+            return key;
+        }
+        return activities.computeIfAbsent(
+            activityName,
+            __ -> new ComponentKey(packageName, activityName, s_NEXT_ID.getAndIncrement()));
+    }
+
+    public String getPackageName() {
+        return mPackageName;
+    }
+
+    public String getActivityName() {
+        return mActivityName;
+    }
+
+    /**
+     * @return An id unique to this component for the life of the process. Not stable across
+     * processes, so don't persist it.
+     */
+    public int getId() {
+        return mId;
+    }
+
+    @Override
+    public int hashCode() {
+        return mHashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return mPackageName + "/" + mActivityName;
+    }
+}
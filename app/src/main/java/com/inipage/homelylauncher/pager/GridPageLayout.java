@@ -28,6 +28,7 @@ import static com.inipage.homelylauncher.utils.ViewUtils.getRawXWithPointerId;
 import static com.inipage.homelylauncher.utils.ViewUtils.getRawYWithPointerId;
 
 import java.lang.ref.WeakReference;
+import java.util.function.Supplier;
 
 /**
  * Container for the grid. Handles stealing events for big swipes down and up, and long presses on
@@ -253,18 +254,18 @@ public class GridPageLayout extends FrameLayout {
      */
     @Override
     public synchronized void requestDisallowInterceptTouchEvent(boolean disallowIntercept) {
-        log("requestDisallowInterceptTouchEvent disallowIntercept=" + disallowIntercept);
+        log(() -> "requestDisallowInterceptTouchEvent disallowIntercept=" + disallowIntercept);
         if (!disallowIntercept) {
             log("Allowing intercept disable (we always allow this)");
         } else {
             if (mDetectedState == GestureDetectedState.UNDECIDED) {
                 // Pass to parent
-                log("Allowing intercept to kill event request b/c current state is " +
+                log(() -> "Allowing intercept to kill event request b/c current state is " +
                         mDetectedState.name());
                 clearLongPressHandler();
                 mDetectedState = GestureDetectedState.EVENT_DEAD;
             } else {
-                log("Not handling intercept during state " + mDetectedState.name());
+                log(() -> "Not handling intercept during state " + mDetectedState.name());
             }
         }
         if (getParent() != null) {
@@ -321,12 +322,20 @@ public class GridPageLayout extends FrameLayout {
         }
     }
 
-    private void log(String... vals) {
+    private void log(String message) {
         DebugLogUtils.needle(
             DebugLogUtils.TAG_CUSTOM_TOUCHEVENTS,
             1,
             getClass().getSimpleName(),
-            vals);
+            message);
+    }
+
+    private void log(Supplier<String> message) {
+        DebugLogUtils.needle(
+            DebugLogUtils.TAG_CUSTOM_TOUCHEVENTS,
+            1,
+            getClass().getSimpleName(),
+            message);
     }
 
     private static class LongPressHandler extends Handler {
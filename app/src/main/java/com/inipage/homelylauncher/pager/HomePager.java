@@ -40,6 +40,8 @@ public class HomePager extends RecyclerView.Adapter<HomePager.PagerHolder> {
 
     private static final int VIEW_TYPE_APP_DRAWER = 0;
     private static final int VIEW_TYPE_GRID_PAGE = 1;
+    // How many pages to either side of the ones on screen keep their widgets live
+    private static final int NEAR_VISIBLE_PAGE_DISTANCE = 1;
     private final Host mHost;
     private final AppDrawerController mAppDrawerController;
 
@@ -47,6 +49,8 @@ public class HomePager extends RecyclerView.Adapter<HomePager.PagerHolder> {
     private final List<ClassicGridPage> mGridPages;
     private final List<ClassicGridPageController> mGridPageControllers;
     private final Map<String, ClassicGridPageController> mGridPageIdToController;
+    // Left-most pager position last reported on screen; home opens on the first grid page
+    private int mNearVisiblePosition = 1;
 
     public HomePager(final Host host, final ViewGroup rootView) {
         mHost = host;
@@ -79,6 +83,7 @@ public class HomePager extends RecyclerView.Adapter<HomePager.PagerHolder> {
         mGridPageIdToController.put(newPage.getID(), newController);
         mGridPageControllers.add(newController);
         DatabaseEditor.get().saveGridPages(mGridPages);
+        updateNearVisiblePages(mNearVisiblePosition);
         notifyItemInserted(mGridPages.size());
         EventBus.getDefault().post(new PagesChangedEvent(mGridPages.size()));
     }
@@ -87,6 +92,23 @@ public class HomePager extends RecyclerView.Adapter<HomePager.PagerHolder> {
         return mGridPages;
     }
 
+    /**
+     * Update which grid pages are close enough to the screen to host live widgets.
+     *
+     * @param position The left-most pager position currently (partially) on screen.
+     */
+    public void updateNearVisiblePages(int position) {
+        mNearVisiblePosition = position;
+        for (int i = 0; i < mGridPageControllers.size(); i++) {
+            mGridPageControllers.get(i).setNearVisible(isNearVisible(i + 1));
+        }
+    }
+
+    private boolean isNearVisible(int pagerPosition) {
+        return pagerPosition >= mNearVisiblePosition - NEAR_VISIBLE_PAGE_DISTANCE &&
+            pagerPosition <= mNearVisiblePosition + 1 + NEAR_VISIBLE_PAGE_DISTANCE;
+    }
+
 
     @Subscribe(threadMode = ThreadMode.MAIN)
     public void onEditingEvent(EditingEvent event) {
@@ -113,6 +135,7 @@ public class HomePager extends RecyclerView.Adapter<HomePager.PagerHolder> {
         }
         mGridPages.removeAll(pagesToDrop);
         mGridPageControllers.removeAll(controllersToDrop);
+        updateNearVisiblePages(mNearVisiblePosition);
         notifyDataSetChanged();
         EventBus.getDefault().post(new PagesChangedEvent(mGridPages.size()));
     }
@@ -142,6 +165,7 @@ public class HomePager extends RecyclerView.Adapter<HomePager.PagerHolder> {
             return;
         }
         final BaseGridPageController relevantController = mGridPageControllers.get(position - 1);
+        relevantController.setNearVisible(isNearVisible(position));
         relevantController.bind(holder.mainView);
         holder.attachPageController(relevantController);
     }
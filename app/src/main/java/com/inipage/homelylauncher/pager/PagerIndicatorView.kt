@@ -19,11 +19,11 @@ class PagerIndicatorView @JvmOverloads constructor(
     private val paint: Paint
 
     @SizeValAttribute(2F)
-    private var strokeWidth = AttributeApplier.floatValue()
+    private var strokeWidth = 0F
     @SizeValAttribute(4F)
-    private var rectRounding = AttributeApplier.floatValue()
+    private var rectRounding = 0F
     @SizeValAttribute(8F)
-    private var indicatorHeight = AttributeApplier.floatValue()
+    private var indicatorHeight = 0F
 
     private var paddingBetweenIndicators = 0F
     private var gridPageIndicatorWidth = 0F
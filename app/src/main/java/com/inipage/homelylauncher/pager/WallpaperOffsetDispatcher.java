@@ -0,0 +1,141 @@
+package com.inipage.homelylauncher.pager;
+
+import static com.inipage.homelylauncher.utils.DebugLogUtils.TAG_WALLPAPER_OFFSET;
+
+import android.app.WallpaperManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.view.Choreographer;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.inipage.homelylauncher.utils.DebugLogUtils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends wallpaper offsets for the pager without blocking it on the wallpaper service.
+ * <p>
+ * The pager reports its position many times per frame during a fling, and every offset is a binder
+ * call. Here offsets are coalesced to the latest value once per frame, duplicates are dropped, and
+ * the calls themselves happen on a background thread. Whether a live wallpaper is set is looked up
+ * once and cached until {@link #invalidateWallpaperInfo()}.
+ */
+public class WallpaperOffsetDispatcher {
+
+    private static final float UNSET_OFFSET = -1F;
+
+    private final WallpaperManager mWallpaperManager;
+    private final View mTokenView;
+    private final HandlerThread mThread;
+    private final Handler mHandler;
+    private final Choreographer.FrameCallback mFrameCallback = this::onFrame;
+    private final Runnable mSendOffset = this::sendOffset;
+    private final AtomicBoolean mSendQueued = new AtomicBoolean();
+
+    // Main thread only
+    private float mPendingOffset = UNSET_OFFSET;
+    private boolean mFrameScheduled;
+
+    // Written on the main thread, read on the background thread
+    @Nullable private volatile IBinder mWindowToken;
+    private volatile float mLatestOffset = UNSET_OFFSET;
+
+    // Background thread only
+    @Nullable private Boolean mHasLiveWallpaper;
+    private float mLatestOffsetSteps = UNSET_OFFSET;
+    private float mSentOffset = UNSET_OFFSET;
+    private float mSentOffsetSteps = UNSET_OFFSET;
+
+    public WallpaperOffsetDispatcher(View tokenView) {
+        mWallpaperManager = WallpaperManager.getInstance(tokenView.getContext());
+        mTokenView = tokenView;
+        mThread = new HandlerThread("WallpaperOffsetDispatcher");
+        mThread.start();
+        mHandler = new Handler(mThread.getLooper());
+    }
+
+    /**
+     * Queue an offset; only the last one set before the next frame is sent.
+     */
+    public void setOffset(float offset) {
+        mPendingOffset = offset;
+        if (mFrameScheduled) {
+            return;
+        }
+        mFrameScheduled = true;
+        Choreographer.getInstance().postFrameCallback(mFrameCallback);
+    }
+
+    public void setOffsetSteps(float steps) {
+        mHandler.post(() -> {
+            mLatestOffsetSteps = steps;
+            sendOffsetSteps();
+        });
+    }
+
+    /**
+     * The wallpaper may have changed while we were in the background; look it up again before the
+     * next offset is sent. Sends the latest offset again, since a new wallpaper starts centered.
+     */
+    public void invalidateWallpaperInfo() {
+        mHandler.post(() -> {
+            mHasLiveWallpaper = null;
+            mSentOffset = mSentOffsetSteps = UNSET_OFFSET;
+            sendOffsetSteps();
+            sendOffset();
+        });
+    }
+
+    public void destroy() {
+        Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        mThread.quitSafely();
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        mFrameScheduled = false;
+        @Nullable final IBinder windowToken = mTokenView.getWindowToken();
+        if (windowToken == null) {
+            return;
+        }
+        mWindowToken = windowToken;
+        mLatestOffset = mPendingOffset;
+        if (mSendQueued.compareAndSet(false, true)) {
+            mHandler.post(mSendOffset);
+        }
+    }
+
+    private void sendOffset() {
+        mSendQueued.set(false);
+        final float offset = mLatestOffset;
+        @Nullable final IBinder windowToken = mWindowToken;
+        if (offset == UNSET_OFFSET ||
+            offset == mSentOffset ||
+            windowToken == null ||
+            !hasLiveWallpaper()) {
+            return;
+        }
+        mWallpaperManager.setWallpaperOffsets(windowToken, offset, 0);
+        mSentOffset = offset;
+        DebugLogUtils.needle(TAG_WALLPAPER_OFFSET, () -> "Update wallpaper offset: " + offset);
+    }
+
+    private void sendOffsetSteps() {
+        final float steps = mLatestOffsetSteps;
+        if (steps == UNSET_OFFSET || steps == mSentOffsetSteps || !hasLiveWallpaper()) {
+            return;
+        }
+        mWallpaperManager.setWallpaperOffsetSteps(steps, 0);
+        mSentOffsetSteps = steps;
+        DebugLogUtils.needle(TAG_WALLPAPER_OFFSET, () -> "Offset steps: " + steps);
+    }
+
+    private boolean hasLiveWallpaper() {
+        if (mHasLiveWallpaper == null) {
+            mHasLiveWallpaper = mWallpaperManager.getWallpaperInfo() != null;
+        }
+        return mHasLiveWallpaper;
+    }
+}
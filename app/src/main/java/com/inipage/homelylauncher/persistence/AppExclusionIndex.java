@@ -0,0 +1,140 @@
+package com.inipage.homelylauncher.persistence;
+
+import com.inipage.homelylauncher.HomeActivity;
+import com.inipage.homelylauncher.model.ClassicGridItem;
+import com.inipage.homelylauncher.model.ClassicGridPage;
+import com.inipage.homelylauncher.model.ComponentKey;
+import com.inipage.homelylauncher.model.DockItem;
+import com.inipage.homelylauncher.utils.Constants;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Activities that shouldn't be suggested in the dock: those hidden in the drawer, hidden from the
+ * dock, or already sitting on a grid page.
+ * <p>
+ * Maintained by DatabaseEditor as those tables are written, so nobody needs to rebuild it. Writes
+ * are synchronized and publish a fresh sorted array of ComponentKey ids; reads are a lock-free
+ * binary search over whichever array was last published.
+ */
+public class AppExclusionIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<String, int[]> mGridPageComponents = new HashMap<>();
+    private final Set<Integer> mHiddenApps = new HashSet<>();
+    private final Set<Integer> mHiddenFromDock = new HashSet<>();
+    private volatile int[] mExcluded = EMPTY;
+
+    AppExclusionIndex() {}
+
+    public boolean isExcluded(ComponentKey component) {
+        return Arrays.binarySearch(mExcluded, component.getId()) >= 0;
+    }
+
+    public boolean isExcluded(String packageName, String activityName) {
+        return isExcluded(ComponentKey.of(packageName, activityName));
+    }
+
+    synchronized void setGridPages(List<ClassicGridPage> gridPages) {
+        mGridPageComponents.clear();
+        for (ClassicGridPage gridPage : gridPages) {
+            mGridPageComponents.put(gridPage.getID(), getAppComponents(gridPage));
+        }
+        publish();
+    }
+
+    synchronized void setGridPage(ClassicGridPage gridPage) {
+        mGridPageComponents.put(gridPage.getID(), getAppComponents(gridPage));
+        publish();
+    }
+
+    synchronized void removeGridPage(String pageId) {
+        if (mGridPageComponents.remove(pageId) != null) {
+            publish();
+        }
+    }
+
+    synchronized void setHiddenApps(Collection<ComponentKey> hiddenApps) {
+        mHiddenApps.clear();
+        for (ComponentKey app : hiddenApps) {
+            mHiddenApps.add(app.getId());
+        }
+        publish();
+    }
+
+    synchronized void addHiddenApp(String packageName, String activityName) {
+        if (mHiddenApps.add(ComponentKey.of(packageName, activityName).getId())) {
+            publish();
+        }
+    }
+
+    synchronized void setDockItems(List<DockItem> dockItems) {
+        mHiddenFromDock.clear();
+        for (DockItem dockItem : dockItems) {
+            if (dockItem.isHidden()) {
+                mHiddenFromDock.add(
+                    ComponentKey.of(dockItem.getPackageName(), dockItem.getActivityName()).getId());
+            }
+        }
+        publish();
+    }
+
+    synchronized void addDockItem(DockItem dockItem) {
+        if (dockItem.isHidden() &&
+            mHiddenFromDock.add(
+                ComponentKey.of(dockItem.getPackageName(), dockItem.getActivityName()).getId()))
+        {
+            publish();
+        }
+    }
+
+    synchronized void clear() {
+        mGridPageComponents.clear();
+        mHiddenApps.clear();
+        mHiddenFromDock.clear();
+        publish();
+    }
+
+    private void publish() {
+        int size = mHiddenApps.size() + mHiddenFromDock.size() + 1;
+        for (int[] pageComponents : mGridPageComponents.values()) {
+            size += pageComponents.length;
+        }
+        final int[] excluded = new int[size];
+        int idx = 0;
+        // We never suggest ourselves
+        excluded[idx++] = ComponentKey.of(Constants.PACKAGE, HomeActivity.class.getName()).getId();
+        for (int component : mHiddenApps) {
+            excluded[idx++] = component;
+        }
+        for (int component : mHiddenFromDock) {
+            excluded[idx++] = component;
+        }
+        for (int[] pageComponents : mGridPageComponents.values()) {
+            System.arraycopy(pageComponents, 0, excluded, idx, pageComponents.length);
+            idx += pageComponents.length;
+        }
+        Arrays.sort(excluded);
+        mExcluded = excluded;
+    }
+
+    private static int[] getAppComponents(ClassicGridPage gridPage) {
+        final List<ClassicGridItem> items = gridPage.getItems();
+        final int[] components = new int[items.size()];
+        int count = 0;
+        for (ClassicGridItem item : items) {
+            if (item.getType() == ClassicGridItem.GRID_TYPE_APP) {
+                components[count++] =
+                    ComponentKey.of(item.getPackageName(), item.getActivityName()).getId();
+            }
+        }
+        return count == components.length ? components : Arrays.copyOf(components, count);
+    }
+}
@@ -0,0 +1,506 @@
+package com.inipage.homelylauncher.persistence;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+
+import androidx.annotation.Nullable;
+
+import com.inipage.homelylauncher.utils.Constants;
+import com.inipage.homelylauncher.utils.LifecycleLogUtils;
+import com.inipage.homelylauncher.utils.PerfMetrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exports and imports the launcher's data -- the database, settings and font overrides -- on a
+ * background thread, reporting progress to the main thread as it goes.
+ * <p>
+ * Files are moved with chunked channel transfers. The database is exported from a snapshot taken
+ * while it stays open, and an imported database is validated and migrated on a copy before its
+ * contents replace the live ones, so it applies without restarting the process. Imported settings
+ * still need a restart: SharedPreferences are cached for the life of the process.
+ * <p>
+ * Full backups also carry the layout in {@link LayoutSnapshot}'s format, which is applied on its own
+ * when a backup has no database. A full import stages every entry and checks them all before
+ * applying any, so a bad entry fails the import without leaving part of it behind.
+ */
+public class BackupEngine {
+
+    public interface Listener {
+        void onProgress(int percent);
+
+        /**
+         * @param needsProcessRestart Whether imported settings are staged, to be applied when the
+         *                            process next starts.
+         */
+        void onSuccess(boolean needsProcessRestart);
+
+        void onFailure(String message);
+    }
+
+    public enum Source {
+        DATABASE, SETTINGS
+    }
+
+    private static final String ENTRY_DATABASE = "database.db";
+    private static final String ENTRY_SETTINGS = "settings.xml";
+    // Only applied from backups without a database entry
+    private static final String ENTRY_LAYOUT = "layout.bin";
+    private static final String SNAPSHOT_FILE = "export_snapshot.db";
+    private static final String IMPORT_DATABASE_FILE = "import.db";
+    private static final String IMPORT_FONT_FILE = "import_font.ttf";
+    private static final String IMPORT_SETTINGS_FILE = "import_settings.xml";
+    private static final long CHUNK_SIZE = 256 * 1024;
+    // Far larger than any real layout; a bigger entry is corrupt or hostile, and is never buffered
+    private static final int MAX_LAYOUT_ENTRY_SIZE = 4 * 1024 * 1024;
+
+    // One at a time; an import racing an export would snapshot half-replaced data
+    private static final ExecutorService s_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    public static void exportFile(Context context, Uri destination, Source source, Listener listener) {
+        run(listener, progress -> {
+            final File file;
+            @Nullable File snapshot = null;
+            if (source == Source.DATABASE) {
+                snapshot = new File(context.getCacheDir(), SNAPSHOT_FILE);
+                DatabaseEditor.get().snapshotTo(context, snapshot);
+                file = snapshot;
+            } else {
+                file = new File(PrefsHelper.getSharedPrefsPath(context));
+            }
+            progress.setTotal(file.length());
+            try (ParcelFileDescriptor fd = openDocument(context, destination, "rwt");
+                 FileChannel out = new FileOutputStream(fd.getFileDescriptor()).getChannel();
+                 FileChannel in = new FileInputStream(file).getChannel()) {
+                transfer(in, out, progress);
+            } finally {
+                if (snapshot != null) {
+                    snapshot.delete();
+                }
+            }
+            return false;
+        });
+    }
+
+    public static void exportFull(Context context, Uri destination, Listener listener) {
+        run(listener, progress -> {
+            final File snapshot = new File(context.getCacheDir(), SNAPSHOT_FILE);
+            DatabaseEditor.get().snapshotTo(context, snapshot);
+            final byte[] layout = DatabaseEditor.get().exportLayout();
+            final List<File> fonts = getFontOverrides(context);
+            final File settings = new File(PrefsHelper.getSharedPrefsPath(context));
+            long total = snapshot.length() + settings.length() + layout.length;
+            for (File font : fonts) {
+                total += font.length();
+            }
+            progress.setTotal(total);
+
+            try (ParcelFileDescriptor fd = openDocument(context, destination, "rwt");
+                 ZipOutputStream zipOut = new ZipOutputStream(
+                     new BufferedOutputStream(new FileOutputStream(fd.getFileDescriptor())))) {
+                final WritableByteChannel zipChannel = Channels.newChannel(zipOut);
+                writeEntry(zipOut, zipChannel, ENTRY_SETTINGS, settings, progress);
+                // Font overrides are stored under their own names
+                for (File font : fonts) {
+                    writeEntry(zipOut, zipChannel, font.getName(), font, progress);
+                }
+                writeEntry(zipOut, zipChannel, ENTRY_DATABASE, snapshot, progress);
+                zipOut.putNextEntry(new ZipEntry(ENTRY_LAYOUT));
+                zipOut.write(layout);
+                zipOut.closeEntry();
+                progress.advance(layout.length);
+            } finally {
+                snapshot.delete();
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Export the lifecycle log, decoded to text.
+     */
+    public static void exportLog(Context context, Uri destination, Listener listener) {
+        run(listener, progress -> {
+            try (ParcelFileDescriptor fd = openDocument(context, destination, "rwt");
+                 OutputStream out = new BufferedOutputStream(
+                     new FileOutputStream(fd.getFileDescriptor()))) {
+                // The log is binary on disk
+                LifecycleLogUtils.exportLog(out);
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Export the current performance metrics as JSON.
+     */
+    public static void exportMetrics(Context context, Uri destination, Listener listener) {
+        run(listener, progress -> {
+            final byte[] metrics =
+                PerfMetrics.toJson().toString(2).getBytes(StandardCharsets.UTF_8);
+            try (ParcelFileDescriptor fd = openDocument(context, destination, "rwt");
+                 OutputStream out = new FileOutputStream(fd.getFileDescriptor())) {
+                out.write(metrics);
+            }
+            return false;
+        });
+    }
+
+    public static void importFull(Context context, Uri source, Listener listener) {
+        run(listener, progress -> {
+            final File database = new File(context.getCacheDir(), IMPORT_DATABASE_FILE);
+            final File settings = new File(context.getCacheDir(), IMPORT_SETTINGS_FILE);
+            // Font sub path -> staged file
+            final Map<String, File> fonts = new LinkedHashMap<>();
+            boolean hasSettings = false;
+            boolean hasDatabase = false;
+            @Nullable byte[] layout = null;
+            try {
+                try (ParcelFileDescriptor fd = openDocument(context, source, "r");
+                     FileInputStream fis = new FileInputStream(fd.getFileDescriptor());
+                     ZipInputStream zis = new ZipInputStream(new BufferedInputStream(fis))) {
+                    final FileChannel compressed = fis.getChannel();
+                    progress.setTotal(compressed.size());
+                    final ReadableByteChannel zipChannel = Channels.newChannel(zis);
+                    @Nullable ZipEntry zipEntry;
+                    while ((zipEntry = zis.getNextEntry()) != null) {
+                        final String entryName = zipEntry.getName();
+                        switch (entryName) {
+                            case ENTRY_DATABASE:
+                                writeFile(zipChannel, database, null);
+                                hasDatabase = true;
+                                break;
+                            case ENTRY_LAYOUT:
+                                layout = readLayoutEntry(zipEntry, zis);
+                                break;
+                            case ENTRY_SETTINGS:
+                                writeFile(zipChannel, settings, null);
+                                hasSettings = true;
+                                break;
+                            case Constants.GRID_FONT_PATH:
+                            case Constants.LIST_FONT_PATH:
+                            case Constants.DOCK_FONT_PATH: {
+                                final File candidate = new File(
+                                    context.getCacheDir(), IMPORT_FONT_FILE + "." + entryName);
+                                writeFile(zipChannel, candidate, null);
+                                fonts.put(entryName, candidate);
+                                break;
+                            }
+                        }
+                        progress.setDone(compressed.position());
+                    }
+                }
+
+                // Check everything before applying anything
+                if (hasDatabase) {
+                    checkDatabaseFile(context, database);
+                }
+                for (File font : fonts.values()) {
+                    checkFontFile(font);
+                }
+
+                if (hasDatabase) {
+                    DatabaseEditor.get().replaceContentsFrom(database);
+                } else if (layout != null) {
+                    DatabaseEditor.get().importLayout(layout);
+                }
+                for (Map.Entry<String, File> font : fonts.entrySet()) {
+                    moveFontIntoPlace(context, font.getValue(), font.getKey());
+                }
+                // Last, since ApplicationClass applies whatever is staged here on the next start
+                if (hasSettings) {
+                    Files.move(
+                        settings.toPath(),
+                        new File(context.getFilesDir(), Constants.SHARED_PREFS_IMPORT_PATH)
+                            .toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                context.deleteDatabase(database.getPath());
+                settings.delete();
+                for (File font : fonts.values()) {
+                    font.delete();
+                }
+            }
+            return hasSettings;
+        });
+    }
+
+    public static void importDatabase(Context context, Uri source, Listener listener) {
+        run(listener, progress -> {
+            final File candidate = new File(context.getCacheDir(), IMPORT_DATABASE_FILE);
+            copyDocumentToFile(context, source, candidate, progress);
+            importDatabaseFile(context, candidate);
+            return false;
+        });
+    }
+
+    public static void importSettings(Context context, Uri source, Listener listener) {
+        run(listener, progress -> {
+            copyDocumentToFile(
+                context,
+                source,
+                new File(context.getFilesDir(), Constants.SHARED_PREFS_IMPORT_PATH),
+                progress);
+            // Applied in ApplicationClass, before anything reads SharedPreferences
+            return true;
+        });
+    }
+
+    /**
+     * @param fontSubPath One of the font paths in {@link Constants}.
+     */
+    public static void importFont(
+        Context context, Uri source, String fontSubPath, Listener listener) {
+        run(listener, progress -> {
+            final File candidate = new File(context.getCacheDir(), IMPORT_FONT_FILE);
+            copyDocumentToFile(context, source, candidate, progress);
+            installFont(context, candidate, fontSubPath);
+            return false;
+        });
+    }
+
+    private interface Task {
+        /**
+         * @return Whether the process needs to restart for the result to apply.
+         */
+        boolean run(Progress progress) throws Exception;
+    }
+
+    private static void run(Listener listener, Task task) {
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        s_EXECUTOR.execute(() -> {
+            final Progress progress = new Progress(mainHandler, listener);
+            try {
+                final boolean needsProcessRestart = task.run(progress);
+                mainHandler.post(() -> listener.onSuccess(needsProcessRestart));
+            } catch (Exception failure) {
+                LifecycleLogUtils.logEvent(
+                    LifecycleLogUtils.LogType.ERROR, "Backup task failed: " + failure);
+                final String message =
+                    failure.getMessage() != null ? failure.getMessage() : failure.toString();
+                mainHandler.post(() -> listener.onFailure(message));
+            }
+        });
+    }
+
+    /**
+     * Reads the layout entry into memory. An entry that claims to be too large is refused before
+     * anything is allocated; the recorded size may be missing or wrong, so reading stops at the
+     * cap regardless.
+     */
+    private static byte[] readLayoutEntry(ZipEntry zipEntry, InputStream in) throws IOException {
+        if (zipEntry.getSize() > MAX_LAYOUT_ENTRY_SIZE) {
+            throw new IOException("Backup layout is too large.");
+        }
+        final ByteArrayOutputStream layoutBytes = new ByteArrayOutputStream(
+            zipEntry.getSize() > 0 ? (int) zipEntry.getSize() : 32);
+        final byte[] buffer = new byte[8 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (layoutBytes.size() + read > MAX_LAYOUT_ENTRY_SIZE) {
+                throw new IOException("Backup layout is too large.");
+            }
+            layoutBytes.write(buffer, 0, read);
+        }
+        return layoutBytes.toByteArray();
+    }
+
+    private static void importDatabaseFile(Context context, File candidate) throws IOException {
+        try {
+            checkDatabaseFile(context, candidate);
+            DatabaseEditor.get().replaceContentsFrom(candidate);
+        } finally {
+            context.deleteDatabase(candidate.getPath());
+        }
+    }
+
+    private static void checkDatabaseFile(Context context, File candidate) throws IOException {
+        // Opening it with our helper migrates it to the current schema
+        try (DatabaseHelper candidateHelper = new DatabaseHelper(context, candidate.getPath())) {
+            @Nullable final String problem = candidateHelper.findProblemsWithDatabase();
+            if (problem != null) {
+                throw new IOException(problem);
+            }
+        }
+    }
+
+    private static void installFont(Context context, File candidate, String fontSubPath)
+        throws IOException {
+        try {
+            checkFontFile(candidate);
+            moveFontIntoPlace(context, candidate, fontSubPath);
+        } finally {
+            candidate.delete();
+        }
+    }
+
+    private static void checkFontFile(File candidate) throws IOException {
+        try {
+            Typeface.createFromFile(candidate);
+        } catch (RuntimeException notAFont) {
+            throw new IOException("Failed to open font file.");
+        }
+    }
+
+    private static void moveFontIntoPlace(Context context, File candidate, String fontSubPath)
+        throws IOException {
+        final File fontOverrides = new File(context.getFilesDir(), Constants.FONT_OVERRIDES_PATH);
+        if (!fontOverrides.exists()) {
+            fontOverrides.mkdir();
+        }
+        Files.move(
+            candidate.toPath(),
+            new File(fontOverrides, fontSubPath).toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static List<File> getFontOverrides(Context context) {
+        final List<File> fonts = new ArrayList<>();
+        final File fontOverrides = new File(context.getFilesDir(), Constants.FONT_OVERRIDES_PATH);
+        @Nullable final File[] contents = fontOverrides.listFiles();
+        if (contents != null) {
+            for (File font : contents) {
+                fonts.add(font);
+            }
+        }
+        return fonts;
+    }
+
+    private static void copyDocumentToFile(
+        Context context, Uri source, File destination, Progress progress) throws IOException {
+        try (ParcelFileDescriptor fd = openDocument(context, source, "r");
+             FileChannel in = new FileInputStream(fd.getFileDescriptor()).getChannel()) {
+            progress.setTotal(in.size());
+            writeFile(in, destination, progress);
+        }
+    }
+
+    private static void writeEntry(
+        ZipOutputStream zipOut,
+        WritableByteChannel zipChannel,
+        String name,
+        File file,
+        Progress progress) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        zipOut.putNextEntry(new ZipEntry(name));
+        try (FileChannel in = new FileInputStream(file).getChannel()) {
+            transfer(in, zipChannel, progress);
+        }
+        zipOut.closeEntry();
+    }
+
+    private static void transfer(FileChannel in, WritableByteChannel out, Progress progress)
+        throws IOException {
+        final long size = in.size();
+        long position = 0;
+        while (position < size) {
+            final long transferred =
+                in.transferTo(position, Math.min(CHUNK_SIZE, size - position), out);
+            if (transferred <= 0) {
+                throw new IOException("Couldn't write to the destination.");
+            }
+            position += transferred;
+            progress.advance(transferred);
+        }
+    }
+
+    /**
+     * Reads the channel to its end into the file, which is replaced.
+     */
+    private static void writeFile(
+        ReadableByteChannel in, File destination, @Nullable Progress progress) throws IOException {
+        try (FileChannel out = new FileOutputStream(destination, false).getChannel()) {
+            long position = 0;
+            long transferred;
+            while ((transferred = out.transferFrom(in, position, CHUNK_SIZE)) > 0) {
+                position += transferred;
+                if (progress != null) {
+                    progress.advance(transferred);
+                }
+            }
+        }
+    }
+
+    private static ParcelFileDescriptor openDocument(Context context, Uri uri, String mode)
+        throws FileNotFoundException {
+        @Nullable final ParcelFileDescriptor fd =
+            context.getContentResolver().openFileDescriptor(uri, mode);
+        if (fd == null) {
+            throw new FileNotFoundException("Couldn't open " + uri);
+        }
+        return fd;
+    }
+
+    /**
+     * Posts progress to the listener whenever the whole percentage changes.
+     */
+    private static class Progress {
+
+        private final Handler mMainHandler;
+        private final Listener mListener;
+        private long mTotal;
+        private long mDone;
+        private int mLastPercent = -1;
+
+        Progress(Handler mainHandler, Listener listener) {
+            mMainHandler = mainHandler;
+            mListener = listener;
+        }
+
+        void setTotal(long total) {
+            mTotal = total;
+            mDone = 0;
+            publish();
+        }
+
+        void advance(long amount) {
+            setDone(mDone + amount);
+        }
+
+        void setDone(long done) {
+            mDone = done;
+            publish();
+        }
+
+        private void publish() {
+            final int percent = mTotal <= 0 ? 0 : (int) Math.min(100, mDone * 100 / mTotal);
+            if (percent == mLastPercent) {
+                return;
+            }
+            mLastPercent = percent;
+            mMainHandler.post(() -> mListener.onProgress(percent));
+        }
+    }
+}
@@ -19,6 +19,7 @@ import static com.inipage.homelylauncher.persistence.DatabaseHelper.COLUMN_POSIT
 import static com.inipage.homelylauncher.persistence.DatabaseHelper.COLUMN_WHEN_TO_SHOW;
 import static com.inipage.homelylauncher.persistence.DatabaseHelper.COLUMN_WIDGET_ID;
 import static com.inipage.homelylauncher.persistence.DatabaseHelper.COLUMN_WIDTH;
+import static com.inipage.homelylauncher.persistence.DatabaseHelper.CURRENT_TABLES;
 import static com.inipage.homelylauncher.persistence.DatabaseHelper.TABLES;
 import static com.inipage.homelylauncher.persistence.DatabaseHelper.TABLE_DOCK;
 import static com.inipage.homelylauncher.persistence.DatabaseHelper.TABLE_GRID_FOLDER;
@@ -30,36 +31,53 @@ import static com.inipage.homelylauncher.persistence.DatabaseHelper.TABLE_HIDDEN
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
-import android.util.Pair;
+import android.os.Build;
 
 import com.inipage.homelylauncher.HomeActivity;
 import com.inipage.homelylauncher.model.ApplicationIconHideable;
 import com.inipage.homelylauncher.model.ClassicGridItem;
 import com.inipage.homelylauncher.model.ClassicGridPage;
+import com.inipage.homelylauncher.model.ComponentKey;
 import com.inipage.homelylauncher.model.DockItem;
 import com.inipage.homelylauncher.model.GridFolder;
 import com.inipage.homelylauncher.model.GridFolderApp;
 import com.inipage.homelylauncher.utils.Constants;
+import com.inipage.homelylauncher.utils.PerfMetrics;
 
+import org.greenrobot.eventbus.EventBus;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
 
 public class DatabaseEditor {
 
+    private static final String LAYOUT_SNAPSHOT_FILE = "layout_snapshot.bin";
+
     private static DatabaseEditor s_INSTANCE;
 
     private final SQLiteDatabase mDB;
+    private final LayoutSnapshot mLayoutSnapshot;
+    private final Object mExclusionIndexLock = new Object();
+    @Nullable private AppExclusionIndex mExclusionIndex;
 
     private DatabaseEditor(Context context) {
         mDB = new DatabaseHelper(context).getWritableDatabase();
+        mLayoutSnapshot =
+            new LayoutSnapshot(new File(context.getFilesDir(), LAYOUT_SNAPSHOT_FILE));
     }
 
     public static void seed(Context context) {
@@ -74,6 +92,65 @@ public class DatabaseEditor {
 
     // Grid page table
     public List<ClassicGridPage> getGridPages() {
+        final long start = PerfMetrics.GRID_PAGES_QUERY.start();
+        try {
+            @Nullable final List<ClassicGridPage> snapshotPages = mLayoutSnapshot.read();
+            if (snapshotPages != null) {
+                return snapshotPages;
+            }
+            PerfMetrics.LAYOUT_SNAPSHOT_MISSES.increment();
+            final List<ClassicGridPage> pages = loadGridPages();
+            mLayoutSnapshot.scheduleWrite(pages);
+            return pages;
+        } finally {
+            PerfMetrics.GRID_PAGES_QUERY.stop(start);
+        }
+    }
+
+    /**
+     * @return The layout in the format used by {@link LayoutSnapshot}, for backups.
+     */
+    public byte[] exportLayout() throws IOException {
+        return LayoutSnapshot.encode(loadGridPages());
+    }
+
+    /**
+     * Replace the whole layout -- pages, items and folders -- with one from
+     * {@link #exportLayout()}. Callers should reload anything built from the old layout.
+     */
+    public void importLayout(byte[] layout) throws IOException {
+        final List<ClassicGridPage> pages = LayoutSnapshot.decode(layout);
+        mLayoutSnapshot.invalidate();
+        mDB.beginTransaction();
+        try {
+            mDB.delete(TABLE_GRID_PAGE, null, null);
+            mDB.delete(TABLE_GRID_ITEM, null, null);
+            mDB.delete(TABLE_GRID_FOLDER, null, null);
+            mDB.delete(TABLE_GRID_FOLDER_APPS, null, null);
+            for (ClassicGridPage page : pages) {
+                writePage(page);
+                for (ClassicGridItem item : page.getItems()) {
+                    @Nullable final GridFolder folder = item.getGridFolder();
+                    if (folder == null) {
+                        continue;
+                    }
+                    mDB.insert(TABLE_GRID_FOLDER, null, folder.serialize());
+                    for (GridFolderApp app : folder.getApps()) {
+                        mDB.insert(TABLE_GRID_FOLDER_APPS, null, app.serialize());
+                    }
+                }
+            }
+            mDB.setTransactionSuccessful();
+        } finally {
+            mDB.endTransaction();
+        }
+        mLayoutSnapshot.scheduleWrite(this::loadGridPages);
+        synchronized (mExclusionIndexLock) {
+            mExclusionIndex = null;
+        }
+    }
+
+    private List<ClassicGridPage> loadGridPages() {
         final Map<String, ClassicGridPage> pageIdToPage = new HashMap<>();
         Cursor cursor = mDB.rawQuery(
         "SELECT * FROM " + TABLE_GRID_PAGE + " ORDER BY " + COLUMN_INDEX + " desc",null);
@@ -207,6 +284,7 @@ public class DatabaseEditor {
     }
 
     public void saveGridPages(List<ClassicGridPage> gridPages) {
+        mLayoutSnapshot.invalidate();
         mDB.beginTransaction();
         mDB.delete(TABLE_GRID_PAGE, null, null);
         mDB.delete(TABLE_GRID_ITEM, null, null);
@@ -215,10 +293,12 @@ public class DatabaseEditor {
         }
         mDB.setTransactionSuccessful();
         mDB.endTransaction();
+        mLayoutSnapshot.scheduleWrite(this::loadGridPages);
+        updateExclusionIndex(index -> index.setGridPages(gridPages));
     }
 
     private void writePage(ClassicGridPage gridPage) {
-        dropPage(gridPage.getID());
+        deletePageRows(gridPage.getID());
 
         for (ClassicGridItem gridItem : gridPage.getItems()) {
             final ContentValues itemCV = new ContentValues();
@@ -244,21 +324,36 @@ public class DatabaseEditor {
     }
 
     public void dropPage(String pageId) {
+        mLayoutSnapshot.invalidate();
+        mDB.beginTransaction();
+        deletePageRows(pageId);
+        mDB.setTransactionSuccessful();
+        mDB.endTransaction();
+        mLayoutSnapshot.scheduleWrite(this::loadGridPages);
+        updateExclusionIndex(index -> index.removeGridPage(pageId));
+    }
+
+    private void deletePageRows(String pageId) {
         mDB.delete(TABLE_GRID_PAGE, COLUMN_PAGE_ID + "=?", new String[]{pageId});
         mDB.delete(TABLE_GRID_ITEM, COLUMN_PAGE_ID + "=?", new String[]{pageId});
     }
 
     public void updatePage(ClassicGridPage page) {
+        mLayoutSnapshot.invalidate();
         mDB.beginTransaction();
         writePage(page);
         mDB.setTransactionSuccessful();
         mDB.endTransaction();
+        mLayoutSnapshot.scheduleWrite(this::loadGridPages);
+        updateExclusionIndex(index -> index.setGridPage(page));
     }
 
     public GridFolder insertNewGridFolder(String gridItemId) {
         // Insert a new folder; SQLite will give us a new ID for it
         ContentValues cv = new GridFolder(gridItemId).serialize();
+        mLayoutSnapshot.invalidate();
         int id = insertContentValuesAndRetrieveColumnId(TABLE_GRID_FOLDER, cv);
+        mLayoutSnapshot.scheduleWrite(this::loadGridPages);
 
         // Return an unset object to represent this folder
         return new GridFolder(id, gridItemId);
@@ -267,6 +362,7 @@ public class DatabaseEditor {
 
     public void updateGridFolder(GridFolder folder) {
         // Drop all grid folder apps here
+        mLayoutSnapshot.invalidate();
         mDB.beginTransaction();
         mDB.delete(
             TABLE_GRID_FOLDER_APPS,
@@ -294,9 +390,11 @@ public class DatabaseEditor {
 
         mDB.setTransactionSuccessful();
         mDB.endTransaction();
+        mLayoutSnapshot.scheduleWrite(this::loadGridPages);
     }
 
     public void deleteGridFolder(GridFolder folder) {
+        mLayoutSnapshot.invalidate();
         mDB.beginTransaction();
         mDB.delete(
             TABLE_GRID_FOLDER,
@@ -308,6 +406,7 @@ public class DatabaseEditor {
             new String[] { String.valueOf(folder.getId()) });
         mDB.setTransactionSuccessful();
         mDB.endTransaction();
+        mLayoutSnapshot.scheduleWrite(this::loadGridPages);
     }
 
     // Dock data
@@ -362,6 +461,8 @@ public class DatabaseEditor {
         cv.put(COLUMN_ACTIVITY_NAME, item.getActivityName());
         cv.put(COLUMN_WHEN_TO_SHOW, item.getWhenToShow());
         mDB.insert(TABLE_DOCK, null, cv);
+        updateExclusionIndex(index -> index.addDockItem(item));
+        EventBus.getDefault().post(new DockPreferencesChangedEvent());
     }
 
     public void overwriteHiddenAppDockPreferences(List<DockItem> items) {
@@ -377,6 +478,8 @@ public class DatabaseEditor {
             cv.put(COLUMN_WHEN_TO_SHOW, item.getWhenToShow());
             mDB.insert(TABLE_DOCK, null, cv);
         }
+        updateExclusionIndex(index -> index.setDockItems(items));
+        EventBus.getDefault().post(new DockPreferencesChangedEvent());
     }
 
     // Hidden apps
@@ -393,6 +496,11 @@ public class DatabaseEditor {
             cv.put(COLUMN_PACKAGE, apps.get(i).getPackageName());
             mDB.insert(TABLE_HIDDEN_APPS, null, cv);
         }
+        updateExclusionIndex(index -> index.setHiddenApps(
+            apps.stream()
+                .filter(ApplicationIconHideable::isHidden)
+                .map(app -> ComponentKey.of(app.getPackageName(), app.getActivityName()))
+                .collect(Collectors.toList())));
     }
 
     /**
@@ -406,10 +514,11 @@ public class DatabaseEditor {
         cv.put(COLUMN_ACTIVITY_NAME, activityName);
         cv.put(COLUMN_PACKAGE, packageName);
         mDB.insert(TABLE_HIDDEN_APPS, null, cv);
+        updateExclusionIndex(index -> index.addHiddenApp(packageName, activityName));
     }
 
-    public Map<Pair<String, String>, Boolean> getHiddenAppsAsMap(boolean hideInternalApps) {
-        Map<Pair<String, String>, Boolean> hiddenApps = new HashMap<>();
+    public Set<ComponentKey> getHiddenApps(boolean hideInternalApps) {
+        Set<ComponentKey> hiddenApps = new HashSet<>();
         final Cursor loadItems =
             mDB.query(TABLE_HIDDEN_APPS, null, null, null, null, null, null);
         loadRows:
@@ -427,25 +536,125 @@ public class DatabaseEditor {
             while (!loadItems.isAfterLast()) {
                 final String packageName = loadItems.getString(packageColumn);
                 final String activityName = loadItems.getString(activityColumn);
-                hiddenApps.put(new Pair<>(packageName, activityName), true);
+                hiddenApps.add(ComponentKey.of(packageName, activityName));
                 loadItems.moveToNext();
             }
         }
         loadItems.close();
         if (hideInternalApps) {
-            hiddenApps.put(new Pair<>(Constants.PACKAGE, HomeActivity.class.getName()), true);
+            hiddenApps.add(ComponentKey.of(Constants.PACKAGE, HomeActivity.class.getName()));
         }
         return hiddenApps;
     }
 
+    /**
+     * @return The set of activities that shouldn't be suggested in the dock. Built from the
+     * database on first use and kept up to date as the relevant tables are written.
+     */
+    public AppExclusionIndex getExclusionIndex() {
+        synchronized (mExclusionIndexLock) {
+            if (mExclusionIndex == null) {
+                final AppExclusionIndex index = new AppExclusionIndex();
+                index.setGridPages(getGridPages());
+                index.setHiddenApps(getHiddenApps(false));
+                index.setDockItems(getDockPreferences());
+                mExclusionIndex = index;
+            }
+            return mExclusionIndex;
+        }
+    }
+
+    private void updateExclusionIndex(Consumer<AppExclusionIndex> update) {
+        synchronized (mExclusionIndexLock) {
+            // If nobody has asked for the index yet, it'll be built fresh from the DB
+            if (mExclusionIndex != null) {
+                update.accept(mExclusionIndex);
+            }
+        }
+    }
+
     public String getPath() {
         return mDB.getPath();
     }
 
+    /**
+     * Write a consistent copy of the database to the given file while it stays open, for export.
+     * Any existing file is replaced.
+     */
+    public void snapshotTo(Context context, File destination) {
+        destination.delete();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            // SQLite 3.27+
+            mDB.execSQL("VACUUM INTO ?", new Object[]{ destination.getPath() });
+            return;
+        }
+        // Older SQLite; rows are read inside one transaction, so they're consistent with each
+        // other, and written into a fresh database with the same schema
+        try (DatabaseHelper snapshotHelper =
+                 new DatabaseHelper(context, destination.getPath())) {
+            final SQLiteDatabase snapshot = snapshotHelper.getWritableDatabase();
+            mDB.beginTransaction();
+            try {
+                copyRows(mDB, snapshot);
+                mDB.setTransactionSuccessful();
+            } finally {
+                mDB.endTransaction();
+            }
+        }
+    }
+
+    /**
+     * Replace everything in the database with the contents of another, already validated and
+     * migrated database file. Callers should reload anything built from the old contents.
+     */
+    public void replaceContentsFrom(File source) {
+        mLayoutSnapshot.invalidate();
+        try (SQLiteDatabase sourceDB = SQLiteDatabase.openDatabase(
+            source.getPath(), null, SQLiteDatabase.OPEN_READONLY)) {
+            mDB.beginTransaction();
+            try {
+                for (String table : CURRENT_TABLES) {
+                    mDB.delete(table, null, null);
+                }
+                copyRows(sourceDB, mDB);
+                mDB.setTransactionSuccessful();
+            } finally {
+                mDB.endTransaction();
+            }
+        }
+        mLayoutSnapshot.scheduleWrite(this::loadGridPages);
+        synchronized (mExclusionIndexLock) {
+            mExclusionIndex = null;
+        }
+    }
+
+    /**
+     * For when the database file is replaced underneath us; the layout is read from SQLite next
+     * time.
+     */
+    public void invalidateLayoutSnapshot() {
+        mLayoutSnapshot.invalidate();
+    }
+
+    private static void copyRows(SQLiteDatabase from, SQLiteDatabase to) {
+        final ContentValues row = new ContentValues();
+        for (String table : CURRENT_TABLES) {
+            try (Cursor cursor = from.query(table, null, null, null, null, null, null)) {
+                while (cursor.moveToNext()) {
+                    row.clear();
+                    DatabaseUtils.cursorRowToContentValues(cursor, row);
+                    to.insert(table, null, row);
+                }
+            }
+        }
+    }
+
     public void dropAllTables() {
+        mLayoutSnapshot.invalidate();
         for (String table : TABLES) {
             mDB.delete(table, null, null);
         }
+        updateExclusionIndex(AppExclusionIndex::clear);
     }
 
     private int insertContentValuesAndRetrieveColumnId(String table, ContentValues cv) {
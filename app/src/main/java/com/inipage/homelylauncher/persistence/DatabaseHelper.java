@@ -86,6 +86,16 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         TABLE_ROWS,
     };
 
+    // Tables with a creation block, in the order they're created
+    static final String[] CURRENT_TABLES = new String[] {
+        TABLE_GRID_PAGE,
+        TABLE_GRID_ITEM,
+        TABLE_GRID_FOLDER,
+        TABLE_GRID_FOLDER_APPS,
+        TABLE_DOCK,
+        TABLE_HIDDEN_APPS,
+    };
+
     static final String[] DEPRECATED_TABLES = new String[] {
         TABLE_VERTICAL_GRID_PAGE,
         TABLE_VERTICAL_GRID_ITEM,
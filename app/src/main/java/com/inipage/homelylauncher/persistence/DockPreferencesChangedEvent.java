@@ -0,0 +1,8 @@
+package com.inipage.homelylauncher.persistence;
+
+/**
+ * An event posted after the dock preferences (apps mapped to dock items, or hidden from the dock)
+ * are written.
+ */
+public class DockPreferencesChangedEvent {
+}
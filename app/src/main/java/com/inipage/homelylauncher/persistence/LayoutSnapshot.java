@@ -0,0 +1,305 @@
+package com.inipage.homelylauncher.persistence;
+
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.inipage.homelylauncher.model.ClassicGridItem;
+import com.inipage.homelylauncher.model.ClassicGridPage;
+import com.inipage.homelylauncher.model.GridFolder;
+import com.inipage.homelylauncher.model.GridFolderApp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import javax.annotation.Nullable;
+
+/**
+ * The whole home screen layout -- pages, their items, and folders with their apps -- in one
+ * versioned binary file, so startup can load it with a single read instead of joining four tables.
+ * <p>
+ * SQLite stays the source of truth. Every layout edit calls {@link #invalidate()} before it touches
+ * the database, and {@link #scheduleWrite(Supplier)} once it's committed; the new file is written
+ * from what's then in the database on a background thread, and dropped if another edit started in
+ * the meantime. A missing, stale or damaged file just means the layout is read from SQLite again.
+ * <p>
+ * All file changes happen in order on the disk thread. The lock only guards the generation
+ * counters, so an edit on the main thread never waits on a write being synced to disk.
+ * <p>
+ * The same encoding is used for the layout entry in full backups.
+ */
+public class LayoutSnapshot {
+
+    private static final String TAG = "LayoutSnapshot";
+    // "HLLS"
+    private static final int MAGIC = 0x484C4C53;
+    private static final int FORMAT_VERSION = 1;
+
+    private final AtomicFile mFile;
+    private final ExecutorService mDiskExecutor;
+    private final Object mLock = new Object();
+    // Guarded by mLock; bumped by every edit so a write of older contents can tell it's stale
+    private long mGeneration;
+    // Guarded by mLock; the generation the file on disk was written at
+    private long mWrittenGeneration;
+
+    LayoutSnapshot(File file) {
+        mFile = new AtomicFile(file);
+        mDiskExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * @return The layout as of the last committed edit, or null if it has to come from SQLite.
+     */
+    @Nullable
+    List<ClassicGridPage> read() {
+        synchronized (mLock) {
+            // The file may not have been deleted or rewritten on the disk thread yet
+            if (mWrittenGeneration != mGeneration) {
+                return null;
+            }
+        }
+        try {
+            return decode(mFile.readFully());
+        } catch (FileNotFoundException noSnapshot) {
+            return null;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read layout snapshot; using the database", e);
+            return null;
+        }
+    }
+
+    /**
+     * Drop the snapshot ahead of a layout edit. The file is deleted on the disk thread, before
+     * anything the edit writes, so a crash before the edit's snapshot is written can't leave older
+     * contents behind.
+     */
+    void invalidate() {
+        synchronized (mLock) {
+            mGeneration++;
+        }
+        mDiskExecutor.execute(mFile::delete);
+    }
+
+    /**
+     * Write a new snapshot, from layout read on a background thread.
+     */
+    void scheduleWrite(Supplier<List<ClassicGridPage>> layoutSource) {
+        final long generation = getGeneration();
+        mDiskExecutor.execute(() -> {
+            if (generation != getGeneration()) {
+                return;
+            }
+            final byte[] encoded;
+            try {
+                encoded = encode(layoutSource.get());
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to encode layout snapshot", e);
+                return;
+            }
+            writeIfCurrent(generation, encoded);
+        });
+    }
+
+    /**
+     * Write a new snapshot of layout that was just read from the database. It's encoded on the
+     * calling thread, since the caller is free to change the pages once this returns.
+     */
+    void scheduleWrite(List<ClassicGridPage> pages) {
+        final long generation = getGeneration();
+        final byte[] encoded;
+        try {
+            encoded = encode(pages);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to encode layout snapshot", e);
+            return;
+        }
+        mDiskExecutor.execute(() -> writeIfCurrent(generation, encoded));
+    }
+
+    private long getGeneration() {
+        synchronized (mLock) {
+            return mGeneration;
+        }
+    }
+
+    // Disk thread only
+    private void writeIfCurrent(long generation, byte[] encoded) {
+        if (generation != getGeneration()) {
+            // Another edit is on its way; it'll write its own
+            return;
+        }
+        // An edit that starts after the check above queues its delete behind this write
+        @Nullable FileOutputStream fos = null;
+        try {
+            fos = mFile.startWrite();
+            fos.write(encoded);
+            mFile.finishWrite(fos);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write layout snapshot", e);
+            if (fos != null) {
+                mFile.failWrite(fos);
+            }
+            return;
+        }
+        synchronized (mLock) {
+            if (generation == mGeneration) {
+                mWrittenGeneration = generation;
+            }
+        }
+    }
+
+    /**
+     * Layout is written as: magic, format version, database version, payload length, payload,
+     * CRC32 of the payload. The payload holds each page followed by its items; an item with a
+     * folder is followed by the folder and its apps.
+     */
+    public static byte[] encode(List<ClassicGridPage> pages) throws IOException {
+        final ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        final DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeInt(pages.size());
+        for (ClassicGridPage page : pages) {
+            payload.writeUTF(page.getID());
+            payload.writeInt(page.getIndex());
+            payload.writeInt(page.getWidth());
+            payload.writeInt(page.getHeight());
+            payload.writeInt(page.getItems().size());
+            for (ClassicGridItem item : page.getItems()) {
+                writeItem(payload, item);
+            }
+        }
+        payload.flush();
+
+        final byte[] payloadArray = payloadBytes.toByteArray();
+        final CRC32 crc = new CRC32();
+        crc.update(payloadArray);
+        final ByteArrayOutputStream outBytes = new ByteArrayOutputStream(payloadArray.length + 24);
+        final DataOutputStream out = new DataOutputStream(outBytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(DatabaseHelper.DATABASE_VERSION);
+        out.writeInt(payloadArray.length);
+        out.write(payloadArray);
+        out.writeLong(crc.getValue());
+        out.flush();
+        return outBytes.toByteArray();
+    }
+
+    /**
+     * @throws IOException If the data is damaged, or from a different format or database version.
+     */
+    public static List<ClassicGridPage> decode(byte[] data) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a layout snapshot");
+        }
+        final int formatVersion = in.readInt();
+        final int databaseVersion = in.readInt();
+        if (formatVersion != FORMAT_VERSION || databaseVersion != DatabaseHelper.DATABASE_VERSION) {
+            throw new IOException(
+                "Unsupported layout snapshot version " + formatVersion + "/" + databaseVersion);
+        }
+        final byte[] payloadArray = new byte[in.readInt()];
+        in.readFully(payloadArray);
+        final CRC32 crc = new CRC32();
+        crc.update(payloadArray);
+        if (in.readLong() != crc.getValue()) {
+            throw new IOException("Layout snapshot checksum mismatch");
+        }
+
+        final DataInputStream payload = new DataInputStream(new ByteArrayInputStream(payloadArray));
+        final int pageCount = payload.readInt();
+        final List<ClassicGridPage> pages = new ArrayList<>(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            final String pageId = payload.readUTF();
+            final int index = payload.readInt();
+            final int width = payload.readInt();
+            final int height = payload.readInt();
+            final int itemCount = payload.readInt();
+            final List<ClassicGridItem> items = new ArrayList<>(itemCount);
+            for (int j = 0; j < itemCount; j++) {
+                items.add(readItem(payload, pageId));
+            }
+            pages.add(new ClassicGridPage(items, pageId, index, width, height));
+        }
+        return pages;
+    }
+
+    private static void writeItem(DataOutputStream out, ClassicGridItem item) throws IOException {
+        out.writeUTF(item.getID());
+        out.writeInt(item.getX());
+        out.writeInt(item.getY());
+        out.writeInt(item.getWidth());
+        out.writeInt(item.getHeight());
+        out.writeInt(item.getType());
+        writeNullableString(out, item.getDS1());
+        writeNullableString(out, item.getDS2());
+        out.writeInt(item.getDI());
+
+        @Nullable final GridFolder folder = item.getGridFolder();
+        out.writeBoolean(folder != null);
+        if (folder == null) {
+            return;
+        }
+        out.writeInt(folder.getId());
+        out.writeInt(folder.getWidgetId());
+        out.writeInt(folder.getWidth());
+        out.writeInt(folder.getHeight());
+        out.writeInt(folder.getApps().size());
+        for (GridFolderApp app : folder.getApps()) {
+            out.writeInt(app.getId());
+            out.writeInt(app.getIndex());
+            out.writeUTF(app.getPackageName());
+            out.writeUTF(app.getActivityName());
+        }
+    }
+
+    private static ClassicGridItem readItem(DataInputStream in, String pageId) throws IOException {
+        final String itemId = in.readUTF();
+        final int x = in.readInt();
+        final int y = in.readInt();
+        final int width = in.readInt();
+        final int height = in.readInt();
+        final int type = in.readInt();
+        @Nullable final String ds1 = readNullableString(in);
+        @Nullable final String ds2 = readNullableString(in);
+        final int di = in.readInt();
+
+        @Nullable GridFolder folder = null;
+        if (in.readBoolean()) {
+            final int folderId = in.readInt();
+            folder = new GridFolder(folderId, itemId, in.readInt(), in.readInt(), in.readInt());
+            final int appCount = in.readInt();
+            for (int i = 0; i < appCount; i++) {
+                folder.addApp(
+                    new GridFolderApp(
+                        in.readInt(), folderId, in.readInt(), in.readUTF(), in.readUTF()));
+            }
+        }
+        return new ClassicGridItem(itemId, pageId, x, y, width, height, type, folder, ds1, ds2, di);
+    }
+
+    private static void writeNullableString(DataOutputStream out, @Nullable String value)
+        throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -90,10 +90,18 @@ public class PrefsHelper {
         return get().mSharedPreferences.getBoolean(Constants.DEV_MODE_PREF, false);
     }
 
+    public static boolean isCapturingTraces() {
+        return get().mSharedPreferences.getBoolean(Constants.CAPTURE_TRACES_PREF, false);
+    }
+
     public static boolean usingMonochromeDock() {
         return get().mSharedPreferences.getBoolean(Constants.MONOCHROME_DOCK_PREF, false);
     }
 
+    public static boolean keepWidgetsUpdatingInBackground() {
+        return get().mSharedPreferences.getBoolean(Constants.KEEP_WIDGETS_UPDATING_PREF, false);
+    }
+
     public static void setIconPack(@Nullable String packageName) {
         if (packageName == null) {
             get().mSharedPreferences.edit()
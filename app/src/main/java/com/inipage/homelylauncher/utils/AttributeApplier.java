@@ -1,106 +1,161 @@
 package com.inipage.homelylauncher.utils;
 
 import android.content.Context;
-import android.util.DisplayMetrics;
+import android.content.res.Configuration;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.util.TypedValue;
 
+import androidx.annotation.ColorRes;
+import androidx.annotation.DimenRes;
 import androidx.annotation.Nullable;
 
 import java.lang.reflect.Field;
 import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Fills in fields annotated with {@link SizeValAttribute}, {@link SizeDimenAttribute} and
+ * {@link ColorAttribute}.
+ * <p>
+ * Java classes get a binder generated at build time (see AttributeBinderProcessor), which assigns
+ * the fields directly; those fields must not be private or final. Anything else -- Kotlin classes,
+ * or private fields -- falls back to reflection, with the annotated fields found once per class.
+ * Resource lookups are cached until the configuration changes.
+ */
 public class AttributeApplier {
 
+    private static final AttributeBinder<Object> NO_OP_BINDER = (target, context) -> {};
+
+    private static final Map<Class<?>, AttributeBinder<Object>> s_BINDERS =
+        new ConcurrentHashMap<>();
+
+    private static final SparseArray<Float> s_DIMENS = new SparseArray<>();
+    private static final SparseIntArray s_COLORS = new SparseIntArray();
+    @Nullable private static Configuration s_CONFIGURATION;
+
     public static void applyDensity(Object source, Context paramSource) {
-        for (Field field : source.getClass().getDeclaredFields()) {
-            if (field.isAnnotationPresent(SizeValAttribute.class)) {
-                applyValAttribute(field, source, paramSource);
-            } else if (field.isAnnotationPresent(SizeDimenAttribute.class)) {
-                applyDimenAttribute(field, source, paramSource);
-            } else if (field.isAnnotationPresent(ColorAttribute.class)) {
-                applyColorAttribute(field, source, paramSource);
-            }
-        }
+        s_BINDERS
+            .computeIfAbsent(source.getClass(), AttributeApplier::findBinder)
+            .bind(source, paramSource);
     }
 
-    private static void applyValAttribute(Field field, Object source, Context context) {
-        @Nullable final SizeValAttribute attribute = field.getAnnotation(SizeValAttribute.class);
-        if (attribute == null) {
-            return;
-        }
-        final SizeValAttribute.AttributeType type = attribute.attrType();
-        if (field.getType() != Float.TYPE && field.getType() != Integer.TYPE) {
-            throw new InvalidParameterException(
-                "The SizeValAttribute annotation must be applied to a float or integer!");
-        }
+    public static float resolveDip(Context context, float value) {
+        return TypedValue.applyDimension(
+            TypedValue.COMPLEX_UNIT_DIP, value, context.getResources().getDisplayMetrics());
+    }
 
-        try {
-            final DisplayMetrics metrics = context.getResources().getDisplayMetrics();
-            field.setAccessible(true);
-            float value = attribute.value();
-            float newValue = TypedValue.applyDimension(
-                type == SizeValAttribute.AttributeType.SP ?
-                    TypedValue.COMPLEX_UNIT_SP :
-                    TypedValue.COMPLEX_UNIT_DIP,
-                value,
-                metrics);
-            if (field.getType() == Float.TYPE) {
-                field.setFloat(source, newValue);
-            } else {
-                field.setInt(source, (int) newValue);
-            }
-        } catch (Exception ignored) {}
+    public static float resolveSp(Context context, float value) {
+        return TypedValue.applyDimension(
+            TypedValue.COMPLEX_UNIT_SP, value, context.getResources().getDisplayMetrics());
     }
 
+    public static synchronized float resolveDimen(Context context, @DimenRes int resId) {
+        checkConfiguration(context);
+        @Nullable Float value = s_DIMENS.get(resId);
+        if (value == null) {
+            value = context.getResources().getDimension(resId);
+            s_DIMENS.put(resId, value);
+        }
+        return value;
+    }
 
-    private static void applyDimenAttribute(Field field, Object source, Context paramSource) {
-        @Nullable final SizeDimenAttribute attribute =
-            field.getAnnotation(SizeDimenAttribute.class);
-        if (attribute == null) {
+    public static synchronized int resolveColor(Context context, @ColorRes int resId) {
+        checkConfiguration(context);
+        final int idx = s_COLORS.indexOfKey(resId);
+        if (idx >= 0) {
+            return s_COLORS.valueAt(idx);
+        }
+        final int value = context.getResources().getColor(resId);
+        s_COLORS.put(resId, value);
+        return value;
+    }
+
+    private static void checkConfiguration(Context context) {
+        final Configuration configuration = context.getResources().getConfiguration();
+        if (s_CONFIGURATION != null && s_CONFIGURATION.equals(configuration)) {
             return;
         }
-        if (field.getType() != Float.TYPE && field.getType() != Integer.TYPE) {
-            throw new InvalidParameterException(
-                "The SizeDimenAttribute annotation must be applied to a float or integer!");
+        s_DIMENS.clear();
+        s_COLORS.clear();
+        s_CONFIGURATION = new Configuration(configuration);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AttributeBinder<Object> findBinder(Class<?> type) {
+        @Nullable final AttributeBinder<?> generatedBinder = GeneratedAttributeBinders.get(type);
+        if (generatedBinder != null) {
+            return (AttributeBinder<Object>) generatedBinder;
         }
+        return createReflectiveBinder(type);
+    }
 
-        try {
-            field.setAccessible(true);
-            float newValue = paramSource.getResources().getDimension(attribute.value());
-            if (field.getType() == Float.TYPE) {
-                field.setFloat(source, newValue);
+    private static AttributeBinder<Object> createReflectiveBinder(Class<?> type) {
+        final List<Field> fields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (field.isAnnotationPresent(SizeValAttribute.class) ||
+                field.isAnnotationPresent(SizeDimenAttribute.class)) {
+                if (field.getType() != Float.TYPE && field.getType() != Integer.TYPE) {
+                    throw new InvalidParameterException(
+                        "Size attributes must be applied to a float or integer!");
+                }
+            } else if (field.isAnnotationPresent(ColorAttribute.class)) {
+                if (field.getType() != Integer.TYPE) {
+                    throw new InvalidParameterException(
+                        "The ColorAttribute annotation must be applied to an integer!");
+                }
             } else {
-                field.setInt(source, (int) newValue);
+                continue;
             }
-        } catch (Exception ignored) {
+            field.setAccessible(true);
+            fields.add(field);
         }
+        if (fields.isEmpty()) {
+            return NO_OP_BINDER;
+        }
+        return (source, context) -> {
+            for (Field field : fields) {
+                try {
+                    applyAttribute(field, source, context);
+                } catch (IllegalAccessException ignored) {
+                }
+            }
+        };
     }
 
-
-    private static void applyColorAttribute(Field field, Object source, Context paramSource) {
-        @Nullable final ColorAttribute attribute =
-            field.getAnnotation(ColorAttribute.class);
-        if (attribute == null) {
+    private static void applyAttribute(Field field, Object source, Context context)
+        throws IllegalAccessException {
+        @Nullable final SizeValAttribute valAttribute = field.getAnnotation(SizeValAttribute.class);
+        if (valAttribute != null) {
+            setSize(
+                field,
+                source,
+                valAttribute.attrType() == SizeValAttribute.AttributeType.SP ?
+                resolveSp(context, valAttribute.value()) :
+                resolveDip(context, valAttribute.value()));
             return;
         }
-        if (field.getType() != Integer.TYPE) {
-            throw new InvalidParameterException(
-                "The ColorAttribute annotation must be applied to a float or integer!");
+        @Nullable final SizeDimenAttribute dimenAttribute =
+            field.getAnnotation(SizeDimenAttribute.class);
+        if (dimenAttribute != null) {
+            setSize(field, source, resolveDimen(context, dimenAttribute.value()));
+            return;
         }
-
-        try {
-            field.setAccessible(true);
-            float newValue = paramSource.getResources().getColor(attribute.value());
-            field.setInt(source, (int) newValue);
-        } catch (Exception ignored) {
+        @Nullable final ColorAttribute colorAttribute = field.getAnnotation(ColorAttribute.class);
+        if (colorAttribute != null) {
+            field.setInt(source, resolveColor(context, colorAttribute.value()));
         }
     }
 
-    public static int intValue() {
-        return 0;
-    }
-
-    public static float floatValue() {
-        return 0F;
+    private static void setSize(Field field, Object source, float value)
+        throws IllegalAccessException {
+        if (field.getType() == Float.TYPE) {
+            field.setFloat(source, value);
+        } else {
+            field.setInt(source, (int) value);
+        }
     }
 }
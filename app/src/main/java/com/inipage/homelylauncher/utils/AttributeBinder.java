@@ -0,0 +1,12 @@
+package com.inipage.homelylauncher.utils;
+
+import android.content.Context;
+
+/**
+ * Applies a class's attribute annotations to an instance. Implementations are generated at build
+ * time by AttributeBinderProcessor; see {@link AttributeApplier}.
+ */
+public interface AttributeBinder<T> {
+
+    void bind(T target, Context context);
+}
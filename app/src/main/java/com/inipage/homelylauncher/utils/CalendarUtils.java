@@ -21,6 +21,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 
 public class CalendarUtils {
 
@@ -251,6 +252,26 @@ public class CalendarUtils {
             return mCalendarId;
         }
 
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (!(obj instanceof Event)) {
+                return false;
+            }
+            final Event other = (Event) obj;
+            return mStart == other.mStart &&
+                mEnd == other.mEnd &&
+                mAllDay == other.mAllDay &&
+                mId == other.mId &&
+                mCalendarId == other.mCalendarId &&
+                Objects.equals(mTitle, other.mTitle) &&
+                Objects.equals(mLocation, other.mLocation);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mStart, mEnd, mId);
+        }
+
         public String getLongDescription(Context context) {
             return mAllDay ? getShortDescription(context) :
                    context.getString(
@@ -9,12 +9,15 @@ public class Constants {
     public static final String HAS_SHOWN_NEW_USER_EXPERIENCE = "new_user_pref";
 
     public static final String DEV_MODE_PREF = "dev_mode_pref";
+    public static final String CAPTURE_TRACES_PREF = "capture_traces_pref";
 
     // Icon pack prefs
     public static final String HAS_ICON_PACK_SET_PREF = "has_icon_pack_set_pref";
     public static final String SELECTED_ICON_PACK_PACKAGE_PREF = "icon_package_pkg_pref";
     public static final String MONOCHROME_DOCK_PREF = "mono_dock_pref";
 
+    public static final String KEEP_WIDGETS_UPDATING_PREF = "keep_widgets_updating_pref";
+
     public static final String PACKAGE = "com.inipage.homelylauncher";
     public static final String DEFAULT_FOLDER_ICON = "ic_folder_white_48dp";
 
@@ -12,9 +12,7 @@ import com.inipage.homelylauncher.BuildConfig;
 import com.inipage.homelylauncher.persistence.PrefsHelper;
 
 import java.lang.ref.WeakReference;
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 public class DebugLogUtils {
 
@@ -27,7 +25,18 @@ public class DebugLogUtils {
     public static final String TAG_WALLPAPER_OFFSET = "tag_wallpaper_offset";
     public static final String TAG_VIRTUAL_TRACKPAD = "tag_virtual_trackpad";
 
+    // The one tag that goes to logcat, in debug builds only. Release builds fold LOGCAT_ENABLED
+    // to false, so every needle() call costs a single volatile read there
     private static final String NEEDLED = TAG_CUSTOM_TOUCHEVENTS;
+    private static final boolean LOGCAT_ENABLED = BuildConfig.DEBUG;
+    // Prefix logcat output with the calling method. Walks the stack for every message, so it's
+    // off unless you really need it
+    private static final boolean LOG_CALLERS = false;
+    // Frames between emit()'s stack trace and the caller: emit() itself, then the needle()
+    // overload, which must call emit() directly
+    private static final int CALLER_FRAME_OFFSET = 2;
+
+    private static volatile boolean s_CAPTURING;
 
     public static void complain(Context context, String complaint) {
         if (!PrefsHelper.isDevMode() && !BuildConfig.DEBUG) {
@@ -48,25 +57,102 @@ public class DebugLogUtils {
         complain(context, complaint);
     }
 
+    /**
+     * @return Whether messages for this tag go anywhere. Callers building expensive messages
+     * without {@link #needle(String, Supplier)} should check this first.
+     */
+    public static boolean isEnabled(String tag) {
+        return s_CAPTURING || (LOGCAT_ENABLED && NEEDLED.equals(tag));
+    }
+
+    /**
+     * Capture every tag into {@link TraceBuffer}, in any build, until turned off again.
+     */
+    public static void setCapturing(boolean capturing) {
+        s_CAPTURING = capturing;
+        if (!capturing) {
+            TraceBuffer.clear();
+        }
+    }
+
+    public static void needle(String tag, String message) {
+        if (!isEnabled(tag)) {
+            return;
+        }
+        emit(tag, 0, null, message);
+    }
+
+    /**
+     * Log a message that's only built if the tag is enabled; prefer this for anything that
+     * concatenates.
+     */
+    public static void needle(String tag, Supplier<String> message) {
+        if (!isEnabled(tag)) {
+            return;
+        }
+        emit(tag, 0, null, message.get());
+    }
+
     public static void needle(String tag, Object... out) {
-        String[] array = Arrays.stream(out).map(Object::toString).toArray(String[]::new);
-        needle(tag, array);
+        if (!isEnabled(tag)) {
+            return;
+        }
+        emit(tag, 0, null, join(out));
     }
 
     public static void needle(String tag, String... out) {
-        needle(tag, 0, null, out);
+        if (!isEnabled(tag)) {
+            return;
+        }
+        emit(tag, 0, null, join(out));
     }
 
     public static void needle(
-        String tag, int skipCount, @Nullable String skipString, String... out) {
-        if (!tag.equals(NEEDLED) || !BuildConfig.DEBUG) {
+        String tag, int skipCount, @Nullable String skipString, String message) {
+        if (!isEnabled(tag)) {
+            return;
+        }
+        emit(tag, skipCount, skipString, message);
+    }
+
+    public static void needle(
+        String tag, int skipCount, @Nullable String skipString, Supplier<String> message) {
+        if (!isEnabled(tag)) {
+            return;
+        }
+        emit(tag, skipCount, skipString, message.get());
+    }
+
+    private static String join(Object[] out) {
+        if (out.length == 1) {
+            return String.valueOf(out[0]);
+        }
+        StringBuilder output = new StringBuilder();
+        for (Object o : out) {
+            output.append(" ");
+            output.append(o);
+            output.append(" ");
+        }
+        return output.toString();
+    }
+
+    private static void emit(
+        String tag, int skipCount, @Nullable String skipString, String message) {
+        if (s_CAPTURING) {
+            TraceBuffer.record(tag, message);
+        }
+        if (!LOGCAT_ENABLED || !NEEDLED.equals(tag)) {
+            return;
+        }
+        if (!LOG_CALLERS) {
+            Log.d(NEEDLED, message);
             return;
         }
 
         StringBuilder output = new StringBuilder();
         StackTraceElement[] stack = new Exception("").getStackTrace();
         @Nullable StackTraceElement element = null;
-        for (int i = 2 + skipCount; i < stack.length; i++) {
+        for (int i = CALLER_FRAME_OFFSET + skipCount; i < stack.length; i++) {
             final String className = stack[i].getClassName().toLowerCase();
             if (skipString != null && className.contains(skipString.toLowerCase())) {
                 continue;
@@ -93,14 +179,9 @@ public class DebugLogUtils {
             output.append(element.getMethodName());
             output.append("() L");
             output.append(element.getLineNumber());
-            output.append('>');
-        }
-
-        for (String o : out) {
-            output.append(" ");
-            output.append(o);
-            output.append(" ");
+            output.append("> ");
         }
+        output.append(message);
         Log.d(NEEDLED, output.toString());
     }
 }
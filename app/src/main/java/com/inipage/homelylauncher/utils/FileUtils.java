@@ -6,9 +6,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
-import java.nio.file.CopyOption;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 
@@ -29,16 +28,17 @@ public class FileUtils {
     }
 
     public static void copy(String srcPath, String dstPath) {
-        try {
-            FileInputStream fis = new FileInputStream(srcPath);
-            FileOutputStream fos = new FileOutputStream(dstPath, false);
-            byte[] chunk = new byte[1024];
-            int read = 0;
-            while ((read = fis.read(chunk)) != -1) {
-                fos.write(chunk);
+        try (FileChannel in = new FileInputStream(srcPath).getChannel();
+             FileChannel out = new FileOutputStream(dstPath, false).getChannel()) {
+            final long size = in.size();
+            long position = 0;
+            while (position < size) {
+                final long transferred = in.transferTo(position, size - position, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
             }
-            fis.close();
-            fos.close();
         } catch (Exception ignored) {
         }
     }
@@ -7,6 +7,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
+import android.graphics.Rect;
 import android.graphics.RectF;
 import android.net.Uri;
 import android.os.Bundle;
@@ -17,6 +18,7 @@ import android.widget.Toast;
 import androidx.annotation.Nullable;
 
 import com.inipage.homelylauncher.R;
+import com.inipage.homelylauncher.dock.items.LaunchPredictor;
 import com.inipage.homelylauncher.state.GestureNavContractSingleton;
 
 /**
@@ -67,24 +69,52 @@ public class InstalledAppUtils {
     }
 
     /**
-     * This is used by the home grid pages and the app list.
+     * This is used by folders.
      */
     public static void launchApp(
         View anchor,
         String packageName,
         String activityName,
         AppLaunchSource source
+    ) {
+        launchApp(
+            anchor,
+            new Rect(0, 0, anchor.getWidth(), anchor.getHeight()),
+            packageName,
+            activityName,
+            source);
+    }
+
+    /**
+     * This is used by the home grid pages and the app list, where the icon is drawn somewhere
+     * inside a larger view rather than being a view of its own.
+     *
+     * @param anchorBounds Where the icon is, relative to the anchor.
+     */
+    public static void launchApp(
+        View anchor,
+        Rect anchorBounds,
+        String packageName,
+        String activityName,
+        AppLaunchSource source
     ) {
         final ActivityOptions options =
             ActivityOptions.makeScaleUpAnimation(
                 anchor,
-                anchor.getWidth() / 2, // + posX filled in from anchor
-                anchor.getHeight() / 2, // + posY filled in from anchor
+                anchorBounds.centerX(), // + posX filled in from anchor
+                anchorBounds.centerY(), // + posY filled in from anchor
                 0, // start from 0 size point
                 0);
         // There isn't an obvious way to speed this up, which is is unfortunate because it feels
         // pokey to me
-        launchApp(anchor.getContext(), packageName, activityName, options.toBundle(), anchor, source);
+        launchApp(
+            anchor.getContext(),
+            packageName,
+            activityName,
+            options.toBundle(),
+            anchor,
+            anchorBounds,
+            source);
     }
 
     /**
@@ -109,7 +139,14 @@ public class InstalledAppUtils {
         bundle.putInt("android:activity.animStartY", out[1]);
         bundle.putInt("android:activity.animWidth", view.getWidth());
         bundle.putInt("android:activity.animHeight", view.getHeight());
-        return launchApp(view.getContext(), packageName, activityName, bundle, view, source);
+        return launchApp(
+            view.getContext(),
+            packageName,
+            activityName,
+            bundle,
+            view,
+            new Rect(0, 0, view.getWidth(), view.getHeight()),
+            source);
     }
 
     private static boolean launchApp(
@@ -118,6 +155,7 @@ public class InstalledAppUtils {
         String activityName,
         @Nullable Bundle b,
         View sourceView,
+        Rect sourceBounds,
         AppLaunchSource source) {
         try {
             final Intent launchIntent = new Intent();
@@ -126,16 +164,13 @@ public class InstalledAppUtils {
             launchIntent.addCategory(Intent.CATEGORY_DEFAULT);
             launchIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
             context.startActivity(launchIntent, b);
+            LaunchPredictor.getInstance(context).recordLaunch(context, packageName);
 
             if (source == AppLaunchSource.GRID_PAGE) {
                 int[] pts = new int[2];
                 sourceView.getLocationOnScreen(pts);
-                final RectF position =
-                    new RectF(
-                        pts[0],
-                        pts[1],
-                        pts[0] + sourceView.getWidth(),
-                        pts[1] + sourceView.getHeight());
+                final RectF position = new RectF(sourceBounds);
+                position.offset(pts[0], pts[1]);
                 GestureNavContractSingleton.INSTANCE.onAppLaunchRequest(
                     packageName,
                     activityName,
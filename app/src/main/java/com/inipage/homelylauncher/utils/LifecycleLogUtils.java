@@ -1,114 +1,509 @@
 package com.inipage.homelylauncher.utils;
 
 import android.content.Context;
+import android.os.SystemClock;
 import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
 
-import androidx.annotation.Nullable;
+import com.inipage.homelylauncher.BuildConfig;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
 
+import javax.annotation.Nullable;
+
+/**
+ * Internal log of meaningful state changes, kept around so it can be exported with bug reports.
+ * <p>
+ * Callers only append a small record to an in-memory queue; a background thread encodes queued
+ * records into a fixed-size, memory-mapped ring file. Records are binary: the event type, a
+ * monotonic timestamp, the id of a message template and the arguments for it. Template ids are
+ * handed out sequentially and never reused within a file; a template's text is written before its
+ * first use, and again the next time it's used after the ring overwrote that definition. Sessions
+ * write their wall clock time so timestamps can be recovered. Nothing is formatted until somebody
+ * reads the log.
+ * <p>
+ * File layout: a header (magic, head, tail, wrapped, next template id) followed by the ring. Each
+ * record is [int length][byte kind][payload]. A zero length marks the end of a lap.
+ */
 public class LifecycleLogUtils {
 
     private static final String TAG = "LifecycleLogUtils";
     private static final Charset CHARSET = StandardCharsets.UTF_8;
-    // 256KB
-    private static final long FILE_TOO_BIG_TO_DISPLAY_BYTES = (long) (0.25 * 1024 * 1024); // 250KB
 
-    private static final long FILE_NEEDS_TO_BE_WIPED_BYTES = (long) (4 * 1024 * 1024); // 4MB
+    private static final String LOG_FILE_NAME = "logfile.bin";
+    private static final int MAGIC = 0x484c4732; // "HLG2"
+    private static final int RING_SIZE_BYTES = 1024 * 1024; // 1MB
+    private static final int HEADER_BYTES = 20;
+    private static final int HEAD_OFFSET = 4;
+    private static final int TAIL_OFFSET = 8;
+    private static final int WRAPPED_OFFSET = 12;
+    private static final int NEXT_TEMPLATE_ID_OFFSET = 16;
+    private static final int RECORD_HEADER_BYTES = 5;
+    private static final int MAX_STRING_BYTES = 16 * 1024;
+
+    private static final byte KIND_SESSION = 1;
+    private static final byte KIND_TEMPLATE = 2;
+    private static final byte KIND_EVENT = 3;
+    private static final byte ARG_LONG = 0;
+    private static final byte ARG_STRING = 1;
+
+    private static final long FLUSH_INTERVAL_MS = 1000;
+    private static final int FLUSH_THRESHOLD = 64;
+    private static final int MAX_PENDING = 4096;
+    private static final String PLAIN_MESSAGE_TEMPLATE = "%s";
+
+    private static final Object QUEUE_LOCK = new Object();
+    private static final Object RING_LOCK = new Object();
+
+    // Guarded by QUEUE_LOCK
+    private static List<PendingEvent> PENDING = new ArrayList<>();
+    private static int DROPPED_COUNT;
 
+    // Guarded by RING_LOCK
+    @Nullable
+    private static MappedByteBuffer RING;
+    private static int HEAD;
+    private static int TAIL;
+    private static boolean WRAPPED;
     private static String SESSION_ID;
-    private static File LOG_FILE;
-    private static FileOutputStream LOG_FILE_OUTPUT_STREAM;
+    private static int NEXT_TEMPLATE_ID = 1;
+    private static final Map<String, Integer> TEMPLATE_IDS = new HashMap<>();
+    // Template id -> offset of its definition, for definitions still in the ring
+    private static final SparseIntArray DEFINED_TEMPLATES = new SparseIntArray();
+    private static final ByteBuffer TEMPLATE_SCRATCH = ByteBuffer.allocate(MAX_STRING_BYTES + 8);
+    private static final ByteBuffer EVENT_SCRATCH = ByteBuffer.allocate(RING_SIZE_BYTES / 4);
 
     public static String getLogfilePath(Context context) {
         final File filesDir = context.getFilesDir();
-        return filesDir + "/logfile.txt";
+        return filesDir + "/" + LOG_FILE_NAME;
     }
 
     public static void openLog(Context context) {
-        try {
+        // Text log from before the ring file
+        new File(context.getFilesDir(), "logfile.txt").delete();
+        synchronized (RING_LOCK) {
+            try (RandomAccessFile file = new RandomAccessFile(getLogfilePath(context), "rw")) {
+                file.setLength(RING_SIZE_BYTES);
+                // The mapping outlives the channel
+                RING = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, RING_SIZE_BYTES);
+            } catch (IOException fileIoEx) {
+                throw new RuntimeException("Log file cannot be opened!");
+            }
+            if (RING.getInt(0) == MAGIC) {
+                HEAD = RING.getInt(HEAD_OFFSET);
+                TAIL = RING.getInt(TAIL_OFFSET);
+                WRAPPED = RING.get(WRAPPED_OFFSET) != 0;
+                NEXT_TEMPLATE_ID = Math.max(NEXT_TEMPLATE_ID, RING.getInt(NEXT_TEMPLATE_ID_OFFSET));
+                if (!isValidPosition(HEAD) || !isValidPosition(TAIL)) {
+                    resetRing();
+                }
+            } else {
+                resetRing();
+            }
             SESSION_ID = UUID.randomUUID().toString();
-            LOG_FILE = new File(getLogfilePath(context));
-            LOG_FILE_OUTPUT_STREAM = new FileOutputStream(LOG_FILE, true);
-            logEvent(LogType.LOG, "Session started");
-        } catch (Exception fileIoEx) {
-            throw new RuntimeException("Log file cannot be opened!");
+            writeSessionRecord();
+            writeHeader();
         }
+        final Thread flusher = new Thread(LifecycleLogUtils::runFlusher, "LifecycleLogFlusher");
+        flusher.setDaemon(true);
+        flusher.setPriority(Thread.MIN_PRIORITY);
+        flusher.start();
+        logEvent(LogType.LOG, "Session started");
     }
 
     /**
-     * Append to an internal log of meaningful com.inipage.homelylauncher.state changes.
+     * Append to an internal log of meaningful state changes.
      *
      * @param level   The log-level. Eventually will allow filtering.
      * @param message A String representation of the event.
      */
     public static void logEvent(LogType level, String message) {
-        if (LOG_FILE.length() > FILE_NEEDS_TO_BE_WIPED_BYTES) {
-            clearLog();
-        }
+        logEvent(level, PLAIN_MESSAGE_TEMPLATE, message);
+    }
 
-        try {
-            final String result = level.name() +
-                "|" +
-                message.replace("|", "I") +
-                "|" +
-                new Date() +
-                "|" +
-                SESSION_ID +
-                "\n";
-            LOG_FILE_OUTPUT_STREAM.write(result.getBytes(CHARSET));
-            LOG_FILE_OUTPUT_STREAM.flush();
-            Log.d(TAG, result);
-        } catch (Exception ignored) {
+    /**
+     * Append to an internal log of meaningful state changes. Prefer this over concatenating a
+     * message: the template is stored once, and only the arguments are stored per event.
+     *
+     * @param level    The log-level. Eventually will allow filtering.
+     * @param template A constant {@link String#format(String, Object...)} template.
+     * @param args     Arguments for the template. Integral numbers are stored as-is; anything else
+     *                 is converted to a String immediately, since the object may change before
+     *                 it's written out.
+     */
+    public static void logEvent(LogType level, String template, Object... args) {
+        final Object[] capturedArgs = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            final Object arg = args[i];
+            capturedArgs[i] =
+                arg instanceof Integer || arg instanceof Long || arg instanceof Short ||
+                    arg instanceof Byte ?
+                ((Number) arg).longValue() :
+                String.valueOf(arg);
+        }
+        final PendingEvent event =
+            new PendingEvent(level, SystemClock.elapsedRealtime(), template, capturedArgs);
+        synchronized (QUEUE_LOCK) {
+            if (PENDING.size() >= MAX_PENDING) {
+                DROPPED_COUNT++;
+                return;
+            }
+            PENDING.add(event);
+            if (PENDING.size() >= FLUSH_THRESHOLD) {
+                QUEUE_LOCK.notify();
+            }
         }
     }
 
+    /**
+     * Write everything queued so far and force it to disk. Blocks; safe to call from a crashing
+     * thread.
+     */
     public static void closeLog() {
-        try {
-            logEvent(LogType.LOG, "Session ended");
-            LOG_FILE_OUTPUT_STREAM.close();
-        } catch (Exception ignored) {
+        logEvent(LogType.LOG, "Session ended");
+        synchronized (RING_LOCK) {
+            flushPending();
+            if (RING != null) {
+                RING.force();
+            }
         }
     }
 
     public static void clearLog() {
-        try {
-            LOG_FILE_OUTPUT_STREAM.flush();
-            FileChannel channel = LOG_FILE_OUTPUT_STREAM.getChannel();
-            channel.truncate(0);
-            LOG_FILE_OUTPUT_STREAM.flush();
+        synchronized (RING_LOCK) {
+            flushPending();
+            if (RING == null) {
+                return;
+            }
+            resetRing();
             SESSION_ID = UUID.randomUUID().toString();
-            logEvent(LogType.LOG, "Log cleared");
-        } catch (Exception ignored) {
+            writeSessionRecord();
+            writeHeader();
         }
+        logEvent(LogType.LOG, "Log cleared");
     }
 
+    /**
+     * @return The whole log, decoded, oldest first.
+     */
     public static String dumpLog() {
-        try {
-            long size = LOG_FILE_OUTPUT_STREAM.getChannel().size();
-            if (size > FILE_TOO_BIG_TO_DISPLAY_BYTES) {
-                return "Long file. Try exporting to read.";
-            }
-            StringBuilder result = new StringBuilder();
-            byte[] buf = new byte[1024];
-            FileInputStream logFileInputStream = new FileInputStream(LOG_FILE);
-            try (logFileInputStream) {
-                while ((logFileInputStream.read(buf, 0, 1024)) >= 0) {
-                    result.append(new String(buf, CHARSET));
+        final LogSnapshot snapshot = snapshot();
+        final StringBuilder result = new StringBuilder();
+        for (int i = 0; i < snapshot.size(); i++) {
+            result.append(snapshot.getLine(i)).append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Write the decoded log to the given stream, oldest first.
+     */
+    public static void exportLog(OutputStream outputStream) throws IOException {
+        final LogSnapshot snapshot = snapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            outputStream.write((snapshot.getLine(i) + "\n").getBytes(CHARSET));
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * Copy the log as it stands. Only record boundaries and template text are read up front;
+     * individual records are decoded when asked for.
+     */
+    public static LogSnapshot snapshot() {
+        final byte[] ring = new byte[RING_SIZE_BYTES];
+        final int head;
+        final int tail;
+        final boolean wrapped;
+        synchronized (RING_LOCK) {
+            flushPending();
+            if (RING == null) {
+                return new LogSnapshot(ring, new int[0], 0, new SparseArray<>());
+            }
+            final ByteBuffer ringView = RING.duplicate();
+            ringView.position(0);
+            ringView.get(ring);
+            head = HEAD;
+            tail = TAIL;
+            wrapped = WRAPPED;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(ring);
+        final SparseArray<String> templates = new SparseArray<>();
+        final List<Integer> offsets = new ArrayList<>();
+        if (wrapped) {
+            collectRecords(buffer, tail, RING_SIZE_BYTES, offsets, templates);
+        }
+        collectRecords(buffer, HEADER_BYTES, head, offsets, templates);
+        final int[] eventOffsets = new int[offsets.size()];
+        for (int i = 0; i < eventOffsets.length; i++) {
+            eventOffsets[i] = offsets.get(i);
+        }
+        return new LogSnapshot(ring, eventOffsets, eventOffsets.length, templates);
+    }
+
+    private static void runFlusher() {
+        while (true) {
+            synchronized (QUEUE_LOCK) {
+                if (PENDING.size() < FLUSH_THRESHOLD) {
+                    try {
+                        QUEUE_LOCK.wait(FLUSH_INTERVAL_MS);
+                    } catch (InterruptedException ignored) {
+                        return;
+                    }
+                }
+            }
+            synchronized (RING_LOCK) {
+                flushPending();
+            }
+        }
+    }
+
+    // Must hold RING_LOCK
+    private static void flushPending() {
+        final List<PendingEvent> events;
+        final int droppedCount;
+        synchronized (QUEUE_LOCK) {
+            if (PENDING.isEmpty() || RING == null) {
+                return;
+            }
+            events = PENDING;
+            droppedCount = DROPPED_COUNT;
+            PENDING = new ArrayList<>();
+            DROPPED_COUNT = 0;
+        }
+        if (droppedCount > 0) {
+            writeEvent(new PendingEvent(
+                LogType.ERROR,
+                SystemClock.elapsedRealtime(),
+                "Log queue full; dropped %d events",
+                new Object[]{(long) droppedCount}));
+        }
+        for (PendingEvent event : events) {
+            writeEvent(event);
+            if (BuildConfig.DEBUG) {
+                Log.d(TAG, event.mLevel.name() + "|" + formatMessage(event.mTemplate, event.mArgs));
+            }
+        }
+        writeHeader();
+    }
+
+    private static void writeEvent(PendingEvent event) {
+        @Nullable Integer templateId = TEMPLATE_IDS.get(event.mTemplate);
+        if (templateId == null) {
+            templateId = NEXT_TEMPLATE_ID++;
+            TEMPLATE_IDS.put(event.mTemplate, templateId);
+        }
+        TEMPLATE_SCRATCH.clear();
+        TEMPLATE_SCRATCH.putInt(templateId);
+        putString(TEMPLATE_SCRATCH, event.mTemplate);
+        TEMPLATE_SCRATCH.flip();
+
+        EVENT_SCRATCH.clear();
+        EVENT_SCRATCH.put((byte) event.mLevel.ordinal());
+        EVENT_SCRATCH.putLong(event.mElapsedMs);
+        EVENT_SCRATCH.putInt(templateId);
+        EVENT_SCRATCH.put((byte) event.mArgs.length);
+        for (Object arg : event.mArgs) {
+            if (arg instanceof Long) {
+                EVENT_SCRATCH.put(ARG_LONG);
+                EVENT_SCRATCH.putLong((Long) arg);
+            } else {
+                EVENT_SCRATCH.put(ARG_STRING);
+                putString(EVENT_SCRATCH, (String) arg);
+            }
+        }
+        EVENT_SCRATCH.flip();
+
+        // The template and its first event have to land in the same lap, or the template would
+        // be overwritten while the event is still around
+        reserve(
+            RECORD_HEADER_BYTES * 2 + TEMPLATE_SCRATCH.remaining() + EVENT_SCRATCH.remaining());
+        if (DEFINED_TEMPLATES.indexOfKey(templateId) < 0) {
+            final int templateOffset = HEAD;
+            writeRecord(KIND_TEMPLATE, TEMPLATE_SCRATCH);
+            DEFINED_TEMPLATES.put(templateId, templateOffset);
+        }
+        writeRecord(KIND_EVENT, EVENT_SCRATCH);
+    }
+
+    private static void writeSessionRecord() {
+        final ByteBuffer payload = ByteBuffer.allocate(64 + SESSION_ID.length() * 4);
+        payload.putLong(System.currentTimeMillis());
+        payload.putLong(SystemClock.elapsedRealtime());
+        putString(payload, SESSION_ID);
+        payload.flip();
+        reserve(RECORD_HEADER_BYTES + payload.remaining());
+        writeRecord(KIND_SESSION, payload);
+    }
+
+    /**
+     * Make sure the next {@code length} bytes can be written at HEAD without wrapping. If they
+     * can't, end this lap and start the next one with a session record, so what's left of this
+     * session can still be dated.
+     */
+    private static void reserve(int length) {
+        if (HEAD + length <= RING_SIZE_BYTES) {
+            return;
+        }
+        if (HEAD + 4 <= RING_SIZE_BYTES) {
+            RING.putInt(HEAD, 0);
+        }
+        // Whatever was left of the lap before last, past the end of this one, is gone
+        forgetTemplatesFrom(HEAD);
+        HEAD = HEADER_BYTES;
+        TAIL = HEADER_BYTES;
+        WRAPPED = true;
+        writeSessionRecord();
+    }
+
+    /**
+     * Write a record at HEAD, dropping the records from the last lap that it overwrites. Callers
+     * must {@link #reserve(int)} room first.
+     */
+    private static void writeRecord(byte kind, ByteBuffer payload) {
+        final int length = RECORD_HEADER_BYTES + payload.remaining();
+        while (WRAPPED && TAIL < HEAD + length) {
+            final int tailLength = TAIL + 4 <= RING_SIZE_BYTES ? RING.getInt(TAIL) : 0;
+            if (tailLength <= 0) {
+                WRAPPED = false;
+                TAIL = HEADER_BYTES;
+                forgetTemplatesFrom(HEAD);
+                break;
+            }
+            if (RING.get(TAIL + 4) == KIND_TEMPLATE) {
+                forgetTemplateAt(TAIL);
+            }
+            TAIL += tailLength;
+        }
+        RING.putInt(HEAD, length);
+        RING.put(HEAD + 4, kind);
+        final ByteBuffer ringView = RING.duplicate();
+        ringView.position(HEAD + RECORD_HEADER_BYTES);
+        ringView.put(payload);
+        HEAD += length;
+    }
+
+    /**
+     * The template definition at {@code offset} is about to be overwritten; the next event using
+     * it will write it again.
+     */
+    private static void forgetTemplateAt(int offset) {
+        final int templateId = RING.getInt(offset + RECORD_HEADER_BYTES);
+        // An older copy of a definition that's been written again since doesn't count
+        if (DEFINED_TEMPLATES.get(templateId, -1) == offset) {
+            DEFINED_TEMPLATES.delete(templateId);
+        }
+    }
+
+    private static void forgetTemplatesFrom(int offset) {
+        for (int i = DEFINED_TEMPLATES.size() - 1; i >= 0; i--) {
+            if (DEFINED_TEMPLATES.valueAt(i) >= offset) {
+                DEFINED_TEMPLATES.removeAt(i);
+            }
+        }
+    }
+
+    private static void writeHeader() {
+        RING.putInt(HEAD_OFFSET, HEAD);
+        RING.putInt(TAIL_OFFSET, TAIL);
+        RING.put(WRAPPED_OFFSET, (byte) (WRAPPED ? 1 : 0));
+        RING.putInt(NEXT_TEMPLATE_ID_OFFSET, NEXT_TEMPLATE_ID);
+        RING.putInt(0, MAGIC);
+    }
+
+    private static void resetRing() {
+        HEAD = HEADER_BYTES;
+        TAIL = HEADER_BYTES;
+        WRAPPED = false;
+        DEFINED_TEMPLATES.clear();
+        writeHeader();
+    }
+
+    private static boolean isValidPosition(int position) {
+        return position >= HEADER_BYTES && position <= RING_SIZE_BYTES;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(CHARSET);
+        final int limit = Math.min(MAX_STRING_BYTES, buffer.remaining() - 4);
+        if (bytes.length > limit) {
+            final byte[] truncated = new byte[limit];
+            System.arraycopy(bytes, 0, truncated, 0, limit);
+            bytes = truncated;
+        }
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, CHARSET);
+    }
+
+    /**
+     * Walk records in [start, end), noting where events and sessions start and remembering
+     * template text.
+     */
+    private static void collectRecords(
+        ByteBuffer buffer,
+        int start,
+        int end,
+        List<Integer> offsets,
+        SparseArray<String> templates) {
+        int position = start;
+        while (position + RECORD_HEADER_BYTES <= end) {
+            final int length = buffer.getInt(position);
+            if (length < RECORD_HEADER_BYTES || position + length > end) {
+                break;
+            }
+            final byte kind = buffer.get(position + 4);
+            if (kind == KIND_TEMPLATE) {
+                final ByteBuffer record = buffer.duplicate();
+                record.position(position + RECORD_HEADER_BYTES);
+                try {
+                    final int templateId = record.getInt();
+                    templates.put(templateId, getString(record));
+                } catch (BufferUnderflowException | NegativeArraySizeException ignored) {
                 }
-                return result.toString();
+            } else {
+                offsets.add(position);
             }
-        } catch (IOException ioException) {
-            return ioException.getLocalizedMessage();
+            position += length;
+        }
+    }
+
+    private static String formatMessage(String template, Object[] args) {
+        if (args.length == 0) {
+            return template;
+        }
+        try {
+            return String.format(Locale.US, template, args);
+        } catch (IllegalFormatException formatException) {
+            final StringBuilder fallback = new StringBuilder(template);
+            for (Object arg : args) {
+                fallback.append(" ").append(arg);
+            }
+            return fallback.toString();
         }
     }
 
@@ -117,4 +512,103 @@ public class LifecycleLogUtils {
         LIFECYCLE_CHANGE,
         ERROR
     }
+
+    /**
+     * A copy of the log that decodes records on demand, so a viewer only pays for the lines it
+     * actually shows.
+     */
+    public static class LogSnapshot {
+
+        private final ByteBuffer mBuffer;
+        private final int[] mOffsets;
+        private final int mSize;
+        private final SparseArray<String> mTemplates;
+        // Wall clock time - elapsed realtime, as of the closest preceding session record
+        private final long[] mClockOffsets;
+        private final String[] mSessionIds;
+
+        private LogSnapshot(
+            byte[] ring, int[] offsets, int size, SparseArray<String> templates) {
+            mBuffer = ByteBuffer.wrap(ring);
+            mOffsets = offsets;
+            mSize = size;
+            mTemplates = templates;
+            mClockOffsets = new long[size];
+            mSessionIds = new String[size];
+
+            // Sessions are few, so resolving them up front is cheap and keeps getLine() random
+            // access
+            long clockOffset = Long.MIN_VALUE;
+            String sessionId = "?";
+            for (int i = 0; i < size; i++) {
+                if (mBuffer.get(offsets[i] + 4) == KIND_SESSION) {
+                    final ByteBuffer record = mBuffer.duplicate();
+                    record.position(offsets[i] + RECORD_HEADER_BYTES);
+                    try {
+                        final long wallClock = record.getLong();
+                        clockOffset = wallClock - record.getLong();
+                        sessionId = getString(record);
+                    } catch (BufferUnderflowException | NegativeArraySizeException ignored) {
+                    }
+                }
+                mClockOffsets[i] = clockOffset;
+                mSessionIds[i] = sessionId;
+            }
+        }
+
+        public int size() {
+            return mSize;
+        }
+
+        public String getLine(int index) {
+            final int offset = mOffsets[index];
+            final ByteBuffer record = mBuffer.duplicate();
+            record.position(offset + RECORD_HEADER_BYTES);
+            try {
+                if (mBuffer.get(offset + 4) == KIND_SESSION) {
+                    final long wallClock = record.getLong();
+                    record.getLong();
+                    return "SESSION|" + new Date(wallClock) + "|" + getString(record);
+                }
+
+                final LogType[] types = LogType.values();
+                final int type = record.get();
+                final long elapsedMs = record.getLong();
+                final int templateId = record.getInt();
+                final Object[] args = new Object[record.get()];
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = record.get() == ARG_LONG ? (Object) record.getLong() : getString(record);
+                }
+                final String template = mTemplates.get(templateId, "<template lost>");
+                final String time =
+                    mClockOffsets[index] == Long.MIN_VALUE ?
+                    "boot+" + elapsedMs + "ms" :
+                    new Date(mClockOffsets[index] + elapsedMs).toString();
+                return (type >= 0 && type < types.length ? types[type].name() : "?") +
+                    "|" +
+                    formatMessage(template, args) +
+                    "|" +
+                    time +
+                    "|" +
+                    mSessionIds[index];
+            } catch (BufferUnderflowException | NegativeArraySizeException corrupt) {
+                return "<corrupt record>";
+            }
+        }
+    }
+
+    private static class PendingEvent {
+
+        private final LogType mLevel;
+        private final long mElapsedMs;
+        private final String mTemplate;
+        private final Object[] mArgs;
+
+        private PendingEvent(LogType level, long elapsedMs, String template, Object[] args) {
+            mLevel = level;
+            mElapsedMs = elapsedMs;
+            mTemplate = template;
+            mArgs = args;
+        }
+    }
 }
@@ -0,0 +1,320 @@
+package com.inipage.homelylauncher.utils;
+
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import static com.inipage.homelylauncher.utils.LifecycleLogUtils.LogType.ERROR;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide timers and counters for the launcher's expensive paths. Recording is lock-free and
+ * doesn't allocate, so it's fine to leave in hot paths. Timers also emit android.os.Trace
+ * sections, so the same spans show up in system traces.
+ * <p>
+ * Timers may carry a main-thread budget. Spans recorded on the main thread that exceed it are
+ * counted and written to the lifecycle log, so regressions in startup, search or package handling
+ * are visible without a profiler attached.
+ * <p>
+ * Usage:
+ * <pre>
+ * final long start = PerfMetrics.GRID_PAGES_QUERY.start();
+ * try {
+ *     ...
+ * } finally {
+ *     PerfMetrics.GRID_PAGES_QUERY.stop(start);
+ * }
+ * </pre>
+ */
+public class PerfMetrics {
+
+    private static final Map<String, Timer> s_TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> s_COUNTERS = new ConcurrentHashMap<>();
+
+    public static final Timer APP_INFO_CACHE_INIT = timer("AppInfoCache.init");
+    public static final Timer APP_MODEL_BUILD = timer("AppInfoCache.buildModels");
+    public static final Timer GRID_PAGES_QUERY = timer("DatabaseEditor.getGridPages");
+    public static final Timer DOCK_LOAD = timer("DockController.loadDockItems");
+    public static final Timer DRAWER_REBUILD = timer("AppDrawerAdapter.rebuild", 32);
+    public static final Timer ICON_LOAD = timer("IconCacheSync.loadIcon");
+    public static final Timer APPLICATION_CREATE = timer("ApplicationClass.onCreate", 150);
+    public static final Timer HOME_CREATE = timer("HomeActivity.onCreate", 350);
+    public static final Timer SEARCH_KEYSTROKE = timer("AppDrawerController.search", 8);
+    // Matching and diffing one search query, off the main thread
+    public static final Timer SEARCH_MATCH = timer("AppSearchPipeline.match");
+    public static final Timer PACKAGE_UPDATE = timer("AppDrawerController.packageUpdate", 16);
+    // Reloading the icons or labels an icon pack or locale change affected, off the main thread
+    public static final Timer CACHE_REVALIDATION = timer("CacheRevalidator.revalidate");
+    // One view holder created ahead of time, while the main thread was idle
+    public static final Timer VIEW_HOLDER_PREWARM = timer("ViewHolderPrewarmer.createViewHolder", 8);
+    // From a package event being posted to the app drawer receiving it; recorded there only, so
+    // each event counts once
+    public static final Timer PACKAGE_EVENT_LATENCY = timer("EventBus.packageEventLatency");
+    public static final Counter ICON_CACHE_HITS = counter("IconCacheSync.hits");
+    public static final Counter ICON_CACHE_MISSES = counter("IconCacheSync.misses");
+    // Binder calls made while building app models; a full reload should only need one
+    public static final Counter ACTIVITY_LIST_QUERIES = counter("AppInfoCache.activityListQueries");
+    public static final Counter LABEL_PM_LOOKUPS = counter("AppLabelCache.packageManagerLookups");
+    // Layout loads that had to join the grid tables because no snapshot was usable
+    public static final Counter LAYOUT_SNAPSHOT_MISSES = counter("DatabaseEditor.layoutSnapshotMisses");
+    public static final Counter STRICT_MODE_VIOLATIONS = counter("StrictMode.violations");
+
+    public static Timer timer(String name) {
+        return timer(name, 0);
+    }
+
+    /**
+     * @param mainThreadBudgetMs How long a span on the main thread may take before it's reported;
+     *                           0 for no budget.
+     */
+    public static Timer timer(String name, long mainThreadBudgetMs) {
+        return s_TIMERS.computeIfAbsent(name, key -> new Timer(key, mainThreadBudgetMs));
+    }
+
+    public static Counter counter(String name) {
+        return s_COUNTERS.computeIfAbsent(name, Counter::new);
+    }
+
+    public static void reset() {
+        for (Timer timer : s_TIMERS.values()) {
+            timer.reset();
+        }
+        for (Counter counter : s_COUNTERS.values()) {
+            counter.reset();
+        }
+    }
+
+    /**
+     * @return A human readable summary of every metric, sorted by name.
+     */
+    public static String dump() {
+        final StringBuilder output = new StringBuilder();
+        for (Timer timer : new TreeMap<>(s_TIMERS).values()) {
+            output.append(timer.getName()).append('\n');
+            if (timer.getCount() == 0) {
+                output.append("  no samples\n");
+                continue;
+            }
+            output.append(String.format(
+                Locale.US,
+                "  n=%d mean=%.2fms p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms\n",
+                timer.getCount(),
+                timer.getMeanMs(),
+                timer.getPercentileMs(0.5),
+                timer.getPercentileMs(0.9),
+                timer.getPercentileMs(0.99),
+                timer.getMaxMs()));
+            if (timer.getBudgetMs() > 0) {
+                output.append(String.format(
+                    Locale.US,
+                    "  budget=%dms over=%d\n",
+                    timer.getBudgetMs(),
+                    timer.getOverBudgetCount()));
+            }
+        }
+        for (Counter counter : new TreeMap<>(s_COUNTERS).values()) {
+            output.append(counter.getName()).append(": ").append(counter.get()).append('\n');
+        }
+        return output.toString();
+    }
+
+    public static JSONObject toJson() throws JSONException {
+        final JSONObject timers = new JSONObject();
+        for (Timer timer : s_TIMERS.values()) {
+            final JSONObject timerJson = new JSONObject();
+            timerJson.put("count", timer.getCount());
+            if (timer.getCount() > 0) {
+                timerJson.put("mean_ms", timer.getMeanMs());
+                timerJson.put("p50_ms", timer.getPercentileMs(0.5));
+                timerJson.put("p90_ms", timer.getPercentileMs(0.9));
+                timerJson.put("p99_ms", timer.getPercentileMs(0.99));
+                timerJson.put("max_ms", timer.getMaxMs());
+            }
+            if (timer.getBudgetMs() > 0) {
+                timerJson.put("budget_ms", timer.getBudgetMs());
+                timerJson.put("over_budget", timer.getOverBudgetCount());
+            }
+            timers.put(timer.getName(), timerJson);
+        }
+        final JSONObject counters = new JSONObject();
+        for (Counter counter : s_COUNTERS.values()) {
+            counters.put(counter.getName(), counter.get());
+        }
+        final JSONObject result = new JSONObject();
+        result.put("captured_at_ms", System.currentTimeMillis());
+        result.put("uptime_ms", SystemClock.elapsedRealtime());
+        result.put("timers", timers);
+        result.put("counters", counters);
+        return result;
+    }
+
+    /**
+     * A duration histogram. Buckets are log-linear over microseconds: four per power of two, so
+     * any percentile is within ~19% of the true value.
+     */
+    public static class Timer {
+
+        private static final int SUB_BUCKET_BITS = 2;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKET_COUNT = 40 * SUB_BUCKETS; // Up to ~12 days
+
+        private final String mName;
+        private final String mTraceName;
+        private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+        private final AtomicLong mCount = new AtomicLong();
+        private final AtomicLong mSumUs = new AtomicLong();
+        private final AtomicLong mMaxUs = new AtomicLong();
+        private final long mBudgetUs;
+        private final AtomicLong mOverBudget = new AtomicLong();
+
+        private Timer(String name, long budgetMs) {
+            mName = name;
+            mBudgetUs = budgetMs * 1000;
+            // Trace section names are capped at 127 characters
+            mTraceName = name.length() > 127 ? name.substring(0, 127) : name;
+        }
+
+        /**
+         * @return A start time to pass to {@link #stop(long)}, on the same thread.
+         */
+        public long start() {
+            Trace.beginSection(mTraceName);
+            return SystemClock.elapsedRealtimeNanos();
+        }
+
+        public void stop(long startNs) {
+            final long durationNs = SystemClock.elapsedRealtimeNanos() - startNs;
+            Trace.endSection();
+            record(durationNs);
+        }
+
+        public void record(long durationNs) {
+            final long durationUs = Math.max(1, durationNs / 1000);
+            mBuckets.incrementAndGet(getBucket(durationUs));
+            mCount.incrementAndGet();
+            mSumUs.addAndGet(durationUs);
+            mMaxUs.accumulateAndGet(durationUs, Math::max);
+            if (mBudgetUs > 0 &&
+                durationUs > mBudgetUs &&
+                Looper.myLooper() == Looper.getMainLooper()) {
+                mOverBudget.incrementAndGet();
+                LifecycleLogUtils.logEvent(
+                    ERROR, "%s over budget: %dus > %dus", mName, durationUs, mBudgetUs);
+            }
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public long getCount() {
+            return mCount.get();
+        }
+
+        public long getBudgetMs() {
+            return mBudgetUs / 1000;
+        }
+
+        public long getOverBudgetCount() {
+            return mOverBudget.get();
+        }
+
+        public double getMeanMs() {
+            final long count = mCount.get();
+            return count == 0 ? 0 : mSumUs.get() / 1000D / count;
+        }
+
+        public double getMaxMs() {
+            return mMaxUs.get() / 1000D;
+        }
+
+        /**
+         * @param percentile In [0, 1].
+         */
+        public double getPercentileMs(double percentile) {
+            long total = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                total += mBuckets.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(total * percentile));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += mBuckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(getBucketMidpointUs(i), mMaxUs.get()) / 1000D;
+                }
+            }
+            return getMaxMs();
+        }
+
+        private void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                mBuckets.set(i, 0);
+            }
+            mCount.set(0);
+            mSumUs.set(0);
+            mMaxUs.set(0);
+            mOverBudget.set(0);
+        }
+
+        private static int getBucket(long valueUs) {
+            final int exponent = 63 - Long.numberOfLeadingZeros(valueUs);
+            final long subBucket =
+                exponent >= SUB_BUCKET_BITS ?
+                (valueUs >> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1) :
+                (valueUs << (SUB_BUCKET_BITS - exponent)) & (SUB_BUCKETS - 1);
+            return Math.min(BUCKET_COUNT - 1, exponent * SUB_BUCKETS + (int) subBucket);
+        }
+
+        private static double getBucketMidpointUs(int bucket) {
+            final int exponent = bucket / SUB_BUCKETS;
+            final int subBucket = bucket % SUB_BUCKETS;
+            final double lowerBound = Math.scalb(1D + (double) subBucket / SUB_BUCKETS, exponent);
+            final double upperBound =
+                Math.scalb(1D + (double) (subBucket + 1) / SUB_BUCKETS, exponent);
+            return (lowerBound + upperBound) / 2;
+        }
+    }
+
+    public static class Counter {
+
+        private final String mName;
+        private final AtomicLong mValue = new AtomicLong();
+
+        private Counter(String name) {
+            mName = name;
+        }
+
+        public void increment() {
+            mValue.incrementAndGet();
+        }
+
+        public void add(long delta) {
+            mValue.addAndGet(delta);
+        }
+
+        public long get() {
+            return mValue.get();
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        private void reset() {
+            mValue.set(0);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.inipage.homelylauncher.utils;
+
+import android.os.SystemClock;
+
+import java.util.Locale;
+
+/**
+ * The last few hundred debug trace messages, kept in memory so a drag cascade can be inspected on
+ * a device without a debugger attached. Filled by DebugLogUtils while capturing is on.
+ */
+public class TraceBuffer {
+
+    private static final int CAPACITY = 512;
+
+    private static final long[] s_TIMESTAMPS = new long[CAPACITY];
+    private static final String[] s_TAGS = new String[CAPACITY];
+    private static final String[] s_MESSAGES = new String[CAPACITY];
+    private static int s_NEXT_IDX;
+    private static int s_SIZE;
+
+    static synchronized void record(String tag, String message) {
+        s_TIMESTAMPS[s_NEXT_IDX] = SystemClock.elapsedRealtime();
+        s_TAGS[s_NEXT_IDX] = tag;
+        s_MESSAGES[s_NEXT_IDX] = message;
+        s_NEXT_IDX = (s_NEXT_IDX + 1) % CAPACITY;
+        s_SIZE = Math.min(s_SIZE + 1, CAPACITY);
+    }
+
+    static synchronized void clear() {
+        for (int i = 0; i < CAPACITY; i++) {
+            s_TAGS[i] = null;
+            s_MESSAGES[i] = null;
+        }
+        s_NEXT_IDX = 0;
+        s_SIZE = 0;
+    }
+
+    /**
+     * @return Everything captured, oldest first, with times relative to the newest message.
+     */
+    public static synchronized String dump() {
+        if (s_SIZE == 0) {
+            return "Nothing captured.";
+        }
+        final int oldestIdx = (s_NEXT_IDX - s_SIZE + CAPACITY) % CAPACITY;
+        final long newestTimestamp = s_TIMESTAMPS[(s_NEXT_IDX - 1 + CAPACITY) % CAPACITY];
+        final StringBuilder output = new StringBuilder();
+        for (int i = 0; i < s_SIZE; i++) {
+            final int idx = (oldestIdx + i) % CAPACITY;
+            output
+                .append(String.format(
+                    Locale.US, "%+6dms ", s_TIMESTAMPS[idx] - newestTimestamp))
+                .append(s_TAGS[idx])
+                .append(": ")
+                .append(s_MESSAGES[idx])
+                .append('\n');
+        }
+        return output.toString();
+    }
+}
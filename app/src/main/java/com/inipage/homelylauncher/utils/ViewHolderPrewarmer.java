@@ -0,0 +1,153 @@
+package com.inipage.homelylauncher.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.LayoutRes;
+import androidx.annotation.Nullable;
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.inipage.homelylauncher.R;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+
+/**
+ * Fills a RecyclerView's pool with view holders ahead of time, so the first scroll through the
+ * drawer or the first open of a folder doesn't create a screenful of them inside one frame.
+ * <p>
+ * Holders are created one at a time when the main thread is idle. Adapters whose holders are
+ * inflated from XML can have the inflation done in the background instead; they need to create
+ * their views through {@link #inflate(int, ViewGroup)}, which hands out the views inflated ahead
+ * of time. Everything here is main thread only.
+ */
+public class ViewHolderPrewarmer {
+
+    private static final Handler s_HANDLER = new Handler(Looper.getMainLooper());
+
+    /**
+     * Creates holders of the given type with the RecyclerView's adapter until its pool holds
+     * {@code count} of them, one per idle pass of the main thread.
+     */
+    public static void prewarm(RecyclerView recyclerView, int viewType, int count) {
+        recyclerView.getRecycledViewPool().setMaxRecycledViews(viewType, count);
+        new PoolFiller(recyclerView, viewType, count).schedule();
+    }
+
+    /**
+     * As {@link #prewarm(RecyclerView, int, int)}, but inflates the holders' layouts in the
+     * background first. The adapter must create views of this type with
+     * {@link #inflate(int, ViewGroup)}.
+     */
+    public static void prewarm(
+        RecyclerView recyclerView, int viewType, int count, @LayoutRes int layoutRes) {
+        recyclerView.getRecycledViewPool().setMaxRecycledViews(viewType, count);
+        final WeakReference<RecyclerView> recyclerViewRef = new WeakReference<>(recyclerView);
+        final AsyncLayoutInflater inflater = new AsyncLayoutInflater(recyclerView.getContext());
+        for (int i = 0; i < count; i++) {
+            inflater.inflate(layoutRes, recyclerView, (view, resId, parent) -> {
+                @Nullable final RecyclerView target = recyclerViewRef.get();
+                if (target == null) {
+                    return;
+                }
+                getParkedViews(target, layoutRes).push(view);
+                new PoolFiller(target, viewType, count).run();
+            });
+        }
+    }
+
+    /**
+     * @return A view of the layout inflated ahead of time for this parent, or a newly inflated one.
+     */
+    public static View inflate(@LayoutRes int layoutRes, ViewGroup parent) {
+        final ArrayDeque<View> parkedViews = getParkedViews(parent, layoutRes);
+        if (!parkedViews.isEmpty()) {
+            return parkedViews.pop();
+        }
+        return LayoutInflater.from(parent.getContext()).inflate(layoutRes, parent, false);
+    }
+
+    /**
+     * @return How many items of the given size fit in the given space, plus one that's partially
+     * scrolled into view.
+     */
+    public static int getCapacity(float spacePx, float itemSizePx) {
+        return (int) Math.ceil(spacePx / itemSizePx) + 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayDeque<View> getParkedViews(ViewGroup parent, @LayoutRes int layoutRes) {
+        @Nullable SparseArray<ArrayDeque<View>> parkedViews =
+            (SparseArray<ArrayDeque<View>>) parent.getTag(R.id.prewarmed_views);
+        if (parkedViews == null) {
+            parkedViews = new SparseArray<>();
+            parent.setTag(R.id.prewarmed_views, parkedViews);
+        }
+        @Nullable ArrayDeque<View> views = parkedViews.get(layoutRes);
+        if (views == null) {
+            views = new ArrayDeque<>();
+            parkedViews.put(layoutRes, views);
+        }
+        return views;
+    }
+
+    private static class PoolFiller implements MessageQueue.IdleHandler, Runnable {
+
+        private final WeakReference<RecyclerView> mRecyclerView;
+        private final int mViewType;
+        private final int mCount;
+
+        PoolFiller(RecyclerView recyclerView, int viewType, int count) {
+            mRecyclerView = new WeakReference<>(recyclerView);
+            mViewType = viewType;
+            mCount = count;
+        }
+
+        void schedule() {
+            Looper.myQueue().addIdleHandler(this);
+        }
+
+        @Override
+        public boolean queueIdle() {
+            if (fillOne()) {
+                // Idle handlers only run again once something else has been handled; posting
+                // lets any pending input or frame go first, then brings us back
+                s_HANDLER.post(this::schedule);
+            }
+            return false;
+        }
+
+        @Override
+        public void run() {
+            fillOne();
+        }
+
+        /**
+         * @return Whether the pool still needs more holders.
+         */
+        private boolean fillOne() {
+            @Nullable final RecyclerView recyclerView = mRecyclerView.get();
+            if (recyclerView == null || recyclerView.getAdapter() == null) {
+                return false;
+            }
+            final RecyclerView.RecycledViewPool pool = recyclerView.getRecycledViewPool();
+            if (pool.getRecycledViewCount(mViewType) >= mCount) {
+                return false;
+            }
+            final long start = PerfMetrics.VIEW_HOLDER_PREWARM.start();
+            try {
+                pool.putRecycledView(
+                    recyclerView.getAdapter().createViewHolder(recyclerView, mViewType));
+            } finally {
+                PerfMetrics.VIEW_HOLDER_PREWARM.stop(start);
+            }
+            return pool.getRecycledViewCount(mViewType) < mCount;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.inipage.homelylauncher.views;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.LruCache;
+import android.util.SparseArray;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.inipage.homelylauncher.R;
+import com.inipage.homelylauncher.caches.FontCacheSync;
+import com.inipage.homelylauncher.drawer.BitmapView;
+import com.inipage.homelylauncher.utils.Constants;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * An app icon and its label, drawn directly instead of composed from an image and a TextView.
+ * <p>
+ * Labels are laid out into StaticLayouts that are cached per style, keyed by text and width, so a
+ * recycled drawer row showing a label it's shown before doesn't measure it again. The paint, font
+ * and metrics are shared by every view of a style.
+ */
+public class AppIconView extends View {
+
+    public enum Style {
+        // Drawer rows: icon at the start, one line of label beside it
+        LIST,
+        // Grid cells: icon above center, up to two lines of label below it
+        GRID
+    }
+
+    private static final int LABEL_CACHE_SIZE = 256;
+    // Matches the vertical bias grid icons had when laid out by ConstraintLayout
+    private static final float GRID_ICON_VERTICAL_BIAS = 0.3F;
+
+    // Only touched on the main thread
+    private static final Map<Style, LabelRenderer> s_RENDERERS = new EnumMap<>(Style.class);
+
+    private final Style mStyle;
+    private final LabelRenderer mRenderer;
+    private final Paint mIconPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+    private final Rect mIconSrc = new Rect();
+    private final Rect mIconBounds = new Rect();
+    private final int mIconSize;
+    private final int mLabelSpacing;
+    // Only used by GRID, which insets the label from both edges
+    private final int mLabelPadding;
+
+    @Nullable private Bitmap mIcon;
+    private CharSequence mLabel = "";
+    @Nullable private StaticLayout mLabelLayout;
+    private int mLabelLeft, mLabelTop;
+
+    public AppIconView(Context context, Style style) {
+        super(context);
+        mStyle = style;
+        mRenderer = getRenderer(context, style);
+        final Resources res = context.getResources();
+        if (style == Style.LIST) {
+            mIconSize = res.getDimensionPixelSize(R.dimen.app_drawer_app_icon_size);
+            mLabelSpacing = res.getDimensionPixelSize(R.dimen.app_drawer_app_horizontal_margin);
+            final int verticalPadding =
+                res.getDimensionPixelSize(R.dimen.app_drawer_app_vertical_padding);
+            setPadding(0, verticalPadding, 0, verticalPadding);
+            mLabelPadding = 0;
+        } else {
+            mIconSize = res.getDimensionPixelSize(R.dimen.grid_app_icon_size);
+            mLabelSpacing = res.getDimensionPixelSize(R.dimen.grid_app_label_spacing);
+            mLabelPadding = res.getDimensionPixelSize(R.dimen.grid_app_label_padding);
+        }
+    }
+
+    public void setIcon(@Nullable Bitmap icon) {
+        mIcon = icon;
+        if (icon != null) {
+            mIconSrc.set(0, 0, icon.getWidth(), icon.getHeight());
+        }
+        invalidate();
+    }
+
+    public void setLabel(CharSequence label) {
+        if (TextUtils.equals(mLabel, label)) {
+            return;
+        }
+        mLabel = label;
+        setContentDescription(label);
+        updateLabelLayout();
+        invalidate();
+    }
+
+    /**
+     * @return Where the icon is drawn, relative to this view.
+     */
+    public Rect getIconBounds() {
+        return new Rect(mIconBounds);
+    }
+
+    /**
+     * @return A detached, laid-out view of just the icon, for drag shadows.
+     */
+    public View createIconDragView() {
+        final BitmapView iconView = new BitmapView(getContext());
+        iconView.measure(
+            MeasureSpec.makeMeasureSpec(mIconBounds.width(), MeasureSpec.EXACTLY),
+            MeasureSpec.makeMeasureSpec(mIconBounds.height(), MeasureSpec.EXACTLY));
+        iconView.layout(0, 0, mIconBounds.width(), mIconBounds.height());
+        iconView.setBitmap(mIcon);
+        return iconView;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final int width = MeasureSpec.getSize(widthMeasureSpec);
+        if (mStyle == Style.GRID) {
+            setMeasuredDimension(width, MeasureSpec.getSize(heightMeasureSpec));
+            return;
+        }
+        final int contentHeight = Math.max(mIconSize, mRenderer.getLineHeight());
+        setMeasuredDimension(
+            width,
+            resolveSize(getPaddingTop() + contentHeight + getPaddingBottom(), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (mStyle == Style.GRID) {
+            final int iconLeft = (w - mIconSize) / 2;
+            final int iconTop = (int) ((h - mIconSize) * GRID_ICON_VERTICAL_BIAS);
+            mIconBounds.set(iconLeft, iconTop, iconLeft + mIconSize, iconTop + mIconSize);
+        } else {
+            final int contentTop = getPaddingTop();
+            final int contentHeight = h - getPaddingTop() - getPaddingBottom();
+            final int iconTop = contentTop + (contentHeight - mIconSize) / 2;
+            final int iconLeft =
+                isLayoutRtl() ? w - mLabelSpacing - mIconSize : mLabelSpacing;
+            mIconBounds.set(iconLeft, iconTop, iconLeft + mIconSize, iconTop + mIconSize);
+        }
+        updateLabelLayout();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mIcon != null) {
+            canvas.drawBitmap(mIcon, mIconSrc, mIconBounds, mIconPaint);
+        }
+        if (mLabelLayout != null) {
+            canvas.save();
+            canvas.translate(mLabelLeft, mLabelTop);
+            mLabelLayout.draw(canvas);
+            canvas.restore();
+        }
+    }
+
+    private void updateLabelLayout() {
+        final int width = getWidth();
+        if (width == 0) {
+            return;
+        }
+        final int labelWidth;
+        if (mStyle == Style.GRID) {
+            labelWidth = width - mLabelPadding * 2;
+            mLabelLeft = mLabelPadding;
+        } else {
+            labelWidth = width - mIconSize - mLabelSpacing * 3;
+        }
+        if (labelWidth <= 0) {
+            mLabelLayout = null;
+            return;
+        }
+        mLabelLayout = mRenderer.getLayout(mLabel, labelWidth);
+        if (mStyle == Style.GRID) {
+            mLabelTop = mIconBounds.bottom + mLabelSpacing;
+            return;
+        }
+        // Place the text itself, not the layout box, beside the icon, whatever its direction
+        mLabelLeft = isLayoutRtl() ?
+                     (int) (mIconBounds.left - mLabelSpacing - mLabelLayout.getLineRight(0)) :
+                     (int) (mIconBounds.right + mLabelSpacing - mLabelLayout.getLineLeft(0));
+        mLabelTop = (getHeight() - mLabelLayout.getHeight()) / 2;
+    }
+
+    private boolean isLayoutRtl() {
+        return getLayoutDirection() == LAYOUT_DIRECTION_RTL;
+    }
+
+    private static LabelRenderer getRenderer(Context context, Style style) {
+        final Resources res = context.getResources();
+        final float textSize = res.getDimension(
+            style == Style.LIST ?
+            R.dimen.app_drawer_app_label_text_size :
+            R.dimen.grid_app_label_text_size);
+        @Nullable final Typeface typeface =
+            FontCacheSync.Companion.get().getTypeface(getFontPath(style));
+        final int color = context.getColor(R.color.primary_text_color);
+        @Nullable final LabelRenderer renderer = s_RENDERERS.get(style);
+        // Font scale, density, font override or color changes invalidate everything measured so
+        // far
+        if (renderer != null &&
+            renderer.mPaint.getTextSize() == textSize &&
+            renderer.mTypeface == typeface &&
+            renderer.mPaint.getColor() == color) {
+            return renderer;
+        }
+        final LabelRenderer newRenderer =
+            new LabelRenderer(style, textSize, typeface, color);
+        s_RENDERERS.put(style, newRenderer);
+        return newRenderer;
+    }
+
+    private static String getFontPath(Style style) {
+        return style == Style.GRID ? Constants.GRID_FONT_PATH : Constants.LIST_FONT_PATH;
+    }
+
+    private static class LabelRenderer {
+
+        private final TextPaint mPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        // The font override this was built with; null for the default font
+        @Nullable private final Typeface mTypeface;
+        private final int mMaxLines;
+        private final Layout.Alignment mAlignment;
+        // Keyed by width, then label, so a lookup doesn't have to build a combined key; views of
+        // one style are nearly always the same width, so there are only a few of these
+        private final SparseArray<LruCache<String, StaticLayout>> mLayoutsByWidth =
+            new SparseArray<>();
+        private final int mLineHeight;
+
+        LabelRenderer(Style style, float textSize, @Nullable Typeface typeface, int color) {
+            mTypeface = typeface;
+            mPaint.setTextSize(textSize);
+            mPaint.setColor(color);
+            if (typeface != null) {
+                mPaint.setTypeface(typeface);
+            }
+            if (style == Style.GRID) {
+                mPaint.setShadowLayer(8, 0, 0, Color.BLACK);
+                mMaxLines = 2;
+                mAlignment = Layout.Alignment.ALIGN_CENTER;
+            } else {
+                mMaxLines = 1;
+                mAlignment = Layout.Alignment.ALIGN_NORMAL;
+            }
+            final Paint.FontMetricsInt metrics = mPaint.getFontMetricsInt();
+            mLineHeight = metrics.bottom - metrics.top;
+        }
+
+        int getLineHeight() {
+            return mLineHeight;
+        }
+
+        StaticLayout getLayout(CharSequence label, int width) {
+            @Nullable LruCache<String, StaticLayout> layouts = mLayoutsByWidth.get(width);
+            if (layouts == null) {
+                layouts = new LruCache<>(LABEL_CACHE_SIZE);
+                mLayoutsByWidth.put(width, layouts);
+            }
+            // Labels are Strings already, so this doesn't copy
+            final String key = label.toString();
+            @Nullable StaticLayout layout = layouts.get(key);
+            if (layout == null) {
+                layout = StaticLayout.Builder.obtain(label, 0, label.length(), mPaint, width)
+                    .setAlignment(mAlignment)
+                    .setMaxLines(mMaxLines)
+                    .setEllipsize(TextUtils.TruncateAt.END)
+                    .build();
+                layouts.put(key, layout);
+            }
+            return layout;
+        }
+    }
+}
@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.WeakHashMap;
+import java.util.function.Supplier;
 
 import static android.view.DragEvent.ACTION_DRAG_ENDED;
 import static android.view.DragEvent.ACTION_DRAG_ENTERED;
@@ -188,7 +189,7 @@ public class DecorViewDragger {
             return;
         }
 
-        log("Starting drag w/ startX=" + startX + " && startY=" + startY);
+        log(() -> "Starting drag w/ startX=" + startX + " && startY=" + startY);
         mInDrag = true;
         mLocalState = localState;
 
@@ -262,7 +263,7 @@ public class DecorViewDragger {
     public synchronized boolean onDragMoveEvent(float currentX, float currentY) {
         DebugLogUtils.needle(
             DebugLogUtils.TAG_CUSTOM_TOUCHEVENTS,
-            "onDragMoveEvent x=" + currentX + ", y=" + currentY);
+            () -> "onDragMoveEvent x=" + currentX + ", y=" + currentY);
         return onDragMoveEvent((int) currentX, (int) currentY);
     }
 
@@ -372,8 +373,14 @@ public class DecorViewDragger {
     }
 
 
-    private void log(String... vals) {
-        DebugLogUtils.needle(DebugLogUtils.TAG_DECOR_DRAGGER, 1, getClass().getSimpleName(), vals);
+    private void log(String message) {
+        DebugLogUtils.needle(
+            DebugLogUtils.TAG_DECOR_DRAGGER, 1, getClass().getSimpleName(), message);
+    }
+
+    private void log(Supplier<String> message) {
+        DebugLogUtils.needle(
+            DebugLogUtils.TAG_DECOR_DRAGGER, 1, getClass().getSimpleName(), message);
     }
 
     private void sendDragEvent(TargetedDragAwareComponent component, int action) {
@@ -419,7 +426,7 @@ public class DecorViewDragger {
     }
 
     private void recalculate() {
-        log("Recalculating w/ " + mCurrentX + ", " + mCurrentY);
+        log(() -> "Recalculating w/ " + mCurrentX + ", " + mCurrentY);
         if (!mInDrag) {
             log("Recalculate dropped; not in drag anymore...");
             return;
@@ -261,7 +261,7 @@ public class DecorViewManager {
     public void updateViewPosition(String key, int x, int y) {
         DebugLogUtils.needle(
             DebugLogUtils.TAG_CUSTOM_TOUCHEVENTS,
-            "updateViewPosition key=" + key + ", x=" + x + ", y=" + y);
+            () -> "updateViewPosition key=" + key + ", x=" + x + ", y=" + y);
         @Nullable FrameLayout decorView = getDecorView();
         @Nullable View attachedView = mViewKeyToView.get(key);
         if (decorView != null && attachedView != null) {
@@ -0,0 +1,78 @@
+package com.inipage.homelylauncher.widgets;
+
+import android.appwidget.AppWidgetHostView;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.widget.RemoteViews;
+
+import javax.annotation.Nullable;
+
+/**
+ * AppWidgetHostView that can hold off on applying RemoteViews while it isn't visible. Only the
+ * most recent update is kept; it's applied once updates are no longer deferred.
+ */
+public class DeferrableAppWidgetHostView extends AppWidgetHostView {
+
+    // Snapshots are only shown while scrolling past a page, so half resolution is plenty
+    private static final float SNAPSHOT_SCALE = 0.5F;
+
+    private boolean mDeferUpdates;
+    private boolean mHasPendingUpdate;
+    @Nullable private RemoteViews mPendingRemoteViews;
+
+    public DeferrableAppWidgetHostView(Context context) {
+        super(context);
+    }
+
+    @Override
+    public void updateAppWidget(@Nullable RemoteViews remoteViews) {
+        if (mDeferUpdates) {
+            mPendingRemoteViews = remoteViews;
+            mHasPendingUpdate = true;
+            return;
+        }
+        super.updateAppWidget(remoteViews);
+    }
+
+    public void setDeferUpdates(boolean deferUpdates) {
+        if (mDeferUpdates == deferUpdates) {
+            return;
+        }
+        mDeferUpdates = deferUpdates;
+        if (!deferUpdates && mHasPendingUpdate) {
+            final RemoteViews pendingRemoteViews = mPendingRemoteViews;
+            mPendingRemoteViews = null;
+            mHasPendingUpdate = false;
+            super.updateAppWidget(pendingRemoteViews);
+        }
+    }
+
+    public boolean isDeferringUpdates() {
+        return mDeferUpdates;
+    }
+
+    /**
+     * Render the current contents of this view into a (downscaled) bitmap.
+     *
+     * @return The rendered bitmap, or null if the view hasn't been laid out yet.
+     */
+    @Nullable
+    public Bitmap captureSnapshot() {
+        if (getWidth() <= 0 || getHeight() <= 0) {
+            return null;
+        }
+        final int width = Math.max(1, (int) (getWidth() * SNAPSHOT_SCALE));
+        final int height = Math.max(1, (int) (getHeight() * SNAPSHOT_SCALE));
+        try {
+            final Bitmap snapshot = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            final Canvas canvas = new Canvas(snapshot);
+            canvas.scale(SNAPSHOT_SCALE, SNAPSHOT_SCALE);
+            draw(canvas);
+            return snapshot;
+        } catch (OutOfMemoryError | RuntimeException drawFailure) {
+            // Some widgets don't take kindly to being drawn into a software canvas
+            return null;
+        }
+    }
+}
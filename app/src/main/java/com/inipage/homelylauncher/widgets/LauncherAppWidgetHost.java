@@ -0,0 +1,47 @@
+package com.inipage.homelylauncher.widgets;
+
+import android.appwidget.AppWidgetHost;
+import android.appwidget.AppWidgetHostView;
+import android.appwidget.AppWidgetProviderInfo;
+import android.content.Context;
+
+/**
+ * AppWidgetHost that hands out DeferrableAppWidgetHostViews, and keeps track of whether it's
+ * listening so start/stop calls from different lifecycle paths are idempotent.
+ */
+public class LauncherAppWidgetHost extends AppWidgetHost {
+
+    private boolean mIsListening;
+
+    public LauncherAppWidgetHost(Context context, int hostId) {
+        super(context, hostId);
+    }
+
+    @Override
+    protected AppWidgetHostView onCreateView(
+        Context context, int appWidgetId, AppWidgetProviderInfo appWidget) {
+        return new DeferrableAppWidgetHostView(context);
+    }
+
+    @Override
+    public void startListening() {
+        if (mIsListening) {
+            return;
+        }
+        super.startListening();
+        mIsListening = true;
+    }
+
+    @Override
+    public void stopListening() {
+        if (!mIsListening) {
+            return;
+        }
+        super.stopListening();
+        mIsListening = false;
+    }
+
+    public boolean isListening() {
+        return mIsListening;
+    }
+}
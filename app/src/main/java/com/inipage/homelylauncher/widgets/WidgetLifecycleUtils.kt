@@ -162,6 +162,17 @@ object WidgetLifecycleUtils {
         context: Context, appWidgetId: Int, widthPx: Int, heightPx: Int
     ): AppWidgetHostView? {
         val awpi = getAppWidgetProviderInfo(context, appWidgetId) ?: return null
+        return buildAppWidgetHostView(context, appWidgetId, awpi, widthPx, heightPx)
+    }
+
+    @JvmStatic
+    fun buildAppWidgetHostView(
+        context: Context,
+        appWidgetId: Int,
+        awpi: AppWidgetProviderInfo,
+        widthPx: Int,
+        heightPx: Int
+    ): AppWidgetHostView {
         val width = if (widthPx < 0) awpi.minWidth else widthPx
         val height = if (heightPx < 0) awpi.minHeight else heightPx
         // getApplicationContext is important -- we want a Context that is not themed
@@ -0,0 +1,167 @@
+package com.inipage.homelylauncher;
+
+import static android.os.Process.myUserHandle;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProviderInfo;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.LauncherActivityInfo;
+import android.content.pm.LauncherApps;
+import android.content.pm.PackageInfo;
+import android.content.pm.ShortcutInfo;
+import android.os.UserHandle;
+
+import org.robolectric.shadows.ShadowLauncherApps;
+import org.robolectric.util.ReflectionHelpers;
+import org.robolectric.util.ReflectionHelpers.ClassParameter;
+
+import java.util.Random;
+
+/**
+ * Populates Robolectric's LauncherApps, PackageManager and AppWidgetManager with a well-used
+ * phone's worth of made-up apps, widgets and shortcuts. Seeded, so runs are comparable.
+ */
+class FakeDevice {
+
+    static final int APP_COUNT = 400;
+    static final int WIDGET_COUNT = 150;
+    static final int SHORTCUT_COUNT = 300;
+
+    private static final String[] WORDS = {
+        "Mail", "Maps", "Camera", "Photos", "Notes", "Music", "Clock", "Calendar", "Files",
+        "Weather", "Wallet", "News", "Podcasts", "Chat", "Video", "Drive", "Fitness", "Translate",
+    };
+    // Accented and numeric prefixes exercise every section and collation path
+    private static final String[] PREFIXES =
+        { "", "", "", "My ", "Super", "1", "\u00C4", "\u00E9" };
+
+    private final Context mContext;
+    private final LauncherApps mLauncherApps;
+    private final Random mRandom = new Random(42);
+    private int mAppCount;
+
+    FakeDevice(Context context) {
+        mContext = context;
+        mLauncherApps = (LauncherApps) context.getSystemService(Context.LAUNCHER_APPS_SERVICE);
+    }
+
+    void populate() {
+        for (int i = 0; i < APP_COUNT; i++) {
+            installApp();
+        }
+        final AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(mContext);
+        for (int i = 0; i < WIDGET_COUNT; i++) {
+            shadowOf(appWidgetManager).addInstalledProvider(createWidget(i % APP_COUNT, i));
+        }
+        final ShadowLauncherApps launcherApps = shadowOf(mLauncherApps);
+        launcherApps.setHasShortcutHostPermission(true);
+        for (int i = 0; i < SHORTCUT_COUNT; i++) {
+            launcherApps.addDynamicShortcut(createShortcut(i % APP_COUNT, i));
+        }
+    }
+
+    /**
+     * Install one more app. Listeners aren't told; see ShadowLauncherApps#notifyPackageAdded.
+     *
+     * @return The new app's package name.
+     */
+    String installApp() {
+        final int index = mAppCount++;
+        final String packageName = getPackageName(index);
+        final String label =
+            PREFIXES[mRandom.nextInt(PREFIXES.length)] +
+                WORDS[mRandom.nextInt(WORDS.length)] +
+                " " +
+                index;
+
+        final ApplicationInfo applicationInfo = new ApplicationInfo();
+        applicationInfo.packageName = packageName;
+        applicationInfo.nonLocalizedLabel = label;
+        final ActivityInfo activityInfo = new ActivityInfo();
+        activityInfo.packageName = packageName;
+        activityInfo.name = getActivityName(index);
+        activityInfo.nonLocalizedLabel = label;
+        activityInfo.exported = true;
+        activityInfo.applicationInfo = applicationInfo;
+        final PackageInfo packageInfo = new PackageInfo();
+        packageInfo.packageName = packageName;
+        packageInfo.applicationInfo = applicationInfo;
+        packageInfo.activities = new ActivityInfo[] { activityInfo };
+
+        shadowOf(mContext.getPackageManager()).installPackage(packageInfo);
+        shadowOf(mLauncherApps).addActivity(myUserHandle(), createLauncherActivityInfo(activityInfo));
+        return packageName;
+    }
+
+    static String getPackageName(int index) {
+        return "com.example.app" + index;
+    }
+
+    private static String getActivityName(int index) {
+        return getPackageName(index) + ".MainActivity";
+    }
+
+    /**
+     * LauncherActivityInfo's constructors are hidden; this is their SDK 33 shape, which is why the
+     * tests using this pin that SDK.
+     */
+    private LauncherActivityInfo createLauncherActivityInfo(ActivityInfo activityInfo) {
+        final ClassLoader classLoader = getClass().getClassLoader();
+        final Class<?> statesClass =
+            ReflectionHelpers.loadClass(classLoader, "android.content.pm.IncrementalStatesInfo");
+        final Class<?> internalClass = ReflectionHelpers.loadClass(
+            classLoader, "android.content.pm.LauncherActivityInfoInternal");
+        final Object states = ReflectionHelpers.callConstructor(
+            statesClass,
+            ClassParameter.from(boolean.class, false),
+            ClassParameter.from(float.class, 1F));
+        final Object internal = ReflectionHelpers.callConstructor(
+            internalClass,
+            ClassParameter.from(ActivityInfo.class, activityInfo),
+            ClassParameter.from(statesClass, states));
+        return ReflectionHelpers.callConstructor(
+            LauncherActivityInfo.class,
+            ClassParameter.from(Context.class, mContext),
+            ClassParameter.from(UserHandle.class, myUserHandle()),
+            ClassParameter.from(internalClass, internal));
+    }
+
+    private AppWidgetProviderInfo createWidget(int appIndex, int index) {
+        final String packageName = getPackageName(appIndex);
+        final ActivityInfo providerInfo = new ActivityInfo();
+        providerInfo.packageName = packageName;
+        providerInfo.name = packageName + ".Widget" + index;
+        providerInfo.nonLocalizedLabel = "Widget " + index;
+        providerInfo.applicationInfo = new ApplicationInfo();
+        providerInfo.applicationInfo.packageName = packageName;
+        final AppWidgetProviderInfo info = new AppWidgetProviderInfo();
+        info.provider = new ComponentName(packageName, providerInfo.name);
+        info.providerInfo = providerInfo;
+        info.minWidth = 110;
+        info.minHeight = 40;
+        info.resizeMode = AppWidgetProviderInfo.RESIZE_BOTH;
+        return info;
+    }
+
+    private ShortcutInfo createShortcut(int appIndex, int index) {
+        final String packageName = getPackageName(appIndex);
+        // Shortcuts belong to whichever package the builder's context reports
+        final Context packageContext = new ContextWrapper(mContext) {
+            @Override
+            public String getPackageName() {
+                return packageName;
+            }
+        };
+        return new ShortcutInfo.Builder(packageContext, "shortcut" + index)
+            .setShortLabel(WORDS[index % WORDS.length] + " " + index)
+            .setActivity(new ComponentName(packageName, getActivityName(appIndex)))
+            .setIntent(new Intent(Intent.ACTION_VIEW).setPackage(packageName))
+            .build();
+    }
+}
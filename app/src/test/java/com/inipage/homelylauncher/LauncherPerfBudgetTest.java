@@ -0,0 +1,222 @@
+package com.inipage.homelylauncher;
+
+import static android.os.Looper.getMainLooper;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.content.pm.LauncherApps;
+import android.widget.EditText;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.inipage.homelylauncher.drawer.AppDrawerController;
+import com.inipage.homelylauncher.utils.PerfMetrics;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Main thread budgets for the launcher's hot paths, on a fake device with hundreds of apps,
+ * widgets and shortcuts: cold start, opening the drawer, typing a search and a burst of package
+ * installs and removals. Budgets are the ones PerfMetrics reports against on devices.
+ * <p>
+ * Launcher singletons live as long as the process, as they do on a device, so this is a single
+ * journey through one process rather than independent tests.
+ * <p>
+ * Robolectric runs the framework as shadows on a desktop JVM, with a cold JIT, so budgets are
+ * scaled by {@link #BUDGET_SCALE}; pass -PperfBudgetScale to change it.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(
+    sdk = 33,
+    application = PerfTestApplication.class,
+    shadows = {
+        MainThreadAccessDetector.ShadowWatchedLauncherApps.class,
+        MainThreadAccessDetector.ShadowWatchedAppWidgetManager.class,
+        MainThreadAccessDetector.ShadowWatchedPackageManager.class,
+        MainThreadAccessDetector.ShadowWatchedSQLiteConnectionPool.class,
+    })
+public class LauncherPerfBudgetTest {
+
+    private static final float BUDGET_SCALE =
+        Float.parseFloat(System.getProperty("perfBudgetScale", "3"));
+    // Opening the drawer is a pager scroll; PerfMetrics has no span for it, so allow three frames
+    private static final long DRAWER_OPEN_BUDGET_MS = 48;
+    // Applying a search result is one frame's work
+    private static final long SEARCH_RESULT_BUDGET_MS = 16;
+    private static final String QUERY = "camera";
+    private static final int PACKAGE_BURST_SIZE = 20;
+    // How long to wait for background work, like search matching, to post back
+    private static final long BACKGROUND_TIMEOUT_MS = 2000;
+
+    @Test
+    public void launcherStaysWithinBudgets() throws InterruptedException {
+        final PerfTestApplication application = ApplicationProvider.getApplicationContext();
+        MainThreadAccessDetector.install(application);
+
+        // Cold start; ApplicationClass.onCreate has already run
+        assertWithinBudget(
+            "ApplicationClass.onCreate",
+            application.getCreateDurationNs(),
+            PerfMetrics.APPLICATION_CREATE.getBudgetMs());
+        assertEquals(
+            "A full app load should take one activity list query",
+            1,
+            PerfMetrics.ACTIVITY_LIST_QUERIES.get());
+        long start = System.nanoTime();
+        final HomeActivity activity = Robolectric.buildActivity(HomeActivity.class).setup().get();
+        shadowOf(getMainLooper()).idle();
+        assertWithinBudget(
+            "HomeActivity start", System.nanoTime() - start, PerfMetrics.HOME_CREATE.getBudgetMs());
+
+        // Drawer open, through the whole pager scroll
+        MainThreadAccessDetector.arm();
+        start = System.nanoTime();
+        activity.requestAppDrawerFocus();
+        shadowOf(getMainLooper()).idleFor(Duration.ofSeconds(1));
+        final long drawerOpenNs = System.nanoTime() - start;
+        assertNoAccess("Opening the drawer", MainThreadAccessDetector.disarm());
+        assertWithinBudget("Opening the drawer", drawerOpenNs, DRAWER_OPEN_BUDGET_MS);
+
+        // Search; typed once to warm the path, since the budget is about typing, not class loading
+        final AppDrawerController drawer = activity.getPager().getAppDrawerController();
+        final EditText searchBox = activity.findViewById(R.id.search_box);
+        type(searchBox, QUERY);
+        drawer.quitSearch();
+        shadowOf(getMainLooper()).idle();
+        MainThreadAccessDetector.arm();
+        final List<Long> keystrokesNs = type(searchBox, QUERY);
+        final long resultsNs = idleUntilQuiet();
+        assertNoAccess("Searching", MainThreadAccessDetector.disarm());
+        for (int i = 0; i < keystrokesNs.size(); i++) {
+            assertWithinBudget(
+                "Keystroke " + (i + 1),
+                keystrokesNs.get(i),
+                PerfMetrics.SEARCH_KEYSTROKE.getBudgetMs());
+        }
+        assertWithinBudget("Applying search results", resultsNs, SEARCH_RESULT_BUDGET_MS);
+        drawer.quitSearch();
+        shadowOf(getMainLooper()).idle();
+
+        // Package burst: installs, then removals, each handled as it arrives
+        final LauncherApps launcherApps =
+            (LauncherApps) application.getSystemService(Context.LAUNCHER_APPS_SERVICE);
+        final List<String> installed = new ArrayList<>();
+        for (int i = 0; i < PACKAGE_BURST_SIZE; i++) {
+            installed.add(application.getDevice().installApp());
+        }
+        warmPackageEvents(launcherApps, installed.remove(0));
+        MainThreadAccessDetector.arm();
+        for (String packageName : installed) {
+            start = System.nanoTime();
+            shadowOf(launcherApps).notifyPackageAdded(packageName);
+            shadowOf(getMainLooper()).idle();
+            assertWithinBudget(
+                "Install of " + packageName,
+                System.nanoTime() - start,
+                PerfMetrics.PACKAGE_UPDATE.getBudgetMs());
+        }
+        for (String packageName : installed) {
+            start = System.nanoTime();
+            shadowOf(launcherApps).notifyPackageRemoved(packageName);
+            shadowOf(getMainLooper()).idle();
+            assertWithinBudget(
+                "Removal of " + packageName,
+                System.nanoTime() - start,
+                PerfMetrics.PACKAGE_UPDATE.getBudgetMs());
+        }
+        assertPackageEventAccess(MainThreadAccessDetector.disarm(), installed.size());
+    }
+
+    /**
+     * Type |text| into |searchBox| a character at a time, running whatever each keystroke posts.
+     *
+     * @return How long each keystroke kept the main thread busy.
+     */
+    private static List<Long> type(EditText searchBox, String text) {
+        final List<Long> durationsNs = new ArrayList<>(text.length());
+        for (int i = 1; i <= text.length(); i++) {
+            final long start = System.nanoTime();
+            searchBox.setText(text.substring(0, i));
+            shadowOf(getMainLooper()).idle();
+            durationsNs.add(System.nanoTime() - start);
+        }
+        return durationsNs;
+    }
+
+    /**
+     * Run main thread work posted from background threads until none arrives for a while.
+     *
+     * @return The longest single batch of main thread work.
+     */
+    private static long idleUntilQuiet() throws InterruptedException {
+        final long deadline =
+            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BACKGROUND_TIMEOUT_MS);
+        long longestNs = 0;
+        int quietRounds = 0;
+        while (quietRounds < 10 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            if (shadowOf(getMainLooper()).isIdle()) {
+                quietRounds++;
+                continue;
+            }
+            quietRounds = 0;
+            final long start = System.nanoTime();
+            shadowOf(getMainLooper()).idle();
+            longestNs = Math.max(longestNs, System.nanoTime() - start);
+        }
+        return longestNs;
+    }
+
+    private static void warmPackageEvents(LauncherApps launcherApps, String packageName) {
+        shadowOf(launcherApps).notifyPackageAdded(packageName);
+        shadowOf(getMainLooper()).idle();
+        shadowOf(launcherApps).notifyPackageRemoved(packageName);
+        shadowOf(getMainLooper()).idle();
+    }
+
+    /**
+     * Package events arrive on the main thread and re-query the changed package there. That's
+     * fine in moderation: at most the package's activities and widgets per event, and no disk.
+     */
+    private static void assertPackageEventAccess(List<String> accesses, int installCount) {
+        for (String access : accesses) {
+            assertFalse("Disk access handling package events: " + access, access.startsWith("disk"));
+        }
+        assertTrue(
+            "Too many binder calls handling package events:\n" + String.join("\n", accesses),
+            accesses.size() <= 2 * installCount);
+    }
+
+    private static void assertNoAccess(String stage, List<String> accesses) {
+        assertTrue(
+            stage + " touched disk or binder on the main thread:\n" + String.join("\n", accesses),
+            accesses.isEmpty());
+    }
+
+    private static void assertWithinBudget(String stage, long durationNs, long budgetMs) {
+        final double durationMs = durationNs / 1_000_000D;
+        final double scaledBudgetMs = budgetMs * BUDGET_SCALE;
+        assertTrue(
+            String.format(
+                Locale.US,
+                "%s took %.1fms on the main thread; budget is %dms (x%.1f on the host)",
+                stage,
+                durationMs,
+                budgetMs,
+                BUDGET_SCALE),
+            durationMs <= scaledBudgetMs);
+    }
+}
@@ -0,0 +1,256 @@
+package com.inipage.homelylauncher;
+
+import static org.robolectric.util.reflector.Reflector.reflector;
+
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProviderInfo;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.LauncherActivityInfo;
+import android.content.pm.LauncherApps;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.content.pm.ShortcutInfo;
+import android.content.res.Resources;
+import android.os.CancellationSignal;
+import android.os.Looper;
+import android.os.UserHandle;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.RealObject;
+import org.robolectric.shadows.ShadowAppWidgetManager;
+import org.robolectric.shadows.ShadowApplicationPackageManager;
+import org.robolectric.shadows.ShadowLauncherApps;
+import org.robolectric.util.reflector.Direct;
+import org.robolectric.util.reflector.ForType;
+
+import java.security.Permission;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * StrictMode for Robolectric: records disk and binder access on the main thread while armed.
+ * <p>
+ * Under Robolectric, file and service calls never reach BlockGuard, so StrictMode itself sees
+ * nothing. Instead, file access under the app's data directory is caught with a SecurityManager,
+ * SQLite through the connection pool every statement acquires a connection from, and binder calls
+ * through the shadows of the system services the launcher talks to. Register the shadows below
+ * with @Config(shadows = ...).
+ */
+public class MainThreadAccessDetector {
+
+    private static final String APP_PACKAGE = "com.inipage.homelylauncher";
+
+    private static final List<String> s_ACCESSES = new CopyOnWriteArrayList<>();
+    private static volatile boolean s_ARMED;
+    private static volatile String s_DATA_PATH;
+
+    /**
+     * Start watching file access under |context|'s data directory. Safe to call more than once.
+     */
+    public static synchronized void install(Context context) {
+        s_DATA_PATH = context.getDataDir().getAbsolutePath();
+        if (!(System.getSecurityManager() instanceof FileAccessWatcher)) {
+            System.setSecurityManager(new FileAccessWatcher());
+        }
+    }
+
+    public static void arm() {
+        s_ACCESSES.clear();
+        s_ARMED = true;
+    }
+
+    /**
+     * @return Every main thread access since {@link #arm()}, with the launcher code responsible.
+     */
+    public static List<String> disarm() {
+        s_ARMED = false;
+        return new ArrayList<>(s_ACCESSES);
+    }
+
+    private static void onDiskAccess(String description) {
+        record("disk", description);
+    }
+
+    private static void onBinderCall(String description) {
+        record("binder", description);
+    }
+
+    private static void record(String type, String description) {
+        if (!s_ARMED || Looper.myLooper() != Looper.getMainLooper()) {
+            return;
+        }
+        s_ACCESSES.add(type + " " + description + " from " + findCaller());
+    }
+
+    /**
+     * @return The innermost launcher frame on the stack, skipping this test harness.
+     */
+    private static String findCaller() {
+        for (StackTraceElement frame : Thread.currentThread().getStackTrace()) {
+            final String className = frame.getClassName();
+            if (className.startsWith(APP_PACKAGE) &&
+                !className.startsWith(MainThreadAccessDetector.class.getName()))
+            {
+                return frame.toString();
+            }
+        }
+        return "<framework>";
+    }
+
+    private static class FileAccessWatcher extends SecurityManager {
+
+        @Override
+        public void checkRead(String file) {
+            onFileAccess("read", file);
+        }
+
+        @Override
+        public void checkWrite(String file) {
+            onFileAccess("write", file);
+        }
+
+        @Override
+        public void checkDelete(String file) {
+            onFileAccess("delete", file);
+        }
+
+        @Override
+        public void checkPermission(Permission perm) {
+            // Only watching, not enforcing
+        }
+
+        @Override
+        public void checkPermission(Permission perm, Object context) {
+        }
+
+        private static void onFileAccess(String operation, String file) {
+            // Class loading reads jars all the time; only the app's own files matter
+            final String dataPath = s_DATA_PATH;
+            if (dataPath != null && file.startsWith(dataPath)) {
+                onDiskAccess(operation + " " + file);
+            }
+        }
+    }
+
+    @Implements(className = "android.database.sqlite.SQLiteConnectionPool", isInAndroidSdk = false)
+    public static class ShadowWatchedSQLiteConnectionPool {
+
+        @RealObject private Object mRealPool;
+
+        @Implementation
+        protected Object acquireConnection(
+            String sql, int connectionFlags, CancellationSignal cancellationSignal) {
+            onDiskAccess("SQLite " + sql);
+            return reflector(SQLiteConnectionPoolReflector.class, mRealPool)
+                .acquireConnection(sql, connectionFlags, cancellationSignal);
+        }
+    }
+
+    @ForType(className = "android.database.sqlite.SQLiteConnectionPool")
+    interface SQLiteConnectionPoolReflector {
+
+        @Direct
+        Object acquireConnection(
+            String sql, int connectionFlags, CancellationSignal cancellationSignal);
+    }
+
+    @Implements(LauncherApps.class)
+    public static class ShadowWatchedLauncherApps extends ShadowLauncherApps {
+
+        @Implementation
+        @Override
+        protected List<LauncherActivityInfo> getActivityList(
+            String packageName, UserHandle user) {
+            onBinderCall("LauncherApps.getActivityList(" + packageName + ")");
+            return super.getActivityList(packageName, user);
+        }
+
+        @Implementation
+        @Override
+        protected List<ShortcutInfo> getShortcuts(
+            LauncherApps.ShortcutQuery query, UserHandle user) {
+            onBinderCall("LauncherApps.getShortcuts");
+            return super.getShortcuts(query, user);
+        }
+    }
+
+    @Implements(AppWidgetManager.class)
+    public static class ShadowWatchedAppWidgetManager extends ShadowAppWidgetManager {
+
+        @Implementation
+        @Override
+        protected List<AppWidgetProviderInfo> getInstalledProviders() {
+            onBinderCall("AppWidgetManager.getInstalledProviders");
+            return super.getInstalledProviders();
+        }
+
+        @Implementation
+        @Override
+        protected List<AppWidgetProviderInfo> getInstalledProvidersForProfile(UserHandle profile) {
+            onBinderCall("AppWidgetManager.getInstalledProvidersForProfile");
+            return super.getInstalledProvidersForProfile(profile);
+        }
+    }
+
+    @Implements(
+        className = "android.app.ApplicationPackageManager",
+        isInAndroidSdk = false,
+        looseSignatures = true)
+    public static class ShadowWatchedPackageManager extends ShadowApplicationPackageManager {
+
+        @Implementation
+        @Override
+        protected ApplicationInfo getApplicationInfo(String packageName, int flags)
+            throws PackageManager.NameNotFoundException {
+            onBinderCall("PackageManager.getApplicationInfo(" + packageName + ")");
+            return super.getApplicationInfo(packageName, flags);
+        }
+
+        @Implementation
+        @Override
+        protected ActivityInfo getActivityInfo(ComponentName component, int flags)
+            throws PackageManager.NameNotFoundException {
+            onBinderCall("PackageManager.getActivityInfo(" + component + ")");
+            return super.getActivityInfo(component, flags);
+        }
+
+        @Implementation
+        @Override
+        protected PackageInfo getPackageInfo(String packageName, int flags)
+            throws PackageManager.NameNotFoundException {
+            onBinderCall("PackageManager.getPackageInfo(" + packageName + ")");
+            return super.getPackageInfo(packageName, flags);
+        }
+
+        @Implementation
+        @Override
+        protected List<ResolveInfo> queryIntentActivities(Intent intent, int flags) {
+            onBinderCall("PackageManager.queryIntentActivities(" + intent + ")");
+            return super.queryIntentActivities(intent, flags);
+        }
+
+        @Implementation
+        @Override
+        protected Resources getResourcesForApplication(String packageName)
+            throws PackageManager.NameNotFoundException {
+            onBinderCall("PackageManager.getResourcesForApplication(" + packageName + ")");
+            return super.getResourcesForApplication(packageName);
+        }
+
+        @Implementation
+        @Override
+        protected Resources getResourcesForApplication(ApplicationInfo applicationInfo)
+            throws PackageManager.NameNotFoundException {
+            onBinderCall(
+                "PackageManager.getResourcesForApplication(" + applicationInfo.packageName + ")");
+            return super.getResourcesForApplication(applicationInfo);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.inipage.homelylauncher;
+
+/**
+ * ApplicationClass on a {@link FakeDevice}. The device is populated before the launcher seeds its
+ * caches, as on a real cold start, and onCreate is timed with the host clock; Robolectric's
+ * SystemClock, which PerfMetrics uses, doesn't advance on its own.
+ */
+public class PerfTestApplication extends ApplicationClass {
+
+    private FakeDevice mDevice;
+    private long mCreateDurationNs;
+
+    @Override
+    public void onCreate() {
+        mDevice = new FakeDevice(this);
+        mDevice.populate();
+        final long start = System.nanoTime();
+        super.onCreate();
+        mCreateDurationNs = System.nanoTime() - start;
+    }
+
+    FakeDevice getDevice() {
+        return mDevice;
+    }
+
+    long getCreateDurationNs() {
+        return mCreateDurationNs;
+    }
+}
@@ -0,0 +1,98 @@
+package com.inipage.homelylauncher.dock.items;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Offline evaluation for the LaunchPredictor. Replays a launch log in order against a fresh
+ * in-memory model: before each launch we ask for a prediction, check whether the launched app was
+ * in the top k, and only then train on that launch. See LaunchPredictionEvaluatorTest for running
+ * it against a log pulled from a device.
+ */
+public class LaunchPredictionEvaluator {
+
+    static final int[] TOP_K = new int[] { 1, 3, 5, 10 };
+    // Don't score the first few launches; every model is guessing at that point
+    private static final int WARMUP_LAUNCHES = 20;
+
+    public static Result evaluate(List<LaunchLog.Entry> launches) {
+        final LaunchPredictor predictor = LaunchPredictor.createInMemory();
+        final int maxK = TOP_K[TOP_K.length - 1];
+        final int[] hits = new int[TOP_K.length];
+        final long[] latenciesNs = new long[Math.max(0, launches.size() - WARMUP_LAUNCHES)];
+        int scored = 0;
+        for (int i = 0; i < launches.size(); i++) {
+            final LaunchLog.Entry launch = launches.get(i);
+            if (i >= WARMUP_LAUNCHES) {
+                final long start = System.nanoTime();
+                final List<String> predictions =
+                    predictor.predict(
+                        maxK, launch.getTimestamp(), launch.isCharging(), packageName -> true);
+                latenciesNs[scored] = System.nanoTime() - start;
+                final int rank = predictions.indexOf(launch.getPackageName());
+                for (int k = 0; k < TOP_K.length; k++) {
+                    if (rank >= 0 && rank < TOP_K[k]) {
+                        hits[k]++;
+                    }
+                }
+                scored++;
+            }
+            predictor.observe(
+                launch.getPackageName(),
+                launch.getTimestamp(),
+                launch.isCharging(),
+                LaunchModel.LAUNCHER_LAUNCH_WEIGHT);
+        }
+        Arrays.sort(latenciesNs, 0, scored);
+        return new Result(launches.size(), scored, hits, latenciesNs);
+    }
+
+    public static class Result {
+
+        private final int mTotalLaunches;
+        private final int mScoredLaunches;
+        private final int[] mHits;
+        private final long[] mSortedLatenciesNs;
+
+        Result(int totalLaunches, int scoredLaunches, int[] hits, long[] sortedLatenciesNs) {
+            mTotalLaunches = totalLaunches;
+            mScoredLaunches = scoredLaunches;
+            mHits = hits;
+            mSortedLatenciesNs = sortedLatenciesNs;
+        }
+
+        public float getHitRate(int kIndex) {
+            return mScoredLaunches == 0 ? 0 : (float) mHits[kIndex] / mScoredLaunches;
+        }
+
+        public long getLatencyPercentileNs(float percentile) {
+            if (mScoredLaunches == 0) {
+                return 0;
+            }
+            final int idx = Math.min(mScoredLaunches - 1, (int) (percentile * mScoredLaunches));
+            return mSortedLatenciesNs[idx];
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+            sb.append(String.format(
+                Locale.US,
+                "Replayed %d launches (%d scored after warmup)\n",
+                mTotalLaunches,
+                mScoredLaunches));
+            for (int k = 0; k < TOP_K.length; k++) {
+                sb.append(String.format(
+                    Locale.US, "Top-%d hit rate: %.1f%%\n", TOP_K[k], getHitRate(k) * 100));
+            }
+            sb.append(String.format(
+                Locale.US,
+                "Scoring latency: p50 %.1fus, p95 %.1fus, max %.1fus",
+                getLatencyPercentileNs(0.5F) / 1000F,
+                getLatencyPercentileNs(0.95F) / 1000F,
+                getLatencyPercentileNs(1F) / 1000F));
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.inipage.homelylauncher.dock.items;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class LaunchPredictionEvaluatorTest {
+
+    // Replay real history by pulling the launch log from a device:
+    //   adb shell run-as com.inipage.homelylauncher cat files/launch_log.bin > launch_log.bin
+    //   ./gradlew :app:testDebugUnitTest -PlaunchLog=$PWD/launch_log.bin
+    private static final String LAUNCH_LOG_PROPERTY = "launchLog";
+
+    private static final String[] ROUTINE_PACKAGES = {
+        "com.example.news", "com.example.lunch", "com.example.video"
+    };
+    private static final int[] ROUTINE_HOURS = { 8, 12, 21 };
+    private static final int NOISE_PACKAGES = 20;
+
+    @Test
+    public void predictsDailyRoutine() {
+        final LaunchPredictionEvaluator.Result result =
+            LaunchPredictionEvaluator.evaluate(createRoutineLaunches(56));
+
+        // Half the launches are routine and should almost always be the top guess; the other half
+        // are spread across 20 apps at random hours
+        assertTrue(result.toString(), result.getHitRate(0) > 0.4F);
+        assertTrue(result.toString(), result.getHitRate(1) > 0.45F);
+    }
+
+    @Test
+    public void emptyLogScoresNothing() {
+        final LaunchPredictionEvaluator.Result result =
+            LaunchPredictionEvaluator.evaluate(new ArrayList<>());
+
+        assertEquals(0F, result.getHitRate(0), 0F);
+        assertEquals(0, result.getLatencyPercentileNs(0.5F));
+    }
+
+    @Test
+    public void replaysPulledLaunchLog() throws IOException {
+        final String path = System.getProperty(LAUNCH_LOG_PROPERTY);
+        assumeTrue(path != null && !path.isEmpty());
+
+        final List<LaunchLog.Entry> launches = new ArrayList<>();
+        try (DataInputStream dis =
+                 new DataInputStream(new BufferedInputStream(new FileInputStream(path))))
+        {
+            while (true) {
+                launches.add(LaunchLog.Entry.readFrom(dis));
+            }
+        } catch (EOFException endOfLog) {
+            // Done
+        }
+        System.out.println(LaunchPredictionEvaluator.evaluate(launches));
+    }
+
+    /**
+     * @return Each day: one launch of each routine app around its usual hour (the evening one
+     * while charging), and three launches of random apps at random times.
+     */
+    private static List<LaunchLog.Entry> createRoutineLaunches(int days) {
+        final Random random = new Random(7);
+        final Calendar start = Calendar.getInstance();
+        start.set(2024, Calendar.JANUARY, 1, 0, 0, 0);
+        start.set(Calendar.MILLISECOND, 0);
+        final List<LaunchLog.Entry> launches = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            for (int i = 0; i < ROUTINE_PACKAGES.length; i++) {
+                launches.add(new LaunchLog.Entry(
+                    getTimestamp(start, day, ROUTINE_HOURS[i], random.nextInt(20)),
+                    i == ROUTINE_PACKAGES.length - 1,
+                    ROUTINE_PACKAGES[i]));
+            }
+            for (int i = 0; i < 3; i++) {
+                launches.add(new LaunchLog.Entry(
+                    getTimestamp(start, day, random.nextInt(24), random.nextInt(60)),
+                    random.nextBoolean(),
+                    "com.example.noise" + random.nextInt(NOISE_PACKAGES)));
+            }
+        }
+        launches.sort(Comparator.comparingLong(LaunchLog.Entry::getTimestamp));
+        return launches;
+    }
+
+    private static long getTimestamp(Calendar start, int day, int hour, int minute) {
+        final Calendar calendar = (Calendar) start.clone();
+        calendar.add(Calendar.DAY_OF_YEAR, day);
+        calendar.set(Calendar.HOUR_OF_DAY, hour);
+        calendar.set(Calendar.MINUTE, minute);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,97 @@
+package com.inipage.homelylauncher.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ComponentKeyTest {
+
+    @Test
+    public void internsEqualComponents() {
+        final ComponentKey key = ComponentKey.of("com.example.mail", "com.example.mail.Inbox");
+
+        // Distinct String instances with the same contents must still find the interned key
+        assertSame(
+            key,
+            ComponentKey.of(new String("com.example.mail"), new String("com.example.mail.Inbox")));
+    }
+
+    @Test
+    public void distinguishesComponents() {
+        final ComponentKey inbox = ComponentKey.of("com.example.mail", "com.example.mail.Inbox");
+        final ComponentKey compose = ComponentKey.of("com.example.mail", "com.example.mail.Compose");
+        // Would collide if the key were built by concatenating the two names
+        final ComponentKey splitEarly = ComponentKey.of("com.example", "mail.Inbox");
+        final ComponentKey splitLate = ComponentKey.of("com.example.mail", ".Inbox");
+
+        assertNotSame(inbox, compose);
+        assertNotEquals(inbox, compose);
+        assertNotEquals(splitEarly, splitLate);
+        assertNotEquals(splitEarly.getId(), splitLate.getId());
+    }
+
+    @Test
+    public void idsAreStableAndUnique() {
+        final ComponentKey key = ComponentKey.of("com.example.maps", "com.example.maps.Main");
+        final int id = key.getId();
+        final Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add(ComponentKey.of("com.example.app" + i, "com.example.Main").getId());
+        }
+
+        assertEquals(id, ComponentKey.of("com.example.maps", "com.example.maps.Main").getId());
+        assertEquals(100, ids.size());
+        assertFalse(ids.contains(id));
+    }
+
+    @Test
+    public void equalsAndHashCodeAreConsistent() {
+        final ComponentKey key = ComponentKey.of("com.example.music", "com.example.music.Player");
+        final ComponentKey same = ComponentKey.of("com.example.music", "com.example.music.Player");
+        final Map<ComponentKey, String> map = new HashMap<>();
+        map.put(key, "Player");
+
+        assertEquals(key, same);
+        assertEquals(key.hashCode(), same.hashCode());
+        assertNotEquals(key, null);
+        assertNotEquals(key, "com.example.music/com.example.music.Player");
+        assertEquals("Player", map.get(same));
+        assertEquals("com.example.music/com.example.music.Player", key.toString());
+        assertEquals("com.example.music", key.getPackageName());
+        assertEquals("com.example.music.Player", key.getActivityName());
+    }
+
+    @Test
+    public void internsAcrossThreads() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Callable<ComponentKey>> lookups = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                lookups.add(() -> ComponentKey.of(
+                    new String("com.example.race"), new String("com.example.race.Main")));
+            }
+            final ComponentKey expected =
+                ComponentKey.of("com.example.race", "com.example.race.Main");
+            for (Future<ComponentKey> result : executor.invokeAll(lookups)) {
+                assertSame(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.inipage.homelylauncher.attributes;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates an AttributeBinder for every class with @SizeValAttribute, @SizeDimenAttribute or
+ * @ColorAttribute fields, plus the GeneratedAttributeBinders registry AttributeApplier looks them
+ * up in. Binders assign the fields directly, so annotated fields must be neither private nor final;
+ * classes that don't qualify are skipped with a warning and keep using the reflective path.
+ */
+@SupportedAnnotationTypes({
+    AttributeBinderProcessor.SIZE_VAL_ATTRIBUTE,
+    AttributeBinderProcessor.SIZE_DIMEN_ATTRIBUTE,
+    AttributeBinderProcessor.COLOR_ATTRIBUTE
+})
+public class AttributeBinderProcessor extends AbstractProcessor {
+
+    private static final String UTILS_PACKAGE = "com.inipage.homelylauncher.utils";
+    static final String SIZE_VAL_ATTRIBUTE = UTILS_PACKAGE + ".SizeValAttribute";
+    static final String SIZE_DIMEN_ATTRIBUTE = UTILS_PACKAGE + ".SizeDimenAttribute";
+    static final String COLOR_ATTRIBUTE = UTILS_PACKAGE + ".ColorAttribute";
+    private static final String REGISTRY_NAME = "GeneratedAttributeBinders";
+    private static final String BINDER_SUFFIX = "_AttributeBinder";
+
+    private boolean mRegistryWritten;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (mRegistryWritten) {
+            return false;
+        }
+        final Messager messager = processingEnv.getMessager();
+        final Map<TypeElement, List<String>> bindings = new LinkedHashMap<>();
+        final List<TypeElement> skipped = new ArrayList<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.FIELD) {
+                    continue;
+                }
+                final VariableElement field = (VariableElement) element;
+                final TypeElement owner = (TypeElement) field.getEnclosingElement();
+                if (skipped.contains(owner)) {
+                    continue;
+                }
+                final String binding = createBinding(field, annotation, messager);
+                if (binding == null) {
+                    skipped.add(owner);
+                    bindings.remove(owner);
+                    continue;
+                }
+                bindings.computeIfAbsent(owner, key -> new ArrayList<>()).add(binding);
+            }
+        }
+        try {
+            for (Map.Entry<TypeElement, List<String>> entry : bindings.entrySet()) {
+                writeBinder(entry.getKey(), entry.getValue());
+            }
+            writeRegistry(bindings.keySet());
+        } catch (IOException e) {
+            messager.printMessage(
+                Diagnostic.Kind.ERROR, "Couldn't write attribute binders: " + e.getMessage());
+        }
+        mRegistryWritten = true;
+        return false;
+    }
+
+    /**
+     * @return A statement assigning the field, or null if the field can't be bound directly.
+     */
+    private String createBinding(
+        VariableElement field, TypeElement annotation, Messager messager) {
+        final String annotationName = annotation.getQualifiedName().toString();
+        final TypeKind type = field.asType().getKind();
+        if (type != TypeKind.INT && type != TypeKind.FLOAT) {
+            messager.printMessage(
+                Diagnostic.Kind.ERROR,
+                annotation.getSimpleName() + " must be applied to a float or integer",
+                field);
+            return null;
+        }
+        if (annotationName.equals(COLOR_ATTRIBUTE) && type != TypeKind.INT) {
+            messager.printMessage(
+                Diagnostic.Kind.ERROR, "ColorAttribute must be applied to an integer", field);
+            return null;
+        }
+        if (field.getModifiers().contains(Modifier.PRIVATE) ||
+            field.getModifiers().contains(Modifier.FINAL)) {
+            messager.printMessage(
+                Diagnostic.Kind.WARNING,
+                "Private or final fields can't be bound at build time; " +
+                    field.getEnclosingElement() + " will use reflection",
+                field);
+            return null;
+        }
+
+        final AnnotationMirror mirror = findMirror(field, annotationName);
+        if (mirror == null) {
+            return null;
+        }
+        final String resolved;
+        switch (annotationName) {
+            case SIZE_VAL_ATTRIBUTE: {
+                final float value = ((Number) getValue(mirror, "value")).floatValue();
+                final Object attrType = getValue(mirror, "attrType");
+                final boolean isSp = attrType != null && attrType.toString().equals("SP");
+                resolved = String.format(
+                    Locale.US,
+                    "AttributeApplier.%s(context, %sF)",
+                    isSp ? "resolveSp" : "resolveDip",
+                    Float.toString(value));
+                break;
+            }
+            case SIZE_DIMEN_ATTRIBUTE:
+                resolved = "AttributeApplier.resolveDimen(context, " +
+                    getValue(mirror, "value") + ")";
+                break;
+            default:
+                resolved = "AttributeApplier.resolveColor(context, " +
+                    getValue(mirror, "value") + ")";
+                break;
+        }
+        return "target." + field.getSimpleName() + " = " +
+            (type == TypeKind.INT && !annotationName.equals(COLOR_ATTRIBUTE) ? "(int) " : "") +
+            resolved + ";";
+    }
+
+    private static AnnotationMirror findMirror(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            final TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The value of |name| on |mirror|, falling back to the annotation's default when it
+     * isn't set explicitly.
+     */
+    private Object getValue(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+            processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private void writeBinder(TypeElement owner, List<String> bindings) throws IOException {
+        final String packageName = getPackageName(owner);
+        final String binderName = getBinderName(owner);
+        final String targetName = owner.getQualifiedName().toString();
+        try (Writer writer = processingEnv.getFiler()
+            .createSourceFile(packageName + "." + binderName, owner)
+            .openWriter()) {
+            writer.write("// Generated by AttributeBinderProcessor. Do not edit.\n");
+            writer.write("package " + packageName + ";\n\n");
+            writer.write("import android.content.Context;\n\n");
+            writer.write("import " + UTILS_PACKAGE + ".AttributeApplier;\n");
+            writer.write("import " + UTILS_PACKAGE + ".AttributeBinder;\n\n");
+            writer.write("public final class " + binderName +
+                             " implements AttributeBinder<" + targetName + "> {\n\n");
+            writer.write("    @Override\n");
+            writer.write("    public void bind(" + targetName + " target, Context context) {\n");
+            for (String binding : bindings) {
+                writer.write("        " + binding + "\n");
+            }
+            writer.write("    }\n}\n");
+        }
+    }
+
+    private void writeRegistry(Set<TypeElement> owners) throws IOException {
+        try (Writer writer = processingEnv.getFiler()
+            .createSourceFile(UTILS_PACKAGE + "." + REGISTRY_NAME, owners.toArray(new Element[0]))
+            .openWriter()) {
+            writer.write("// Generated by AttributeBinderProcessor. Do not edit.\n");
+            writer.write("package " + UTILS_PACKAGE + ";\n\n");
+            writer.write("final class " + REGISTRY_NAME + " {\n\n");
+            writer.write("    static AttributeBinder<?> get(Class<?> type) {\n");
+            for (TypeElement owner : owners) {
+                writer.write("        if (type == " + owner.getQualifiedName() + ".class) {\n");
+                writer.write("            return new " + getPackageName(owner) + "." +
+                                 getBinderName(owner) + "();\n");
+                writer.write("        }\n");
+            }
+            writer.write("        return null;\n    }\n}\n");
+        }
+    }
+
+    private String getPackageName(TypeElement owner) {
+        final PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(owner);
+        return packageElement.getQualifiedName().toString();
+    }
+
+    /**
+     * Outer_Inner_AttributeBinder for nested classes, so binders never collide.
+     */
+    private String getBinderName(TypeElement owner) {
+        final String packageName = getPackageName(owner);
+        final String qualifiedName = owner.getQualifiedName().toString();
+        final String simpleNames =
+            packageName.isEmpty() ? qualifiedName : qualifiedName.substring(packageName.length() + 1);
+        return simpleNames.replace('.', '_') + BINDER_SUFFIX;
+    }
+}
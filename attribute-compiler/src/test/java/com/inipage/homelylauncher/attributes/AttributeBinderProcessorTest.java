@@ -0,0 +1,192 @@
+package com.inipage.homelylauncher.attributes;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaFileObject;
+
+public class AttributeBinderProcessorTest {
+
+    private static final String REGISTRY =
+        "com.inipage.homelylauncher.utils.GeneratedAttributeBinders";
+
+    // Just enough of the app's annotations, runtime and android.jar for the sources to compile
+    private static final List<JavaFileObject> LAUNCHER_SOURCES = Arrays.asList(
+        JavaFileObjects.forSourceLines(
+            "android.content.Context",
+            "package android.content;",
+            "public class Context {}"),
+        JavaFileObjects.forSourceLines(
+            "com.inipage.homelylauncher.utils.SizeValAttribute",
+            "package com.inipage.homelylauncher.utils;",
+            "public @interface SizeValAttribute {",
+            "    AttributeType attrType() default AttributeType.DIP;",
+            "    float value();",
+            "    enum AttributeType { DIP, SP }",
+            "}"),
+        JavaFileObjects.forSourceLines(
+            "com.inipage.homelylauncher.utils.SizeDimenAttribute",
+            "package com.inipage.homelylauncher.utils;",
+            "public @interface SizeDimenAttribute {",
+            "    int value();",
+            "}"),
+        JavaFileObjects.forSourceLines(
+            "com.inipage.homelylauncher.utils.ColorAttribute",
+            "package com.inipage.homelylauncher.utils;",
+            "public @interface ColorAttribute {",
+            "    int value();",
+            "}"),
+        JavaFileObjects.forSourceLines(
+            "com.inipage.homelylauncher.utils.AttributeBinder",
+            "package com.inipage.homelylauncher.utils;",
+            "import android.content.Context;",
+            "public interface AttributeBinder<T> {",
+            "    void bind(T target, Context context);",
+            "}"),
+        JavaFileObjects.forSourceLines(
+            "com.inipage.homelylauncher.utils.AttributeApplier",
+            "package com.inipage.homelylauncher.utils;",
+            "import android.content.Context;",
+            "public class AttributeApplier {",
+            "    public static float resolveDip(Context context, float value) { return value; }",
+            "    public static float resolveSp(Context context, float value) { return value; }",
+            "    public static float resolveDimen(Context context, int resId) { return 0F; }",
+            "    public static int resolveColor(Context context, int resId) { return 0; }",
+            "}"));
+
+    @Test
+    public void bindsSizeValAttributes() {
+        final Compilation compilation = compile(
+            JavaFileObjects.forSourceLines(
+                "com.example.Sized",
+                "package com.example;",
+                "import com.inipage.homelylauncher.utils.SizeValAttribute;",
+                "public class Sized {",
+                "    @SizeValAttribute(4F) int mPadding;",
+                "    @SizeValAttribute(value = 12F, attrType = SizeValAttribute.AttributeType.SP)",
+                "    float mTextSize;",
+                "}"));
+
+        assertThat(compilation).succeededWithoutWarnings();
+        // attrType isn't set on mPadding, so it takes the annotation's default
+        assertThat(compilation)
+            .generatedSourceFile("com.example.Sized_AttributeBinder")
+            .contentsAsUtf8String()
+            .contains("target.mPadding = (int) AttributeApplier.resolveDip(context, 4.0F);");
+        assertThat(compilation)
+            .generatedSourceFile("com.example.Sized_AttributeBinder")
+            .contentsAsUtf8String()
+            .contains("target.mTextSize = AttributeApplier.resolveSp(context, 12.0F);");
+        assertThat(compilation)
+            .generatedSourceFile(REGISTRY)
+            .contentsAsUtf8String()
+            .contains("return new com.example.Sized_AttributeBinder();");
+    }
+
+    @Test
+    public void bindsSizeDimenAttributes() {
+        final Compilation compilation = compile(
+            JavaFileObjects.forSourceLines(
+                "com.example.Dimensioned",
+                "package com.example;",
+                "import com.inipage.homelylauncher.utils.SizeDimenAttribute;",
+                "public class Dimensioned {",
+                "    static final int GAP = 0x7f050001;",
+                "    @SizeDimenAttribute(GAP) float mGap;",
+                "    @SizeDimenAttribute(GAP) int mGapPx;",
+                "}"));
+
+        assertThat(compilation).succeededWithoutWarnings();
+        assertThat(compilation)
+            .generatedSourceFile("com.example.Dimensioned_AttributeBinder")
+            .contentsAsUtf8String()
+            .contains("target.mGap = AttributeApplier.resolveDimen(context, 2131034113);");
+        assertThat(compilation)
+            .generatedSourceFile("com.example.Dimensioned_AttributeBinder")
+            .contentsAsUtf8String()
+            .contains("target.mGapPx = (int) AttributeApplier.resolveDimen(context, 2131034113);");
+    }
+
+    @Test
+    public void bindsColorAttributes() {
+        final Compilation compilation = compile(
+            JavaFileObjects.forSourceLines(
+                "com.example.Outer",
+                "package com.example;",
+                "import com.inipage.homelylauncher.utils.ColorAttribute;",
+                "public class Outer {",
+                "    public static class Tinted {",
+                "        @ColorAttribute(0x7f060002) int mTint;",
+                "    }",
+                "}"));
+
+        assertThat(compilation).succeededWithoutWarnings();
+        assertThat(compilation)
+            .generatedSourceFile("com.example.Outer_Tinted_AttributeBinder")
+            .contentsAsUtf8String()
+            .contains("target.mTint = AttributeApplier.resolveColor(context, 2131099650);");
+    }
+
+    @Test
+    public void leavesPrivateAndFinalFieldsToReflection() {
+        final Compilation compilation = compile(
+            JavaFileObjects.forSourceLines(
+                "com.example.Hidden",
+                "package com.example;",
+                "import com.inipage.homelylauncher.utils.ColorAttribute;",
+                "import com.inipage.homelylauncher.utils.SizeValAttribute;",
+                "public class Hidden {",
+                "    @SizeValAttribute(4F) int mPadding;",
+                "    @ColorAttribute(0x7f060002) private int mTint;",
+                "}"),
+            JavaFileObjects.forSourceLines(
+                "com.example.Constant",
+                "package com.example;",
+                "import com.inipage.homelylauncher.utils.SizeValAttribute;",
+                "public class Constant {",
+                "    @SizeValAttribute(4F) final int mPadding = 0;",
+                "}"));
+
+        assertThat(compilation).succeeded();
+        assertThat(compilation).hadWarningContaining("com.example.Hidden will use reflection");
+        assertThat(compilation).hadWarningContaining("com.example.Constant will use reflection");
+        // One unbindable field sends the whole class to reflection, so nothing is bound twice
+        assertThat(compilation)
+            .generatedSourceFile(REGISTRY)
+            .contentsAsUtf8String()
+            .doesNotContain("com.example.Hidden");
+        assertThat(compilation)
+            .generatedSourceFile(REGISTRY)
+            .contentsAsUtf8String()
+            .doesNotContain("com.example.Constant");
+    }
+
+    @Test
+    public void rejectsFieldsOfTheWrongType() {
+        final Compilation compilation = compile(
+            JavaFileObjects.forSourceLines(
+                "com.example.Mistyped",
+                "package com.example;",
+                "import com.inipage.homelylauncher.utils.ColorAttribute;",
+                "public class Mistyped {",
+                "    @ColorAttribute(0x7f060002) float mTint;",
+                "}"));
+
+        assertThat(compilation).hadErrorContaining("ColorAttribute must be applied to an integer");
+    }
+
+    private static Compilation compile(JavaFileObject... sources) {
+        final List<JavaFileObject> allSources = new ArrayList<>(LAUNCHER_SOURCES);
+        allSources.addAll(Arrays.asList(sources));
+        return Compiler.javac().withProcessors(new AttributeBinderProcessor()).compile(allSources);
+    }
+}
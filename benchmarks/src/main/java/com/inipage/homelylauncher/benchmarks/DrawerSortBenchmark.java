@@ -0,0 +1,133 @@
+package com.inipage.homelylauncher.benchmarks;
+
+import com.inipage.homelylauncher.drawer.SortKeys;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ordering the app drawer: a full sort with collation keys, the case-insensitive String sort the
+ * drawer used before them, computing keys for a cold label cache, and splicing newly installed
+ * apps into a sorted list the way AppDrawerAdapter does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class DrawerSortBenchmark {
+
+    private static final long SEED = 42;
+    private static final int APP_COUNT = 1000;
+    private static final int SPLICED_APP_COUNT = 100;
+
+    private static final Comparator<Label> COMPARATOR = (lhs, rhs) ->
+        SortKeys.compare(lhs.mSection, lhs.mSortKey, rhs.mSection, rhs.mSortKey);
+    // The drawer's ordering before collation keys
+    private static final Comparator<Label> LEGACY_COMPARATOR = (lhs, rhs) -> {
+        final int sectionComparison = SortKeys.getSectionComparator().compare(
+            computeLegacySection(lhs.mName), computeLegacySection(rhs.mName));
+        if (sectionComparison != 0) {
+            return sectionComparison;
+        }
+        return lhs.mName.compareToIgnoreCase(rhs.mName);
+    };
+
+    private List<String> mNames;
+    private List<Label> mLabels;
+    private List<Label> mSortedLabels;
+    private List<Label> mNewLabels;
+
+    @Setup
+    public void setUp() {
+        mNames = new SyntheticData(SEED).createLabels(APP_COUNT);
+        mLabels = toLabels(mNames);
+        mSortedLabels = new ArrayList<>(mLabels);
+        mSortedLabels.sort(COMPARATOR);
+        mNewLabels = toLabels(new SyntheticData(SEED + 1).createLabels(SPLICED_APP_COUNT));
+    }
+
+    @Benchmark
+    public List<Label> sort() {
+        final List<Label> copy = new ArrayList<>(mLabels);
+        copy.sort(COMPARATOR);
+        return copy;
+    }
+
+    @Benchmark
+    public List<Label> sortLegacy() {
+        final List<Label> copy = new ArrayList<>(mLabels);
+        copy.sort(LEGACY_COMPARATOR);
+        return copy;
+    }
+
+    @Benchmark
+    public void computeSortKeys(Blackhole blackhole) {
+        for (String name : mNames) {
+            blackhole.consume(SortKeys.computeSortKey(name));
+            blackhole.consume(SortKeys.computeSection(name));
+        }
+    }
+
+    @Benchmark
+    public List<Label> splice() {
+        final List<Label> copy = new ArrayList<>(mSortedLabels);
+        for (Label label : mNewLabels) {
+            final int idx = Math.abs(Collections.binarySearch(copy, label, COMPARATOR) + 1);
+            copy.add(idx, label);
+        }
+        return copy;
+    }
+
+    private static List<Label> toLabels(List<String> names) {
+        final List<Label> labels = new ArrayList<>(names.size());
+        for (String name : names) {
+            labels.add(new Label(name));
+        }
+        return labels;
+    }
+
+    private static char computeLegacySection(String name) {
+        if (name.isEmpty()) {
+            return SortKeys.NUMERIC;
+        }
+        final char firstChar = name.toUpperCase(Locale.US).charAt(0);
+        if (Character.isAlphabetic(firstChar) || Character.isIdeographic(firstChar)) {
+            return firstChar;
+        }
+        return SortKeys.NUMERIC;
+    }
+
+    /**
+     * A drawer entry, with its section and sort key computed up front as AppLabelCache does.
+     */
+    static class Label {
+
+        private final String mName;
+        private final char mSection;
+        private final byte[] mSortKey;
+
+        Label(String name) {
+            mName = name;
+            mSection = SortKeys.computeSection(name);
+            mSortKey = SortKeys.computeSortKey(name);
+        }
+    }
+}
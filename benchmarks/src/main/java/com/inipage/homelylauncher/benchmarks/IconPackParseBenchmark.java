@@ -0,0 +1,58 @@
+package com.inipage.homelylauncher.benchmarks;
+
+import com.inipage.homelylauncher.icons.AppFilterParser;
+
+import org.kxml2.io.KXmlParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the component mappings out of a 10k entry appfilter.xml, as IconPackLoader does when an
+ * icon pack is chosen or revalidated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class IconPackParseBenchmark {
+
+    private static final long SEED = 42;
+    private static final int ICON_PACK_SIZE = 10_000;
+
+    private String mAppFilterXml;
+
+    @Setup
+    public void setUp() {
+        mAppFilterXml = new SyntheticData(SEED).createAppFilterXml(ICON_PACK_SIZE);
+    }
+
+    @Benchmark
+    public Map<String, String> parseAppFilter() throws XmlPullParserException, IOException {
+        final Map<String, String> mappings = new HashMap<>();
+        final XmlPullParser parser = new KXmlParser();
+        parser.setInput(new StringReader(mAppFilterXml));
+        AppFilterParser.parse(
+            parser,
+            (packageName, activityName, drawableName) ->
+                mappings.put(packageName + "/" + activityName, drawableName));
+        return mappings;
+    }
+}
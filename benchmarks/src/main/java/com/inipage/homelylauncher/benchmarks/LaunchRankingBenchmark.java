@@ -0,0 +1,75 @@
+package com.inipage.homelylauncher.benchmarks;
+
+import com.inipage.homelylauncher.dock.items.LaunchModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The dock suggestion model: ranking against a model trained on a month of launches, and training
+ * a fresh model launch by launch while ranking before each one, as the launcher does over time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class LaunchRankingBenchmark {
+
+    private static final long SEED = 42;
+    private static final int APP_COUNT = 1000;
+    private static final int LAUNCH_COUNT = 2000;
+    private static final int SUGGESTION_COUNT = 10;
+    // A fixed moment, so results don't depend on the day the benchmark runs
+    private static final long END_TIMESTAMP = 1_700_000_000_000L;
+
+    private List<SyntheticData.Launch> mLaunches;
+    private LaunchModel mTrainedModel;
+
+    @Setup
+    public void setUp() {
+        mLaunches = new SyntheticData(SEED).createLaunches(LAUNCH_COUNT, APP_COUNT, END_TIMESTAMP);
+        mTrainedModel = new LaunchModel();
+        for (SyntheticData.Launch launch : mLaunches) {
+            observe(mTrainedModel, launch);
+        }
+    }
+
+    @Benchmark
+    public List<String> rank() {
+        return mTrainedModel.predict(
+            SUGGESTION_COUNT, END_TIMESTAMP, false, packageName -> true);
+    }
+
+    @Benchmark
+    public void replay(Blackhole blackhole) {
+        final LaunchModel model = new LaunchModel();
+        for (SyntheticData.Launch launch : mLaunches) {
+            blackhole.consume(
+                model.predict(
+                    SUGGESTION_COUNT, launch.mTimestamp, launch.mCharging, packageName -> true));
+            observe(model, launch);
+        }
+    }
+
+    private static void observe(LaunchModel model, SyntheticData.Launch launch) {
+        model.observe(
+            launch.mPackageName,
+            launch.mTimestamp,
+            launch.mCharging,
+            LaunchModel.LAUNCHER_LAUNCH_WEIGHT);
+    }
+}
@@ -0,0 +1,109 @@
+package com.inipage.homelylauncher.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Deterministic, made-up inputs for benchmarking: app labels, icon pack appfilters and launch
+ * histories. The same seed always produces the same data, so runs can be compared.
+ */
+class SyntheticData {
+
+    private static final String[] WORDS = {
+        "Mail", "maps", "Camera", "photos", "Notes", "music", "Clock", "calendar", "Files",
+        "weather", "Wallet", "news", "Podcasts", "chat", "Video", "drive", "Fitness", "translate",
+    };
+    private static final String[] PREFIXES =
+        { "", "", "", "My ", "Super", "1", "2", "\u00C4", "\u00E9", "" };
+
+    private final Random mRandom;
+
+    SyntheticData(long seed) {
+        mRandom = new Random(seed);
+    }
+
+    static String getPackageName(int index) {
+        return "com.example.app" + index;
+    }
+
+    static String getActivityName(int index) {
+        return getPackageName(index) + ".MainActivity";
+    }
+
+    /**
+     * @return |count| labels drawn from a small vocabulary, including digits, accents and case
+     * differences so every comparator branch is hit.
+     */
+    List<String> createLabels(int count) {
+        final List<String> labels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            labels.add(
+                PREFIXES[mRandom.nextInt(PREFIXES.length)] +
+                    WORDS[mRandom.nextInt(WORDS.length)] +
+                    " " +
+                    WORDS[mRandom.nextInt(WORDS.length)] +
+                    " " +
+                    i);
+        }
+        return labels;
+    }
+
+    /**
+     * @return An appfilter.xml with |count| component mappings, shaped like a real icon pack.
+     */
+    String createAppFilterXml(int count) {
+        final StringBuilder xml = new StringBuilder(count * 120);
+        xml.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<resources>\n");
+        xml.append("<iconback img1=\"iconback\" />\n<scale factor=\"0.8\" />\n");
+        for (int i = 0; i < count; i++) {
+            xml.append(String.format(
+                Locale.US,
+                "<item component=\"ComponentInfo{%s/%s}\" drawable=\"icon_%d\" />\n",
+                getPackageName(i),
+                getActivityName(i),
+                mRandom.nextInt(count)));
+        }
+        xml.append("</resources>\n");
+        return xml.toString();
+    }
+
+    /**
+     * @return |count| launches across |appCount| apps over the month before |endTimestamp|, in
+     * order. Popularity is skewed so a handful of apps dominate, and each app has a preferred hour.
+     */
+    List<Launch> createLaunches(int count, int appCount, long endTimestamp) {
+        final long spanMs = 30L * 24 * 60 * 60 * 1000;
+        final List<Launch> launches = new ArrayList<>(count);
+        final int maxStepMs = (int) Math.min(Integer.MAX_VALUE, Math.max(1, 2 * spanMs / count));
+        long timestamp = endTimestamp - spanMs;
+        for (int i = 0; i < count; i++) {
+            timestamp += mRandom.nextInt(maxStepMs);
+            // Squaring a uniform draw skews it toward low indices
+            final double draw = mRandom.nextDouble();
+            final int app = (int) (draw * draw * appCount);
+            final long hourOffset = (app % 24) * 60 * 60 * 1000L;
+            launches.add(new Launch(
+                timestamp - timestamp % (24 * 60 * 60 * 1000L) + hourOffset,
+                mRandom.nextInt(4) == 0,
+                getPackageName(app)));
+        }
+        launches.sort(Comparator.comparingLong(launch -> launch.mTimestamp));
+        return launches;
+    }
+
+    static class Launch {
+
+        final long mTimestamp;
+        final boolean mCharging;
+        final String mPackageName;
+
+        Launch(long timestamp, boolean charging, String packageName) {
+            mTimestamp = timestamp;
+            mCharging = charging;
+            mPackageName = packageName;
+        }
+    }
+}
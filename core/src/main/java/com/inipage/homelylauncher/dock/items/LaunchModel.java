@@ -0,0 +1,254 @@
+package com.inipage.homelylauncher.dock.items;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+
+/**
+ * The launch prediction model: per package, how often it's opened in each hour of the week, in
+ * each charging state, and how recently. Training is just bumping a few counters per observation,
+ * and scoring is a handful of multiplications per package.
+ * <p>
+ * Not thread safe; LaunchPredictor guards it and handles persistence.
+ */
+public final class LaunchModel {
+
+    public static final float LAUNCHER_LAUNCH_WEIGHT = 1F;
+    public static final float USAGE_EVENT_WEIGHT = 0.5F;
+
+    private static final int FILE_VERSION = 1;
+    private static final int HOURS_PER_WEEK = 24 * 7;
+
+    // Habits older than this count half as much as habits from today
+    private static final long HABIT_HALF_LIFE_MS = TimeUnit.DAYS.toMillis(14);
+    // A launch from an hour ago gets a large boost; one from yesterday very little
+    private static final long RECENCY_HALF_LIFE_MS = TimeUnit.HOURS.toMillis(2);
+    private static final float RECENCY_BOOST = 1F;
+    // Additive smoothing so unseen hours and states don't zero out a package
+    private static final float HOUR_SMOOTHING = 0.1F;
+    private static final float CHARGING_SMOOTHING = 1F;
+    // Usage events for an app we just launched ourselves are the same launch
+    private static final long DUPLICATE_WINDOW_MS = TimeUnit.SECONDS.toMillis(10);
+    private static final float PRUNE_THRESHOLD = 0.05F;
+
+    private final Map<String, PackageModel> mModels = new HashMap<>();
+
+    public void observe(
+        String packageName, long timestamp, @Nullable Boolean charging, float weight) {
+        @Nullable PackageModel model = mModels.get(packageName);
+        if (model == null) {
+            model = new PackageModel(packageName, timestamp);
+            mModels.put(packageName, model);
+        }
+        model.observe(timestamp, charging, weight);
+    }
+
+    /**
+     * @return Whether a usage event at |timestamp| is most likely a launch through the launcher
+     * that's already been observed.
+     */
+    public boolean isLauncherLaunch(String packageName, long timestamp) {
+        @Nullable final PackageModel model = mModels.get(packageName);
+        return model != null &&
+            Math.abs(timestamp - model.mLastLauncherLaunch) < DUPLICATE_WINDOW_MS;
+    }
+
+    /**
+     * Rank packages for the given moment.
+     *
+     * @param count  Max number of results.
+     * @param filter Only packages passing this are considered.
+     * @return Up to |count| packages, most likely first.
+     */
+    public List<String> predict(
+        int count, long timestamp, boolean charging, Predicate<String> filter) {
+        if (count <= 0) {
+            return Collections.emptyList();
+        }
+        final int hourOfWeek = getHourOfWeek(timestamp);
+        final PriorityQueue<PackageModel> heap =
+            new PriorityQueue<>(count + 1, (lhs, rhs) -> Float.compare(lhs.mRankScore, rhs.mRankScore));
+        for (PackageModel model : mModels.values()) {
+            model.mRankScore = model.score(timestamp, hourOfWeek, charging);
+            if (heap.size() >= count && model.mRankScore <= heap.peek().mRankScore) {
+                continue;
+            }
+            if (!filter.test(model.mPackageName)) {
+                continue;
+            }
+            heap.offer(model);
+            if (heap.size() > count) {
+                heap.poll();
+            }
+        }
+        final List<String> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(heap.poll().mPackageName);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Forget packages whose habits have decayed to almost nothing.
+     */
+    public void prune(long timestamp) {
+        mModels.values().removeIf(model -> model.getTotalAt(timestamp) < PRUNE_THRESHOLD);
+    }
+
+    public void writeTo(DataOutputStream dos) throws IOException {
+        dos.writeInt(FILE_VERSION);
+        dos.writeInt(mModels.size());
+        for (PackageModel model : mModels.values()) {
+            model.writeTo(dos);
+        }
+    }
+
+    /**
+     * Replace what's been learned with a model written by {@link #writeTo(DataOutputStream)}. A
+     * model from another version is ignored; a damaged one leaves this empty.
+     */
+    public void readFrom(DataInputStream dis) throws IOException {
+        mModels.clear();
+        try {
+            if (dis.readInt() != FILE_VERSION) {
+                return;
+            }
+            final int count = dis.readInt();
+            for (int i = 0; i < count; i++) {
+                final PackageModel model = PackageModel.readFrom(dis);
+                mModels.put(model.mPackageName, model);
+            }
+        } catch (IOException e) {
+            mModels.clear();
+            throw e;
+        }
+    }
+
+    private static int getHourOfWeek(long timestamp) {
+        final Calendar calendar = Calendar.getInstance(TimeZone.getDefault());
+        calendar.setTimeInMillis(timestamp);
+        return (calendar.get(Calendar.DAY_OF_WEEK) - Calendar.SUNDAY) * 24 +
+            calendar.get(Calendar.HOUR_OF_DAY);
+    }
+
+    private static float decay(long elapsedMs, long halfLifeMs) {
+        if (elapsedMs <= 0) {
+            return 1F;
+        }
+        return (float) Math.pow(0.5, (double) elapsedMs / halfLifeMs);
+    }
+
+    private static class PackageModel {
+
+        private final String mPackageName;
+        // All weights below are as of mLastUpdated, and decay together from there
+        private final float[] mHourWeights;
+        private final float[] mChargingWeights;
+        private float mTotal;
+        private long mLastUpdated;
+        private long mLastSeen;
+        private long mLastLauncherLaunch;
+        // Scratch space for ranking
+        private float mRankScore;
+
+        PackageModel(String packageName, long timestamp) {
+            mPackageName = packageName;
+            mHourWeights = new float[HOURS_PER_WEEK];
+            mChargingWeights = new float[2];
+            mLastUpdated = timestamp;
+        }
+
+        void observe(long timestamp, @Nullable Boolean charging, float weight) {
+            final boolean fromLauncher = weight >= LAUNCHER_LAUNCH_WEIGHT;
+            if (timestamp > mLastUpdated) {
+                final float decay = decay(timestamp - mLastUpdated, HABIT_HALF_LIFE_MS);
+                for (int i = 0; i < HOURS_PER_WEEK; i++) {
+                    mHourWeights[i] *= decay;
+                }
+                mChargingWeights[0] *= decay;
+                mChargingWeights[1] *= decay;
+                mTotal *= decay;
+                mLastUpdated = timestamp;
+            } else {
+                weight *= decay(mLastUpdated - timestamp, HABIT_HALF_LIFE_MS);
+            }
+            mHourWeights[getHourOfWeek(timestamp)] += weight;
+            mTotal += weight;
+            if (charging != null) {
+                mChargingWeights[charging ? 1 : 0] += weight;
+            }
+            mLastSeen = Math.max(mLastSeen, timestamp);
+            if (fromLauncher) {
+                mLastLauncherLaunch = Math.max(mLastLauncherLaunch, timestamp);
+            }
+        }
+
+        float getTotalAt(long timestamp) {
+            return mTotal * decay(timestamp - mLastUpdated, HABIT_HALF_LIFE_MS);
+        }
+
+        /**
+         * Roughly P(package) * P(hour | package) * P(charging | package), boosted by recency.
+         * The decay since mLastUpdated cancels out of the conditional terms, so only the total
+         * needs to be decayed.
+         */
+        float score(long timestamp, int hourOfWeek, boolean charging) {
+            if (mTotal <= 0) {
+                return 0;
+            }
+            // Spill a little into neighbouring hours so 8:55 and 9:05 look alike
+            final float hourWeight =
+                mHourWeights[hourOfWeek] +
+                    0.5F * mHourWeights[(hourOfWeek + 1) % HOURS_PER_WEEK] +
+                    0.5F * mHourWeights[(hourOfWeek + HOURS_PER_WEEK - 1) % HOURS_PER_WEEK];
+            final float hourLikelihood =
+                (hourWeight + HOUR_SMOOTHING) / (2 * mTotal + HOURS_PER_WEEK * HOUR_SMOOTHING);
+            final float chargingTotal = mChargingWeights[0] + mChargingWeights[1];
+            final float chargingLikelihood =
+                (mChargingWeights[charging ? 1 : 0] + CHARGING_SMOOTHING) /
+                    (chargingTotal + 2 * CHARGING_SMOOTHING);
+            final float recency =
+                1 + RECENCY_BOOST * decay(timestamp - mLastSeen, RECENCY_HALF_LIFE_MS);
+            return getTotalAt(timestamp) * hourLikelihood * chargingLikelihood * recency;
+        }
+
+        void writeTo(DataOutputStream dos) throws IOException {
+            dos.writeUTF(mPackageName);
+            dos.writeLong(mLastUpdated);
+            dos.writeLong(mLastSeen);
+            dos.writeLong(mLastLauncherLaunch);
+            dos.writeFloat(mTotal);
+            dos.writeFloat(mChargingWeights[0]);
+            dos.writeFloat(mChargingWeights[1]);
+            for (int i = 0; i < HOURS_PER_WEEK; i++) {
+                dos.writeFloat(mHourWeights[i]);
+            }
+        }
+
+        static PackageModel readFrom(DataInputStream dis) throws IOException {
+            final PackageModel model = new PackageModel(dis.readUTF(), dis.readLong());
+            model.mLastSeen = dis.readLong();
+            model.mLastLauncherLaunch = dis.readLong();
+            model.mTotal = dis.readFloat();
+            model.mChargingWeights[0] = dis.readFloat();
+            model.mChargingWeights[1] = dis.readFloat();
+            for (int i = 0; i < HOURS_PER_WEEK; i++) {
+                model.mHourWeights[i] = dis.readFloat();
+            }
+            return model;
+        }
+    }
+}
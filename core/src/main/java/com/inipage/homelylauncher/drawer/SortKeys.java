@@ -0,0 +1,115 @@
+package com.inipage.homelylauncher.drawer;
+
+import java.text.Collator;
+import java.text.Normalizer;
+import java.util.Comparator;
+import java.util.Locale;
+
+import javax.annotation.Nullable;
+
+/**
+ * How the app drawer orders names: first by lettered section, then by a collation key for the
+ * current locale, so accented and non-Latin names order the way users expect. Comparing two names
+ * is a byte comparison once their keys exist.
+ */
+public final class SortKeys {
+
+    public final static char NUMERIC = '#';
+    private static final Comparator<Character> SECTION_COMPARATOR = (o1c, o2c) -> {
+        if (o1c == o2c) {
+            return 0;
+        }
+        if (o1c == NUMERIC) {
+            return -1;
+        }
+        if (o2c == NUMERIC) {
+            return 1;
+        }
+        return o1c - o2c;
+    };
+
+    // Collators aren't thread-safe; one per thread lets keys be computed without a shared lock
+    private static final ThreadLocal<LocaleCollator> THREAD_COLLATOR = new ThreadLocal<>();
+
+    private SortKeys() {}
+
+    /**
+     * Sections sort in character order, except that NUMERIC comes first.
+     */
+    public static Comparator<Character> getSectionComparator() {
+        return SECTION_COMPARATOR;
+    }
+
+    /**
+     * Compare two names by their sections, then their sort keys.
+     */
+    public static int compare(char lhsSection, byte[] lhsKey, char rhsSection, byte[] rhsKey) {
+        final int sectionComparison = SECTION_COMPARATOR.compare(lhsSection, rhsSection);
+        if (sectionComparison != 0) {
+            return sectionComparison;
+        }
+        return compareSortKeys(lhsKey, rhsKey);
+    }
+
+    /**
+     * @return A collation key for |name| in the default locale. Case is ignored; accents only
+     * break ties.
+     */
+    public static byte[] computeSortKey(@Nullable String name) {
+        final Locale locale = Locale.getDefault();
+        @Nullable LocaleCollator collator = THREAD_COLLATOR.get();
+        if (collator == null || !locale.equals(collator.mLocale)) {
+            collator = new LocaleCollator(locale);
+            THREAD_COLLATOR.set(collator);
+        }
+        return collator.mCollator.getCollationKey(name == null ? "" : name).toByteArray();
+    }
+
+    /**
+     * @return The section |name| files under: its first letter without accents, or NUMERIC for
+     * digits, symbols and empty names.
+     */
+    public static char computeSection(@Nullable String name) {
+        if (name == null || name.isEmpty()) {
+            return NUMERIC;
+        }
+        final int firstCodePoint = name.codePointAt(0);
+        // Decompose so A-umlaut files under "A"; the base character always comes first
+        final String decomposed =
+            Normalizer.normalize(new String(Character.toChars(firstCodePoint)), Normalizer.Form.NFD);
+        final char firstChar = decomposed.toUpperCase(Locale.getDefault()).charAt(0);
+        if (Character.isDigit(firstChar)) {
+            return NUMERIC;
+        }
+        if (Character.isAlphabetic(firstChar) || Character.isIdeographic(firstChar)) {
+            return firstChar;
+        }
+        return NUMERIC; // Symbols, etc.
+    }
+
+    private static int compareSortKeys(byte[] lhs, byte[] rhs) {
+        final int length = Math.min(lhs.length, rhs.length);
+        for (int i = 0; i < length; i++) {
+            final int difference = (lhs[i] & 0xFF) - (rhs[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return lhs.length - rhs.length;
+    }
+
+    /**
+     * A collator, and the locale it was created for, so a locale change is noticed.
+     */
+    private static final class LocaleCollator {
+
+        private final Locale mLocale;
+        private final Collator mCollator;
+
+        LocaleCollator(Locale locale) {
+            mLocale = locale;
+            mCollator = Collator.getInstance(locale);
+            mCollator.setStrength(Collator.SECONDARY);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.inipage.homelylauncher.icons;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+
+/**
+ * Reads component to drawable mappings out of an icon pack's appfilter.xml. Only touches the
+ * parser, so it can be fed synthetic packs off-device.
+ */
+public final class AppFilterParser {
+
+    public interface Callback {
+
+        void onMapping(String packageName, String activityName, String drawableName);
+    }
+
+    private AppFilterParser() {}
+
+    public static void parse(XmlPullParser xmlParser, Callback callback)
+        throws XmlPullParserException, IOException {
+        int eventType = xmlParser.getEventType();
+        while (eventType != XmlPullParser.END_DOCUMENT) {
+            if (eventType != XmlPullParser.START_TAG) {
+                eventType = xmlParser.next();
+                continue;
+            }
+            final String componentValue = xmlParser.getAttributeValue(null, "component");
+            final String drawableValue = xmlParser.getAttributeValue(null, "drawable");
+            eventType = xmlParser.next();
+            if (componentValue == null || drawableValue == null) {
+                continue;
+            }
+            // ComponentInfo{packageName/activity}
+            final int startIdx = componentValue.indexOf('{') + 1;
+            final int endIdx = componentValue.indexOf('}');
+            final int midPoint = componentValue.indexOf('/');
+            if (startIdx >= componentValue.length() || endIdx < 0 || midPoint < 0 ||
+                midPoint > endIdx || midPoint <= startIdx) {
+                continue;
+            }
+            callback.onMapping(
+                componentValue.substring(startIdx, midPoint),
+                componentValue.substring(midPoint + 1, endIdx),
+                drawableValue);
+        }
+    }
+}